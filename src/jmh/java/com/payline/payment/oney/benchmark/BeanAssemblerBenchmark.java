@@ -0,0 +1,41 @@
+package com.payline.payment.oney.benchmark;
+
+import com.payline.payment.oney.bean.common.customer.Customer;
+import com.payline.payment.oney.bean.common.purchase.Purchase;
+import com.payline.payment.oney.exception.InvalidDataException;
+import com.payline.payment.oney.service.impl.BeanAssemblerServiceImpl;
+import com.payline.pmapi.bean.payment.request.PaymentRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Mapping of the Payline payment request to the Oney beans.
+ */
+@State(Scope.Benchmark)
+public class BeanAssemblerBenchmark {
+
+    @Param({"2", "200"})
+    int basketSize;
+
+    private final BeanAssemblerServiceImpl assembler = BeanAssemblerServiceImpl.getInstance();
+
+    private PaymentRequest paymentRequest;
+
+    @Setup
+    public void setup() {
+        paymentRequest = BenchmarkFixtures.paymentRequest(basketSize);
+    }
+
+    @Benchmark
+    public Purchase assemblePurchase() throws InvalidDataException {
+        return assembler.assemblePurchase(paymentRequest);
+    }
+
+    @Benchmark
+    public Customer assembleCustomer() throws InvalidDataException {
+        return assembler.assembleCustomer(paymentRequest);
+    }
+}
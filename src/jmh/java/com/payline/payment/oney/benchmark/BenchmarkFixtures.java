@@ -0,0 +1,60 @@
+package com.payline.payment.oney.benchmark;
+
+import com.payline.payment.oney.bean.common.NavigationData;
+import com.payline.payment.oney.bean.common.payment.PaymentData;
+import com.payline.payment.oney.bean.request.OneyPaymentRequest;
+import com.payline.payment.oney.service.impl.BeanAssemblerServiceImpl;
+import com.payline.payment.oney.utils.TestUtils;
+import com.payline.pmapi.bean.payment.Order;
+import com.payline.pmapi.bean.payment.request.PaymentRequest;
+
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+/**
+ * Requests shared by the benchmarks, built from the unit tests fixtures.
+ */
+final class BenchmarkFixtures {
+
+    static final String KEY = "66s581CG5W+RLEqZHAGQx+vskjy660Kt8x8rhtRpXtY=";
+
+    private BenchmarkFixtures() {
+        // ras.
+    }
+
+    /**
+     * A complete payment request, with a basket of the given size
+     */
+    static PaymentRequest paymentRequest(int basketSize) {
+        Currency euro = Currency.getInstance("EUR");
+        List<Order.OrderItem> items = new ArrayList<>(basketSize);
+        for (int i = 0; i < basketSize; i++) {
+            items.add(TestUtils.createOrderItem("item" + i, TestUtils.createAmount(euro)));
+        }
+        return TestUtils.createCompletePaymentRequestBuilder()
+                .withOrder(TestUtils.createCompleteOrderBuilder(TestUtils.createTransactionId()).withItems(items).build())
+                .build();
+    }
+
+    /**
+     * The Oney request sent for the given payment request, as PaymentServiceImpl assembles it
+     */
+    static OneyPaymentRequest oneyPaymentRequest(PaymentRequest paymentRequest) throws Exception {
+        BeanAssemblerServiceImpl assembler = BeanAssemblerServiceImpl.getInstance();
+        return OneyPaymentRequest.Builder.aOneyPaymentRequest()
+                .withLanguageCode("fr")
+                .withMerchantRequestId("merchantRequestId")
+                .withPspGuid("pspGuid")
+                .withMerchantGuid("merchantGuid")
+                .withNavigation(NavigationData.Builder.aNavigationDataBuilder().withSuccesUrl("https://success").build())
+                .withPaymentdata(PaymentData.Builder.aPaymentData().withAmount(408f).withCurrency("EUR").build())
+                .withCustomer(assembler.assembleCustomer(paymentRequest))
+                .withPurchase(assembler.assemblePurchase(paymentRequest))
+                .withPurchaseHistory(assembler.assemblePurchaseHistory(paymentRequest))
+                .withPspContext(paymentRequest.getTransactionId())
+                .withMerchantContext("CN!1000!EUR")
+                .withEncryptKey(KEY)
+                .build();
+    }
+}
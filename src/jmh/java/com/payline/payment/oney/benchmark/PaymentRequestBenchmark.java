@@ -0,0 +1,57 @@
+package com.payline.payment.oney.benchmark;
+
+import com.payline.payment.oney.bean.request.OneyEncryptedRequest;
+import com.payline.payment.oney.bean.request.OneyPaymentRequest;
+import com.payline.payment.oney.exception.PluginTechnicalException;
+import com.payline.payment.oney.utils.chiffrement.OneyCrypto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Serialization and encryption of the payment request body.
+ */
+@State(Scope.Benchmark)
+public class PaymentRequestBenchmark {
+
+    @Param({"2", "200"})
+    int basketSize;
+
+    private OneyPaymentRequest request;
+
+    private OneyCrypto crypto;
+
+    private String json;
+
+    private String encrypted;
+
+    @Setup
+    public void setup() throws Exception {
+        request = BenchmarkFixtures.oneyPaymentRequest(BenchmarkFixtures.paymentRequest(basketSize));
+        crypto = new OneyCrypto(BenchmarkFixtures.KEY);
+        json = request.toString();
+        encrypted = crypto.encrypt(json);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return request.toString();
+    }
+
+    @Benchmark
+    public String toEncryptedJson() throws PluginTechnicalException {
+        return OneyEncryptedRequest.fromOneyPaymentRequest(request).toString();
+    }
+
+    @Benchmark
+    public String encrypt() throws PluginTechnicalException {
+        return crypto.encrypt(json);
+    }
+
+    @Benchmark
+    public String decrypt() throws PluginTechnicalException {
+        return crypto.decrypt(encrypted);
+    }
+}
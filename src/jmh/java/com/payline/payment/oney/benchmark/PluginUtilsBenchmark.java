@@ -0,0 +1,33 @@
+package com.payline.payment.oney.benchmark;
+
+import com.payline.payment.oney.bean.common.enums.CategoryCodeHandler;
+import com.payline.payment.oney.utils.PluginUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+
+/**
+ * Text and code helpers called for each item and each address of a payment.
+ */
+@State(Scope.Benchmark)
+public class PluginUtilsBenchmark {
+
+    private static final String ADDRESS = "Résidence les Jardins de la Citadelle, bâtiment C escalier 4, 12 bis avenue du Maréchal de Lattre de Tassigny";
+
+    private static final String[] CATEGORIES = {"17", "110001", "2400010002", "500040003", "1200030001", "20001", "99", "unknown"};
+
+    @Benchmark
+    public List<String> splitLongText() {
+        return PluginUtils.splitLongText(ADDRESS, 38);
+    }
+
+    @Benchmark
+    public void findCategory(Blackhole blackhole) {
+        for (String category : CATEGORIES) {
+            blackhole.consume(CategoryCodeHandler.findCategory(category));
+        }
+    }
+}
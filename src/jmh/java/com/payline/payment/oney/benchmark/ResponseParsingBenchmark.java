@@ -0,0 +1,79 @@
+package com.payline.payment.oney.benchmark;
+
+import com.payline.payment.oney.bean.response.TransactionStatusResponse;
+import com.payline.payment.oney.exception.PluginTechnicalException;
+import com.payline.payment.oney.service.impl.NotificationServiceImpl;
+import com.payline.payment.oney.service.impl.RequestConfigServiceImpl;
+import com.payline.payment.oney.utils.OneyConstants;
+import com.payline.payment.oney.utils.TestUtils;
+import com.payline.payment.oney.utils.chiffrement.OneyCrypto;
+import com.payline.payment.oney.utils.properties.service.ConfigPropertiesEnum;
+import com.payline.pmapi.bean.notification.request.NotificationRequest;
+import com.payline.pmapi.bean.notification.response.NotificationResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+/**
+ * Parsing of the Oney responses and notifications, encrypted or not depending on config.properties.
+ */
+@State(Scope.Benchmark)
+public class ResponseParsingBenchmark {
+
+    private static final String STATUS = "{\"language_code\":\"fr\",\"purchase\":{\"status_code\":\"FUNDED\",\"status_label\":\"a label\"}}";
+
+    // FUNDED : parse() answers without calling Oney
+    private static final String NOTIFICATION = "{\"language_code\":\"FR\",\"merchant_guid\":\"anId\",\"oney_request_id\":\"123456789\"," +
+            "\"purchase\":{\"external_reference_type\":\"CMDE\",\"external_reference\":\"987654321\"," +
+            "\"purchase_merchant\":{\"merchant_guid\":\"azerty\"},\"status_code\":\"FUNDED\",\"status_label\":\"a status label\"," +
+            "\"reason_code\":\"aReason\",\"reason_label\":\"aLabel\"},\"customer\":{\"customer_external_code\":\"aCode\"}," +
+            "\"merchant_context\":\"CN!1000!EUR\",\"psp_context\":\"G1906171638279792\"}";
+
+    private final NotificationServiceImpl notificationService = new NotificationServiceImpl();
+
+    private String status;
+
+    private ByteArrayInputStream notificationContent;
+
+    private NotificationRequest notificationRequest;
+
+    @Setup
+    public void setup() throws Exception {
+        boolean encrypted = Boolean.parseBoolean(ConfigPropertiesEnum.INSTANCE.get(OneyConstants.CHIFFREMENT_IS_ACTIVE));
+        status = encrypted ? envelope(STATUS, BenchmarkFixtures.KEY) : STATUS;
+
+        NotificationRequest.NotificationRequestBuilder builder = NotificationRequest.NotificationRequestBuilder.aNotificationRequest()
+                .withHeaderInfos(new HashMap<>())
+                .withPathInfo("thisIsAPath")
+                .withHttpMethod("POST")
+                .withContractConfiguration(TestUtils.createContractConfiguration())
+                .withPartnerConfiguration(TestUtils.createDefaultPartnerConfiguration())
+                .withEnvironment(TestUtils.TEST_ENVIRONMENT);
+        String notificationKey = RequestConfigServiceImpl.INSTANCE.getParameterValue(
+                builder.withContent(new ByteArrayInputStream(new byte[0])).build(), OneyConstants.PARTNER_CHIFFREMENT_KEY);
+        String notification = encrypted ? envelope(NOTIFICATION, notificationKey) : NOTIFICATION;
+        notificationContent = new ByteArrayInputStream(notification.getBytes(StandardCharsets.UTF_8));
+        notificationRequest = builder.withContent(notificationContent).build();
+    }
+
+    private static String envelope(String json, String key) throws PluginTechnicalException {
+        return "{\"merchant_guid\":\"anId\",\"encrypted_message\":\"" + OneyCrypto.encryptMessage(json, key) + "\"}";
+    }
+
+    @Benchmark
+    public TransactionStatusResponse transactionStatusResponse() throws PluginTechnicalException {
+        return TransactionStatusResponse.createTransactionStatusResponseFromJson(status, BenchmarkFixtures.KEY);
+    }
+
+    @Benchmark
+    public NotificationResponse notification() {
+        // the request body is read again on each call
+        notificationContent.reset();
+        return notificationService.parse(notificationRequest);
+    }
+}
@@ -0,0 +1,105 @@
+package com.payline.payment.oney.utils.http;
+
+import com.payline.payment.oney.bean.common.NavigationData;
+import com.payline.payment.oney.bean.common.customer.Customer;
+import com.payline.payment.oney.bean.common.payment.PaymentData;
+import com.payline.payment.oney.bean.common.purchase.Delivery;
+import com.payline.payment.oney.bean.common.purchase.Item;
+import com.payline.payment.oney.bean.common.purchase.Purchase;
+import com.payline.payment.oney.bean.request.OneyPaymentRequest;
+import com.payline.payment.oney.exception.PluginTechnicalException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Payment request body as it is sent: {@link OneyPaymentRequestEntity} built, then written to the connection.
+ * Lives in the package of the entity, which is not public.
+ */
+@State(Scope.Benchmark)
+public class PaymentRequestEntityBenchmark {
+
+    private static final String KEY = "66s581CG5W+RLEqZHAGQx+vskjy660Kt8x8rhtRpXtY=";
+
+    @Param({"2", "200"})
+    int basketSize;
+
+    @Param({"false", "true"})
+    boolean encrypted;
+
+    private OneyPaymentRequest request;
+
+    private OutputStream sink;
+
+    @Setup
+    public void setup(Blackhole blackhole) throws Exception {
+        List<Item> items = new ArrayList<>(basketSize);
+        for (int i = 0; i < basketSize; i++) {
+            items.add(Item.Builder.aItemBuilder()
+                    .withMainItem(i == 0 ? 1 : 0)
+                    .withCategoryCode(1)
+                    .withLabel("item" + i)
+                    .withPrice(2.04f)
+                    .withQuantity(1)
+                    .withItemExternalCode("item" + i)
+                    .build());
+        }
+        request = OneyPaymentRequest.Builder.aOneyPaymentRequest()
+                .withLanguageCode("fr")
+                .withMerchantRequestId("merchantRequestId")
+                .withPspGuid("pspGuid")
+                .withMerchantGuid("merchantGuid")
+                .withNavigation(NavigationData.Builder.aNavigationDataBuilder().withSuccesUrl("https://success").build())
+                .withPaymentdata(PaymentData.Builder.aPaymentData().withAmount(2.04f * basketSize).withCurrency("EUR").build())
+                .withCustomer(Customer.Builder.aCustomBuilder().withLanguageCode("FR").withCustomerExternalCode("extCode").build())
+                .withPurchase(Purchase.Builder.aPurchaseBuilder()
+                        .withCurrencyCode("EUR")
+                        .withPurchaseAmount(2.04f * basketSize)
+                        .withDelivery(Delivery.Builder.aDeliveryBuilder().withDeliveryModeCode(1).build())
+                        .withExternalReference("externalRef")
+                        .withExternalReferenceType("CMDE")
+                        .withListItem(items)
+                        .withNumberOfItems(basketSize)
+                        .build())
+                .withPspContext("pspContext")
+                .withMerchantContext("CN!1000!EUR")
+                .withEncryptKey(KEY)
+                .build();
+        sink = new BlackholeOutputStream(blackhole);
+    }
+
+    @Benchmark
+    public void writeTo() throws PluginTechnicalException, IOException {
+        new OneyPaymentRequestEntity(request, encrypted).writeTo(sink);
+    }
+
+    /**
+     * Stands for the connection: consumes the bytes written.
+     */
+    private static final class BlackholeOutputStream extends OutputStream {
+        private final Blackhole blackhole;
+
+        BlackholeOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+            blackhole.consume(len);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.payline.payment.oney.utils.mapping;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Lookups of the Payline to Oney code mappings, done for each item, buyer and delivery of a payment.
+ * Lives in the package of the mappings, as {@link CategoryTrie} is not public.
+ */
+@State(Scope.Benchmark)
+public class CodeMappingBenchmark {
+
+    private static final String CATEGORY_PREFIX = "category.";
+
+    // top level, sub-categories known, sub-categories falling back on a parent, unknown and invalid codes
+    private static final String[] CATEGORIES = {"17", "110001", "2400010002", "500040003", "1200030001", "20001", "99", "unknown"};
+
+    private static final String[] CIVILITIES = {"1", "2", "3", "4", "99"};
+
+    private static final String[] DELIVERY_MODES = {"1", "2", "3", "4", "5", "99"};
+
+    private CategoryTrie trie;
+
+    @Setup
+    public void setup() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream input = CodeMapping.class.getClassLoader().getResourceAsStream(CodeMapping.RESOURCE)) {
+            properties.load(input);
+        }
+        trie = new CategoryTrie();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(CATEGORY_PREFIX) && !key.equals(CATEGORY_PREFIX + "default")) {
+                trie.put(key.substring(CATEGORY_PREFIX.length()), Integer.parseInt(properties.getProperty(key)));
+            }
+        }
+        // loads the tables of the plugin before the measurements
+        CodeMapping.INSTANCE.getVersion();
+    }
+
+    /**
+     * The trie alone.
+     */
+    @Benchmark
+    public void trieGet(Blackhole blackhole) {
+        for (String category : CATEGORIES) {
+            blackhole.consume(trie.get(category, 5));
+        }
+    }
+
+    /**
+     * The trie behind the mapping, with the check of the mapping file.
+     */
+    @Benchmark
+    public void getCategoryCode(Blackhole blackhole) {
+        for (String category : CATEGORIES) {
+            blackhole.consume(CodeMapping.INSTANCE.getCategoryCode(category));
+        }
+    }
+
+    @Benchmark
+    public void getHonorificCode(Blackhole blackhole) {
+        for (String civility : CIVILITIES) {
+            blackhole.consume(CodeMapping.INSTANCE.getHonorificCode(civility));
+        }
+    }
+
+    @Benchmark
+    public void getDeliveryModeAndAddressType(Blackhole blackhole) {
+        for (String deliveryMode : DELIVERY_MODES) {
+            Integer code = CodeMapping.INSTANCE.getDeliveryModeCode(deliveryMode);
+            blackhole.consume(CodeMapping.INSTANCE.getAddressType(code));
+        }
+    }
+}
@@ -21,11 +21,11 @@ public class AdditionalData extends OneyBean {
 
 
     public String toJson() {
-        return new Gson().toJson(this);
+        return OneyGson.get().toJson(this);
     }
 
     public static AdditionalData fromJson(String jsonContent) {
-        Gson gson = new Gson();
+        Gson gson = OneyGson.get();
         return gson.fromJson(jsonContent, AdditionalData.class);
     }
 
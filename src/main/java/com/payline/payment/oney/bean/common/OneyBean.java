@@ -6,7 +6,7 @@ public abstract class OneyBean {
 
     @Override
     public String toString() {
-        Gson gson = new Gson();
+        Gson gson = OneyGson.get();
         return gson.toJson(this);
     }
 }
@@ -35,7 +35,7 @@ public class OneyError40x extends OneyBean {
     }
 
     public static OneyError40x parseJson(String json) {
-        Gson gson = new Gson();
+        Gson gson = OneyGson.get();
         return gson.fromJson(json, OneyError40x.class);
 
     }
@@ -0,0 +1,89 @@
+package com.payline.payment.oney.bean.common;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.payline.payment.oney.bean.common.customer.Customer;
+import com.payline.payment.oney.bean.common.purchase.Item;
+import com.payline.payment.oney.bean.common.purchase.Purchase;
+import com.payline.payment.oney.bean.request.OneyPaymentRequest;
+import com.payline.payment.oney.bean.response.OneyNotificationResponse;
+import com.payline.payment.oney.bean.response.TransactionStatusResponse;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * Shared Gson instances of the plugin.
+ * Gson is immutable and thread-safe: building it once avoids rebuilding its adapters cache on each (de)serialization.
+ * The beans exchanged on each payment have hand-written adapters, which produce the same JSON as the reflective ones.
+ */
+public final class OneyGson {
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(adapter(OneyPaymentRequest.class, OneyPaymentRequest.GsonAdapter::new))
+            .registerTypeAdapterFactory(adapter(Purchase.class, Purchase.GsonAdapter::new))
+            .registerTypeAdapterFactory(adapter(Item.class, Item.GsonAdapter::new))
+            .registerTypeAdapterFactory(adapter(Customer.class, Customer.GsonAdapter::new))
+            .registerTypeAdapterFactory(adapter(TransactionStatusResponse.class, TransactionStatusResponse.GsonAdapter::new))
+            .registerTypeAdapterFactory(adapter(OneyNotificationResponse.class, OneyNotificationResponse.GsonAdapter::new))
+            .registerTypeAdapterFactory(adapter(PurchaseStatus.class, PurchaseStatus.GsonAdapter::new))
+            .create();
+
+    /**
+     * Only the fields annotated with @Expose (confirmation and refund requests)
+     */
+    private static final Gson EXPOSED_FIELDS = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+
+    /**
+     * Travel, journey and stay dates
+     */
+    private static final Gson TRAVEL_DATES = new GsonBuilder().setDateFormat("yyy-MM-dd").create();
+
+    private OneyGson() {
+        // ras.
+    }
+
+    public static Gson get() {
+        return GSON;
+    }
+
+    public static Gson exposedFields() {
+        return EXPOSED_FIELDS;
+    }
+
+    public static Gson travelDates() {
+        return TRAVEL_DATES;
+    }
+
+    /**
+     * Register the adapter of a bean. The adapter applies to this exact class only: the subclasses keep the
+     * reflective mapping, as they may declare other fields.
+     */
+    static <B> TypeAdapterFactory adapter(final Class<B> beanClass, final Function<Gson, TypeAdapter<B>> builder) {
+        return new TypeAdapterFactory() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+                return type.getRawType() == beanClass ? (TypeAdapter<T>) builder.apply(gson) : null;
+            }
+        };
+    }
+
+    /**
+     * Consume a null value, as the reflective adapters do before reading an object.
+     *
+     * @return true if the next value was null
+     */
+    public static boolean nextNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+}
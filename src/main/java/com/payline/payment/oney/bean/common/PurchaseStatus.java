@@ -1,6 +1,12 @@
 package com.payline.payment.oney.bean.common;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 public class PurchaseStatus {
 
@@ -43,4 +49,64 @@ public class PurchaseStatus {
     }
 
 
+    /**
+     * JSON mapping, registered in {@link OneyGson}
+     */
+    public static final class GsonAdapter extends TypeAdapter<PurchaseStatus> {
+        private final TypeAdapter<String> strings;
+        private final TypeAdapter<StatusCode> statusCodes;
+
+        public GsonAdapter(Gson gson) {
+            this.strings = gson.getAdapter(String.class);
+            this.statusCodes = gson.getAdapter(StatusCode.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, PurchaseStatus value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("status_label");
+            strings.write(out, value.statusLabel);
+            out.name("status_code");
+            statusCodes.write(out, value.statusCode);
+            out.name("reason_code");
+            strings.write(out, value.reasonCode);
+            out.name("reason_label");
+            strings.write(out, value.reasonLabel);
+            out.endObject();
+        }
+
+        @Override
+        public PurchaseStatus read(JsonReader in) throws IOException {
+            if (OneyGson.nextNull(in)) {
+                return null;
+            }
+            PurchaseStatus status = new PurchaseStatus(null, null, null, null);
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "status_label":
+                        status.statusLabel = strings.read(in);
+                        break;
+                    case "status_code":
+                        status.statusCode = statusCodes.read(in);
+                        break;
+                    case "reason_code":
+                        status.reasonCode = strings.read(in);
+                        break;
+                    case "reason_label":
+                        status.reasonLabel = strings.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return status;
+        }
+    }
+
 }
@@ -1,10 +1,17 @@
 package com.payline.payment.oney.bean.common.customer;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.payline.payment.oney.bean.common.OneyAddress;
 import com.payline.payment.oney.bean.common.OneyBean;
+import com.payline.payment.oney.bean.common.OneyGson;
 import com.payline.payment.oney.utils.Required;
 
+import java.io.IOException;
+
 public class Customer extends OneyBean {
 
     @SerializedName("trust_flag")
@@ -138,4 +145,95 @@ public class Customer extends OneyBean {
             return new Customer(this);
         }
     }
+
+
+    /**
+     * JSON mapping, registered in {@link OneyGson}
+     */
+    public static final class GsonAdapter extends TypeAdapter<Customer> {
+        private final TypeAdapter<String> strings;
+        private final TypeAdapter<Integer> integers;
+        private final TypeAdapter<CustomerIdentity> identities;
+        private final TypeAdapter<ContactDetails> contactDetails;
+        private final TypeAdapter<OneyAddress> addresses;
+        private final TypeAdapter<PurchaseHistory> purchaseHistories;
+        private final TypeAdapter<SupportingDocuments> supportingDocuments;
+
+        public GsonAdapter(Gson gson) {
+            this.strings = gson.getAdapter(String.class);
+            this.integers = gson.getAdapter(Integer.class);
+            this.identities = gson.getAdapter(CustomerIdentity.class);
+            this.contactDetails = gson.getAdapter(ContactDetails.class);
+            this.addresses = gson.getAdapter(OneyAddress.class);
+            this.purchaseHistories = gson.getAdapter(PurchaseHistory.class);
+            this.supportingDocuments = gson.getAdapter(SupportingDocuments.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, Customer value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("trust_flag");
+            integers.write(out, value.trustFlag);
+            out.name("customer_external_code");
+            strings.write(out, value.customerExternalCode);
+            out.name("language_code");
+            strings.write(out, value.languageCode);
+            out.name("identity");
+            identities.write(out, value.identity);
+            out.name("contact_details");
+            contactDetails.write(out, value.contactDetails);
+            out.name("customer_address");
+            addresses.write(out, value.customerAddress);
+            out.name("purchase_history");
+            purchaseHistories.write(out, value.purchaseHistory);
+            out.name("supporting_documents");
+            supportingDocuments.write(out, value.supportingDocuments);
+            out.endObject();
+        }
+
+        @Override
+        public Customer read(JsonReader in) throws IOException {
+            if (OneyGson.nextNull(in)) {
+                return null;
+            }
+            Customer customer = new Customer();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "trust_flag":
+                        customer.trustFlag = integers.read(in);
+                        break;
+                    case "customer_external_code":
+                        customer.customerExternalCode = strings.read(in);
+                        break;
+                    case "language_code":
+                        customer.languageCode = strings.read(in);
+                        break;
+                    case "identity":
+                        customer.identity = identities.read(in);
+                        break;
+                    case "contact_details":
+                        customer.contactDetails = contactDetails.read(in);
+                        break;
+                    case "customer_address":
+                        customer.customerAddress = addresses.read(in);
+                        break;
+                    case "purchase_history":
+                        customer.purchaseHistory = purchaseHistories.read(in);
+                        break;
+                    case "supporting_documents":
+                        customer.supportingDocuments = supportingDocuments.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return customer;
+        }
+    }
 }
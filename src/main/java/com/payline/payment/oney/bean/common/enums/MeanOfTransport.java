@@ -7,6 +7,14 @@ public enum MeanOfTransport {
     ROAD(3),
     BOAT_FERRY(4);
 
+    private static final MeanOfTransport[] BY_CODE = new MeanOfTransport[5];
+
+    static {
+        for (MeanOfTransport value : values()) {
+            BY_CODE[value.code] = value;
+        }
+    }
+
     private int code;
 
     MeanOfTransport(int code) {
@@ -18,11 +26,6 @@ public enum MeanOfTransport {
     }
 
     public static MeanOfTransport fromCode(int code){
-        for (MeanOfTransport value : MeanOfTransport.values()) {
-            if (value.getCode() == code) {
-                return value;
-            }
-        }
-        return null;
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
     }
 }
@@ -1,12 +1,18 @@
 package com.payline.payment.oney.bean.common.purchase;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.payline.payment.oney.bean.common.OneyBean;
+import com.payline.payment.oney.bean.common.OneyGson;
 import com.payline.payment.oney.exception.InvalidDataException;
 import com.payline.payment.oney.utils.ItemComparator;
 import com.payline.payment.oney.utils.Required;
 import com.payline.pmapi.bean.payment.Order;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 
@@ -214,4 +220,94 @@ public class Item extends OneyBean {
         }
     }
 
+
+    /**
+     * JSON mapping, registered in {@link OneyGson}
+     */
+    public static final class GsonAdapter extends TypeAdapter<Item> {
+        private final TypeAdapter<String> strings;
+        private final TypeAdapter<Float> floats;
+        private final TypeAdapter<Integer> integers;
+        private final TypeAdapter<Travel> travels;
+
+        public GsonAdapter(Gson gson) {
+            this.strings = gson.getAdapter(String.class);
+            this.floats = gson.getAdapter(Float.class);
+            this.integers = gson.getAdapter(Integer.class);
+            this.travels = gson.getAdapter(Travel.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, Item value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("is_main_item");
+            integers.write(out, value.isMainItem);
+            out.name("category_code");
+            integers.write(out, value.categoryCode);
+            out.name("label");
+            strings.write(out, value.label);
+            out.name("item_external_code");
+            strings.write(out, value.itemExternalcode);
+            out.name("quantity");
+            integers.write(out, value.quantity);
+            out.name("price");
+            floats.write(out, value.price);
+            out.name("marketplace_merchant_flag");
+            integers.write(out, value.marketplaceFlag);
+            out.name("marketplace_merchant_name");
+            strings.write(out, value.marketplaceName);
+            out.name("travel");
+            travels.write(out, value.travel);
+            out.endObject();
+        }
+
+        @Override
+        public Item read(JsonReader in) throws IOException {
+            if (OneyGson.nextNull(in)) {
+                return null;
+            }
+            Item item = new Item();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "is_main_item":
+                        item.isMainItem = integers.read(in);
+                        break;
+                    case "category_code":
+                        item.categoryCode = integers.read(in);
+                        break;
+                    case "label":
+                        item.label = strings.read(in);
+                        break;
+                    case "item_external_code":
+                        item.itemExternalcode = strings.read(in);
+                        break;
+                    case "quantity":
+                        item.quantity = integers.read(in);
+                        break;
+                    case "price":
+                        item.price = floats.read(in);
+                        break;
+                    case "marketplace_merchant_flag":
+                        item.marketplaceFlag = integers.read(in);
+                        break;
+                    case "marketplace_merchant_name":
+                        item.marketplaceName = strings.read(in);
+                        break;
+                    case "travel":
+                        item.travel = travels.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return item;
+        }
+    }
+
 }
@@ -1,9 +1,16 @@
 package com.payline.payment.oney.bean.common.purchase;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.payline.payment.oney.bean.common.OneyBean;
+import com.payline.payment.oney.bean.common.OneyGson;
 import com.payline.payment.oney.utils.Required;
 
+import java.io.IOException;
 import java.util.List;
 
 public class Purchase extends OneyBean {
@@ -136,4 +143,87 @@ public class Purchase extends OneyBean {
             return new Purchase(this);
         }
     }
+
+
+    /**
+     * JSON mapping, registered in {@link OneyGson}
+     */
+    public static final class GsonAdapter extends TypeAdapter<Purchase> {
+        private final TypeAdapter<String> strings;
+        private final TypeAdapter<Float> floats;
+        private final TypeAdapter<Integer> integers;
+        private final TypeAdapter<Delivery> deliveries;
+        private final TypeAdapter<List<Item>> items;
+
+        public GsonAdapter(Gson gson) {
+            this.strings = gson.getAdapter(String.class);
+            this.floats = gson.getAdapter(Float.class);
+            this.integers = gson.getAdapter(Integer.class);
+            this.deliveries = gson.getAdapter(Delivery.class);
+            this.items = gson.getAdapter(new TypeToken<List<Item>>() {
+            });
+        }
+
+        @Override
+        public void write(JsonWriter out, Purchase value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("external_reference_type");
+            strings.write(out, value.externalReferenceType);
+            out.name("external_reference");
+            strings.write(out, value.externalReference);
+            out.name("purchase_amount");
+            floats.write(out, value.purchaseAmount);
+            out.name("currency_code");
+            strings.write(out, value.currencyCode);
+            out.name("delivery");
+            deliveries.write(out, value.delivery);
+            out.name("item_list");
+            items.write(out, value.listItem);
+            out.name("number_of_items");
+            integers.write(out, value.numberOfItems);
+            out.endObject();
+        }
+
+        @Override
+        public Purchase read(JsonReader in) throws IOException {
+            if (OneyGson.nextNull(in)) {
+                return null;
+            }
+            Purchase purchase = new Purchase();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "external_reference_type":
+                        purchase.externalReferenceType = strings.read(in);
+                        break;
+                    case "external_reference":
+                        purchase.externalReference = strings.read(in);
+                        break;
+                    case "purchase_amount":
+                        purchase.purchaseAmount = floats.read(in);
+                        break;
+                    case "currency_code":
+                        purchase.currencyCode = strings.read(in);
+                        break;
+                    case "delivery":
+                        purchase.delivery = deliveries.read(in);
+                        break;
+                    case "item_list":
+                        purchase.listItem = items.read(in);
+                        break;
+                    case "number_of_items":
+                        purchase.numberOfItems = integers.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return purchase;
+        }
+    }
 }
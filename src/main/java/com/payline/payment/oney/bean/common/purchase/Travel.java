@@ -1,9 +1,9 @@
 package com.payline.payment.oney.bean.common.purchase;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.SerializedName;
 import com.payline.payment.oney.bean.common.OneyBean;
+import com.payline.payment.oney.bean.common.OneyGson;
 
 import java.util.Date;
 import java.util.List;
@@ -90,7 +90,7 @@ public class Travel extends OneyBean {
 
     @Override
     public String toString() {
-        Gson gson = new GsonBuilder().setDateFormat("yyy-MM-dd").create();
+        Gson gson = OneyGson.travelDates();
         return gson.toJson( this );
     }
 }
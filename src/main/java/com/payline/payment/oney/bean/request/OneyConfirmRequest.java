@@ -1,15 +1,16 @@
 package com.payline.payment.oney.bean.request;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.payline.payment.oney.bean.common.OneyGson;
 import com.payline.payment.oney.bean.common.payment.PaymentData;
 import com.payline.payment.oney.bean.response.OneyNotificationResponse;
 import com.payline.payment.oney.exception.InvalidDataException;
 import com.payline.payment.oney.service.impl.RequestConfigServiceImpl;
 import com.payline.payment.oney.utils.PluginUtils;
 import com.payline.payment.oney.utils.Required;
+import com.payline.payment.oney.utils.http.OneyCallContext;
 import com.payline.pmapi.bean.capture.request.CaptureRequest;
 import com.payline.pmapi.bean.notification.request.NotificationRequest;
 import com.payline.pmapi.bean.payment.request.RedirectionPaymentRequest;
@@ -60,6 +61,7 @@ public class OneyConfirmRequest extends ParameterizedUrlOneyRequest {
         this.merchantGuid = builder.merchantGuid;
         this.encryptKey = builder.encryptKey;
         this.callParameters = builder.callParameters;
+        this.callContext = builder.callContext;
     }
 
     public static class Builder extends ParameterizedUrlOneyRequest.Builder {
@@ -70,67 +72,65 @@ public class OneyConfirmRequest extends ParameterizedUrlOneyRequest {
         private String pspGuid;
         private String encryptKey;
         private Map<String, String> callParameters;
+        private OneyCallContext callContext;
 
         public Builder(RedirectionPaymentRequest paymentRequest) throws InvalidDataException {
-            String merchantGuidValue = RequestConfigServiceImpl.INSTANCE.getParameterValue(paymentRequest, MERCHANT_GUID_KEY);
+            this.withCallContext(PluginUtils.getCallContext(paymentRequest));
             this.purchaseReference = PluginUtils.fullPurchaseReference( paymentRequest.getOrder().getReference() );
             this.languageCode = paymentRequest.getRequestContext().getRequestData().get(LANGUAGE_CODE_KEY);
-            this.merchantRequestId = generateMerchantRequestId(merchantGuidValue);
+            this.merchantRequestId = generateMerchantRequestId(this.merchantGuid);
 
-            this.pspGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(paymentRequest, PSP_GUID_KEY);
-            this.merchantGuid = merchantGuidValue;
             this.paymentData = PaymentData.Builder.aPaymentData()
                     .withAmount(createFloatAmount(paymentRequest.getAmount().getAmountInSmallestUnit(), paymentRequest.getAmount().getCurrency()))
                     .buildForConfirmRequest();
-            this.encryptKey = RequestConfigServiceImpl.INSTANCE.getParameterValue(paymentRequest, PARTNER_CHIFFREMENT_KEY);
-            this.callParameters = PluginUtils.getParametersMap(paymentRequest);
         }
 
 
         public Builder(TransactionStatusRequest transactionStatusRequest) throws InvalidDataException {
-            String merchantGuidValue = RequestConfigServiceImpl.INSTANCE.getParameterValue(transactionStatusRequest, MERCHANT_GUID_KEY);
+            this.withCallContext(PluginUtils.getCallContext(transactionStatusRequest));
 
             this.withPurchaseReferenceFromOrder(transactionStatusRequest.getOrder());
-            this.merchantRequestId = generateMerchantRequestId(merchantGuidValue);
+            this.merchantRequestId = generateMerchantRequestId(this.merchantGuid);
 
-            this.pspGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(transactionStatusRequest, PSP_GUID_KEY);
-            this.merchantGuid = merchantGuidValue;
             this.paymentData = PaymentData.Builder.aPaymentData()
                     .withAmount(createFloatAmount(transactionStatusRequest.getAmount().getAmountInSmallestUnit(), transactionStatusRequest.getAmount().getCurrency()))
                     .buildForConfirmRequest();
-            this.encryptKey = RequestConfigServiceImpl.INSTANCE.getParameterValue(transactionStatusRequest, PARTNER_CHIFFREMENT_KEY);
-            this.callParameters = PluginUtils.getParametersMap(transactionStatusRequest);
         }
 
         public Builder(CaptureRequest captureRequest) throws InvalidDataException {
-            String merchantGuidValue = RequestConfigServiceImpl.INSTANCE.getParameterValue(captureRequest, MERCHANT_GUID_KEY);
+            this.withCallContext(PluginUtils.getCallContext(captureRequest));
 
             this.withPurchaseReferenceFromOrder(captureRequest.getOrder());
-            this.merchantRequestId = generateMerchantRequestId(merchantGuidValue);
+            this.merchantRequestId = generateMerchantRequestId(this.merchantGuid);
 
-            this.pspGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(captureRequest, PSP_GUID_KEY);
-            this.merchantGuid = merchantGuidValue;
             this.paymentData = PaymentData.Builder.aPaymentData()
                     .withAmount(createFloatAmount(captureRequest.getAmount().getAmountInSmallestUnit(), captureRequest.getAmount().getCurrency()))
                     .buildForConfirmRequest();
-            this.encryptKey = RequestConfigServiceImpl.INSTANCE.getParameterValue(captureRequest, PARTNER_CHIFFREMENT_KEY);
-            this.callParameters = PluginUtils.getParametersMap(captureRequest);
         }
 
         public Builder(NotificationRequest notificationRequest, OneyNotificationResponse oneyResponse) throws InvalidDataException {
+            this.withCallContext(PluginUtils.getCallContext(notificationRequest));
             this.languageCode = RequestConfigServiceImpl.INSTANCE.getParameterValue(notificationRequest, LANGUAGE_CODE_KEY);
+            // the order is the one of the notified merchant
             this.merchantGuid = oneyResponse.getMerchantGuid();
             this.merchantRequestId = generateMerchantRequestId(this.merchantGuid);
             this.paymentData = PaymentData.Builder.aPaymentData()
                     .withAmount(PluginUtils.getAmount(oneyResponse.getMerchantContext()))
                     .withCurrency(PluginUtils.getCurrency(oneyResponse.getMerchantContext()))
                     .buildForConfirmRequest();
-            this.encryptKey = RequestConfigServiceImpl.INSTANCE.getParameterValue(notificationRequest, PARTNER_CHIFFREMENT_KEY);
-
 
             this.purchaseReference = PluginUtils.fullPurchaseReference(oneyResponse.getPurchase().getExternalReference());
-            this.pspGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(notificationRequest, PSP_GUID_KEY);
-            this.callParameters = PluginUtils.getParametersMap(notificationRequest);
+        }
+
+        /**
+         * Take the GUIDs, the encryption key and the call parameters from the context.
+         */
+        private void withCallContext(OneyCallContext context) {
+            this.callContext = context;
+            this.pspGuid = context.getPspGuid();
+            this.merchantGuid = context.getMerchantGuid();
+            this.encryptKey = context.getEncryptKey();
+            this.callParameters = context.getParameters();
         }
 
         public OneyConfirmRequest build() throws InvalidDataException {
@@ -149,7 +149,7 @@ public class OneyConfirmRequest extends ParameterizedUrlOneyRequest {
 
     @Override
     public String toString() {
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+        Gson gson = OneyGson.exposedFields();
         return gson.toJson(this);
     }
 
@@ -1,15 +1,22 @@
 package com.payline.payment.oney.bean.request;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.payline.payment.oney.bean.common.LoyaltyInformation;
 import com.payline.payment.oney.bean.common.NavigationData;
+import com.payline.payment.oney.bean.common.OneyGson;
 import com.payline.payment.oney.bean.common.customer.Customer;
 import com.payline.payment.oney.bean.common.customer.PurchaseHistory;
 import com.payline.payment.oney.bean.common.payment.PaymentData;
 import com.payline.payment.oney.bean.common.purchase.Purchase;
 import com.payline.payment.oney.exception.InvalidDataException;
 import com.payline.payment.oney.utils.Required;
+import com.payline.payment.oney.utils.http.OneyCallContext;
 
+import java.io.IOException;
 import java.util.Map;
 
 public class OneyPaymentRequest extends OneyRequest {
@@ -110,6 +117,9 @@ public class OneyPaymentRequest extends OneyRequest {
     }
 
 
+    private OneyPaymentRequest() {
+    }
+
     private OneyPaymentRequest(Builder builder) {
         this.merchantGuid = builder.merchantGuid;
         this.pspGuid = builder.pspGuid;
@@ -128,6 +138,7 @@ public class OneyPaymentRequest extends OneyRequest {
         this.pspContext = builder.pspContext;
         this.encryptKey = builder.encryptKey;
         this.callParameters = builder.callParameters;
+        this.callContext = builder.callContext;
     }
 
 
@@ -151,6 +162,7 @@ public class OneyPaymentRequest extends OneyRequest {
         private String pspContext;
         private String encryptKey;
         private Map<String, String> callParameters;
+        private OneyCallContext callContext;
 
         private Builder() {
         }
@@ -243,6 +255,18 @@ public class OneyPaymentRequest extends OneyRequest {
             return this;
         }
 
+        /**
+         * Take the GUIDs, the encryption key and the call parameters from the context.
+         */
+        public Builder withCallContext(OneyCallContext context) {
+            this.callContext = context;
+            this.pspGuid = context.getPspGuid();
+            this.merchantGuid = context.getMerchantGuid();
+            this.encryptKey = context.getEncryptKey();
+            this.callParameters = context.getParameters();
+            return this;
+        }
+
         public OneyPaymentRequest build() throws InvalidDataException {
             this.checkIntegrity();
             return new OneyPaymentRequest(this);
@@ -269,4 +293,141 @@ public class OneyPaymentRequest extends OneyRequest {
 
     }
 
+
+    /**
+     * JSON mapping, registered in {@link OneyGson}
+     */
+    public static final class GsonAdapter extends TypeAdapter<OneyPaymentRequest> {
+        private final TypeAdapter<String> strings;
+        private final TypeAdapter<Integer> integers;
+        private final TypeAdapter<Purchase> purchases;
+        private final TypeAdapter<Customer> customers;
+        private final TypeAdapter<PurchaseHistory> purchaseHistories;
+        private final TypeAdapter<PaymentData> paymentData;
+        private final TypeAdapter<LoyaltyInformation> loyaltyInformation;
+        private final TypeAdapter<NavigationData> navigationData;
+
+        public GsonAdapter(Gson gson) {
+            this.strings = gson.getAdapter(String.class);
+            this.integers = gson.getAdapter(Integer.class);
+            this.purchases = gson.getAdapter(Purchase.class);
+            this.customers = gson.getAdapter(Customer.class);
+            this.purchaseHistories = gson.getAdapter(PurchaseHistory.class);
+            this.paymentData = gson.getAdapter(PaymentData.class);
+            this.loyaltyInformation = gson.getAdapter(LoyaltyInformation.class);
+            this.navigationData = gson.getAdapter(NavigationData.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, OneyPaymentRequest value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("language_code");
+            strings.write(out, value.languageCode);
+            out.name("skin_id");
+            integers.write(out, value.skinId);
+            out.name("origin");
+            strings.write(out, value.origin);
+            out.name("merchant_language_code");
+            strings.write(out, value.merchantLanguageCode);
+            out.name("merchant_request_id");
+            strings.write(out, value.merchantRequestId);
+            out.name("purchase");
+            purchases.write(out, value.purchase);
+            out.name("customer");
+            customers.write(out, value.customer);
+            out.name("purchase_history");
+            purchaseHistories.write(out, value.purchaseHistory);
+            out.name("payment");
+            paymentData.write(out, value.paymentData);
+            out.name("loyalty_information");
+            loyaltyInformation.write(out, value.loyaltyInformation);
+            out.name("navigation");
+            navigationData.write(out, value.navigationData);
+            out.name("merchant_context");
+            strings.write(out, value.merchantContext);
+            out.name("psp_context");
+            strings.write(out, value.pspContext);
+            // champs de OneyRequest, ecrits apres ceux de la sous-classe
+            out.name("merchant_guid");
+            strings.write(out, value.merchantGuid);
+            out.name("psp_guid");
+            strings.write(out, value.pspGuid);
+            out.name("encrypted_message");
+            strings.write(out, value.encryptedMessage);
+            out.endObject();
+        }
+
+        @Override
+        public OneyPaymentRequest read(JsonReader in) throws IOException {
+            if (OneyGson.nextNull(in)) {
+                return null;
+            }
+            OneyPaymentRequest request = new OneyPaymentRequest();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "language_code":
+                        request.languageCode = strings.read(in);
+                        break;
+                    case "skin_id":
+                        Integer skinId = integers.read(in);
+                        if (skinId != null) {
+                            request.skinId = skinId;
+                        }
+                        break;
+                    case "origin":
+                        request.origin = strings.read(in);
+                        break;
+                    case "merchant_language_code":
+                        request.merchantLanguageCode = strings.read(in);
+                        break;
+                    case "merchant_request_id":
+                        request.merchantRequestId = strings.read(in);
+                        break;
+                    case "purchase":
+                        request.purchase = purchases.read(in);
+                        break;
+                    case "customer":
+                        request.customer = customers.read(in);
+                        break;
+                    case "purchase_history":
+                        request.purchaseHistory = purchaseHistories.read(in);
+                        break;
+                    case "payment":
+                        request.paymentData = paymentData.read(in);
+                        break;
+                    case "loyalty_information":
+                        request.loyaltyInformation = loyaltyInformation.read(in);
+                        break;
+                    case "navigation":
+                        request.navigationData = navigationData.read(in);
+                        break;
+                    case "merchant_context":
+                        request.merchantContext = strings.read(in);
+                        break;
+                    case "psp_context":
+                        request.pspContext = strings.read(in);
+                        break;
+                    case "merchant_guid":
+                        request.merchantGuid = strings.read(in);
+                        break;
+                    case "psp_guid":
+                        request.pspGuid = strings.read(in);
+                        break;
+                    case "encrypted_message":
+                        request.encryptedMessage = strings.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return request;
+        }
+    }
+
 }
@@ -1,14 +1,15 @@
 package com.payline.payment.oney.bean.request;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.payline.payment.oney.bean.common.OneyGson;
 import com.payline.payment.oney.bean.common.PurchaseCancel;
 import com.payline.payment.oney.exception.InvalidDataException;
 import com.payline.payment.oney.service.impl.RequestConfigServiceImpl;
 import com.payline.payment.oney.utils.PluginUtils;
 import com.payline.payment.oney.utils.Required;
+import com.payline.payment.oney.utils.http.OneyCallContext;
 import com.payline.pmapi.bean.refund.request.RefundRequest;
 import com.payline.pmapi.bean.reset.request.ResetRequest;
 
@@ -54,6 +55,7 @@ public class OneyRefundRequest extends ParameterizedUrlOneyRequest {
         this.purchase = builder.purchase;
         this.encryptKey = builder.encryptKey;
         this.callParameters = builder.callParameters;
+        this.callContext = builder.callContext;
         this.merchantGuid = builder.merchantGuid;
         this.pspGuid = builder.pspGuid;
     }
@@ -66,6 +68,7 @@ public class OneyRefundRequest extends ParameterizedUrlOneyRequest {
         private String pspGuid;
         private String encryptKey;
         private Map<String, String> callParameters;
+        private OneyCallContext callContext;
 
         public static OneyRefundRequest.Builder aOneyRefundRequest() {
             return new OneyRefundRequest.Builder();
@@ -111,44 +114,48 @@ public class OneyRefundRequest extends ParameterizedUrlOneyRequest {
             return this;
         }
 
+        /**
+         * Take the GUIDs, the encryption key and the call parameters from the context.
+         */
+        public Builder withCallContext(OneyCallContext context) {
+            this.callContext = context;
+            this.pspGuid = context.getPspGuid();
+            this.merchantGuid = context.getMerchantGuid();
+            this.encryptKey = context.getEncryptKey();
+            this.callParameters = context.getParameters();
+            return this;
+        }
+
         public OneyRefundRequest.Builder fromRefundRequest(RefundRequest refundRequest, boolean refundFlag) throws InvalidDataException {
 
-            String merchantGuidValue = RequestConfigServiceImpl.INSTANCE.getParameterValue(refundRequest, MERCHANT_GUID_KEY);
+            this.withCallContext(PluginUtils.getCallContext(refundRequest));
 
             this.withPurchaseReferenceFromOrder( refundRequest.getOrder() );
-            this.merchantRequestId = generateMerchantRequestId(merchantGuidValue);
+            this.merchantRequestId = generateMerchantRequestId(this.merchantGuid);
 
-            this.pspGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(refundRequest, PSP_GUID_KEY);
-            this.merchantGuid = merchantGuidValue;
             this.purchase = PurchaseCancel.Builder.aPurchaseCancelBuilder()
                     .withAmount(createFloatAmount(refundRequest.getAmount().getAmountInSmallestUnit(), refundRequest.getAmount().getCurrency()))
                     .withReasonCode(0)
                     .withRefundFlag(refundFlag)
                     .build();
             this.languageCode = RequestConfigServiceImpl.INSTANCE.getParameterValue(refundRequest, LANGUAGE_CODE_KEY);
-            this.encryptKey = RequestConfigServiceImpl.INSTANCE.getParameterValue(refundRequest, PARTNER_CHIFFREMENT_KEY);
-            this.callParameters = PluginUtils.getParametersMap(refundRequest);
 
             return this;
         }
 
         public OneyRefundRequest.Builder fromResetRequest(ResetRequest resetRequest, boolean refundFlag) throws InvalidDataException {
 
-            String merchantGuidValue = RequestConfigServiceImpl.INSTANCE.getParameterValue(resetRequest, MERCHANT_GUID_KEY);
+            this.withCallContext(PluginUtils.getCallContext(resetRequest));
 
             this.withPurchaseReferenceFromOrder( resetRequest.getOrder() );
-            this.merchantRequestId = generateMerchantRequestId(merchantGuidValue);
+            this.merchantRequestId = generateMerchantRequestId(this.merchantGuid);
 
-            this.pspGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(resetRequest, PSP_GUID_KEY);
-            this.merchantGuid = merchantGuidValue;
             this.purchase = PurchaseCancel.Builder.aPurchaseCancelBuilder()
                     .withAmount(createFloatAmount(resetRequest.getAmount().getAmountInSmallestUnit(), resetRequest.getAmount().getCurrency()))
                     .withReasonCode(0)
                     .withRefundFlag(refundFlag)
                     .build();
             this.languageCode = RequestConfigServiceImpl.INSTANCE.getParameterValue(resetRequest, LANGUAGE_CODE_KEY);
-            this.encryptKey = RequestConfigServiceImpl.INSTANCE.getParameterValue(resetRequest, PARTNER_CHIFFREMENT_KEY);
-            this.callParameters = PluginUtils.getParametersMap(resetRequest);
 
             return this;
         }
@@ -168,7 +175,7 @@ public class OneyRefundRequest extends ParameterizedUrlOneyRequest {
 
     @Override
     public String toString() {
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+        Gson gson = OneyGson.exposedFields();
         return gson.toJson(this);
     }
 }
@@ -3,6 +3,7 @@ package com.payline.payment.oney.bean.request;
 import com.google.gson.annotations.SerializedName;
 import com.payline.payment.oney.bean.common.OneyBean;
 import com.payline.payment.oney.utils.Required;
+import com.payline.payment.oney.utils.http.OneyCallContext;
 
 import java.util.Map;
 
@@ -21,6 +22,8 @@ public abstract class OneyRequest extends OneyBean {
 
     protected transient Map<String, String> callParameters;
 
+    protected transient OneyCallContext callContext;
+
     //cle de chiffrement
     protected transient String encryptKey;
 
@@ -48,5 +51,12 @@ public abstract class OneyRequest extends OneyBean {
         return callParameters;
     }
 
+    /**
+     * @return the context the request has been built from, null if it has been built from its values
+     */
+    public OneyCallContext getCallContext() {
+        return callContext;
+    }
+
 
 }
@@ -5,6 +5,7 @@ import com.payline.payment.oney.exception.InvalidDataException;
 import com.payline.payment.oney.service.impl.RequestConfigServiceImpl;
 import com.payline.payment.oney.utils.OneyConstants;
 import com.payline.payment.oney.utils.PluginUtils;
+import com.payline.payment.oney.utils.http.OneyCallContext;
 import com.payline.pmapi.bean.capture.request.CaptureRequest;
 import com.payline.pmapi.bean.notification.request.NotificationRequest;
 import com.payline.pmapi.bean.payment.Order;
@@ -31,7 +32,7 @@ public class OneyTransactionStatusRequest extends ParameterizedUrlOneyRequest {
         this.merchantGuid = builder.merchantGuid;
         this.encryptKey = builder.encryptKey;
         this.callParameters = builder.callParameters;
-
+        this.callContext = builder.callContext;
     }
 
     public static class Builder extends ParameterizedUrlOneyRequest.Builder {
@@ -40,6 +41,7 @@ public class OneyTransactionStatusRequest extends ParameterizedUrlOneyRequest {
         private String pspGuid;
         private String encryptKey;
         private Map<String, String> callParameters;
+        private OneyCallContext callContext;
 
         public static OneyTransactionStatusRequest.Builder aOneyGetStatusRequest() {
             return new OneyTransactionStatusRequest.Builder();
@@ -81,14 +83,23 @@ public class OneyTransactionStatusRequest extends ParameterizedUrlOneyRequest {
             return this;
         }
 
+        /**
+         * Take the GUIDs, the encryption key and the call parameters from the context.
+         */
+        public Builder withCallContext(OneyCallContext context) {
+            this.callContext = context;
+            this.pspGuid = context.getPspGuid();
+            this.merchantGuid = context.getMerchantGuid();
+            this.encryptKey = context.getEncryptKey();
+            this.callParameters = context.getParameters();
+            return this;
+        }
+
         public OneyTransactionStatusRequest.Builder fromTransactionStatusRequest(TransactionStatusRequest transactionStatusRequest) throws InvalidDataException {
             return OneyTransactionStatusRequest.Builder.aOneyGetStatusRequest()
                     .withLanguageCode(RequestConfigServiceImpl.INSTANCE.getParameterValue(transactionStatusRequest, OneyConstants.LANGUAGE_CODE_KEY))
-                    .withMerchantGuid(RequestConfigServiceImpl.INSTANCE.getParameterValue(transactionStatusRequest, OneyConstants.MERCHANT_GUID_KEY))
-                    .withPspGuid(RequestConfigServiceImpl.INSTANCE.getParameterValue(transactionStatusRequest, OneyConstants.PSP_GUID_KEY))
-                    .withPurchaseReferenceFromOrder( transactionStatusRequest.getOrder() )
-                    .withEncryptKey(RequestConfigServiceImpl.INSTANCE.getParameterValue(transactionStatusRequest, OneyConstants.PARTNER_CHIFFREMENT_KEY))
-                    .withCallParameters(PluginUtils.getParametersMap(transactionStatusRequest));
+                    .withCallContext(PluginUtils.getCallContext(transactionStatusRequest))
+                    .withPurchaseReferenceFromOrder( transactionStatusRequest.getOrder() );
 
 
         }
@@ -97,52 +108,37 @@ public class OneyTransactionStatusRequest extends ParameterizedUrlOneyRequest {
         public OneyTransactionStatusRequest.Builder fromRefundRequest(RefundRequest refundRequest) throws InvalidDataException {
             return OneyTransactionStatusRequest.Builder.aOneyGetStatusRequest()
                     .withLanguageCode(RequestConfigServiceImpl.INSTANCE.getParameterValue(refundRequest, OneyConstants.LANGUAGE_CODE_KEY))
-                    .withMerchantGuid(RequestConfigServiceImpl.INSTANCE.getParameterValue(refundRequest, OneyConstants.MERCHANT_GUID_KEY))
-                    .withPspGuid(RequestConfigServiceImpl.INSTANCE.getParameterValue(refundRequest, OneyConstants.PSP_GUID_KEY))
-                    .withPurchaseReferenceFromOrder( refundRequest.getOrder() )
-                    .withEncryptKey(RequestConfigServiceImpl.INSTANCE.getParameterValue(refundRequest, OneyConstants.PARTNER_CHIFFREMENT_KEY))
-                    .withCallParameters(PluginUtils.getParametersMap(refundRequest));
+                    .withCallContext(PluginUtils.getCallContext(refundRequest))
+                    .withPurchaseReferenceFromOrder( refundRequest.getOrder() );
         }
 
         //Creer une transactionStatusRequest depuis une reset Request
         public OneyTransactionStatusRequest.Builder fromResetRequest(ResetRequest resetRequest) throws InvalidDataException {
             return OneyTransactionStatusRequest.Builder.aOneyGetStatusRequest()
                     .withLanguageCode(RequestConfigServiceImpl.INSTANCE.getParameterValue(resetRequest, OneyConstants.LANGUAGE_CODE_KEY))
-                    .withMerchantGuid(RequestConfigServiceImpl.INSTANCE.getParameterValue(resetRequest, OneyConstants.MERCHANT_GUID_KEY))
-                    .withPspGuid(RequestConfigServiceImpl.INSTANCE.getParameterValue(resetRequest, OneyConstants.PSP_GUID_KEY))
-                    .withPurchaseReferenceFromOrder( resetRequest.getOrder() )
-                    .withEncryptKey(RequestConfigServiceImpl.INSTANCE.getParameterValue(resetRequest, OneyConstants.PARTNER_CHIFFREMENT_KEY))
-                    .withCallParameters(PluginUtils.getParametersMap(resetRequest));
+                    .withCallContext(PluginUtils.getCallContext(resetRequest))
+                    .withPurchaseReferenceFromOrder( resetRequest.getOrder() );
         }
 
         public OneyTransactionStatusRequest.Builder fromRedirectionPaymentRequest(RedirectionPaymentRequest request) throws InvalidDataException {
             return OneyTransactionStatusRequest.Builder.aOneyGetStatusRequest()
                     .withLanguageCode(RequestConfigServiceImpl.INSTANCE.getParameterValue(request, OneyConstants.LANGUAGE_CODE_KEY))
-                    .withMerchantGuid(RequestConfigServiceImpl.INSTANCE.getParameterValue(request, OneyConstants.MERCHANT_GUID_KEY))
-                    .withPspGuid(RequestConfigServiceImpl.INSTANCE.getParameterValue(request, OneyConstants.PSP_GUID_KEY))
-                    .withPurchaseReferenceFromOrder( request.getOrder() )
-                    .withEncryptKey(RequestConfigServiceImpl.INSTANCE.getParameterValue(request, OneyConstants.PARTNER_CHIFFREMENT_KEY))
-                    .withCallParameters(PluginUtils.getParametersMap(request));
+                    .withCallContext(PluginUtils.getCallContext(request))
+                    .withPurchaseReferenceFromOrder( request.getOrder() );
         }
 
         public OneyTransactionStatusRequest.Builder fromCaptureRequest(CaptureRequest request) throws InvalidDataException {
             return OneyTransactionStatusRequest.Builder.aOneyGetStatusRequest()
                     .withLanguageCode(RequestConfigServiceImpl.INSTANCE.getParameterValue(request, OneyConstants.LANGUAGE_CODE_KEY))
-                    .withMerchantGuid(RequestConfigServiceImpl.INSTANCE.getParameterValue(request, OneyConstants.MERCHANT_GUID_KEY))
-                    .withPspGuid(RequestConfigServiceImpl.INSTANCE.getParameterValue(request, OneyConstants.PSP_GUID_KEY))
-                    .withPurchaseReferenceFromOrder( request.getOrder() )
-                    .withEncryptKey(RequestConfigServiceImpl.INSTANCE.getParameterValue(request, OneyConstants.PARTNER_CHIFFREMENT_KEY))
-                    .withCallParameters(PluginUtils.getParametersMap(request));
+                    .withCallContext(PluginUtils.getCallContext(request))
+                    .withPurchaseReferenceFromOrder( request.getOrder() );
         }
 
         // create an Oney check staus request
         public OneyTransactionStatusRequest.Builder fromNotificationRequest(NotificationRequest request) throws InvalidDataException {
             return OneyTransactionStatusRequest.Builder.aOneyGetStatusRequest()
                     .withLanguageCode(RequestConfigServiceImpl.INSTANCE.getParameterValue(request, OneyConstants.LANGUAGE_CODE_KEY))
-                    .withMerchantGuid(RequestConfigServiceImpl.INSTANCE.getParameterValue(request, OneyConstants.MERCHANT_GUID_KEY))
-                    .withPspGuid(RequestConfigServiceImpl.INSTANCE.getParameterValue(request, OneyConstants.PSP_GUID_KEY))
-                    .withEncryptKey(RequestConfigServiceImpl.INSTANCE.getParameterValue(request, OneyConstants.PARTNER_CHIFFREMENT_KEY))
-                    .withCallParameters(PluginUtils.getParametersMap(request));
+                    .withCallContext(PluginUtils.getCallContext(request));
         }
 
         public OneyTransactionStatusRequest build() {
@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
 import com.payline.payment.oney.bean.common.OneyBean;
 import com.payline.payment.oney.bean.common.OneyError;
+import com.payline.payment.oney.bean.common.OneyGson;
 import com.payline.payment.oney.exception.PluginTechnicalException;
 import com.payline.payment.oney.utils.PluginUtils;
 
@@ -59,7 +60,7 @@ public class OneyFailureResponse extends OneyBean {
 
 
     public static OneyFailureResponse fromJson(String json) {
-        Gson parser = new Gson();
+        Gson parser = OneyGson.get();
         return parser.fromJson(json, OneyFailureResponse.class);
     }
 
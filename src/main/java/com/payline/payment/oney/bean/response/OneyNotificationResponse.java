@@ -2,16 +2,29 @@ package com.payline.payment.oney.bean.response;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.payline.payment.oney.bean.common.OneyGson;
 import com.payline.payment.oney.bean.common.PurchaseNotification;
 import com.payline.payment.oney.bean.common.customer.Customer;
+import com.payline.payment.oney.exception.DecryptException;
 import com.payline.payment.oney.exception.InvalidDataException;
 import com.payline.payment.oney.exception.MalformedJsonException;
 import com.payline.payment.oney.exception.PluginTechnicalException;
+import com.payline.payment.oney.utils.chiffrement.OneyCrypto;
 import com.payline.payment.oney.utils.properties.service.ConfigPropertiesEnum;
 import com.payline.pmapi.logger.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.util.Objects;
 import java.util.stream.Stream;
 
@@ -76,7 +89,7 @@ public class OneyNotificationResponse extends OneyResponse {
 
     public static OneyNotificationResponse createTransactionStatusResponseFromJson(String json, String encryptKey)
             throws PluginTechnicalException {
-        Gson parser = new Gson();
+        Gson parser = OneyGson.get();
 
         OneyNotificationResponse oneyNotificationResponse;
         try {
@@ -99,14 +112,235 @@ public class OneyNotificationResponse extends OneyResponse {
 
         }
 
-        // Check oney response integity
-        if (oneyNotificationResponse.purchase == null) {
+        checkIntegrity(oneyNotificationResponse);
+        return oneyNotificationResponse;
+    }
+
+    /**
+     * Read a notification straight from its body, without copying it into a String.
+     * The reading stops as soon as the fields needed to handle the notification are known
+     * (psp_context, merchant_context, merchant_guid, purchase and customer): the following fields are ignored.
+     * When the encryption is active, the encrypted message is read whole, as a String bounded by maxBodySize,
+     * then decoded and decrypted while the decrypted JSON is parsed: only the decrypted JSON is never copied.
+     *
+     * @param content     the notification body, UTF-8 encoded
+     * @param encryptKey  the encryption key
+     * @param maxBodySize the maximum number of bytes read from the body
+     * @return the notification content
+     * @throws InvalidDataException   if the body is larger than maxBodySize, or misses the purchase or the customer
+     * @throws MalformedJsonException if the body is not a JSON notification
+     * @throws DecryptException       if the encrypted message can not be decrypted
+     */
+    public static OneyNotificationResponse createTransactionStatusResponseFromStream(InputStream content, String encryptKey, long maxBodySize)
+            throws PluginTechnicalException {
+        final boolean encrypted = Boolean.valueOf(ConfigPropertiesEnum.INSTANCE.get(CHIFFREMENT_IS_ACTIVE));
+        final GsonAdapter adapter = new GsonAdapter(OneyGson.get());
+
+        OneyNotificationResponse oneyNotificationResponse;
+        try {
+            oneyNotificationResponse = adapter.read(newJsonReader(new BoundedInputStream(content, maxBodySize)), !encrypted);
+
+            // JSON was properly formed, but there was some unexpected field()s in the content.
+            if (oneyNotificationResponse == null || oneyNotificationResponse.isEmpty()) {
+                throw new MalformedJsonException("Unable to parse JSON as OneyNotificationResponse");
+            }
+
+            //Cas reponse est chiffree : on dechiffre la reponse au fil de son analyse
+            if (encrypted) {
+                String encryptedMessage = oneyNotificationResponse.getEncryptedMessage();
+                oneyNotificationResponse = null;
+                if (encryptedMessage != null && !encryptedMessage.isEmpty()) {
+                    InputStream decrypted = new OneyCrypto(encryptKey)
+                            .decryptFromBase64(new ByteArrayInputStream(encryptedMessage.getBytes(StandardCharsets.ISO_8859_1)));
+                    oneyNotificationResponse = adapter.read(newJsonReader(decrypted), true);
+                }
+            }
+        } catch (BodyTooLargeException e) {
+            LOGGER.error("Notification body larger than {} bytes", maxBodySize);
+            throw new InvalidDataException("Notification body larger than " + maxBodySize + " bytes", "content");
+        } catch (IOException e) {
+            if (e.getCause() instanceof GeneralSecurityException) {
+                LOGGER.error(e.getMessage(), e);
+                throw new DecryptException(e, "OneyNotificationResponse.decrypt." + e.getCause().getClass().getSimpleName());
+            }
+            LOGGER.error("Unable to parse JSON content", e);
+            throw new MalformedJsonException(e);
+        } catch (IllegalStateException | JsonSyntaxException e) {
+            LOGGER.error("Unable to parse JSON content", e);
+            throw new MalformedJsonException(e);
+        }
+
+        checkIntegrity(oneyNotificationResponse);
+        return oneyNotificationResponse;
+    }
+
+    private static JsonReader newJsonReader(InputStream in) {
+        JsonReader reader = OneyGson.get().newJsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        // same tolerance as Gson.fromJson()
+        reader.setLenient(true);
+        return reader;
+    }
+
+    /**
+     * Check oney response integity
+     */
+    private static void checkIntegrity(OneyNotificationResponse oneyNotificationResponse) throws InvalidDataException {
+        if (oneyNotificationResponse == null || oneyNotificationResponse.purchase == null) {
             throw new InvalidDataException("Purchase must not be null", "purchase");
         } else if (oneyNotificationResponse.customer == null) {
             throw new InvalidDataException("Customer must not be null", "customer");
 
         }
-        return oneyNotificationResponse;
+    }
+
+    /**
+     * Complete once the fields needed to handle the notification are read.
+     */
+    private boolean isComplete() {
+        return pspContext != null && merchantContext != null && merchantGuid != null && purchase != null && customer != null;
+    }
+
+    /**
+     * Raised by {@link BoundedInputStream} when its limit is exceeded.
+     */
+    private static final class BodyTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        BodyTooLargeException() {
+            super("Notification body too large");
+        }
+    }
+
+    /**
+     * Fails as soon as more than a given number of bytes have been read.
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long maxSize) {
+            super(in);
+            this.remaining = maxSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                consume(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            // one more byte than allowed, to tell a body of exactly maxSize bytes from a larger one
+            int n = super.read(b, off, remaining < len ? (int) remaining + 1 : len);
+            if (n > 0) {
+                consume(n);
+            }
+            return n;
+        }
+
+        private void consume(int n) throws BodyTooLargeException {
+            remaining -= n;
+            if (remaining < 0) {
+                throw new BodyTooLargeException();
+            }
+        }
+    }
+
+
+    /**
+     * JSON mapping, registered in {@link OneyGson}
+     */
+    public static final class GsonAdapter extends TypeAdapter<OneyNotificationResponse> {
+        private final TypeAdapter<String> strings;
+        private final TypeAdapter<PurchaseNotification> purchases;
+        private final TypeAdapter<Customer> customers;
+
+        public GsonAdapter(Gson gson) {
+            this.strings = gson.getAdapter(String.class);
+            this.purchases = gson.getAdapter(PurchaseNotification.class);
+            this.customers = gson.getAdapter(Customer.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, OneyNotificationResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("language_code");
+            strings.write(out, value.languageCode);
+            out.name("merchant_guid");
+            strings.write(out, value.merchantGuid);
+            out.name("oney_request_id");
+            strings.write(out, value.oneyRequestId);
+            out.name("purchase");
+            purchases.write(out, value.purchase);
+            out.name("customer");
+            customers.write(out, value.customer);
+            out.name("psp_context");
+            strings.write(out, value.pspContext);
+            out.name("merchant_context");
+            strings.write(out, value.merchantContext);
+            out.name("encrypted_message");
+            strings.write(out, value.encryptedMessage);
+            out.endObject();
+        }
+
+        @Override
+        public OneyNotificationResponse read(JsonReader in) throws IOException {
+            return read(in, false);
+        }
+
+        /**
+         * @param stopEarly true to stop reading once the response {@link #isComplete()}, leaving the reader
+         *                  in the middle of the object
+         */
+        OneyNotificationResponse read(JsonReader in, boolean stopEarly) throws IOException {
+            if (OneyGson.nextNull(in)) {
+                return null;
+            }
+            OneyNotificationResponse response = new OneyNotificationResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "language_code":
+                        response.languageCode = strings.read(in);
+                        break;
+                    case "merchant_guid":
+                        response.merchantGuid = strings.read(in);
+                        break;
+                    case "oney_request_id":
+                        response.oneyRequestId = strings.read(in);
+                        break;
+                    case "purchase":
+                        response.purchase = purchases.read(in);
+                        break;
+                    case "customer":
+                        response.customer = customers.read(in);
+                        break;
+                    case "psp_context":
+                        response.pspContext = strings.read(in);
+                        break;
+                    case "merchant_context":
+                        response.merchantContext = strings.read(in);
+                        break;
+                    case "encrypted_message":
+                        response.encryptedMessage = strings.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+                if (stopEarly && response.isComplete()) {
+                    return response;
+                }
+            }
+            in.endObject();
+            return response;
+        }
     }
 
 }
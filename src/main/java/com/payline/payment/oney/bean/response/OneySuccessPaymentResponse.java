@@ -3,6 +3,7 @@ package com.payline.payment.oney.bean.response;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.annotations.SerializedName;
+import com.payline.payment.oney.bean.common.OneyGson;
 import com.payline.payment.oney.exception.DecryptException;
 import com.payline.payment.oney.exception.HttpCallException;
 import com.payline.payment.oney.exception.MalformedJsonException;
@@ -44,7 +45,7 @@ public class OneySuccessPaymentResponse extends OneyResponse {
 
     public static OneySuccessPaymentResponse paymentSuccessResponseFromJson(String json, String encryptKey)
             throws DecryptException, MalformedJsonException {
-        Gson parser = new Gson();
+        Gson parser = OneyGson.get();
         OneySuccessPaymentResponse paymentSuccessResponse;
         try {
             paymentSuccessResponse = parser.fromJson(json, OneySuccessPaymentResponse.class);
@@ -5,6 +5,7 @@ import com.google.gson.annotations.SerializedName;
 import com.google.gson.reflect.TypeToken;
 import com.payline.payment.oney.bean.common.OneyBean;
 import com.payline.payment.oney.bean.common.OneyError;
+import com.payline.payment.oney.bean.common.OneyGson;
 import com.payline.payment.oney.exception.MalformedJsonException;
 import com.payline.pmapi.logger.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -39,7 +40,7 @@ public class PaymentErrorResponse extends OneyBean {
         //Specifier le type renvoye
         Type errorListType = new TypeToken<ArrayList<OneyError>>() {
         }.getType();
-        Gson gson = new Gson();
+        Gson gson = OneyGson.get();
         JsonObject jsonObject;
         try {
             jsonObject = gson.fromJson(json, JsonObject.class);
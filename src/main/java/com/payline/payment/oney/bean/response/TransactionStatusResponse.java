@@ -2,7 +2,11 @@ package com.payline.payment.oney.bean.response;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.payline.payment.oney.bean.common.OneyGson;
 import com.payline.payment.oney.bean.common.PurchaseStatus;
 import com.payline.payment.oney.exception.DecryptException;
 import com.payline.payment.oney.exception.MalformedJsonException;
@@ -10,6 +14,8 @@ import com.payline.payment.oney.utils.properties.service.ConfigPropertiesEnum;
 import com.payline.pmapi.logger.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+
 import static com.payline.payment.oney.utils.OneyConstants.CHIFFREMENT_IS_ACTIVE;
 
 public class TransactionStatusResponse extends OneyResponse {
@@ -34,7 +40,7 @@ public class TransactionStatusResponse extends OneyResponse {
 
     public static TransactionStatusResponse createTransactionStatusResponseFromJson(String json, String encryptKey)
             throws DecryptException, MalformedJsonException {
-        Gson parser = new Gson();
+        Gson parser = OneyGson.get();
 
         TransactionStatusResponse transactionStatusResponse;
         try {
@@ -58,4 +64,60 @@ public class TransactionStatusResponse extends OneyResponse {
     }
 
 
+    /**
+     * JSON mapping, registered in {@link OneyGson}
+     */
+    public static final class GsonAdapter extends TypeAdapter<TransactionStatusResponse> {
+        private final TypeAdapter<String> strings;
+        private final TypeAdapter<PurchaseStatus> purchaseStatuses;
+
+        public GsonAdapter(Gson gson) {
+            this.strings = gson.getAdapter(String.class);
+            this.purchaseStatuses = gson.getAdapter(PurchaseStatus.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, TransactionStatusResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("language_code");
+            strings.write(out, value.languageCode);
+            out.name("purchase");
+            purchaseStatuses.write(out, value.statusPurchase);
+            out.name("encrypted_message");
+            strings.write(out, value.encryptedMessage);
+            out.endObject();
+        }
+
+        @Override
+        public TransactionStatusResponse read(JsonReader in) throws IOException {
+            if (OneyGson.nextNull(in)) {
+                return null;
+            }
+            TransactionStatusResponse response = new TransactionStatusResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "language_code":
+                        response.languageCode = strings.read(in);
+                        break;
+                    case "purchase":
+                        response.statusPurchase = purchaseStatuses.read(in);
+                        break;
+                    case "encrypted_message":
+                        response.encryptedMessage = strings.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return response;
+        }
+    }
+
+
 }
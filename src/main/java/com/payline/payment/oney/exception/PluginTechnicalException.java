@@ -1,6 +1,7 @@
 package com.payline.payment.oney.exception;
 
 import com.google.gson.Gson;
+import com.payline.payment.oney.bean.common.OneyGson;
 import com.payline.payment.oney.utils.PluginUtils;
 import com.payline.pmapi.bean.common.FailureCause;
 import com.payline.pmapi.bean.payment.response.impl.PaymentResponseFailure;
@@ -99,7 +100,7 @@ public class PluginTechnicalException extends Exception {
 
     @Override
     public String toString() {
-        Gson gson = new Gson();
+        Gson gson = OneyGson.get();
         return gson.toJson(this.toPaymentResponseFailure());
     }
 }
@@ -18,6 +18,7 @@ import com.payline.payment.oney.exception.InvalidFieldFormatException;
 import com.payline.payment.oney.exception.PluginTechnicalException;
 import com.payline.payment.oney.service.BeanAssembleService;
 import com.payline.payment.oney.utils.PluginUtils;
+import com.payline.payment.oney.utils.mapping.CodeMapping;
 import com.payline.pmapi.bean.common.Amount;
 import com.payline.pmapi.bean.common.Buyer;
 import com.payline.pmapi.bean.payment.BuyerExtendedHistory;
@@ -149,25 +150,7 @@ public class BeanAssemblerServiceImpl implements BeanAssembleService {
 
         // set the address_type from the delivery mode code (see JIRA 175)
         if( deliveryModeCode != null ) {
-            switch (deliveryModeCode) {
-                case 1:
-                case 2:
-                case 3:
-                    deliveryBuilder.withAddressType(deliveryModeCode);
-                    break;
-                case 4:
-                    deliveryBuilder.withAddressType(5);
-                    break;
-                case 5:
-                    deliveryBuilder.withAddressType(6);
-                    break;
-                case 6:
-                    deliveryBuilder.withAddressType(4);
-                    break;
-                default:
-                    deliveryBuilder.withAddressType(1);
-                    break;
-            }
+            deliveryBuilder.withAddressType(CodeMapping.INSTANCE.getAddressType(deliveryModeCode));
         }
 
         Buyer buyer = paymentRequest.getBuyer();
@@ -28,54 +28,46 @@ public class CaptureServiceImpl implements CaptureService {
         boolean isSandbox = captureRequest.getEnvironment().isSandbox();
         try {
 
-            // call the get status request
+            // read the payment status
             OneyTransactionStatusRequest oneyTransactionStatusRequest = OneyTransactionStatusRequest.Builder.aOneyGetStatusRequest()
                     .fromCaptureRequest(captureRequest).build();
             final OneyHttpClient httpClient = getNewHttpClientInstance(captureRequest);
-            StringResponse oneyResponse = httpClient.initiateGetTransactionStatus(oneyTransactionStatusRequest, isSandbox);
+            PurchaseStatus.StatusCode getStatus = getTransactionStatus(captureRequest, oneyTransactionStatusRequest, httpClient);
 
             // check the result
-            if (oneyResponse == null || oneyResponse.getContent() == null || oneyResponse.getCode() != HTTP_OK) {
+            if (getStatus == null) {
                 return createFailure(transactionId, "Unable to get transaction status", FailureCause.COMMUNICATION_ERROR);
 
-            } else {
-                // get the payment status
-                TransactionStatusResponse statusResponse = createTransactionStatusResponseFromJson(oneyResponse.getContent(), oneyTransactionStatusRequest.getEncryptKey());
-                if (statusResponse == null || statusResponse.getStatusPurchase() == null) {
-                    return createFailure(transactionId, "Unable to get transaction status", FailureCause.COMMUNICATION_ERROR);
+            } else if (FAVORABLE.equals(getStatus)) {
+                // confirm the transaction
+                OneyConfirmRequest confirmRequest = new OneyConfirmRequest.Builder(captureRequest).build();
+                StringResponse confirmResponse = httpClient.initiateConfirmationPayment(confirmRequest, isSandbox);
+
+                // check the confirmation response
+                if (confirmResponse == null || confirmResponse.getContent() == null || confirmResponse.getCode() != HTTP_OK) {
+                    TransactionStatusCache.INSTANCE.invalidate(confirmRequest);
+                    return createFailure(transactionId, "Unable to confirm transaction", FailureCause.COMMUNICATION_ERROR);
+                }
+                TransactionStatusResponse confirmTransactionResponse = createTransactionStatusResponseFromJson(confirmResponse.getContent(), oneyTransactionStatusRequest.getEncryptKey());
 
+                if (confirmTransactionResponse == null || confirmTransactionResponse.getStatusPurchase() == null) {
+                    TransactionStatusCache.INSTANCE.invalidate(confirmRequest);
+                    return createFailure(transactionId, "Unable to confirm transaction", FailureCause.COMMUNICATION_ERROR);
+                }
+
+                // check the confirmation response status
+                PurchaseStatus.StatusCode  confirmStatus = confirmTransactionResponse.getStatusPurchase().getStatusCode();
+                TransactionStatusCache.INSTANCE.put(confirmRequest, confirmStatus);
+                if (FUNDED.equals(confirmStatus)) {
+                    return CaptureResponseSuccess.CaptureResponseSuccessBuilder.aCaptureResponseSuccess()
+                            .withPartnerTransactionId(captureRequest.getPartnerTransactionId())
+                            .withStatusCode(confirmStatus.name())
+                            .build();
                 } else {
-                    // check the status
-                    PurchaseStatus.StatusCode getStatus = statusResponse.getStatusPurchase().getStatusCode();
-                    if (FAVORABLE.equals(getStatus)) {
-                        // confirm the transaction
-                        OneyConfirmRequest confirmRequest = new OneyConfirmRequest.Builder(captureRequest).build();
-                        StringResponse confirmResponse = httpClient.initiateConfirmationPayment(confirmRequest, isSandbox);
-
-                        // check the confirmation response
-                        if (confirmResponse == null || confirmResponse.getContent() == null || confirmResponse.getCode() != HTTP_OK) {
-                            return createFailure(transactionId, "Unable to confirm transaction", FailureCause.COMMUNICATION_ERROR);
-                        }
-                        TransactionStatusResponse confirmTransactionResponse = createTransactionStatusResponseFromJson(confirmResponse.getContent(), oneyTransactionStatusRequest.getEncryptKey());
-
-                        if (confirmTransactionResponse == null || confirmTransactionResponse.getStatusPurchase() == null) {
-                            return createFailure(transactionId, "Unable to confirm transaction", FailureCause.COMMUNICATION_ERROR);
-                        }
-
-                        // check the confirmation response status
-                        PurchaseStatus.StatusCode  confirmStatus = confirmTransactionResponse.getStatusPurchase().getStatusCode();
-                        if (FUNDED.equals(confirmStatus)) {
-                            return CaptureResponseSuccess.CaptureResponseSuccessBuilder.aCaptureResponseSuccess()
-                                    .withPartnerTransactionId(captureRequest.getPartnerTransactionId())
-                                    .withStatusCode(confirmStatus.name())
-                                    .build();
-                        } else {
-                            return createFailure(transactionId, ERROR_STATUS + confirmStatus, FailureCause.REFUSED);
-                        }
-                    } else {
-                        return createFailure(transactionId, ERROR_STATUS + getStatus, FailureCause.REFUSED);
-                    }
+                    return createFailure(transactionId, ERROR_STATUS + confirmStatus, FailureCause.REFUSED);
                 }
+            } else {
+                return createFailure(transactionId, ERROR_STATUS + getStatus, FailureCause.REFUSED);
             }
 
         } catch (PluginTechnicalException e) {
@@ -83,6 +75,34 @@ public class CaptureServiceImpl implements CaptureService {
         }
     }
 
+    /**
+     * Read the payment status, from {@link TransactionStatusCache} if the partner configuration accepts a cached status,
+     * or from a status call.
+     *
+     * @return the payment status, null if it could not be read
+     */
+    private PurchaseStatus.StatusCode getTransactionStatus(CaptureRequest captureRequest, OneyTransactionStatusRequest statusRequest,
+                                                           OneyHttpClient httpClient) throws PluginTechnicalException {
+        PurchaseStatus.StatusCode status = TransactionStatusCache.INSTANCE.get(statusRequest,
+                TransactionStatusCache.getMaxAge(captureRequest.getPartnerConfiguration()));
+        if (status != null) {
+            return status;
+        }
+
+        // call the get status request
+        StringResponse oneyResponse = httpClient.initiateGetTransactionStatus(statusRequest, captureRequest.getEnvironment().isSandbox());
+        if (oneyResponse == null || oneyResponse.getContent() == null || oneyResponse.getCode() != HTTP_OK) {
+            return null;
+        }
+        TransactionStatusResponse statusResponse = createTransactionStatusResponseFromJson(oneyResponse.getContent(), statusRequest.getEncryptKey());
+        if (statusResponse == null || statusResponse.getStatusPurchase() == null) {
+            return null;
+        }
+        status = statusResponse.getStatusPurchase().getStatusCode();
+        TransactionStatusCache.INSTANCE.put(statusRequest, status);
+        return status;
+    }
+
     protected OneyHttpClient getNewHttpClientInstance(final CaptureRequest captureRequest) {
         return OneyHttpClient.getInstance(captureRequest.getPartnerConfiguration());
     }
@@ -15,6 +15,7 @@ import com.payline.payment.oney.utils.i18n.I18nService;
 import com.payline.payment.oney.utils.properties.constants.ConfigurationConstants;
 import com.payline.payment.oney.utils.properties.service.ConfigPropertiesEnum;
 import com.payline.payment.oney.utils.properties.service.ReleasePropertiesEnum;
+import com.payline.pmapi.bean.configuration.PartnerConfiguration;
 import com.payline.pmapi.bean.configuration.ReleaseInformation;
 import com.payline.pmapi.bean.configuration.parameter.AbstractParameter;
 import com.payline.pmapi.bean.configuration.parameter.impl.InputParameter;
@@ -216,14 +217,42 @@ public class ConfigurationServiceImpl implements ConfigurationService {
             return errors;
         }
 
-        return validateCall(contractParametersCheckRequest, errors, pspId, merchantGuid, opcKey, codePays, contractParametersCheckRequest.getEnvironment().isSandbox());
+        return cachedValidateCall(contractParametersCheckRequest, pspId, merchantGuid, opcKey, codePays, contractParametersCheckRequest.getEnvironment().isSandbox());
     }
 
-    private Map<String, String> validateCall(ContractParametersCheckRequest contractParametersCheckRequest, Map<String, String> errors, String pspId, String merchantGuid, String opcKey, String codePays, boolean isSandbox) {
+    /**
+     * Check the settings against the Oney API, unless the same settings have been checked a short time ago.
+     */
+    private Map<String, String> cachedValidateCall(ContractParametersCheckRequest contractParametersCheckRequest, String pspId, String merchantGuid, String opcKey, String codePays, boolean isSandbox) {
+        String cacheKey;
+        try {
+            cacheKey = ContractCheckCache.key(pspId, merchantGuid, opcKey, codePays,
+                    RequestConfigServiceImpl.INSTANCE.getParameterValue(contractParametersCheckRequest, PARTNER_API_URL),
+                    RequestConfigServiceImpl.INSTANCE.getParameterValue(contractParametersCheckRequest, PARTNER_AUTHORIZATION_KEY),
+                    RequestConfigServiceImpl.INSTANCE.getParameterValue(contractParametersCheckRequest, PARTNER_CHIFFREMENT_KEY),
+                    String.valueOf(isSandbox));
+        } catch (InvalidDataException e) {
+            return validateCall(contractParametersCheckRequest, new HashMap<>(), pspId, merchantGuid, opcKey, codePays, isSandbox).getErrors();
+        }
+        PartnerConfiguration partnerConfiguration = contractParametersCheckRequest.getPartnerConfiguration();
+        return ContractCheckCache.INSTANCE.get(cacheKey,
+                ContractCheckCache.getSuccessTtl(partnerConfiguration),
+                ContractCheckCache.getFailureTtl(partnerConfiguration),
+                () -> validateCall(contractParametersCheckRequest, new HashMap<>(), pspId, merchantGuid, opcKey, codePays, isSandbox));
+    }
+
+    /**
+     * Check the settings against the Oney API.
+     * The outcome is cacheable unless it comes from an I/O error, a server error or a conflict, which may not happen again.
+     */
+    private ContractCheckCache.Result validateCall(ContractParametersCheckRequest contractParametersCheckRequest, Map<String, String> errors, String pspId, String merchantGuid, String opcKey, String codePays, boolean isSandbox) {
+        boolean cacheable = false;
         try {
 
             String jsonMsg = getFinalJsonMessage(pspId, merchantGuid, opcKey, codePays);
-            Map<String, String> parameters = PluginUtils.getParametersMap(contractParametersCheckRequest);
+            Map<String, String> parameters = new HashMap<>(PluginUtils.getParametersMap(contractParametersCheckRequest));
+            // the check call counts in the limits of the merchant
+            parameters.put(OneyHttpClient.MERCHANT_GUID, merchantGuid);
             StringResponse stringResponse;
             final OneyHttpClient httpClient = getNewHttpClientInstance(contractParametersCheckRequest);
             if (Boolean.valueOf(ConfigPropertiesEnum.INSTANCE.get(CHIFFREMENT_IS_ACTIVE))) {
@@ -236,6 +265,8 @@ public class ConfigurationServiceImpl implements ConfigurationService {
                 errors.put(PARTNER_API_URL, UNEXPECTED_ERR);
                 LOGGER.error("HTTP response is not parsable");
             } else {
+                // set once the answer is read: an answer which cannot be parsed is not cached
+                boolean cacheableAnswer = stringResponse.getCode() < HTTP_500 && stringResponse.getCode() != HTTP_404;
                 OneyError40x err = null;
 
                 switch (stringResponse.getCode()) {
@@ -268,20 +299,26 @@ public class ConfigurationServiceImpl implements ConfigurationService {
                     case HTTP_409:
                         err = OneyError40x.parseJson(stringResponse.getContent());
                         errors.put(GENERIC_ERROR, err.getMessage() );
+                        // a conflict with another call says nothing about the settings
+                        cacheableAnswer = false;
                         break;
                     case HTTP_500:
                         errMsg = stringResponse.toString();
                         checkOpcError(errors, errMsg);
+                        // a refused OPC will be refused again
+                        cacheableAnswer = errors.containsKey(OPC_KEY);
                         break;
                     default:
                         break;
                 }
+                cacheable = cacheableAnswer;
 
             }
 
         } catch (DecryptException e) {
             LOGGER.error("URL call throws an DecryptException", e);
             errors.put(PARTNER_CHIFFREMENT_KEY, e.getMessage());
+            cacheable = true;
         } catch (HttpCallException e) {
             LOGGER.error("URL call throws an HttpCallException", e);
             errors.put(PARTNER_API_URL, e.getMessage());
@@ -289,7 +326,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
             LOGGER.error("HTTP response is not parsable");
             errors.put(PARTNER_API_URL, UNEXPECTED_ERR);
         }
-        return errors;
+        return new ContractCheckCache.Result(errors, cacheable);
     }
 
     private void checkOpcError(Map<String, String> errors, String errMsg) {
@@ -301,19 +338,11 @@ public class ConfigurationServiceImpl implements ConfigurationService {
     }
 
     private String getFinalJsonMessage(String pspId, String merchantGuid, String opcKey, String codePays) {
-        String lang = "";
-        Locale[] all = Locale.getAvailableLocales();
-        for (Locale locale : all) {
-            String country = locale.getCountry();
-            if (country.equalsIgnoreCase(codePays)) {
-                lang = locale.getLanguage();
-                break;
-            }
-        }
+        String lang = PluginUtils.getLanguageCodeFromCountryCode2(codePays);
         return OneyCheckConstants.TEST_JSON_MSG.replace(OneyCheckConstants.PSP_GUID_TAG, pspId)
                 .replace(OneyCheckConstants.MERCHANT_GUID_TAG, merchantGuid)
                 .replace(OneyCheckConstants.OPC_KEY_TAG, opcKey)
-                .replace(OneyCheckConstants.COUNTRY_ADDRESS, (new Locale("", codePays)).getISO3Country())
+                .replace(OneyCheckConstants.COUNTRY_ADDRESS, PluginUtils.getIsoAlpha3CodeFromCountryCode2(codePays))
                 .replace(OneyCheckConstants.LANGUAGE_CODE, lang);
     }
 
@@ -0,0 +1,92 @@
+package com.payline.payment.oney.service.impl;
+
+import com.payline.payment.oney.bean.common.PurchaseStatus;
+import com.payline.pmapi.logger.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.payline.payment.oney.bean.common.PurchaseStatus.StatusCode.FUNDED;
+import static com.payline.payment.oney.bean.common.PurchaseStatus.StatusCode.TO_BE_FUNDED;
+
+/**
+ * Polls the status of confirmed payments until they are funded, without holding the caller thread.
+ * The checks are scheduled on a single shared thread; the HTTP calls themselves are asynchronous.
+ */
+public enum ConfirmationPoller {
+    INSTANCE;
+
+    private static final Logger LOGGER = LogManager.getLogger(ConfirmationPoller.class);
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "oney-confirmation-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * A non-blocking retrieval of the payment status.
+     */
+    @FunctionalInterface
+    public interface StatusCheck {
+        CompletableFuture<PurchaseStatus.StatusCode> check();
+    }
+
+    /**
+     * Register a confirmed payment. Its status is checked after each interval, until it is FUNDED or TO_BE_FUNDED
+     * or all the intervals have elapsed.
+     *
+     * @param check     the status retrieval
+     * @param intervals the delays before each check
+     * @param unit      the unit of the delays
+     * @return a future completed with the last status read, or with the exception raised by a check
+     */
+    public CompletableFuture<PurchaseStatus.StatusCode> poll(StatusCheck check, long[] intervals, TimeUnit unit) {
+        final CompletableFuture<PurchaseStatus.StatusCode> result = new CompletableFuture<>();
+        if (intervals.length == 0) {
+            result.complete(null);
+            return result;
+        }
+        pending.incrementAndGet();
+        result.whenComplete((status, error) -> pending.decrementAndGet());
+        schedule(check, intervals, 0, unit, result);
+        return result;
+    }
+
+    private void schedule(StatusCheck check, long[] intervals, int index, TimeUnit unit,
+                          CompletableFuture<PurchaseStatus.StatusCode> result) {
+        scheduler.schedule(() -> {
+            final CompletableFuture<PurchaseStatus.StatusCode> attempt;
+            try {
+                attempt = check.check();
+            } catch (RuntimeException e) {
+                LOGGER.error("Unable to check the payment status", e);
+                result.completeExceptionally(e);
+                return;
+            }
+            attempt.whenComplete((status, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                } else if (FUNDED.equals(status) || TO_BE_FUNDED.equals(status) || index == intervals.length - 1) {
+                    result.complete(status);
+                } else {
+                    schedule(check, intervals, index + 1, unit, result);
+                }
+            });
+        }, intervals[index], unit);
+    }
+
+    /**
+     * @return the number of payments whose status is still being polled
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+}
@@ -0,0 +1,206 @@
+package com.payline.payment.oney.service.impl;
+
+import com.payline.pmapi.bean.configuration.PartnerConfiguration;
+import com.payline.pmapi.logger.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Results of the contract parameters checks, kept for a short time so that the same settings submitted again
+ * (a merchant saving the form twice, the back office checking every contract of a merchant...) are not checked
+ * again against the Oney API. Identical checks running at the same time share a single call.
+ * The settings are identified by a hash: the keys and secrets are not kept in memory.
+ */
+enum ContractCheckCache {
+    INSTANCE;
+
+    private static final Logger LOGGER = LogManager.getLogger(ContractCheckCache.class);
+
+    /**
+     * Partner configuration key: how long (in milliseconds) a successful check is kept. 0 to disable.
+     */
+    static final String SUCCESS_TTL = "check.cache.success.ttl";
+
+    /**
+     * Partner configuration key: how long (in milliseconds) a failed check is kept. 0 to disable.
+     */
+    static final String FAILURE_TTL = "check.cache.failure.ttl";
+
+    static final long DEFAULT_SUCCESS_TTL = 300_000L;
+    // a merchant fixing the settings on Oney side must not wait long to check them again
+    static final long DEFAULT_FAILURE_TTL = 30_000L;
+
+    static final int MAX_SIZE = 1_000;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Result>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Outcome of a check: the errors found, and whether they can be kept.
+     */
+    static final class Result {
+        private final Map<String, String> errors;
+        private final boolean cacheable;
+
+        /**
+         * @param errors    the errors by parameter key, empty if the settings are valid
+         * @param cacheable false if the outcome does not depend on the settings only (I/O error, server error...)
+         */
+        Result(Map<String, String> errors, boolean cacheable) {
+            this.errors = Collections.unmodifiableMap(new HashMap<>(errors));
+            this.cacheable = cacheable;
+        }
+
+        /**
+         * @return the errors in a new modifiable map
+         */
+        Map<String, String> getErrors() {
+            return new HashMap<>(errors);
+        }
+    }
+
+    /**
+     * @param key        the hash of the checked settings, see {@link #key(String...)}
+     * @param successTtl how long a successful check is kept, in milliseconds
+     * @param failureTtl how long a failed check is kept, in milliseconds
+     * @param check      the check against the Oney API
+     * @return the errors found by the check, in a new modifiable map
+     */
+    Map<String, String> get(String key, long successTtl, long failureTtl, Supplier<Result> check) {
+        return get(key, successTtl, failureTtl, check, System.currentTimeMillis());
+    }
+
+    Map<String, String> get(String key, long successTtl, long failureTtl, Supplier<Result> check, long now) {
+        if (successTtl <= 0 && failureTtl <= 0) {
+            return check.get().getErrors();
+        }
+
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (now < entry.expiresAt) {
+                LOGGER.debug("Contract check result found in cache");
+                return entry.result.getErrors();
+            }
+            entries.remove(key, entry);
+        }
+
+        CompletableFuture<Result> call = new CompletableFuture<>();
+        CompletableFuture<Result> running = pending.putIfAbsent(key, call);
+        if (running != null) {
+            try {
+                return running.join().getErrors();
+            } catch (CompletionException e) {
+                // the other check failed unexpectedly: run ours
+                return check.get().getErrors();
+            }
+        }
+
+        try {
+            Result result = check.get();
+            long ttl = result.errors.isEmpty() ? successTtl : failureTtl;
+            if (result.cacheable && ttl > 0) {
+                entries.put(key, new Entry(result, now + ttl));
+                if (entries.size() > MAX_SIZE) {
+                    evict(now);
+                }
+            }
+            call.complete(result);
+            return result.getErrors();
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            pending.remove(key, call);
+        }
+    }
+
+    /**
+     * @param values the checked settings
+     * @return a hash of the given values
+     */
+    static String key(String... values) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String value : values) {
+                // a null value and an empty one must not give the same key
+                if (value != null) {
+                    digest.update((byte) 1);
+                    digest.update(value.getBytes(StandardCharsets.UTF_8));
+                }
+                digest.update((byte) 0);
+            }
+            byte[] hash = digest.digest();
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is provided by every JRE
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the value of {@link #SUCCESS_TTL} in the partner configuration, {@link #DEFAULT_SUCCESS_TTL} by default
+     */
+    static long getSuccessTtl(PartnerConfiguration partnerConfiguration) {
+        return getTtl(partnerConfiguration, SUCCESS_TTL, DEFAULT_SUCCESS_TTL);
+    }
+
+    /**
+     * @return the value of {@link #FAILURE_TTL} in the partner configuration, {@link #DEFAULT_FAILURE_TTL} by default
+     */
+    static long getFailureTtl(PartnerConfiguration partnerConfiguration) {
+        return getTtl(partnerConfiguration, FAILURE_TTL, DEFAULT_FAILURE_TTL);
+    }
+
+    private static long getTtl(PartnerConfiguration partnerConfiguration, String key, long defaultValue) {
+        String ttl = partnerConfiguration == null ? null : partnerConfiguration.getProperty(key);
+        return ttl == null || ttl.isEmpty() ? defaultValue : Long.parseLong(ttl);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Remove the expired results, then all of them if the cache is still full
+     */
+    private synchronized void evict(long now) {
+        if (entries.size() <= MAX_SIZE) {
+            return;
+        }
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        if (entries.size() > MAX_SIZE) {
+            entries.clear();
+        }
+    }
+
+    private static final class Entry {
+        private final Result result;
+        private final long expiresAt;
+
+        private Entry(Result result, long expiresAt) {
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.payline.payment.oney.service.impl;
+
+import com.payline.payment.oney.utils.properties.service.LogoPropertiesEnum;
+import com.payline.pmapi.logger.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static com.payline.payment.oney.utils.properties.constants.LogoConstants.*;
+
+/**
+ * The logo of the payment method, read once from the classpath and kept as bytes.
+ * The byte array is shared by all the callers: it must not be modified.
+ */
+enum LogoCache {
+    INSTANCE;
+
+    private static final Logger LOGGER = LogManager.getLogger(LogoCache.class);
+
+    private volatile Logo original;
+
+    /**
+     * Logo bytes with their content type.
+     */
+    static final class Logo {
+        private final byte[] file;
+        private final String contentType;
+
+        private Logo(byte[] file, String contentType) {
+            this.file = file;
+            this.contentType = contentType;
+        }
+
+        /**
+         * @return the image bytes, shared: not to be modified
+         */
+        byte[] getFile() {
+            return file;
+        }
+
+        String getContentType() {
+            return contentType;
+        }
+    }
+
+    /**
+     * @return the logo file in the format declared in logo.properties
+     */
+    Logo getLogo() {
+        Logo logo = original;
+        if (logo == null) {
+            synchronized (this) {
+                logo = original;
+                if (logo == null) {
+                    logo = load();
+                    original = logo;
+                }
+            }
+        }
+        return logo;
+    }
+
+    private static Logo load() {
+        String fileName = LogoPropertiesEnum.INSTANCE.get(LOGO_FILE_NAME);
+        try (InputStream input = LogoCache.class.getClassLoader().getResourceAsStream(fileName)) {
+            if (input == null) {
+                LOGGER.error("Unable to load the logo {}", LOGO_FILE_NAME);
+                throw new RuntimeException("Unable to load the logo " + LOGO_FILE_NAME);
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                baos.write(buffer, 0, read);
+            }
+            byte[] file = baos.toByteArray();
+
+            // the file is served as is, unless it has to be converted
+            String format = LogoPropertiesEnum.INSTANCE.get(LOGO_FORMAT);
+            if (!fileName.toLowerCase().endsWith("." + format.toLowerCase())) {
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(file));
+                ByteArrayOutputStream converted = new ByteArrayOutputStream();
+                ImageIO.write(image, format, converted);
+                file = converted.toByteArray();
+            }
+            return new Logo(file, LogoPropertiesEnum.INSTANCE.get(LOGO_CONTENT_TYPE));
+        } catch (IOException e) {
+            LOGGER.error("Unable to load the logo", e);
+            throw new RuntimeException(e);
+        }
+    }
+}
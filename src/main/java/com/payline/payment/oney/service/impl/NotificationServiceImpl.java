@@ -30,11 +30,12 @@ import com.payline.pmapi.service.NotificationService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.util.Date;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static com.payline.payment.oney.bean.common.PurchaseStatus.StatusCode.*;
 import static com.payline.payment.oney.bean.response.TransactionStatusResponse.createTransactionStatusResponseFromJson;
@@ -44,6 +45,26 @@ public class NotificationServiceImpl implements NotificationService {
     private static final Logger LOGGER = LogManager.getLogger(NotificationServiceImpl.class);
 
     private static final long[] RETRY_INTERVAL_DURATION = {3, 6, 12, 24};
+
+    /**
+     * Partner configuration key: how long (in milliseconds) the notification thread waits for the final status
+     * after the confirmation. Once elapsed, an on-hold response is returned and the status is polled in the background.
+     * Not set, {@link #DEFAULT_CONFIRMATION_WAIT_TIMEOUT}.
+     */
+    public static final String CONFIRMATION_WAIT_TIMEOUT = "notification.confirmation.wait.timeout";
+
+    /**
+     * Long enough for the first status check, 3 seconds after the confirmation.
+     */
+    static final long DEFAULT_CONFIRMATION_WAIT_TIMEOUT = 5000L;
+
+    /**
+     * Partner configuration key: maximum size of a notification body, in bytes. A larger body is rejected.
+     */
+    public static final String MAX_BODY_SIZE = "notification.max.body.size";
+
+    private static final long DEFAULT_MAX_BODY_SIZE = 64 * 1024L;
+
     @Override
     public NotificationResponse parse(NotificationRequest request) {
         NotificationResponse notificationResponse;
@@ -74,12 +95,9 @@ public class NotificationServiceImpl implements NotificationService {
             // retrieve ciphering key
             final String key = RequestConfigServiceImpl.INSTANCE.getParameterValue(request, OneyConstants.PARTNER_CHIFFREMENT_KEY);
 
-            // read body from request
-            BufferedReader br = new BufferedReader(new InputStreamReader(request.getContent(), StandardCharsets.UTF_8));
-            String bodyResponse = br.lines().collect(Collectors.joining(System.lineSeparator()));
-
-            // create an OneyResponse object from json String
-            OneyNotificationResponse oneyResponse = OneyNotificationResponse.createTransactionStatusResponseFromJson(bodyResponse, key);
+            // create an OneyResponse object, read straight from the request body
+            OneyNotificationResponse oneyResponse = OneyNotificationResponse.createTransactionStatusResponseFromStream(
+                    request.getContent(), key, getMaxBodySize(request));
 
             // validate the transactionId to the notification's PspContext
             if( transactionId != null && !transactionId.equals(oneyResponse.getPspContext()) ){
@@ -100,6 +118,7 @@ public class NotificationServiceImpl implements NotificationService {
             partnerTransactionId = purchase.getExternalReference();
             PurchaseStatus.StatusCode paymentStatus = purchase.getStatusCode();
             Boolean isCaptureNow = PluginUtils.isCaptureNow(oneyResponse.getMerchantContext());
+            cacheStatus(request, purchase);
 
             // analyze the payment status
             switch( paymentStatus ){
@@ -160,33 +179,85 @@ public class NotificationServiceImpl implements NotificationService {
 
     /**
      * Send the confirmation call to the partner API.
-     * The, send another request to retrieve the final status of the payment. This final status is then returned.
+     * Then, wait for the final status of the payment, polled in the background by {@link ConfirmationPoller},
+     * for at most {@link #CONFIRMATION_WAIT_TIMEOUT}.
+     * If the final status is not known yet, PENDING is returned.
      *
      * @param request the notification request received from Payline core
      * @param oneyResponse the parsed content of the notification
-     * @return the final status of the payment, after confirmation.
+     * @return the final status of the payment, after confirmation, or PENDING.
      * @throws PluginTechnicalException
      */
     protected PurchaseStatus.StatusCode confirmAndCheck(NotificationRequest request, OneyNotificationResponse oneyResponse) throws PluginTechnicalException {
+        final CompletableFuture<PurchaseStatus.StatusCode> finalStatus = confirmAndCheckAsync(request, oneyResponse);
+        try {
+            return finalStatus.get(getConfirmationWaitTimeout(request), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.info("Final status not available yet, still polling in the background");
+            return PENDING;
+        } catch (InterruptedException e) {
+            LOGGER.error("The thread has been interrupted. Shutting down the thread cleanly...");
+            Thread.currentThread().interrupt();
+            return PENDING;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof PluginTechnicalException) {
+                throw (PluginTechnicalException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new HttpCallException(e, "NotificationServiceImpl.confirmAndCheck.ExecutionException");
+        }
+    }
+
+    /**
+     * Send the confirmation call to the partner API, then register the payment to {@link ConfirmationPoller}
+     * to retrieve its final status.
+     *
+     * @return a future completed with the final status of the payment
+     * @throws PluginTechnicalException if the confirmation call fails
+     */
+    protected CompletableFuture<PurchaseStatus.StatusCode> confirmAndCheckAsync(NotificationRequest request, OneyNotificationResponse oneyResponse) throws PluginTechnicalException {
         final String key = RequestConfigServiceImpl.INSTANCE.getParameterValue(request, OneyConstants.PARTNER_CHIFFREMENT_KEY);
+        final boolean isSandbox = request.getEnvironment().isSandbox();
 
         // confirmation
         OneyConfirmRequest confirmRequest = new OneyConfirmRequest.Builder(request, oneyResponse).build();
         final OneyHttpClient httpClient = getNewHttpClientInstance(request);
-        httpClient.initiateConfirmationPayment(confirmRequest, request.getEnvironment().isSandbox());
+        httpClient.initiateConfirmationPayment(confirmRequest, isSandbox);
+        // the notified status is outdated until the next check
+        TransactionStatusCache.INSTANCE.invalidate(confirmRequest);
 
 
-        // check
-        OneyTransactionStatusRequest oneyTransactionStatusRequest = OneyTransactionStatusRequest.Builder.aOneyGetStatusRequest()
+        // check, a few times, if the payment status equals FUNDED or TO_BE_FUNDED (see RETRY_INTERVAL_DURATION)
+        final OneyTransactionStatusRequest oneyTransactionStatusRequest = OneyTransactionStatusRequest.Builder.aOneyGetStatusRequest()
                 .fromNotificationRequest(request)
                 .withPurchaseReference(PluginUtils.fullPurchaseReference(oneyResponse.getPurchase().getExternalReference()))
                 .build();
-        PurchaseStatus.StatusCode status = null;
 
-        for (final long retryIntervalDuration : RETRY_INTERVAL_DURATION) {
-            sleep(retryIntervalDuration);
-            StringResponse checkStatusResponse = httpClient.initiateGetTransactionStatus(oneyTransactionStatusRequest, request.getEnvironment().isSandbox());
+        final String partnerTransactionId = oneyResponse.getPurchase().getExternalReference();
+        CompletableFuture<PurchaseStatus.StatusCode> finalStatus = ConfirmationPoller.INSTANCE.poll(
+                () -> httpClient.initiateGetTransactionStatusAsync(oneyTransactionStatusRequest, isSandbox)
+                        .thenApply(response -> readCheckStatus(response, key))
+                        .whenComplete((status, error) -> TransactionStatusCache.INSTANCE.put(oneyTransactionStatusRequest, status)),
+                getRetryIntervals(), TimeUnit.SECONDS);
+        finalStatus.whenComplete((status, error) -> {
+            if (error != null) {
+                LOGGER.error("Unable to get the final status of {}", partnerTransactionId, error);
+            } else {
+                LOGGER.info("Final status of {} after confirmation: {}", partnerTransactionId, status);
+            }
+        });
+        return finalStatus;
+    }
 
+    /**
+     * Read the payment status from a check response.
+     *
+     * @throws CompletionException wrapping the {@link PluginTechnicalException} raised if the response is invalid
+     */
+    private static PurchaseStatus.StatusCode readCheckStatus(StringResponse checkStatusResponse, String key) {
+        try {
             // verify the response integrity and HTTP status
             if (checkStatusResponse.getContent() == null) {
                 String message = "Unable to read the check response";
@@ -207,26 +278,54 @@ public class NotificationServiceImpl implements NotificationService {
                 LOGGER.error(message);
                 throw new HttpCallException(message, "empty check response object or statusCode");
             }
-
-            // Retry a few times to check if the payment status equals FUNDED or TO_BE_FUNDED (see RETRY_INTERVAL_DURATION)
-            status = statusResponseResponse.getStatusPurchase().getStatusCode();
-            if (FUNDED.equals(status) || TO_BE_FUNDED.equals(status)) {
-                break;
-            }
+            return statusResponseResponse.getStatusPurchase().getStatusCode();
+        } catch (PluginTechnicalException e) {
+            throw new CompletionException(e);
         }
-
-        return status;
     }
 
-    protected void sleep(final long seconds) {
+    /**
+     * Keep the notified status in {@link TransactionStatusCache}, for the services called right after.
+     */
+    private static void cacheStatus(NotificationRequest request, PurchaseNotification purchase) {
         try {
-            Thread.sleep(seconds * 1000);
-        } catch (InterruptedException e) {
-            LOGGER.error("The thread has been interrupted. Shutting down the thread cleanly..." );
-            Thread.currentThread().interrupt();
+            TransactionStatusCache.INSTANCE.put(
+                    RequestConfigServiceImpl.INSTANCE.getParameterValue(request, OneyConstants.PSP_GUID_KEY),
+                    RequestConfigServiceImpl.INSTANCE.getParameterValue(request, OneyConstants.MERCHANT_GUID_KEY),
+                    PluginUtils.fullPurchaseReference(purchase.getExternalReference()),
+                    purchase.getStatusCode());
+        } catch (InvalidDataException e) {
+            // the status calls of this contract would fail as well
+            LOGGER.debug("Notified status not cached", e);
         }
     }
 
+    /**
+     * @return the delays, in seconds, before each status check
+     */
+    protected long[] getRetryIntervals() {
+        return RETRY_INTERVAL_DURATION.clone();
+    }
+
+    /**
+     * @return the value of {@link #CONFIRMATION_WAIT_TIMEOUT} in the partner configuration, 0 if negative,
+     * {@link #DEFAULT_CONFIRMATION_WAIT_TIMEOUT} by default
+     */
+    protected long getConfirmationWaitTimeout(NotificationRequest request) {
+        String timeout = request.getPartnerConfiguration() == null ? null
+                : request.getPartnerConfiguration().getProperty(CONFIRMATION_WAIT_TIMEOUT);
+        return timeout == null || timeout.isEmpty() ? DEFAULT_CONFIRMATION_WAIT_TIMEOUT : Math.max(0, Long.parseLong(timeout));
+    }
+
+    /**
+     * @return the value of {@link #MAX_BODY_SIZE} in the partner configuration, 64 KB by default
+     */
+    protected long getMaxBodySize(NotificationRequest request) {
+        String size = request.getPartnerConfiguration() == null ? null
+                : request.getPartnerConfiguration().getProperty(MAX_BODY_SIZE);
+        return size == null || size.isEmpty() ? DEFAULT_MAX_BODY_SIZE : Long.parseLong(size);
+    }
+
 
     @Override
     public void notifyTransactionStatus(NotifyTransactionStatusRequest notifyTransactionStatusRequest) {
@@ -16,12 +16,6 @@ import com.payline.pmapi.logger.LogManager;
 import com.payline.pmapi.service.PaymentFormConfigurationService;
 import org.apache.logging.log4j.Logger;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.text.MessageFormat;
 import java.util.Locale;
 
 import static com.payline.payment.oney.utils.OneyConstants.NB_ECHEANCES_KEY;
@@ -61,8 +55,7 @@ public class PaymentFormConfigurationServiceImpl implements PaymentFormConfigura
 
     private String buildLabel(String key, Locale locale, String nbEcheances) {
 
-        String base = this.i18n.getMessage(key, locale);
-        return MessageFormat.format(base, nbEcheances);
+        return this.i18n.getMessage(key, locale, nbEcheances);
     }
 
     @Override
@@ -82,28 +75,11 @@ public class PaymentFormConfigurationServiceImpl implements PaymentFormConfigura
 
     @Override
     public PaymentFormLogo getLogo(String var1, Locale locale) {
-
-        String fileName = LogoPropertiesEnum.INSTANCE.get(LOGO_FILE_NAME);
-        InputStream input = PaymentFormConfigurationServiceImpl.class.getClassLoader().getResourceAsStream(fileName);
-        if (input == null) {
-            LOGGER.error("Unable to load the logo {}", LOGO_FILE_NAME);
-            throw new RuntimeException("Unable to load the logo " + LOGO_FILE_NAME);
-        }
-        try {
-            // Read logo file
-            BufferedImage logo = ImageIO.read(input);
-
-            // Recover byte array from image
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(logo, LogoPropertiesEnum.INSTANCE.get(LOGO_FORMAT), baos);
-
-            return PaymentFormLogo.PaymentFormLogoBuilder.aPaymentFormLogo()
-                    .withFile(baos.toByteArray())
-                    .withContentType(LogoPropertiesEnum.INSTANCE.get(LOGO_CONTENT_TYPE))
-                    .build();
-        } catch (IOException e) {
-            LOGGER.error("Unable to load the logo", e);
-            throw new RuntimeException(e);
-        }
+        // read once, then served from memory
+        LogoCache.Logo logo = LogoCache.INSTANCE.getLogo();
+        return PaymentFormLogo.PaymentFormLogoBuilder.aPaymentFormLogo()
+                .withFile(logo.getFile())
+                .withContentType(logo.getContentType())
+                .build();
     }
 }
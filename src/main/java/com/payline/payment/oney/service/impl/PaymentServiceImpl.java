@@ -14,6 +14,7 @@ import com.payline.payment.oney.service.BeanAssembleService;
 import com.payline.payment.oney.utils.OneyConstants;
 import com.payline.payment.oney.utils.OneyErrorHandler;
 import com.payline.payment.oney.utils.PluginUtils;
+import com.payline.payment.oney.utils.http.OneyCallContext;
 import com.payline.payment.oney.utils.http.OneyHttpClient;
 import com.payline.payment.oney.utils.http.StringResponse;
 import com.payline.pmapi.bean.common.FailureCause;
@@ -43,12 +44,11 @@ public class PaymentServiceImpl implements PaymentService {
     @Override
     public PaymentResponse paymentRequest(PaymentRequest paymentRequest) {
         try {
-            final String merchGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(paymentRequest, MERCHANT_GUID_KEY);
+            // the GUIDs, the encryption key and the call parameters, read once
+            final OneyCallContext callContext = PluginUtils.getCallContext(paymentRequest);
             final String merchLanguage = RequestConfigServiceImpl.INSTANCE.getParameterValue(paymentRequest, LANGUAGE_CODE_KEY);
             final String language = paymentRequest.getLocale().getLanguage();
-            final String merchantRequestId = PluginUtils.generateMerchantRequestId(merchGuid);
-            final String pspGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(paymentRequest, PSP_GUID_KEY);
-            final String chiffrementKey = RequestConfigServiceImpl.INSTANCE.getParameterValue(paymentRequest, PARTNER_CHIFFREMENT_KEY);
+            final String merchantRequestId = PluginUtils.generateMerchantRequestId(callContext.getMerchantGuid());
             final BusinessTransactionData businessTransaction = beanAssembleService.assembleBuisnessTransactionData(paymentRequest);
             final PaymentData paymentData = beanAssembleService.assemblePaymentData(paymentRequest, businessTransaction);
             final NavigationData navigationData = beanAssembleService.assembleNavigationData(paymentRequest);
@@ -60,18 +60,15 @@ public class PaymentServiceImpl implements PaymentService {
             final OneyPaymentRequest oneyRequest = OneyPaymentRequest.Builder.aOneyPaymentRequest()
                     .withLanguageCode(language)
                     .withMerchantRequestId(merchantRequestId)
-                    .withPspGuid(pspGuid)
-                    .withMerchantGuid(merchGuid)
                     .withNavigation(navigationData)
                     .withPaymentdata(paymentData)
                     .withCustomer(customer)
                     .withPurchase(purchase)
                     .withPurchaseHistory(purchaseHistory)
                     .withMerchantLanguageCode(merchLanguage)
-                    .withEncryptKey(chiffrementKey)
                     .withMerchantContext(paymentRequest.getSoftDescriptor())
                     .withPspContext(paymentRequest.getTransactionId())
-                    .withCallParameters(PluginUtils.getParametersMap(paymentRequest))
+                    .withCallContext(callContext)
                     .withMerchantContext(merchantContext)// adding data to merchantContext field to get it later on the notification
                     .build();
 
@@ -108,8 +105,8 @@ public class PaymentServiceImpl implements PaymentService {
                 PaymentResponseRedirect.RedirectionRequest redirectionRequest = new PaymentResponseRedirect.RedirectionRequest(responseRedirectURL);
                 Map<String, String> oneyContext = new HashMap<>();
                 //RequestData
-                oneyContext.put(OneyConstants.PSP_GUID_KEY, pspGuid);
-                oneyContext.put(OneyConstants.MERCHANT_GUID_KEY, merchGuid);
+                oneyContext.put(OneyConstants.PSP_GUID_KEY, callContext.getPspGuid());
+                oneyContext.put(OneyConstants.MERCHANT_GUID_KEY, callContext.getMerchantGuid());
                 oneyContext.put(OneyConstants.EXTERNAL_REFERENCE_KEY, purchase.getExternalReference());
                 oneyContext.put(OneyConstants.PAYMENT_AMOUNT_KEY, paymentData.getAmount().toString());
                 oneyContext.put(OneyConstants.LANGUAGE_CODE_KEY, language);
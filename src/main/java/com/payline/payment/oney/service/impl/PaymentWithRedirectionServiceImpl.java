@@ -54,6 +54,7 @@ public class PaymentWithRedirectionServiceImpl implements PaymentWithRedirection
                 // Special case in which we need to send a confirmation request
                 TransactionStatusResponse response = TransactionStatusResponse.createTransactionStatusResponseFromJson(status.getContent(), oneyTransactionStatusRequest.getEncryptKey());
                 if (response.getStatusPurchase() != null) {
+                    TransactionStatusCache.INSTANCE.put(oneyTransactionStatusRequest, response.getStatusPurchase().getStatusCode());
                     // Special case in which we need to send a confirmation request
                     if (redirectionPaymentRequest.isCaptureNow() && FAVORABLE.equals(response.getStatusPurchase().getStatusCode())) {
                         OneyConfirmRequest confirmRequest = new OneyConfirmRequest.Builder(redirectionPaymentRequest)
@@ -104,6 +105,7 @@ public class PaymentWithRedirectionServiceImpl implements PaymentWithRedirection
                 // Special case in which we need to send a confirmation request
                 TransactionStatusResponse response = TransactionStatusResponse.createTransactionStatusResponseFromJson(status.getContent(), oneyTransactionStatusRequest.getEncryptKey());
                 if (response.getStatusPurchase() != null) {
+                    TransactionStatusCache.INSTANCE.put(oneyTransactionStatusRequest, response.getStatusPurchase().getStatusCode());
                     // Special case in which we need to send a confirmation request
                     if (transactionStatusRequest.isCaptureNow() && FAVORABLE.equals(response.getStatusPurchase().getStatusCode())) {
                         OneyConfirmRequest confirmRequest = new OneyConfirmRequest.Builder(transactionStatusRequest)
@@ -164,6 +166,7 @@ public class PaymentWithRedirectionServiceImpl implements PaymentWithRedirection
                             ERROR_NO_PURCHASE_STATUS);
                 }
 
+                TransactionStatusCache.INSTANCE.put(confirmRequest, responseDecrypted.getStatusPurchase().getStatusCode());
                 return this.handleTransactionStatusResponse(responseDecrypted, partnerTransactionId);
             }
         } catch (PluginTechnicalException e) {
@@ -69,6 +69,7 @@ public class RefundServiceImpl implements RefundService {
 
                 //Si Oney renvoie une message vide, on renvoi un Payment Failure response
                 if (responseDecrypted.getStatusPurchase() == null) {
+                    TransactionStatusCache.INSTANCE.invalidate(oneyRefundRequest);
                     LOGGER.debug("oneyResponse StringResponse is null !");
                     LOGGER.error("Refund is null");
                     return OneyErrorHandler.geRefundResponseFailure(
@@ -77,6 +78,7 @@ public class RefundServiceImpl implements RefundService {
                             "Purchase status : null");
                 }
 
+                TransactionStatusCache.INSTANCE.put(oneyRefundRequest, responseDecrypted.getStatusPurchase().getStatusCode());
                 LOGGER.info("Refund success");
                 return RefundResponseSuccess.RefundResponseSuccessBuilder.aRefundResponseSuccess()
                         .withPartnerTransactionId(oneyRefundRequest.getPurchaseReference())
@@ -122,7 +124,13 @@ public class RefundServiceImpl implements RefundService {
         OneyTransactionStatusRequest oneyTransactionStatusRequest = OneyTransactionStatusRequest.Builder.aOneyGetStatusRequest()
                 .fromRefundRequest(refundRequest)
                 .build();
-        PurchaseStatus.StatusCode transactionStatusCode = null;
+        // a status read a few moments ago, if the partner configuration accepts it
+        PurchaseStatus.StatusCode transactionStatusCode = TransactionStatusCache.INSTANCE.get(oneyTransactionStatusRequest,
+                TransactionStatusCache.getMaxAge(refundRequest.getPartnerConfiguration()));
+        if (transactionStatusCode != null) {
+            LOGGER.info("Cached transaction status used: {}", transactionStatusCode);
+            return transactionStatusCode;
+        }
         try {
             final OneyHttpClient httpClient = getNewHttpClientInstance(refundRequest);
             StringResponse status = httpClient.initiateGetTransactionStatus(oneyTransactionStatusRequest, refundRequest.getEnvironment().isSandbox());
@@ -130,6 +138,7 @@ public class RefundServiceImpl implements RefundService {
             if (status.getCode() == HTTP_OK) {
                 TransactionStatusResponse response = TransactionStatusResponse.createTransactionStatusResponseFromJson(status.getContent(), oneyTransactionStatusRequest.getEncryptKey());
                 transactionStatusCode = response.getStatusPurchase() == null ? null : response.getStatusPurchase().getStatusCode();
+                TransactionStatusCache.INSTANCE.put(oneyTransactionStatusRequest, transactionStatusCode);
             }
 
         } catch (PluginTechnicalException e) {
@@ -71,6 +71,7 @@ public class ResetServiceImpl implements ResetService {
 
                 //Si Oney renvoie une message vide, on renvoi un Payment Failure response
                 if (responseDecrypted.getStatusPurchase() == null) {
+                    TransactionStatusCache.INSTANCE.invalidate(oneyRefundRequest);
                     LOGGER.debug("oneyResponse StringResponse is null !");
                     LOGGER.error("Reset is null");
                     return ResetResponseFailure.ResetResponseFailureBuilder.aResetResponseFailure()
@@ -80,6 +81,7 @@ public class ResetServiceImpl implements ResetService {
                             .build();
                 }
 
+                TransactionStatusCache.INSTANCE.put(oneyRefundRequest, responseDecrypted.getStatusPurchase().getStatusCode());
                 LOGGER.info("Reset Success");
                 return ResetResponseSuccess.ResetResponseSuccessBuilder.aResetResponseSuccess()
                         .withPartnerTransactionId(resetRequest.getPartnerTransactionId())
@@ -124,7 +126,13 @@ public class ResetServiceImpl implements ResetService {
         OneyTransactionStatusRequest oneyTransactionStatusRequest = OneyTransactionStatusRequest.Builder.aOneyGetStatusRequest()
                 .fromResetRequest(resetRequest)
                 .build();
-        PurchaseStatus.StatusCode transactionStatusCode = null;
+        // a status read a few moments ago, if the partner configuration accepts it
+        PurchaseStatus.StatusCode transactionStatusCode = TransactionStatusCache.INSTANCE.get(oneyTransactionStatusRequest,
+                TransactionStatusCache.getMaxAge(resetRequest.getPartnerConfiguration()));
+        if (transactionStatusCode != null) {
+            LOGGER.info("Cached transaction status used: {}", transactionStatusCode);
+            return transactionStatusCode;
+        }
         try {
             final OneyHttpClient httpClient = getNewHttpClientInstance(resetRequest);
             StringResponse status = httpClient.initiateGetTransactionStatus(oneyTransactionStatusRequest, resetRequest.getEnvironment().isSandbox());
@@ -132,6 +140,7 @@ public class ResetServiceImpl implements ResetService {
             if (status.getCode() == HTTP_OK) {
                 TransactionStatusResponse response = createTransactionStatusResponseFromJson(status.getContent(), oneyTransactionStatusRequest.getEncryptKey());
                 transactionStatusCode = response.getStatusPurchase() == null ? null : response.getStatusPurchase().getStatusCode();
+                TransactionStatusCache.INSTANCE.put(oneyTransactionStatusRequest, transactionStatusCode);
             }
 
         } catch (PluginTechnicalException e) {
@@ -0,0 +1,176 @@
+package com.payline.payment.oney.service.impl;
+
+import com.payline.payment.oney.bean.common.PurchaseStatus;
+import com.payline.payment.oney.bean.request.ParameterizedUrlOneyRequest;
+import com.payline.pmapi.bean.configuration.PartnerConfiguration;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Last payment statuses read from Oney (notifications, status and confirmation responses), kept for a short time
+ * so that a service can act on a fresh status without asking for it again.
+ * The statuses are identified by psp_guid, merchant_guid and purchase reference. Each reader tells how old a status
+ * it accepts: the cache is only read when {@link #MAX_AGE} is set in the partner configuration.
+ */
+public enum TransactionStatusCache {
+    INSTANCE;
+
+    /**
+     * Partner configuration key: how old (in milliseconds) a cached status may be to be used instead of a status call.
+     * 0 or unset: the status is always asked to Oney.
+     */
+    public static final String MAX_AGE = "status.cache.max.age";
+
+    /**
+     * No status is kept longer than this, whatever the accepted age.
+     */
+    static final long TIME_TO_LIVE = 60_000L;
+
+    static final int MAX_SIZE = 10_000;
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Keep the status of a payment
+     */
+    public void put(String pspGuid, String merchantGuid, String purchaseReference, PurchaseStatus.StatusCode status) {
+        if (pspGuid == null || merchantGuid == null || purchaseReference == null || status == null) {
+            return;
+        }
+        put(pspGuid, merchantGuid, purchaseReference, status, System.currentTimeMillis());
+    }
+
+    /**
+     * Keep the status of the payment targeted by the given request
+     */
+    public void put(ParameterizedUrlOneyRequest request, PurchaseStatus.StatusCode status) {
+        put(request.getPspGuid(), request.getMerchantGuid(), request.getPurchaseReference(), status);
+    }
+
+    void put(String pspGuid, String merchantGuid, String purchaseReference, PurchaseStatus.StatusCode status, long now) {
+        entries.put(new Key(pspGuid, merchantGuid, purchaseReference), new Entry(status, now));
+        if (entries.size() > MAX_SIZE) {
+            evict(now);
+        }
+    }
+
+    /**
+     * @param maxAge the maximum age of the status, in milliseconds
+     * @return the status of the payment targeted by the given request, null if none is known or it is too old
+     */
+    public PurchaseStatus.StatusCode get(ParameterizedUrlOneyRequest request, long maxAge) {
+        return get(request.getPspGuid(), request.getMerchantGuid(), request.getPurchaseReference(), maxAge, System.currentTimeMillis());
+    }
+
+    PurchaseStatus.StatusCode get(String pspGuid, String merchantGuid, String purchaseReference, long maxAge, long now) {
+        if (maxAge <= 0 || pspGuid == null || merchantGuid == null || purchaseReference == null) {
+            return null;
+        }
+        Entry entry = entries.get(new Key(pspGuid, merchantGuid, purchaseReference));
+        if (entry == null) {
+            return null;
+        }
+        long age = now - entry.time;
+        if (age >= TIME_TO_LIVE) {
+            entries.remove(new Key(pspGuid, merchantGuid, purchaseReference), entry);
+            return null;
+        }
+        return age <= maxAge ? entry.status : null;
+    }
+
+    /**
+     * Forget the status of the payment targeted by the given request, after an action changing it has been sent.
+     */
+    public void invalidate(ParameterizedUrlOneyRequest request) {
+        if (request.getPspGuid() != null && request.getMerchantGuid() != null && request.getPurchaseReference() != null) {
+            entries.remove(new Key(request.getPspGuid(), request.getMerchantGuid(), request.getPurchaseReference()));
+        }
+    }
+
+    /**
+     * @return the value of {@link #MAX_AGE} in the partner configuration, 0 by default
+     */
+    public static long getMaxAge(PartnerConfiguration partnerConfiguration) {
+        String maxAge = partnerConfiguration == null ? null : partnerConfiguration.getProperty(MAX_AGE);
+        return maxAge == null || maxAge.isEmpty() ? 0 : Long.parseLong(maxAge);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Remove the expired statuses, then the oldest ones, until a tenth of the room is free again
+     */
+    private synchronized void evict(long now) {
+        if (entries.size() <= MAX_SIZE) {
+            return;
+        }
+        long oldest = Long.MAX_VALUE;
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            long time = it.next().getValue().time;
+            if (now - time >= TIME_TO_LIVE) {
+                it.remove();
+            } else {
+                oldest = Math.min(oldest, time);
+            }
+        }
+        // still full of live statuses: drop the older half of their lifetime span, step by step
+        long threshold = oldest;
+        while (entries.size() > MAX_SIZE * 9 / 10 && threshold < now) {
+            threshold += Math.max(1, (now - threshold) / 2);
+            final long limit = threshold;
+            entries.values().removeIf(entry -> entry.time < limit);
+        }
+    }
+
+    private static final class Key {
+        private final String pspGuid;
+        private final String merchantGuid;
+        private final String purchaseReference;
+
+        private Key(String pspGuid, String merchantGuid, String purchaseReference) {
+            this.pspGuid = pspGuid;
+            this.merchantGuid = merchantGuid;
+            this.purchaseReference = purchaseReference;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return pspGuid.equals(key.pspGuid)
+                    && merchantGuid.equals(key.merchantGuid)
+                    && purchaseReference.equals(key.purchaseReference);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(pspGuid, merchantGuid, purchaseReference);
+        }
+    }
+
+    private static final class Entry {
+        private final PurchaseStatus.StatusCode status;
+        private final long time;
+
+        private Entry(PurchaseStatus.StatusCode status, long time) {
+            this.status = status;
+            this.time = time;
+        }
+    }
+}
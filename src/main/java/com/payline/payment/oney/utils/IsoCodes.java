@@ -0,0 +1,160 @@
+package com.payline.payment.oney.utils;
+
+import java.util.Locale;
+import java.util.MissingResourceException;
+
+/**
+ * ISO-3166 alpha-2 country codes and ISO-639 language codes known by the JRE, indexed once at class loading.
+ * A two-letter code is packed into an index of 26 * 26 arrays, so that a lookup is an array access instead of a scan
+ * of {@link Locale#getISOCountries()} or the building of a {@link Locale}.
+ * The codes are not validated here beyond their shape: a code which is not in the tables gets -1 or null.
+ */
+final class IsoCodes {
+
+    private static final int SIZE = 26 * 26;
+
+    // ISO-3166 alpha-3 code of each alpha-2 code, null if the code is not a country
+    private static final String[] ALPHA3 = new String[SIZE];
+    private static final boolean[] LANGUAGES = new boolean[SIZE];
+    // language of the first available locale of each country, "" if none
+    private static final String[] LANGUAGE_BY_COUNTRY = new String[SIZE];
+
+    private static volatile CountryNames countryNames;
+
+    static {
+        for (String country : Locale.getISOCountries()) {
+            int index = index(country, 'A');
+            if (index >= 0) {
+                try {
+                    ALPHA3[index] = new Locale("", country).getISO3Country();
+                } catch (MissingResourceException e) {
+                    // no alpha-3 code: resolved through Locale on each call, as any unknown code
+                }
+            }
+        }
+        for (String language : Locale.getISOLanguages()) {
+            int index = index(language, 'a');
+            if (index >= 0) {
+                LANGUAGES[index] = true;
+            }
+        }
+        for (Locale locale : Locale.getAvailableLocales()) {
+            int index = indexIgnoreCase(locale.getCountry());
+            if (index >= 0 && LANGUAGE_BY_COUNTRY[index] == null) {
+                LANGUAGE_BY_COUNTRY[index] = locale.getLanguage();
+            }
+        }
+    }
+
+    private IsoCodes() {
+        // ras.
+    }
+
+    /**
+     * @param countryCode an upper case alpha-2 code
+     * @return true if the code is in the ISO-3166 list
+     */
+    static boolean isCountry(String countryCode) {
+        int index = index(countryCode, 'A');
+        return index >= 0 && ALPHA3[index] != null;
+    }
+
+    /**
+     * @param languageCode a lower case alpha-2 code
+     * @return true if the code is in the ISO-639 list
+     */
+    static boolean isLanguage(String languageCode) {
+        int index = index(languageCode, 'a');
+        return index >= 0 && LANGUAGES[index];
+    }
+
+    /**
+     * @param countryCode an alpha-2 code, in any case
+     * @return the alpha-3 code, null if the code is not in the ISO-3166 list
+     */
+    static String getAlpha3(String countryCode) {
+        int index = indexIgnoreCase(countryCode);
+        return index < 0 ? null : ALPHA3[index];
+    }
+
+    /**
+     * @param countryCode an alpha-2 code, in any case
+     * @return the name of the country in the default display locale, null if the code is not in the ISO-3166 list
+     */
+    static String getName(String countryCode) {
+        int index = indexIgnoreCase(countryCode);
+        if (index < 0 || ALPHA3[index] == null) {
+            return null;
+        }
+        Locale displayLocale = Locale.getDefault(Locale.Category.DISPLAY);
+        CountryNames names = countryNames;
+        if (names == null || !names.locale.equals(displayLocale)) {
+            names = new CountryNames(displayLocale);
+            countryNames = names;
+        }
+        String name = names.names[index];
+        if (name == null) {
+            // a String is immutable: a concurrent computation of the same name is harmless
+            name = new Locale("", countryCode).getDisplayCountry(displayLocale);
+            names.names[index] = name;
+        }
+        return name;
+    }
+
+    /**
+     * @param countryCode an alpha-2 code, in any case
+     * @return the language of the first locale of the country available in the JRE, "" if none
+     */
+    static String getLanguage(String countryCode) {
+        int index = indexIgnoreCase(countryCode);
+        String language = index < 0 ? null : LANGUAGE_BY_COUNTRY[index];
+        return language == null ? "" : language;
+    }
+
+    /**
+     * @param first 'A' for an upper case code, 'a' for a lower case one
+     * @return the index of the two-letter code, -1 if it is not made of two letters of the given case
+     */
+    private static int index(String code, char first) {
+        if (code == null || code.length() != 2) {
+            return -1;
+        }
+        int c0 = code.charAt(0) - first;
+        int c1 = code.charAt(1) - first;
+        if (c0 < 0 || c0 >= 26 || c1 < 0 || c1 >= 26) {
+            return -1;
+        }
+        return c0 * 26 + c1;
+    }
+
+    private static int indexIgnoreCase(String code) {
+        if (code == null || code.length() != 2) {
+            return -1;
+        }
+        int c0 = letter(code.charAt(0));
+        int c1 = letter(code.charAt(1));
+        return c0 < 0 || c1 < 0 ? -1 : c0 * 26 + c1;
+    }
+
+    /**
+     * @return the position of the letter in the alphabet, -1 if it is not an ASCII letter
+     */
+    private static int letter(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        return c >= 'A' && c <= 'Z' ? c - 'A' : -1;
+    }
+
+    /**
+     * Country names in a display locale, computed on first use.
+     */
+    private static final class CountryNames {
+        private final Locale locale;
+        private final String[] names = new String[SIZE];
+
+        private CountryNames(Locale locale) {
+            this.locale = locale;
+        }
+    }
+}
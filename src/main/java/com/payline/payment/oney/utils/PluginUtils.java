@@ -5,11 +5,15 @@ import com.payline.payment.oney.bean.common.PurchaseStatus;
 import com.payline.payment.oney.exception.InvalidDataException;
 import com.payline.payment.oney.exception.InvalidRequestException;
 import com.payline.payment.oney.service.impl.RequestConfigServiceImpl;
-import com.payline.payment.oney.utils.properties.service.ConfigPropertiesEnum;
+import com.payline.payment.oney.utils.http.OneyCallContext;
+import com.payline.payment.oney.utils.mapping.CodeMapping;
 import com.payline.pmapi.bean.capture.request.CaptureRequest;
 import com.payline.pmapi.bean.common.Buyer;
+import com.payline.pmapi.bean.configuration.PartnerConfiguration;
 import com.payline.pmapi.bean.configuration.request.ContractParametersCheckRequest;
 import com.payline.pmapi.bean.notification.request.NotificationRequest;
+import com.payline.pmapi.bean.payment.ContractConfiguration;
+import com.payline.pmapi.bean.payment.ContractProperty;
 import com.payline.pmapi.bean.payment.request.PaymentRequest;
 import com.payline.pmapi.bean.payment.request.TransactionStatusRequest;
 import com.payline.pmapi.bean.refund.request.RefundRequest;
@@ -83,77 +87,15 @@ public class PluginUtils {
      * @return Oney HonorificCode
      */
     public static Integer getHonorificCode(String civility) {
-
-        if (civility == null) {
-            return null;
-        }
-
-        switch (civility.toLowerCase()) {
-
-            // Madame → PAYLINE: 1 → ONEY: 2
-            case "1":
-                return 2;
-            // Mademoiselle → PAYLINE: 3 → ONEY: 3
-            case "3":
-                return 3;
-            // Monsieur → PAYLINE: 4 → ONEY: 1
-            case "4":
-                return 1;
-
-            default:
-                //Inconnu ex : Professeur, Maitre, Docteur
-                return 0;
-        }
+        return CodeMapping.INSTANCE.getHonorificCode(civility);
     }
 
     public static Integer getOneyDeliveryModeCode(String paylineCode) {
-
-        if (paylineCode == null) {
-            return null;
-        }
-        switch (paylineCode) {
-
-            // "Collection of the goods in the merchant store":
-            case "1":
-                return 1;
-            // "Collection in a third party point":
-            case "2":
-                return 2;
-            // case "Collection in an airport, train station or travel agency":
-            case "3":
-                return 3;
-            //  case "Carrier (La Poste, Colissimo, UPS, DHL...or any private carrier)":
-            case "4":
-                return 4;
-            //  case "Electronic ticket":
-            case "5":
-                return 5;
-
-            default:
-                return 4;
-
-        }
+        return CodeMapping.INSTANCE.getDeliveryModeCode(paylineCode);
     }
 
     public static Integer getOneyDeliveryOption(String paylineCode) {
-
-        if (paylineCode == null) {
-            return null;
-        }
-        switch (paylineCode.toLowerCase()) {
-            //  cas "Express'
-            case "1":
-                return 1;
-            //standard
-            case "2":
-                return 2;
-            //non gere par Payline a ce jour
-//            case "priority":
-//                return 3;
-            default:
-                return 2;
-
-        }
+        return CodeMapping.INSTANCE.getDeliveryOption(paylineCode);
     }
 
     // ------------  FIN Mapping between Oney and Payline codes  -----------------------
@@ -245,6 +187,11 @@ public class PluginUtils {
         if (code == null || code.isEmpty()) {
             return null;
         }
+        String alpha3 = IsoCodes.getAlpha3(code);
+        if (alpha3 != null) {
+            return alpha3;
+        }
+        // not an ISO-3166 code: let Locale decide, as it always did
         Locale locale = new Locale("", code);
         return locale.getISO3Country();
     }
@@ -259,11 +206,24 @@ public class PluginUtils {
         if (code == null || code.isEmpty()) {
             return null;
         }
-
+        String name = IsoCodes.getName(code);
+        if (name != null) {
+            return name;
+        }
         Locale locale = new Locale("", code);
         return locale.getDisplayCountry();
     }
 
+    /**
+     * Return the language of a country, as the first locale of this country available in the JRE
+     *
+     * @param code a ISO-3166 alpha 2 code
+     * @return a ISO-639 code, or an empty string if the JRE has no locale for this country
+     */
+    public static String getLanguageCodeFromCountryCode2(String code) {
+        return IsoCodes.getLanguage(code);
+    }
+
     /**
      * check if a String respect ISO-3166 rules
      *
@@ -271,7 +231,7 @@ public class PluginUtils {
      * @return true if countryCode is in ISO-3166 list, else return false
      */
     public static boolean isISO3166(String countryCode) {
-        return countryCode != null && Arrays.asList(Locale.getISOCountries()).contains(countryCode);
+        return IsoCodes.isCountry(countryCode);
     }
 
     /**
@@ -281,7 +241,7 @@ public class PluginUtils {
      * @return true if languageCode is in ISO-3166 list, else return false
      */
     public static boolean isISO639(String languageCode) {
-        return languageCode != null && Arrays.asList(Locale.getISOLanguages()).contains(languageCode);
+        return IsoCodes.isLanguage(languageCode);
     }
 
     /**
@@ -326,11 +286,25 @@ public class PluginUtils {
      * @return the ParametersMap
      */
     public static Map<String, String> getParametersMap(RefundRequest refundRequest) throws InvalidDataException {
+        return getCallContext(refundRequest).getParameters();
+    }
 
-        String authorization = RequestConfigServiceImpl.INSTANCE.getParameterValue(refundRequest, PARTNER_AUTHORIZATION_KEY);
-        String url = RequestConfigServiceImpl.INSTANCE.getParameterValue(refundRequest, PARTNER_API_URL);
-        String coutryCode = RequestConfigServiceImpl.INSTANCE.getParameterValue(refundRequest, COUNTRY_CODE_KEY);
-        return getParametersMap(authorization, url, coutryCode);
+    /**
+     * Read the call context from the configurations, once for all the calls of the request
+     *
+     * @param refundRequest Payline RefundRequest
+     * @return the call context, shared by the requests of the contract
+     */
+    public static OneyCallContext getCallContext(RefundRequest refundRequest) throws InvalidDataException {
+        return getCallContext(contractProperties(refundRequest.getContractConfiguration()), refundRequest.getPartnerConfiguration(), () -> {
+            String pspGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(refundRequest, PSP_GUID_KEY);
+            String merchantGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(refundRequest, MERCHANT_GUID_KEY);
+            String encryptKey = RequestConfigServiceImpl.INSTANCE.getParameterValue(refundRequest, PARTNER_CHIFFREMENT_KEY);
+            String authorization = RequestConfigServiceImpl.INSTANCE.getParameterValue(refundRequest, PARTNER_AUTHORIZATION_KEY);
+            String url = RequestConfigServiceImpl.INSTANCE.getParameterValue(refundRequest, PARTNER_API_URL);
+            String coutryCode = RequestConfigServiceImpl.INSTANCE.getParameterValue(refundRequest, COUNTRY_CODE_KEY);
+            return getCallContext(authorization, url, coutryCode, pspGuid, merchantGuid, encryptKey);
+        });
     }
 
     /**
@@ -340,11 +314,25 @@ public class PluginUtils {
      * @return the ParametersMap
      */
     public static Map<String, String> getParametersMap(ResetRequest resetRequest) throws InvalidDataException {
+        return getCallContext(resetRequest).getParameters();
+    }
 
-        String authorization = RequestConfigServiceImpl.INSTANCE.getParameterValue(resetRequest, PARTNER_AUTHORIZATION_KEY);
-        String url = RequestConfigServiceImpl.INSTANCE.getParameterValue(resetRequest, PARTNER_API_URL);
-        String coutryCode = RequestConfigServiceImpl.INSTANCE.getParameterValue(resetRequest, COUNTRY_CODE_KEY);
-        return getParametersMap(authorization, url, coutryCode);
+    /**
+     * Read the call context from the configurations, once for all the calls of the request
+     *
+     * @param resetRequest Payline ResetRequest
+     * @return the call context, shared by the requests of the contract
+     */
+    public static OneyCallContext getCallContext(ResetRequest resetRequest) throws InvalidDataException {
+        return getCallContext(contractProperties(resetRequest.getContractConfiguration()), resetRequest.getPartnerConfiguration(), () -> {
+            String pspGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(resetRequest, PSP_GUID_KEY);
+            String merchantGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(resetRequest, MERCHANT_GUID_KEY);
+            String encryptKey = RequestConfigServiceImpl.INSTANCE.getParameterValue(resetRequest, PARTNER_CHIFFREMENT_KEY);
+            String authorization = RequestConfigServiceImpl.INSTANCE.getParameterValue(resetRequest, PARTNER_AUTHORIZATION_KEY);
+            String url = RequestConfigServiceImpl.INSTANCE.getParameterValue(resetRequest, PARTNER_API_URL);
+            String coutryCode = RequestConfigServiceImpl.INSTANCE.getParameterValue(resetRequest, COUNTRY_CODE_KEY);
+            return getCallContext(authorization, url, coutryCode, pspGuid, merchantGuid, encryptKey);
+        });
     }
 
     /**
@@ -354,11 +342,25 @@ public class PluginUtils {
      * @return the ParametersMap
      */
     public static Map<String, String> getParametersMap(ContractParametersCheckRequest contractParametersCheckRequest) throws InvalidDataException {
+        return getCallContext(contractParametersCheckRequest).getParameters();
+    }
 
-        String authorization = RequestConfigServiceImpl.INSTANCE.getParameterValue(contractParametersCheckRequest, PARTNER_AUTHORIZATION_KEY);
-        String url = RequestConfigServiceImpl.INSTANCE.getParameterValue(contractParametersCheckRequest, PARTNER_API_URL);
-        String coutryCode = RequestConfigServiceImpl.INSTANCE.getParameterValue(contractParametersCheckRequest, COUNTRY_CODE_KEY);
-        return getParametersMap(authorization, url, coutryCode);
+    /**
+     * Read the call context from the configurations, once for all the calls of the request
+     *
+     * @param contractParametersCheckRequest Payline ContractParametersCheckRequest
+     * @return the call context, shared by the requests of the contract
+     */
+    public static OneyCallContext getCallContext(ContractParametersCheckRequest contractParametersCheckRequest) throws InvalidDataException {
+        return getCallContext(contractParametersCheckRequest.getAccountInfo(), contractParametersCheckRequest.getPartnerConfiguration(), () -> {
+            String pspGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(contractParametersCheckRequest, PSP_GUID_KEY);
+            String merchantGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(contractParametersCheckRequest, MERCHANT_GUID_KEY);
+            String encryptKey = RequestConfigServiceImpl.INSTANCE.getParameterValue(contractParametersCheckRequest, PARTNER_CHIFFREMENT_KEY);
+            String authorization = RequestConfigServiceImpl.INSTANCE.getParameterValue(contractParametersCheckRequest, PARTNER_AUTHORIZATION_KEY);
+            String url = RequestConfigServiceImpl.INSTANCE.getParameterValue(contractParametersCheckRequest, PARTNER_API_URL);
+            String coutryCode = RequestConfigServiceImpl.INSTANCE.getParameterValue(contractParametersCheckRequest, COUNTRY_CODE_KEY);
+            return getCallContext(authorization, url, coutryCode, pspGuid, merchantGuid, encryptKey);
+        });
     }
 
     /**
@@ -368,11 +370,25 @@ public class PluginUtils {
      * @return the ParametersMap
      */
     public static Map<String, String> getParametersMap(TransactionStatusRequest transactionStatusRequest) throws InvalidDataException {
+        return getCallContext(transactionStatusRequest).getParameters();
+    }
 
-        String authorization = RequestConfigServiceImpl.INSTANCE.getParameterValue(transactionStatusRequest, PARTNER_AUTHORIZATION_KEY);
-        String url = RequestConfigServiceImpl.INSTANCE.getParameterValue(transactionStatusRequest, PARTNER_API_URL);
-        String coutryCode = RequestConfigServiceImpl.INSTANCE.getParameterValue(transactionStatusRequest, COUNTRY_CODE_KEY);
-        return getParametersMap(authorization, url, coutryCode);
+    /**
+     * Read the call context from the configurations, once for all the calls of the request
+     *
+     * @param transactionStatusRequest Payline TransactionStatusRequest
+     * @return the call context, shared by the requests of the contract
+     */
+    public static OneyCallContext getCallContext(TransactionStatusRequest transactionStatusRequest) throws InvalidDataException {
+        return getCallContext(contractProperties(transactionStatusRequest.getContractConfiguration()), transactionStatusRequest.getPartnerConfiguration(), () -> {
+            String pspGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(transactionStatusRequest, PSP_GUID_KEY);
+            String merchantGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(transactionStatusRequest, MERCHANT_GUID_KEY);
+            String encryptKey = RequestConfigServiceImpl.INSTANCE.getParameterValue(transactionStatusRequest, PARTNER_CHIFFREMENT_KEY);
+            String authorization = RequestConfigServiceImpl.INSTANCE.getParameterValue(transactionStatusRequest, PARTNER_AUTHORIZATION_KEY);
+            String url = RequestConfigServiceImpl.INSTANCE.getParameterValue(transactionStatusRequest, PARTNER_API_URL);
+            String coutryCode = RequestConfigServiceImpl.INSTANCE.getParameterValue(transactionStatusRequest, COUNTRY_CODE_KEY);
+            return getCallContext(authorization, url, coutryCode, pspGuid, merchantGuid, encryptKey);
+        });
     }
 
     /**
@@ -382,23 +398,120 @@ public class PluginUtils {
      * @return the ParametersMap
      */
     public static Map<String, String> getParametersMap(PaymentRequest paymentRequest) throws InvalidDataException {
+        return getCallContext(paymentRequest).getParameters();
+    }
 
-        String authorization = RequestConfigServiceImpl.INSTANCE.getParameterValue(paymentRequest, PARTNER_AUTHORIZATION_KEY);
-        String url = RequestConfigServiceImpl.INSTANCE.getParameterValue(paymentRequest, PARTNER_API_URL);
-        String coutryCode = RequestConfigServiceImpl.INSTANCE.getParameterValue(paymentRequest, COUNTRY_CODE_KEY);
-        return getParametersMap(authorization, url, coutryCode);
+    /**
+     * Read the call context from the configurations, once for all the calls of the request
+     *
+     * @param paymentRequest Payline PaymentRequest
+     * @return the call context, shared by the requests of the contract
+     */
+    public static OneyCallContext getCallContext(PaymentRequest paymentRequest) throws InvalidDataException {
+        return getCallContext(contractProperties(paymentRequest.getContractConfiguration()), paymentRequest.getPartnerConfiguration(), () -> {
+            String pspGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(paymentRequest, PSP_GUID_KEY);
+            String merchantGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(paymentRequest, MERCHANT_GUID_KEY);
+            String encryptKey = RequestConfigServiceImpl.INSTANCE.getParameterValue(paymentRequest, PARTNER_CHIFFREMENT_KEY);
+            String authorization = RequestConfigServiceImpl.INSTANCE.getParameterValue(paymentRequest, PARTNER_AUTHORIZATION_KEY);
+            String url = RequestConfigServiceImpl.INSTANCE.getParameterValue(paymentRequest, PARTNER_API_URL);
+            String coutryCode = RequestConfigServiceImpl.INSTANCE.getParameterValue(paymentRequest, COUNTRY_CODE_KEY);
+            return getCallContext(authorization, url, coutryCode, pspGuid, merchantGuid, encryptKey);
+        });
     }
 
 
     /**
-     * Buid a map with all needed parameters for HTTP calls
+     * Resolve a call context.
+     */
+    @FunctionalInterface
+    private interface CallContextResolver {
+        OneyCallContext resolve() throws InvalidDataException;
+    }
+
+    /**
+     * The call contexts already resolved, by configuration instances, least recently used first. Guarded by itself.
+     */
+    private static final Map<ConfigurationsKey, OneyCallContext> CALL_CONTEXTS = new LinkedHashMap<ConfigurationsKey, OneyCallContext>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ConfigurationsKey, OneyCallContext> eldest) {
+            return size() > CALL_CONTEXTS_MAX_SIZE;
+        }
+    };
+
+    static final int CALL_CONTEXTS_MAX_SIZE = 1_000;
+
+    /**
+     * The requests of a contract share the same configuration instances: their context is only read once from them.
+     * The configurations are not modified once given to the plugin.
+     *
+     * @param contractProperties   the contract properties (or account info) of the request
+     * @param partnerConfiguration the partner configuration of the request
+     * @param resolver             reads the context from the configurations, when they are new
+     * @return the call context of the configurations
+     */
+    private static OneyCallContext getCallContext(Map<String, ?> contractProperties, PartnerConfiguration partnerConfiguration,
+                                                  CallContextResolver resolver) throws InvalidDataException {
+        if (contractProperties == null || partnerConfiguration == null) {
+            return resolver.resolve();
+        }
+        final ConfigurationsKey key = new ConfigurationsKey(contractProperties, partnerConfiguration);
+        OneyCallContext context;
+        synchronized (CALL_CONTEXTS) {
+            context = CALL_CONTEXTS.get(key);
+        }
+        if (context == null) {
+            context = resolver.resolve();
+            synchronized (CALL_CONTEXTS) {
+                CALL_CONTEXTS.put(key, context);
+            }
+        }
+        return context;
+    }
+
+    private static Map<String, ContractProperty> contractProperties(ContractConfiguration contractConfiguration) {
+        return contractConfiguration == null ? null : contractConfiguration.getContractProperties();
+    }
+
+    /**
+     * Identity of a pair of configurations: the instances, not their values.
+     */
+    private static final class ConfigurationsKey {
+        private final Map<String, ?> contractConfiguration;
+        private final PartnerConfiguration partnerConfiguration;
+
+        private ConfigurationsKey(Map<String, ?> contractConfiguration, PartnerConfiguration partnerConfiguration) {
+            this.contractConfiguration = contractConfiguration;
+            this.partnerConfiguration = partnerConfiguration;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ConfigurationsKey)) {
+                return false;
+            }
+            ConfigurationsKey key = (ConfigurationsKey) o;
+            return contractConfiguration == key.contractConfiguration && partnerConfiguration == key.partnerConfiguration;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(contractConfiguration) + System.identityHashCode(partnerConfiguration);
+        }
+    }
+
+    /**
+     * Buid the call context with all needed parameters for HTTP calls
      *
      * @param authorization PARTNER_AUTHORIZATION_KEY
      * @param url           PARTNER_API_URL
      * @param coutryCode    coutryCode from ContractParameters
-     * @return the ParametersMap
+     * @param pspGuid       PSP_GUID_KEY
+     * @param merchantGuid  MERCHANT_GUID_KEY
+     * @param encryptKey    PARTNER_CHIFFREMENT_KEY
+     * @return the call context
      */
-    private static Map<String, String> getParametersMap(String authorization, String url, String coutryCode) throws InvalidDataException {
+    private static OneyCallContext getCallContext(String authorization, String url, String coutryCode,
+                                                  String pspGuid, String merchantGuid, String encryptKey) throws InvalidDataException {
 
         if (coutryCode == null || coutryCode.isEmpty()) {
             throw new InvalidDataException("coutryCode is mandatory", "coutryCode");
@@ -413,33 +526,36 @@ public class PluginUtils {
         }
 
 
-        Map<String, String> parametersMap = new HashMap<>();
-        parametersMap.put(PARTNER_AUTHORIZATION_KEY, authorization);
-        parametersMap.put(PARTNER_API_URL, url);
-        parametersMap.put(HEADER_COUNTRY_CODE, coutryCode.toUpperCase());
-        if (Boolean.valueOf(ConfigPropertiesEnum.INSTANCE.get(CHIFFREMENT_IS_ACTIVE))) {
-            parametersMap.put(SECRET_KEY, SECRET_VALUE_ON);
-        } else {
-            parametersMap.put(SECRET_KEY, SECRET_VALUE_OFF);
-        }
-
-        return parametersMap;
+        return OneyCallContext.of(authorization, url, coutryCode, pspGuid, merchantGuid, encryptKey);
     }
 
     /**
      * Buid a map with all needed parameters for HTTP calls
      *
-     * @param captureRequest Payline captureRequest
+     * @param captureRequest Payline CaptureRequest
      * @return the ParametersMap
      */
     public static Map<String, String> getParametersMap(CaptureRequest captureRequest) throws InvalidDataException {
-
-        String authorization = RequestConfigServiceImpl.INSTANCE.getParameterValue(captureRequest, PARTNER_AUTHORIZATION_KEY);
-        String url = RequestConfigServiceImpl.INSTANCE.getParameterValue(captureRequest, PARTNER_API_URL);
-        String coutryCode = RequestConfigServiceImpl.INSTANCE.getParameterValue(captureRequest, COUNTRY_CODE_KEY);
-        return getParametersMap(authorization, url, coutryCode);
+        return getCallContext(captureRequest).getParameters();
     }
 
+    /**
+     * Read the call context from the configurations, once for all the calls of the request
+     *
+     * @param captureRequest Payline CaptureRequest
+     * @return the call context, shared by the requests of the contract
+     */
+    public static OneyCallContext getCallContext(CaptureRequest captureRequest) throws InvalidDataException {
+        return getCallContext(contractProperties(captureRequest.getContractConfiguration()), captureRequest.getPartnerConfiguration(), () -> {
+            String pspGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(captureRequest, PSP_GUID_KEY);
+            String merchantGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(captureRequest, MERCHANT_GUID_KEY);
+            String encryptKey = RequestConfigServiceImpl.INSTANCE.getParameterValue(captureRequest, PARTNER_CHIFFREMENT_KEY);
+            String authorization = RequestConfigServiceImpl.INSTANCE.getParameterValue(captureRequest, PARTNER_AUTHORIZATION_KEY);
+            String url = RequestConfigServiceImpl.INSTANCE.getParameterValue(captureRequest, PARTNER_API_URL);
+            String coutryCode = RequestConfigServiceImpl.INSTANCE.getParameterValue(captureRequest, COUNTRY_CODE_KEY);
+            return getCallContext(authorization, url, coutryCode, pspGuid, merchantGuid, encryptKey);
+        });
+    }
 
     /**
      * Buid a map with all needed parameters for HTTP calls
@@ -448,13 +564,26 @@ public class PluginUtils {
      * @return the ParametersMap
      */
     public static Map<String, String> getParametersMap(NotificationRequest notificationRequest) throws InvalidDataException {
-
-        String authorization = RequestConfigServiceImpl.INSTANCE.getParameterValue(notificationRequest, PARTNER_AUTHORIZATION_KEY);
-        String url = RequestConfigServiceImpl.INSTANCE.getParameterValue(notificationRequest, PARTNER_API_URL);
-        String coutryCode = RequestConfigServiceImpl.INSTANCE.getParameterValue(notificationRequest, COUNTRY_CODE_KEY);
-        return getParametersMap(authorization, url, coutryCode);
+        return getCallContext(notificationRequest).getParameters();
     }
 
+    /**
+     * Read the call context from the configurations, once for all the calls of the request
+     *
+     * @param notificationRequest Payline NotificationRequest
+     * @return the call context, shared by the requests of the contract
+     */
+    public static OneyCallContext getCallContext(NotificationRequest notificationRequest) throws InvalidDataException {
+        return getCallContext(contractProperties(notificationRequest.getContractConfiguration()), notificationRequest.getPartnerConfiguration(), () -> {
+            String pspGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(notificationRequest, PSP_GUID_KEY);
+            String merchantGuid = RequestConfigServiceImpl.INSTANCE.getParameterValue(notificationRequest, MERCHANT_GUID_KEY);
+            String encryptKey = RequestConfigServiceImpl.INSTANCE.getParameterValue(notificationRequest, PARTNER_CHIFFREMENT_KEY);
+            String authorization = RequestConfigServiceImpl.INSTANCE.getParameterValue(notificationRequest, PARTNER_AUTHORIZATION_KEY);
+            String url = RequestConfigServiceImpl.INSTANCE.getParameterValue(notificationRequest, PARTNER_API_URL);
+            String coutryCode = RequestConfigServiceImpl.INSTANCE.getParameterValue(notificationRequest, COUNTRY_CODE_KEY);
+            return getCallContext(authorization, url, coutryCode, pspGuid, merchantGuid, encryptKey);
+        });
+    }
 
     public static String truncate(String value, int length) {
         if (value != null && value.length() > length) {
@@ -8,14 +8,39 @@ import com.payline.pmapi.logger.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
 import javax.crypto.spec.SecretKeySpec;
-import javax.xml.bind.DatatypeConverter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class OneyCrypto {
 
     private static final Logger LOGGER = LogManager.getLogger(OneyCrypto.class);
 
+    private static final String ALGORITHM = "AES";
+
+    /**
+     * Above this number of keys, the cache is emptied.
+     */
+    static final int MAX_CACHED_KEYS = 256;
+
+    /**
+     * Decoded keys, indexed by their base64 value
+     */
+    private static final ConcurrentMap<String, SecretKeySpec> SECRET_KEYS = new ConcurrentHashMap<>();
+
+    /**
+     * A Cipher is not thread-safe and costly to look up: each thread keeps its own instance.
+     */
+    private static final ThreadLocal<Cipher> CIPHERS = new ThreadLocal<>();
+
     //Symetric key, used to encrypt & decrypt message
     private String key;
 
@@ -26,26 +51,61 @@ public class OneyCrypto {
 
 
     /**
-     * decrypt message with symetric key
+     * encrypt message with symetric key
      *
      * @param messageToEncrypt String, message to encrypt
-     * @return String, the decrypted message
+     * @return String, the encrypted message, base64 encoded
      */
     public String encrypt(String messageToEncrypt) throws DecryptException {
-        try {
-            // Initialise a cipher
-            // Convert the key to SecretKeySpec
-            byte[] decodedKey = DatatypeConverter.parseBase64Binary(this.key);
-            SecretKeySpec oneySecret = new SecretKeySpec(decodedKey, 0, decodedKey.length, "AES");
+        byte[] encryptedBytes = encrypt(messageToEncrypt.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(encryptedBytes);
+    }
 
+    /**
+     * encrypt bytes with symetric key
+     *
+     * @param decryptedBytes the bytes to encrypt
+     * @return the encrypted bytes
+     */
+    public byte[] encrypt(byte[] decryptedBytes) throws DecryptException {
+        try {
+            return cipher(Cipher.ENCRYPT_MODE).doFinal(decryptedBytes);
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage(), e);
+            throw new DecryptException(e, "OneyCrypto.encrypt." + e.getClass().getSimpleName());
+        }
+    }
 
-            Cipher cipher = Cipher.getInstance("AES");
-            cipher.init(Cipher.ENCRYPT_MODE, oneySecret);
-            // Make the encryption
-            byte[] decryptedBytes = messageToEncrypt.getBytes(StandardCharsets.UTF_8);
-            byte[] encryptedBytes = cipher.doFinal(decryptedBytes);
-            return DatatypeConverter.printBase64Binary(encryptedBytes);
+    /**
+     * encrypt the remaining bytes of a buffer with symetric key
+     *
+     * @param decrypted the bytes to encrypt, from its position to its limit
+     * @return the encrypted bytes, base64 encoded, ready to be sent
+     */
+    public ByteBuffer encryptToBase64(ByteBuffer decrypted) throws DecryptException {
+        try {
+            Cipher cipher = cipher(Cipher.ENCRYPT_MODE);
+            ByteBuffer encrypted = ByteBuffer.allocate(cipher.getOutputSize(decrypted.remaining()));
+            cipher.doFinal(decrypted, encrypted);
+            encrypted.flip();
+            return Base64.getEncoder().encode(encrypted);
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage(), e);
+            throw new DecryptException(e, "OneyCrypto.encrypt." + e.getClass().getSimpleName());
+        }
+    }
 
+    /**
+     * Wrap a stream so that the bytes written are encrypted with symetric key, then base64 encoded.
+     * The encryption is completed, and the given stream closed, when the returned stream is closed.
+     * The stream has its own cipher: it can be written by any thread, while other messages are encrypted.
+     *
+     * @param out the stream receiving the encrypted bytes, base64 encoded
+     * @return the stream receiving the bytes to encrypt
+     */
+    public OutputStream encryptToBase64(OutputStream out) throws DecryptException {
+        try {
+            return new CipherOutputStream(Base64.getEncoder().wrap(out), newCipher(Cipher.ENCRYPT_MODE));
         } catch (Exception e) {
             LOGGER.error(e.getMessage(), e);
             throw new DecryptException(e, "OneyCrypto.encrypt." + e.getClass().getSimpleName());
@@ -60,26 +120,87 @@ public class OneyCrypto {
      * @return String, the decrypted message
      */
     public String decrypt(String messageEncrypted) throws DecryptException {
-        // Convert the key to SecretKeySpec
-        byte[] decodedKey = DatatypeConverter.parseBase64Binary(this.key);
-        SecretKeySpec oneySecret = new SecretKeySpec(decodedKey, 0, decodedKey.length, "AES");
-
-        // Define variables
-        byte[] encryptedMessage = DatatypeConverter.parseBase64Binary(messageEncrypted);
+        byte[] encryptedMessage;
+        try {
+            encryptedMessage = Base64.getMimeDecoder().decode(messageEncrypted);
+        } catch (IllegalArgumentException e) {
+            LOGGER.error(e.getMessage(), e);
+            throw new DecryptException(e, "OneyCrypto.decrypt.IllegalArgumentException");
+        }
+        return new String(decrypt(encryptedMessage), StandardCharsets.UTF_8);
+    }
 
+    /**
+     * Wrap a stream of base64 encoded encrypted bytes, so that the bytes read are decoded and decrypted on the fly.
+     * Like {@link #encryptToBase64(OutputStream)}, the stream has its own cipher.
+     * A decryption failure raises an IOException caused by a GeneralSecurityException.
+     *
+     * @param in the encrypted bytes, base64 encoded
+     * @return the decrypted bytes
+     */
+    public InputStream decryptFromBase64(InputStream in) throws DecryptException {
         try {
-            // Initialise a cipher
-            Cipher cipher = Cipher.getInstance("AES");
-            cipher.init(Cipher.DECRYPT_MODE, oneySecret); // Make the decryption
-            byte[] decryptedBytes = cipher.doFinal(encryptedMessage);
-            return new String(decryptedBytes, StandardCharsets.UTF_8);
+            return new CipherInputStream(Base64.getMimeDecoder().wrap(in), newCipher(Cipher.DECRYPT_MODE));
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage(), e);
+            throw new DecryptException(e, "OneyCrypto.decrypt." + e.getClass().getSimpleName());
+        }
+    }
 
+    /**
+     * decrypt bytes with symetric key
+     *
+     * @param encryptedBytes the bytes to decrypt
+     * @return the decrypted bytes
+     */
+    public byte[] decrypt(byte[] encryptedBytes) throws DecryptException {
+        try {
+            return cipher(Cipher.DECRYPT_MODE).doFinal(encryptedBytes);
         } catch (Exception e) {
             LOGGER.error(e.getMessage(), e);
             throw new DecryptException(e, "OneyCrypto.decrypt." + e.getClass().getSimpleName());
         }
     }
 
+    /**
+     * @return the Cipher of the current thread, initialized with the given mode and the key of this instance
+     */
+    private Cipher cipher(int mode) throws GeneralSecurityException {
+        Cipher cipher = CIPHERS.get();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(ALGORITHM);
+            CIPHERS.set(cipher);
+        }
+        cipher.init(mode, secretKey(this.key));
+        return cipher;
+    }
+
+    /**
+     * @return a new Cipher, initialized with the given mode and the key of this instance, for a stream which may
+     * outlive the current call or thread
+     */
+    private Cipher newCipher(int mode) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(ALGORITHM);
+        cipher.init(mode, secretKey(this.key));
+        return cipher;
+    }
+
+    /**
+     * Convert the key to SecretKeySpec, once per key.
+     */
+    static SecretKeySpec secretKey(String key) {
+        SecretKeySpec oneySecret = SECRET_KEYS.get(key);
+        if (oneySecret == null) {
+            byte[] decodedKey = Base64.getMimeDecoder().decode(key);
+            oneySecret = new SecretKeySpec(decodedKey, 0, decodedKey.length, ALGORITHM);
+            if (SECRET_KEYS.size() >= MAX_CACHED_KEYS) {
+                SECRET_KEYS.clear();
+            }
+            SECRET_KEYS.putIfAbsent(key, oneySecret);
+        }
+        return oneySecret;
+    }
+
 
     /**
      * Encrypt a request  message
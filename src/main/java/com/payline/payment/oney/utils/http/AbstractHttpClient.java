@@ -1,28 +1,63 @@
 package com.payline.payment.oney.utils.http;
 
 import com.payline.payment.oney.exception.HttpCallException;
+import com.payline.payment.oney.utils.metrics.OneyMetrics;
 import com.payline.pmapi.bean.configuration.PartnerConfiguration;
 import com.payline.pmapi.logger.LogManager;
+import org.apache.hc.core5.ssl.SSLContexts;
 import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.Logger;
 
 import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.Closeable;
 import java.io.IOException;
+import java.net.ProxySelector;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
 
 import static com.payline.payment.oney.utils.OneyConstants.*;
 
@@ -30,10 +65,48 @@ import static com.payline.payment.oney.utils.OneyConstants.*;
  * This utility class provides a basic HTTP client to send requests, using OkHttp library.
  * It must be extended to match each payment method needs.
  */
-public abstract class AbstractHttpClient {
+public abstract class AbstractHttpClient implements Closeable {
 
     private CloseableHttpClient client;
+    private final RequestConfig requestConfig;
+    /**
+     * The pool of the client, built by {@link #buildConnectionManager(PartnerConfiguration, AdaptivePoolSizer)}.
+     */
+    private final PoolingHttpClientConnectionManager connectionManager;
+    /**
+     * The sizing of the pool, null when its size is fixed.
+     */
+    private final AdaptivePoolSizer poolSizer;
+    private ScheduledFuture<?> poolSizing;
+    private final String poolName = "pool-" + POOL_IDS.incrementAndGet();
+    private final long keepAliveDuration;
+    /**
+     * The non-blocking transport of the asynchronous calls, see {@link #doPostAsync(String, String, Header[], HttpEntity, String, String)}.
+     */
+    private final AsyncTransport asyncTransport;
+    /**
+     * False when the TLS settings of {@link #client} cannot be given to {@link #asyncTransport}: its asynchronous calls
+     * to HTTPS hosts are then made by {@link #client}, on {@link #BLOCKING_CALLS}.
+     */
+    private final boolean asyncTls;
+    /**
+     * The HTTP/2 transport, null when the calls go through {@link #client} and {@link #asyncTransport} only.
+     */
+    private final Http2Transport http2Transport;
+    /**
+     * The default SSL socket factory of {@link HttpsURLConnection} when this class is loaded, see {@link #getSharedSslContext()}.
+     */
+    private static final SSLSocketFactory JVM_SSL_SOCKET_FACTORY = HttpsURLConnection.getDefaultSSLSocketFactory();
+    /**
+     * Threads of the asynchronous calls which need {@link #client}, see {@link #asyncTls}.
+     */
+    private static final ExecutorService BLOCKING_CALLS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "oney-http-blocking");
+        thread.setDaemon(true);
+        return thread;
+    });
     private static final Logger LOGGER = LogManager.getLogger(AbstractHttpClient.class);
+    private static final AtomicInteger POOL_IDS = new AtomicInteger();
     public static final String KEY_CONNECT_TIMEOUT = "connect.time.out";
     public static final String CONNECTION_REQUEST_TIMEOUT = "connect.request.time.out";
     public static final String READ_SOCKET_TIMEOUT = "read.time.out";
@@ -42,6 +115,55 @@ public abstract class AbstractHttpClient {
     public static final String POOL_MAX_SIZE_PER_ROUTE = "pool.max.size.per.route";
     public static final String EVICT_IDLE_CONNECTION_TIMEOUT = "evict.idle.connection.timeout";
     public static final String CONNECTION_TIME_TO_LIVE = "connection.time.to.live";
+    public static final String MAX_IN_FLIGHT_PER_ROUTE = "max.in.flight.per.route";
+    public static final String RETRY_MAX_ATTEMPTS = "retry.max.attempts";
+    public static final String RETRY_INITIAL_BACKOFF = "retry.initial.backoff";
+    public static final String RETRY_MAX_BACKOFF = "retry.max.backoff";
+    public static final String RETRY_DEADLINE = "retry.deadline";
+    public static final String CIRCUIT_WINDOW_SIZE = "circuit.window.size";
+    public static final String CIRCUIT_MINIMUM_CALLS = "circuit.minimum.calls";
+    public static final String CIRCUIT_FAILURE_RATE_THRESHOLD = "circuit.failure.rate.threshold";
+    public static final String CIRCUIT_SLOW_CALL_DURATION = "circuit.slow.call.duration";
+    public static final String CIRCUIT_SLOW_CALL_RATE_THRESHOLD = "circuit.slow.call.rate.threshold";
+    public static final String CIRCUIT_OPEN_DURATION = "circuit.open.duration";
+    public static final String CIRCUIT_HALF_OPEN_CALLS = "circuit.half.open.calls";
+    public static final String BULKHEAD_MAX_IN_FLIGHT_PER_MERCHANT = "bulkhead.max.in.flight.per.merchant";
+    public static final String BULKHEAD_MAX_IN_FLIGHT_PER_COUNTRY = "bulkhead.max.in.flight.per.country";
+    public static final String BULKHEAD_MAX_WAITING = "bulkhead.max.waiting";
+    public static final String BULKHEAD_MAX_WAIT_DURATION = "bulkhead.max.wait.duration";
+    public static final String WARMUP_CONNECTIONS_PER_ROUTE = "warmup.connections.per.route";
+    public static final String HTTP_VERSION = "http.version";
+    public static final String POOL_ADAPTIVE_MIN_PER_ROUTE = "pool.adaptive.min.per.route";
+    public static final String POOL_ADAPTIVE_MAX_PER_ROUTE = "pool.adaptive.max.per.route";
+    public static final String POOL_ADAPTIVE_INTERVAL = "pool.adaptive.interval";
+    public static final String POOL_ADAPTIVE_LEASE_WAIT_THRESHOLD = "pool.adaptive.lease.wait.threshold";
+
+    /**
+     * Value of {@link #HTTP_VERSION} selecting the HTTP/2 transport, see {@link Http2Transport}.
+     * The asynchronous calls in flight are still bounded by {@link #MAX_IN_FLIGHT_PER_ROUTE} (the pool size when it
+     * is not set): raise it to make use of the multiplexing.
+     */
+    public static final String HTTP_2 = "2";
+
+    /**
+     * Attempts beyond this rank are counted together with the last one.
+     */
+    static final int MAX_COUNTED_ATTEMPTS = 10;
+
+    private final RetryPolicy retryPolicy;
+    private final AtomicLongArray attemptCounters = new AtomicLongArray(MAX_COUNTED_ATTEMPTS);
+    private final AtomicLong exhaustedCounter = new AtomicLong();
+
+    /**
+     * One circuit per partner URL and operation.
+     */
+    private final CircuitBreaker.Settings circuitSettings;
+    private final ConcurrentMap<String, CircuitBreaker> circuits = new ConcurrentHashMap<>();
+
+    /**
+     * Partner URLs, parsed once: only the path of each call is parsed then.
+     */
+    private final ConcurrentMap<String, URI> baseUris = new ConcurrentHashMap<>();
 
     /**
      * Instantiate a HTTP client.
@@ -49,42 +171,81 @@ public abstract class AbstractHttpClient {
 
     protected AbstractHttpClient(final PartnerConfiguration partnerConfiguration) {
 
-        final RequestConfig requestConfig = RequestConfig.custom()
+        this.requestConfig = RequestConfig.custom()
                 .setConnectTimeout(Integer.parseInt(partnerConfiguration.getProperty(KEY_CONNECT_TIMEOUT)))
                 .setConnectionRequestTimeout(Integer.parseInt(partnerConfiguration.getProperty(CONNECTION_REQUEST_TIMEOUT)))
                 .setSocketTimeout(Integer.parseInt(partnerConfiguration.getProperty(READ_SOCKET_TIMEOUT))).build();
 
 
-        final HttpClientBuilder builder = getHttpClientBuilder(partnerConfiguration, requestConfig);
-        this.client = builder.build();
+        this.poolSizer = getPoolSizer(partnerConfiguration);
+        this.connectionManager = buildConnectionManager(partnerConfiguration, poolSizer);
+        this.keepAliveDuration = getLongProperty(partnerConfiguration, KEEP_ALIVE_DURATION, 0);
+        // the pool is always ours, whatever the builder holds
+        this.client = getHttpClientBuilder(partnerConfiguration, requestConfig)
+                .setConnectionManager(connectionManager)
+                .build();
+        final SSLContext sslContext = getSharedSslContext();
+        this.asyncTls = sslContext != null;
+        this.asyncTransport = buildAsyncTransport(partnerConfiguration, requestConfig, connectionManager,
+                asyncTls ? sslContext : SSLContexts.createSystemDefault(), poolSizer);
+        final boolean http2 = HTTP_2.equals(partnerConfiguration.getProperty(HTTP_VERSION));
+        if (http2 && !asyncTls) {
+            LOGGER.warn("Default SSL socket factory replaced: HTTP/1.1 used");
+        }
+        this.http2Transport = http2 && asyncTls
+                ? new Http2Transport(requestConfig.getConnectTimeout(), requestConfig.getSocketTimeout(),
+                sslContext, asyncTransport::execute)
+                : null;
+        this.retryPolicy = getRetryPolicy(partnerConfiguration);
+        this.circuitSettings = getCircuitSettings(partnerConfiguration);
+
+        OneyMetrics.INSTANCE.registerPool(poolName, this::getPoolStates);
+        if (poolSizer != null) {
+            final long interval = getLongProperty(partnerConfiguration, POOL_ADAPTIVE_INTERVAL, AdaptivePoolSizer.DEFAULT_INTERVAL);
+            this.poolSizing = AdaptivePoolSizer.SCHEDULER.scheduleWithFixedDelay(this::resizePool, interval, interval, TimeUnit.MILLISECONDS);
+        }
     }
 
+    /**
+     * Build the policy applied when a call fails with an I/O error.
+     * Override to plug another implementation.
+     */
+    protected RetryPolicy getRetryPolicy(final PartnerConfiguration partnerConfiguration) {
+        return new ExponentialBackoffRetryPolicy(
+                (int) getLongProperty(partnerConfiguration, RETRY_MAX_ATTEMPTS, ExponentialBackoffRetryPolicy.DEFAULT_MAX_ATTEMPTS),
+                getLongProperty(partnerConfiguration, RETRY_INITIAL_BACKOFF, ExponentialBackoffRetryPolicy.DEFAULT_INITIAL_BACKOFF),
+                getLongProperty(partnerConfiguration, RETRY_MAX_BACKOFF, ExponentialBackoffRetryPolicy.DEFAULT_MAX_BACKOFF),
+                getLongProperty(partnerConfiguration, RETRY_DEADLINE, ExponentialBackoffRetryPolicy.DEFAULT_DEADLINE));
+    }
 
+    static CircuitBreaker.Settings getCircuitSettings(final PartnerConfiguration partnerConfiguration) {
+        return new CircuitBreaker.Settings(
+                (int) getLongProperty(partnerConfiguration, CIRCUIT_WINDOW_SIZE, CircuitBreaker.Settings.DEFAULT_WINDOW_SIZE),
+                (int) getLongProperty(partnerConfiguration, CIRCUIT_MINIMUM_CALLS, CircuitBreaker.Settings.DEFAULT_MINIMUM_CALLS),
+                (int) getLongProperty(partnerConfiguration, CIRCUIT_FAILURE_RATE_THRESHOLD, CircuitBreaker.Settings.DEFAULT_FAILURE_RATE_THRESHOLD),
+                getLongProperty(partnerConfiguration, CIRCUIT_SLOW_CALL_DURATION, CircuitBreaker.Settings.DEFAULT_SLOW_CALL_DURATION),
+                (int) getLongProperty(partnerConfiguration, CIRCUIT_SLOW_CALL_RATE_THRESHOLD, CircuitBreaker.Settings.DEFAULT_SLOW_CALL_RATE_THRESHOLD),
+                getLongProperty(partnerConfiguration, CIRCUIT_OPEN_DURATION, CircuitBreaker.Settings.DEFAULT_OPEN_DURATION),
+                (int) getLongProperty(partnerConfiguration, CIRCUIT_HALF_OPEN_CALLS, CircuitBreaker.Settings.DEFAULT_HALF_OPEN_CALLS));
+    }
+
+    static long getLongProperty(final PartnerConfiguration partnerConfiguration, String key, long defaultValue) {
+        final String value = partnerConfiguration.getProperty(key);
+        return value == null || value.length() == 0 ? defaultValue : Long.parseLong(value);
+    }
+
+
+    /**
+     * Build the client settings. Called by the constructor: an override must not rely on the fields of its class.
+     * The connection pool is set afterwards, see {@link #buildConnectionManager(PartnerConfiguration, AdaptivePoolSizer)}.
+     */
     protected HttpClientBuilder getHttpClientBuilder(final PartnerConfiguration partnerConfiguration, final RequestConfig requestConfig) {
         final HttpClientBuilder builder = HttpClientBuilder.create();
+        // the retries are made by the RetryPolicy only
         builder.useSystemProperties()
+                .disableAutomaticRetries()
                 .setDefaultRequestConfig(requestConfig)
-                .setDefaultCredentialsProvider(new BasicCredentialsProvider())
-                .setSSLSocketFactory(new SSLConnectionSocketFactory(HttpsURLConnection.getDefaultSSLSocketFactory(), SSLConnectionSocketFactory.getDefaultHostnameVerifier()));
-
-        final String inactivityConnection = partnerConfiguration.getProperty(POOL_VALIDATE_CONN_AFTER_INACTIVITY);
-        final String maxSizePerRoute = partnerConfiguration.getProperty(POOL_MAX_SIZE_PER_ROUTE);
-
-        boolean hasInactivityConnexion = inactivityConnection != null && inactivityConnection.length() > 0;
-        boolean hasMaxPoolSizePerRoute = maxSizePerRoute != null && maxSizePerRoute.length() > 0;
-
-        // Si des paramètres concernant le pool ont été changé on définit
-        // un nouveau pool de connection.
-        if (hasInactivityConnexion || hasMaxPoolSizePerRoute) {
-            final PoolingHttpClientConnectionManager connManager = new PoolingHttpClientConnectionManager();
-            if (hasInactivityConnexion) {
-                connManager.setValidateAfterInactivity(Integer.parseInt(inactivityConnection));
-            }
-            if (hasMaxPoolSizePerRoute) {
-                connManager.setDefaultMaxPerRoute(Integer.parseInt(maxSizePerRoute));
-            }
-            builder.setConnectionManager(connManager);
-        }
+                .setDefaultCredentialsProvider(new BasicCredentialsProvider());
 
         final String keepAliveStrategy = partnerConfiguration.getProperty(KEEP_ALIVE_DURATION);
         if (keepAliveStrategy != null && keepAliveStrategy.length() > 0) {
@@ -95,12 +256,146 @@ public abstract class AbstractHttpClient {
         if (evictIdleConnection != null && evictIdleConnection.length() > 0) {
             builder.evictIdleConnections(Long.parseLong(evictIdleConnection), TimeUnit.MILLISECONDS);
         }
+        return builder;
+    }
+
+    /**
+     * The pool is always built here, rather than left to {@link HttpClientBuilder}, so that it can be measured and
+     * resized: the settings the builder would have applied to its own pool (TLS, time to live, system properties)
+     * are applied to it.
+     *
+     * @param sizer the sizing of the pool, null if its size is fixed
+     */
+    private static PoolingHttpClientConnectionManager buildConnectionManager(final PartnerConfiguration partnerConfiguration,
+                                                                             final AdaptivePoolSizer sizer) {
+        final Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(HttpsURLConnection.getDefaultSSLSocketFactory(), SSLConnectionSocketFactory.getDefaultHostnameVerifier()))
+                .build();
+
+        final MeteredConnectionManager connManager = new MeteredConnectionManager(socketFactories,
+                getLongProperty(partnerConfiguration, CONNECTION_TIME_TO_LIVE, -1), sizer);
 
-        final String connectionTimeToLive = partnerConfiguration.getProperty(CONNECTION_TIME_TO_LIVE);
-        if (connectionTimeToLive != null && connectionTimeToLive.length() > 0){
-            builder.setConnectionTimeToLive(Long.parseLong(connectionTimeToLive), TimeUnit.MILLISECONDS);
+        final String inactivityConnection = partnerConfiguration.getProperty(POOL_VALIDATE_CONN_AFTER_INACTIVITY);
+        if (inactivityConnection != null && inactivityConnection.length() > 0) {
+            connManager.setValidateAfterInactivity(Integer.parseInt(inactivityConnection));
         }
-        return builder;
+
+        final String maxSizePerRoute = partnerConfiguration.getProperty(POOL_MAX_SIZE_PER_ROUTE);
+        if (maxSizePerRoute != null && maxSizePerRoute.length() > 0) {
+            connManager.setDefaultMaxPerRoute(Integer.parseInt(maxSizePerRoute));
+        } else if ("true".equalsIgnoreCase(System.getProperty("http.keepAlive", "true"))) {
+            // the sizing HttpClientBuilder applies to its own pool
+            final int max = Integer.parseInt(System.getProperty("http.maxConnections", "5"));
+            connManager.setDefaultMaxPerRoute(max);
+            connManager.setMaxTotal(2 * max);
+        }
+        if (sizer != null) {
+            connManager.setDefaultMaxPerRoute(sizer.bound(connManager.getDefaultMaxPerRoute()));
+            connManager.setMaxTotal(Math.max(connManager.getMaxTotal(), sizer.getMaxSize()));
+        }
+        return connManager;
+    }
+
+    /**
+     * {@link #client} takes its TLS settings from the default SSL socket factory of {@link HttpsURLConnection}. As long
+     * as it is the one of the JVM, it is built from the default SSL context, which the HttpClient 5 transports can use.
+     * The factory seen when this class is loaded is taken as the one of the JVM: a replacement made before is not seen.
+     *
+     * @return the default SSL context, null if the default factory of HttpsURLConnection has been replaced
+     */
+    static SSLContext getSharedSslContext() {
+        if (HttpsURLConnection.getDefaultSSLSocketFactory() != JVM_SSL_SOCKET_FACTORY) {
+            return null;
+        }
+        try {
+            return SSLContext.getDefault();
+        } catch (NoSuchAlgorithmException e) {
+            LOGGER.warn("No default SSL context", e);
+            return null;
+        }
+    }
+
+    /**
+     * The pool of the non-blocking transport has the size and the settings of the pool of {@link #client}.
+     */
+    private static AsyncTransport buildAsyncTransport(final PartnerConfiguration partnerConfiguration, final RequestConfig requestConfig,
+                                                      final PoolingHttpClientConnectionManager connectionManager,
+                                                      final SSLContext sslContext, final AdaptivePoolSizer sizer) {
+        final String inactivityConnection = partnerConfiguration.getProperty(POOL_VALIDATE_CONN_AFTER_INACTIVITY);
+        return new AsyncTransport(requestConfig.getConnectTimeout(), requestConfig.getConnectionRequestTimeout(),
+                requestConfig.getSocketTimeout(), connectionManager.getDefaultMaxPerRoute(), connectionManager.getMaxTotal(),
+                getLongProperty(partnerConfiguration, CONNECTION_TIME_TO_LIVE, -1),
+                inactivityConnection == null || inactivityConnection.length() == 0 ? null : Integer.valueOf(inactivityConnection),
+                getLongProperty(partnerConfiguration, KEEP_ALIVE_DURATION, 0),
+                getLongProperty(partnerConfiguration, EVICT_IDLE_CONNECTION_TIMEOUT, 0),
+                sslContext, sizer);
+    }
+
+    /**
+     * @return the sizing of the pool, null if {@link #POOL_ADAPTIVE_MAX_PER_ROUTE} is not set
+     */
+    static AdaptivePoolSizer getPoolSizer(final PartnerConfiguration partnerConfiguration) {
+        final int maxSize = (int) getLongProperty(partnerConfiguration, POOL_ADAPTIVE_MAX_PER_ROUTE, 0);
+        if (maxSize <= 0) {
+            return null;
+        }
+        final int minSize = (int) getLongProperty(partnerConfiguration, POOL_ADAPTIVE_MIN_PER_ROUTE,
+                Math.min(AdaptivePoolSizer.DEFAULT_MIN_SIZE, maxSize));
+        return new AdaptivePoolSizer(minSize, maxSize,
+                getLongProperty(partnerConfiguration, POOL_ADAPTIVE_LEASE_WAIT_THRESHOLD, AdaptivePoolSizer.DEFAULT_LEASE_WAIT_THRESHOLD));
+    }
+
+    /**
+     * Apply the size computed from the last interval. Run by {@link AdaptivePoolSizer#SCHEDULER}.
+     */
+    void resizePool() {
+        try {
+            final int current = connectionManager.getDefaultMaxPerRoute();
+            final int next = poolSizer.resize(current,
+                    connectionManager.getTotalStats().getPending() + asyncTransport.getTotalStats().getPending());
+            if (next != current) {
+                // a smaller pool closes its extra connections as they are released
+                connectionManager.setDefaultMaxPerRoute(next);
+                asyncTransport.setDefaultMaxPerRoute(next);
+                LOGGER.info("Connection pool resized [POOL: {}] [FROM: {}] [TO: {}]", poolName, current, next);
+                OneyMetrics.INSTANCE.poolResized(poolName, current, next);
+            }
+        } catch (RuntimeException e) {
+            // an exception would cancel the next runs
+            LOGGER.warn("Unable to resize the connection pool {}", poolName, e);
+        }
+    }
+
+    /**
+     * @return for each pool, one line for the whole pool, then one per route: connections leased, available, calls
+     * pending, and the maximum number of connections
+     */
+    String[] getPoolStates() {
+        final PoolStats total = connectionManager.getTotalStats();
+        final List<String> states = new ArrayList<>();
+        states.add(poolName + " " + format(total) + " maxPerRoute=" + connectionManager.getDefaultMaxPerRoute());
+        for (HttpRoute route : connectionManager.getRoutes()) {
+            states.add(poolName + " " + route + " " + format(connectionManager.getStats(route)));
+        }
+        final String asyncPoolName = poolName + "-async";
+        states.add(asyncPoolName + " " + format(asyncTransport.getTotalStats()) + " maxPerRoute=" + asyncTransport.getDefaultMaxPerRoute());
+        for (org.apache.hc.client5.http.HttpRoute route : asyncTransport.getRoutes()) {
+            states.add(asyncPoolName + " " + route + " " + format(asyncTransport.getStats(route)));
+        }
+        return states.toArray(new String[0]);
+    }
+
+    private static String format(PoolStats stats) {
+        return format(stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax());
+    }
+
+    private static String format(org.apache.hc.core5.pool.PoolStats stats) {
+        return format(stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax());
+    }
+
+    private static String format(int leased, int available, int pending, int max) {
+        return "leased=" + leased + " available=" + available + " pending=" + pending + " max=" + max;
     }
 
 
@@ -114,16 +409,28 @@ public abstract class AbstractHttpClient {
      * @throws HttpCallException COMMUNICATION_ERROR
      */
     protected StringResponse doPost(String url, String path, Header[] headers, HttpEntity body) throws HttpCallException {
+        return doPost(url, path, headers, body, null, null);
+    }
+
+    /**
+     * Send a POST request, measured in {@link OneyMetrics}.
+     *
+     * @param operation   the operation name in the metrics
+     * @param countryCode the country code of the contract
+     * @see #doPost(String, String, Header[], HttpEntity)
+     */
+    protected StringResponse doPost(String url, String path, Header[] headers, HttpEntity body,
+                                    String operation, String countryCode) throws HttpCallException {
         final String methodName = "doPost";
 
         try {
-            URI uri = new URI(url + path);
+            URI uri = resolve(url, path);
 
             final HttpPost httpPostRequest = new HttpPost(uri);
             httpPostRequest.setHeaders(headers);
             httpPostRequest.setEntity(body);
 
-            return getStringResponse(url, methodName, httpPostRequest);
+            return getStringResponse(url, methodName, httpPostRequest, operation, countryCode);
 
         } catch (URISyntaxException e) {
             LOGGER.error(e.getMessage(), e);
@@ -133,46 +440,288 @@ public abstract class AbstractHttpClient {
 
     }
 
-    private StringResponse getStringResponse(String url, String methodName, HttpRequestBase httpPostRequest) throws HttpCallException {
+    /**
+     * Send a POST request without waiting for the response: asynchronous version of
+     * {@link #doPost(String, String, Header[], HttpEntity, String, String)}, through the non-blocking transport.
+     *
+     * @return a future completed with the response, or with a {@link HttpCallException} (COMMUNICATION_ERROR)
+     */
+    protected CompletableFuture<StringResponse> doPostAsync(String url, String path, Header[] headers, HttpEntity body,
+                                                            String operation, String countryCode) {
+        try {
+            final HttpPost httpPostRequest = new HttpPost(resolve(url, path));
+            httpPostRequest.setHeaders(headers);
+            httpPostRequest.setEntity(body);
+
+            return getStringResponseAsync(url, "doPost", httpPostRequest, operation, countryCode);
+        } catch (URISyntaxException e) {
+            LOGGER.error(e.getMessage(), e);
+            return AsyncHttpExecutor.failed(new HttpCallException(e, "AbstractHttpClient.doPost.URISyntaxException"));
+        }
+    }
+
+    private StringResponse getStringResponse(String url, String methodName, HttpRequestBase httpPostRequest,
+                                             String operation, String countryCode) throws HttpCallException {
+        final String metricName = operation == null ? methodName : operation;
+        final CircuitBreaker circuit = acquireCircuit(url, methodName, metricName);
+
+        final long startNanos = System.nanoTime();
+        OneyMetrics.INSTANCE.callStarted();
+        StringResponse strResponse = null;
+        try {
+            strResponse = executeWithRetry(url, methodName, httpPostRequest, metricName, countryCode);
+            return strResponse;
+        } finally {
+            callEnded(metricName, countryCode, circuit, startNanos, strResponse);
+        }
+    }
+
+    /**
+     * @return the circuit of the endpoint, null if they are disabled
+     * @throws HttpCallException if the circuit is open
+     */
+    private CircuitBreaker acquireCircuit(String url, String methodName, String metricName) throws HttpCallException {
+        final CircuitBreaker circuit = getCircuit(url, metricName);
+        if (circuit != null && !circuit.tryAcquire(System.currentTimeMillis())) {
+            // fail fast rather than wait for the timeouts of an endpoint which is down
+            LOGGER.warn("Partner call rejected, circuit open [CIRCUIT: {}]", circuit.getName());
+            OneyMetrics.INSTANCE.rejected(circuit.getName());
+            throw new HttpCallException("Circuit open for " + circuit.getName(), "AbstractHttpClient." + methodName + ".CircuitOpen");
+        }
+        return circuit;
+    }
+
+    /**
+     * Measure a call, its attempts included.
+     *
+     * @param strResponse the response, null if the call failed
+     */
+    private void callEnded(String metricName, String countryCode, CircuitBreaker circuit, long startNanos, StringResponse strResponse) {
+        final long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        OneyMetrics.INSTANCE.callEnded(metricName, countryCode, strResponse == null ? 0 : strResponse.getCode(), elapsedMicros);
+        if (poolSizer != null) {
+            poolSizer.called(elapsedMicros);
+        }
+        if (circuit != null) {
+            boolean failed = strResponse == null || strResponse.getCode() >= 500;
+            circuit.onResult(TimeUnit.MICROSECONDS.toMillis(elapsedMicros), failed, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Asynchronous version of {@link #getStringResponse(String, String, HttpRequestBase, String, String)}: the
+     * attempts go through the non-blocking transport, and the next one is scheduled after the retry delay.
+     */
+    private CompletableFuture<StringResponse> getStringResponseAsync(String url, String methodName, HttpRequestBase request,
+                                                                     String operation, String countryCode) {
+        final String metricName = operation == null ? methodName : operation;
+        final CircuitBreaker circuit;
+        try {
+            circuit = acquireCircuit(url, methodName, metricName);
+        } catch (HttpCallException e) {
+            return AsyncHttpExecutor.failed(e);
+        }
+
+        final long startNanos = System.nanoTime();
+        OneyMetrics.INSTANCE.callStarted();
+        final CompletableFuture<StringResponse> future = new CompletableFuture<>();
+        new AsyncAttempts(url, methodName, request, metricName, countryCode, (strResponse, error) -> {
+            callEnded(metricName, countryCode, circuit, startNanos, strResponse);
+            if (error == null) {
+                future.complete(strResponse);
+            } else {
+                future.completeExceptionally(error);
+            }
+        }).next();
+        return future;
+    }
+
+    /**
+     * The attempts of an asynchronous call: each one starts once the previous one has failed and its retry delay is
+     * over, without holding a thread meanwhile.
+     */
+    private final class AsyncAttempts {
+        private final String url;
+        private final String methodName;
+        private final HttpRequestBase request;
+        private final String metricName;
+        private final String countryCode;
+        private final BiConsumer<StringResponse, HttpCallException> completion;
+        private final long start = System.currentTimeMillis();
+        private final Executor logContext = AsyncHttpExecutor.withLogContext();
+        private int attempt;
+
+        private AsyncAttempts(String url, String methodName, HttpRequestBase request, String metricName, String countryCode,
+                              BiConsumer<StringResponse, HttpCallException> completion) {
+            this.url = url;
+            this.methodName = methodName;
+            this.request = request;
+            this.metricName = metricName;
+            this.countryCode = countryCode;
+            this.completion = completion;
+        }
+
+        private void next() {
+            attempt++;
+            attemptCounters.incrementAndGet(Math.min(attempt, MAX_COUNTED_ATTEMPTS) - 1);
+            LOGGER.info("Start partner call... [URL: {}]", url);
+            final CompletableFuture<StringResponse> response;
+            if (http2Transport != null) {
+                response = http2Transport.executeAsync(request);
+            } else if (asyncTls || !"https".equalsIgnoreCase(request.getURI().getScheme())) {
+                response = asyncTransport.execute(request);
+            } else {
+                response = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return executeHttp1(request);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, BLOCKING_CALLS);
+            }
+            response.whenCompleteAsync(this::ended, logContext);
+        }
+
+        private void ended(StringResponse strResponse, Throwable error) {
+            final long elapsed = System.currentTimeMillis() - start;
+            if (error == null) {
+                LOGGER.info("End partner call [T: {}ms] [CODE: {}]", elapsed, strResponse.getCode());
+                completion.accept(strResponse, null);
+                return;
+            }
+            LOGGER.error("Error while partner call [T: {}ms] [ATTEMPT: {}]", elapsed, attempt, error);
+            // the blocking calls end with their exception wrapped
+            final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            final IOException e = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+            final long retryDelay = retryPolicy.retryDelay(request, e, attempt, elapsed);
+            if (retryDelay < 0) {
+                completion.accept(null, exhausted(methodName, e.getMessage()));
+                return;
+            }
+            OneyMetrics.INSTANCE.retried(metricName, countryCode);
+            // the delay holds no thread
+            AsyncHttpExecutor.SCHEDULER.schedule(() -> logContext.execute(this::next), retryDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return the circuit breaker of the given endpoint, null if they are disabled
+     */
+    CircuitBreaker getCircuit(String url, String operation) {
+        if (!circuitSettings.isEnabled()) {
+            return null;
+        }
+        return circuits.computeIfAbsent(operation + "@" + url, name -> new CircuitBreaker(name, circuitSettings));
+    }
+
+    private StringResponse executeWithRetry(String url, String methodName, HttpRequestBase httpPostRequest,
+                                            String metricName, String countryCode) throws HttpCallException {
         final long start = System.currentTimeMillis();
-        int count = 0;
+        int attempt = 0;
+        long retryDelay = 0;
         StringResponse strResponse = null;
         String errMsg = null;
-        while (count < 3 && strResponse == null) {
-            try (CloseableHttpResponse httpResponse = this.client.execute(httpPostRequest)) {
-
+        while (strResponse == null && retryDelay >= 0) {
+            if (retryDelay > 0) {
+                waitBeforeRetry(methodName, retryDelay);
+            }
+            attempt++;
+            attemptCounters.incrementAndGet(Math.min(attempt, MAX_COUNTED_ATTEMPTS) - 1);
+            try {
                 LOGGER.info("Start partner call... [URL: {}]", url);
 
-                strResponse = new StringResponse();
-                strResponse.setCode(httpResponse.getStatusLine().getStatusCode());
-                strResponse.setMessage(httpResponse.getStatusLine().getReasonPhrase());
-
-                if (httpResponse.getEntity() != null) {
-                    final String responseAsString = EntityUtils.toString(httpResponse.getEntity());
-                    strResponse.setContent(responseAsString);
-                }
+                strResponse = http2Transport == null ? executeHttp1(httpPostRequest) : http2Transport.execute(httpPostRequest);
                 final long end = System.currentTimeMillis();
 
                 LOGGER.info("End partner call [T: {}ms] [CODE: {}]", end - start, strResponse.getCode());
 
             } catch (final IOException e) {
-                LOGGER.error("Error while partner call [T: {}ms]", System.currentTimeMillis() - start, e);
+                final long elapsed = System.currentTimeMillis() - start;
+                LOGGER.error("Error while partner call [T: {}ms] [ATTEMPT: {}]", elapsed, attempt, e);
                 strResponse = null;
                 errMsg = e.getMessage();
-            } finally {
-                count++;
+                retryDelay = retryPolicy.retryDelay(httpPostRequest, e, attempt, elapsed);
+                if (retryDelay >= 0) {
+                    OneyMetrics.INSTANCE.retried(metricName, countryCode);
+                }
             }
         }
 
         if (strResponse == null) {
-            if (errMsg == null) {
-                throw new HttpCallException("Http response is empty", "AbstractHttpClient." + methodName + " : empty partner response");
-            }
-            throw new HttpCallException(errMsg, "AbstractHttpClient." + methodName + ".IOException");
+            throw exhausted(methodName, errMsg);
         }
         return strResponse;
     }
 
+    /**
+     * @param errMsg the message of the last error, null if none
+     * @return the exception of a call which failed after its last attempt
+     */
+    private HttpCallException exhausted(String methodName, String errMsg) {
+        exhaustedCounter.incrementAndGet();
+        if (errMsg == null) {
+            return new HttpCallException("Http response is empty", "AbstractHttpClient." + methodName + " : empty partner response");
+        }
+        return new HttpCallException(errMsg, "AbstractHttpClient." + methodName + ".IOException");
+    }
+
+    private StringResponse executeHttp1(HttpRequestBase request) throws IOException {
+        try (CloseableHttpResponse httpResponse = this.client.execute(request)) {
+            final StringResponse strResponse = new StringResponse();
+            strResponse.setCode(httpResponse.getStatusLine().getStatusCode());
+            strResponse.setMessage(httpResponse.getStatusLine().getReasonPhrase());
+
+            if (httpResponse.getEntity() != null) {
+                final String responseAsString = EntityUtils.toString(httpResponse.getEntity());
+                strResponse.setContent(responseAsString);
+            }
+            return strResponse;
+        }
+    }
+
+    private void waitBeforeRetry(String methodName, long delay) throws HttpCallException {
+        try {
+            sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HttpCallException(e, "AbstractHttpClient." + methodName + ".InterruptedException");
+        }
+    }
+
+    /**
+     * Wait before the next attempt. Extracted to be skipped in unit tests.
+     */
+    protected void sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+    }
+
+    /**
+     * @return the longest time a call can take, retries included, in milliseconds: the retry deadline, plus a last
+     * attempt started right before it (connection lease, connection and response; the HTTP/2 transport allows twice
+     * the connection timeout)
+     */
+    long getCallTimeout() {
+        final long attempt = (long) requestConfig.getConnectionRequestTimeout() + 2L * requestConfig.getConnectTimeout()
+                + requestConfig.getSocketTimeout();
+        final long deadline = retryPolicy.getDeadline();
+        return (deadline < 0 ? ExponentialBackoffRetryPolicy.DEFAULT_DEADLINE : deadline) + attempt;
+    }
+
+    /**
+     * @param attempt the rank of the attempt, starting at 1
+     * @return the number of attempts of this rank made since the client was built
+     */
+    public long getAttemptCount(int attempt) {
+        return attemptCounters.get(Math.min(attempt, MAX_COUNTED_ATTEMPTS) - 1);
+    }
+
+    /**
+     * @return the number of calls which failed after their last attempt
+     */
+    public long getExhaustedCount() {
+        return exhaustedCounter.get();
+    }
+
 
     /**
      * Send a GET request
@@ -184,14 +733,26 @@ public abstract class AbstractHttpClient {
      */
 
     protected StringResponse doGet(String url, String path, Header[] headers) throws HttpCallException {
+        return doGet(url, path, headers, null, null);
+    }
+
+    /**
+     * Send a GET request, measured in {@link OneyMetrics}.
+     *
+     * @param operation   the operation name in the metrics
+     * @param countryCode the country code of the contract
+     * @see #doGet(String, String, Header[])
+     */
+    protected StringResponse doGet(String url, String path, Header[] headers,
+                                   String operation, String countryCode) throws HttpCallException {
         final String methodName = "doGet";
         try {
-            URI uri = new URI(url + path);
+            URI uri = resolve(url, path);
 
             final HttpGet httpGetRequest = new HttpGet(uri);
             httpGetRequest.setHeaders(headers);
 
-            return getStringResponse(url, methodName, httpGetRequest);
+            return getStringResponse(url, methodName, httpGetRequest, operation, countryCode);
         } catch (URISyntaxException e) {
             throw new HttpCallException(e, "AbstractHttpClient.doGet.URISyntaxException");
         }
@@ -199,5 +760,157 @@ public abstract class AbstractHttpClient {
 
     }
 
+    /**
+     * Send a GET request without waiting for the response: asynchronous version of
+     * {@link #doGet(String, String, Header[], String, String)}, through the non-blocking transport.
+     *
+     * @return a future completed with the response, or with a {@link HttpCallException} (COMMUNICATION_ERROR)
+     */
+    protected CompletableFuture<StringResponse> doGetAsync(String url, String path, Header[] headers,
+                                                           String operation, String countryCode) {
+        try {
+            final HttpGet httpGetRequest = new HttpGet(resolve(url, path));
+            httpGetRequest.setHeaders(headers);
+
+            return getStringResponseAsync(url, "doGet", httpGetRequest, operation, countryCode);
+        } catch (URISyntaxException e) {
+            return AsyncHttpExecutor.failed(new HttpCallException(e, "AbstractHttpClient.doGet.URISyntaxException"));
+        }
+    }
+
+    /**
+     * Resolve a path below the partner URL, as the concatenation of both would be: the path of the URL, if any, is
+     * kept. The URL is parsed on its first call only.
+     *
+     * @param url  URL scheme + host, and optionally a path
+     * @param path URL path starting with a slash, already percent-encoded, with its query if any
+     * @return the URI of the path
+     * @throws URISyntaxException if the URL or the path is invalid
+     */
+    URI resolve(String url, String path) throws URISyntaxException {
+        URI base = baseUris.get(url);
+        if (base == null) {
+            // a base ending with a slash keeps its last segment when resolving
+            base = new URI(url.endsWith("/") ? url : url + "/");
+            baseUris.putIfAbsent(url, base);
+        }
+        return base.resolve(new URI("." + path));
+    }
+
+    /**
+     * Open connections to the given URL and leave them in the pool of the non-blocking transport, which makes the
+     * partner calls, so that the next calls skip the TCP and TLS handshakes.
+     * Nothing is opened when the client uses HTTP/2, when the route goes through a proxy, or when the HTTPS calls are
+     * made by {@link #client}.
+     *
+     * @param url   the partner URL (scheme + host)
+     * @param count the number of connections to open, bounded by the pool size per route
+     * @return the number of connections opened
+     * @see AsyncTransport#openConnections(URI, int)
+     */
+    int openConnections(String url, int count) {
+        if (http2Transport != null || count <= 0) {
+            // with HTTP/2 the calls share one connection, opened by the first one: the HTTP/1.1 pool is a fallback
+            return 0;
+        }
+        try {
+            final URI uri = new URI(url);
+            if (!asyncTls && "https".equalsIgnoreCase(uri.getScheme())) {
+                return 0;
+            }
+            return asyncTransport.openConnections(uri, count);
+        } catch (URISyntaxException e) {
+            LOGGER.warn("Unable to open connections to {}", url, e);
+            return 0;
+        }
+    }
+
+    /**
+     * @return the number of open connections waiting in the pool of the non-blocking transport
+     */
+    int getIdleConnections() {
+        return asyncTransport.getTotalStats().getAvailable();
+    }
+
+    /**
+     * Connection pool which measures the time spent waiting for a free connection, and reports its leases to its
+     * sizing if any.
+     */
+    private static final class MeteredConnectionManager extends PoolingHttpClientConnectionManager {
+
+        private final AdaptivePoolSizer sizer;
+        /**
+         * The route of each leased connection, given back to the sizing on release.
+         */
+        private final ConcurrentMap<HttpClientConnection, HttpRoute> leasedRoutes = new ConcurrentHashMap<>();
+
+        /**
+         * @param timeToLive maximum life of a connection, in milliseconds, unlimited if negative
+         * @param sizer      the sizing of the pool, null if its size is fixed
+         */
+        private MeteredConnectionManager(Registry<ConnectionSocketFactory> socketFactories, long timeToLive, AdaptivePoolSizer sizer) {
+            super(socketFactories, null, null, null, timeToLive, TimeUnit.MILLISECONDS);
+            this.sizer = sizer;
+        }
+
+        @Override
+        public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+            final ConnectionRequest request = super.requestConnection(route, state);
+            return new ConnectionRequest() {
+                @Override
+                public HttpClientConnection get(long timeout, TimeUnit timeUnit)
+                        throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                    final long start = System.nanoTime();
+                    HttpClientConnection connection = null;
+                    try {
+                        connection = request.get(timeout, timeUnit);
+                        return connection;
+                    } finally {
+                        final long waitMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                        OneyMetrics.INSTANCE.leaseWaited(waitMicros);
+                        if (sizer != null && connection != null) {
+                            leasedRoutes.put(connection, route);
+                            sizer.leased(route, waitMicros);
+                        }
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return request.cancel();
+                }
+            };
+        }
+
+        @Override
+        public void releaseConnection(HttpClientConnection managedConn, Object state, long keepalive, TimeUnit timeUnit) {
+            final HttpRoute route = sizer == null ? null : leasedRoutes.remove(managedConn);
+            if (route != null) {
+                sizer.released(route);
+            }
+            super.releaseConnection(managedConn, state, keepalive, timeUnit);
+        }
+    }
+
+    /**
+     * Release the underlying client and its connection pool.
+     */
+    @Override
+    public void close() {
+        if (poolSizing != null) {
+            poolSizing.cancel(false);
+        }
+        OneyMetrics.INSTANCE.unregisterPool(poolName);
+        if (http2Transport != null) {
+            http2Transport.close();
+        }
+        asyncTransport.close();
+        try {
+            this.client.close();
+        } catch (IOException e) {
+            LOGGER.warn("Unable to close the HTTP client", e);
+        }
+    }
+
 
 }
@@ -0,0 +1,146 @@
+package com.payline.payment.oney.utils.http;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sizing of a connection pool between two bounds, from what was observed during the last interval:
+ * <ul>
+ * <li>calls waiting for a connection (pending, or a mean lease wait above the threshold): the pool grows by a quarter,
+ * unless the partner is slowing down, as more concurrent calls would make it worse;</li>
+ * <li>less than half the connections of the busiest route used at its peak: the pool gives one connection back.</li>
+ * </ul>
+ * The partner latency is the call duration without the lease wait, compared with its slow moving average.
+ */
+final class AdaptivePoolSizer {
+
+    static final int DEFAULT_MIN_SIZE = 2;
+    static final long DEFAULT_INTERVAL = 10_000L;
+    static final long DEFAULT_LEASE_WAIT_THRESHOLD = 5L;
+
+    /**
+     * The partner is slowing down when its latency is above its average by this factor.
+     */
+    static final double LATENCY_DEGRADATION = 1.5;
+
+    /**
+     * Weight of the last interval in the average latency.
+     */
+    static final double LATENCY_WEIGHT = 0.1;
+
+    /**
+     * Runs the resizing of all the pools: it only takes a few reads and writes of counters.
+     */
+    static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "oney-pool-sizer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int minSize;
+    private final int maxSize;
+    private final long leaseWaitThresholdMicros;
+
+    private final LongAdder leases = new LongAdder();
+    private final LongAdder leaseWaitMicros = new LongAdder();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder callMicros = new LongAdder();
+    /**
+     * The size applies to each route: the leases are counted per route, of either pool (HttpClient 4 or 5). The routes
+     * are those of the partner URLs, so they are never removed.
+     */
+    private final ConcurrentMap<Object, RouteLeases> routes = new ConcurrentHashMap<>();
+
+    // only read and written by resize, called from a single thread
+    private double averageLatency = -1;
+
+    /**
+     * @param minSize            lower bound of the connections per route
+     * @param maxSize            upper bound of the connections per route
+     * @param leaseWaitThreshold mean lease wait above which the pool is too small, in milliseconds
+     */
+    AdaptivePoolSizer(int minSize, int maxSize, long leaseWaitThreshold) {
+        if (minSize < 1 || maxSize < minSize) {
+            throw new IllegalArgumentException("Invalid pool bounds [" + minSize + ", " + maxSize + "]");
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.leaseWaitThresholdMicros = leaseWaitThreshold * 1000;
+    }
+
+    /**
+     * @param size a pool size
+     * @return the size within the bounds
+     */
+    int bound(int size) {
+        return Math.max(minSize, Math.min(maxSize, size));
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    void leased(Object route, long waitMicros) {
+        leases.increment();
+        leaseWaitMicros.add(waitMicros);
+        final RouteLeases routeLeases = routes.computeIfAbsent(route, key -> new RouteLeases());
+        routeLeases.peak.accumulateAndGet(routeLeases.leased.incrementAndGet(), Math::max);
+    }
+
+    void released(Object route) {
+        final RouteLeases routeLeases = routes.get(route);
+        if (routeLeases != null) {
+            routeLeases.leased.decrementAndGet();
+        }
+    }
+
+    void called(long latencyMicros) {
+        calls.increment();
+        callMicros.add(latencyMicros);
+    }
+
+    /**
+     * Close the interval and compute the size of the next one.
+     *
+     * @param currentSize the current number of connections per route
+     * @param pending     the number of calls waiting for a connection now
+     * @return the size for the next interval
+     */
+    int resize(int currentSize, int pending) {
+        final long leaseCount = leases.sumThenReset();
+        final long waitMicros = leaseWaitMicros.sumThenReset();
+        final long callCount = calls.sumThenReset();
+        final long latencyMicros = callMicros.sumThenReset();
+        int peak = 0;
+        for (RouteLeases routeLeases : routes.values()) {
+            // the connections still leased count in the next interval
+            peak = Math.max(peak, routeLeases.peak.getAndSet(routeLeases.leased.get()));
+        }
+
+        final double meanWait = leaseCount == 0 ? 0 : (double) waitMicros / leaseCount;
+        final double latency = callCount == 0 ? -1 : Math.max(0, (double) latencyMicros / callCount - meanWait);
+
+        final boolean starved = pending > 0 || meanWait > leaseWaitThresholdMicros;
+        final boolean degraded = averageLatency > 0 && latency > averageLatency * LATENCY_DEGRADATION;
+        if (latency >= 0) {
+            averageLatency = averageLatency < 0 ? latency : (1 - LATENCY_WEIGHT) * averageLatency + LATENCY_WEIGHT * latency;
+        }
+
+        if (starved) {
+            return degraded ? bound(currentSize) : bound(currentSize + Math.max(1, currentSize / 4));
+        }
+        if (peak < currentSize / 2) {
+            return bound(currentSize - 1);
+        }
+        return bound(currentSize);
+    }
+
+    private static final class RouteLeases {
+        private final AtomicInteger leased = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+    }
+}
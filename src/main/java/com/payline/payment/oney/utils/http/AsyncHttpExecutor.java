@@ -0,0 +1,289 @@
+package com.payline.payment.oney.utils.http;
+
+import com.payline.payment.oney.exception.HttpCallException;
+import com.payline.payment.oney.exception.PluginTechnicalException;
+import com.payline.payment.oney.utils.metrics.OneyMetrics;
+import com.payline.pmapi.logger.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Bounds the number of requests in flight for each route. A call waiting for a free slot longer than the connection
+ * request timeout fails with a {@link HttpCallException}, as does a call which finds {@link #MAX_QUEUED_CALLS} calls
+ * already waiting. When the bulkheads are enabled, the calls must also get a permit of the {@link Bulkhead} of their
+ * merchant, then of their country, before they compete for the slots of the route.
+ * <p>
+ * The calls are non-blocking: no thread is held while a call waits for its permits or for its response. A call starts
+ * on the thread which frees its last permit, with the log context of the caller.
+ */
+final class AsyncHttpExecutor {
+
+    private static final Logger LOGGER = LogManager.getLogger(AsyncHttpExecutor.class);
+
+    /**
+     * Same value as the default connection pool of HttpClient (http.maxConnections).
+     */
+    static final int DEFAULT_MAX_IN_FLIGHT_PER_ROUTE = 5;
+
+    /**
+     * Calls of a route waiting for a slot.
+     */
+    static final int MAX_QUEUED_CALLS = 100;
+
+    /**
+     * Expires the waits for a permit and starts the retries after their delay. Its tasks only complete futures or
+     * send requests, they never block.
+     */
+    static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "oney-http-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A non-blocking partner call.
+     */
+    @FunctionalInterface
+    interface HttpCall {
+        /**
+         * @return a future completed with the partner response, or with the {@link PluginTechnicalException} raised
+         */
+        CompletableFuture<StringResponse> execute();
+    }
+
+    private final int maxInFlightPerRoute;
+    private final long acquireTimeout;
+    private final ConcurrentMap<String, Bulkhead> routes = new ConcurrentHashMap<>();
+
+    private final int maxInFlightPerMerchant;
+    private final int maxInFlightPerCountry;
+    private final int maxWaitingPerBulkhead;
+    private final long bulkheadWaitTimeout;
+    private final ConcurrentMap<String, Bulkhead> merchants = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Bulkhead> countries = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxInFlightPerRoute maximum number of concurrent calls for a route
+     * @param acquireTimeout      maximum waiting time for a free slot, in milliseconds
+     */
+    AsyncHttpExecutor(int maxInFlightPerRoute, long acquireTimeout) {
+        this(maxInFlightPerRoute, acquireTimeout, 0, 0, 0, 0);
+    }
+
+    /**
+     * @param maxInFlightPerRoute    maximum number of concurrent calls for a route
+     * @param acquireTimeout         maximum waiting time for a free slot, in milliseconds
+     * @param maxInFlightPerMerchant maximum number of concurrent calls for a merchant, 0 for no limit
+     * @param maxInFlightPerCountry  maximum number of concurrent calls for a country, 0 for no limit
+     * @param maxWaitingPerBulkhead  maximum number of calls waiting for a permit of a merchant or a country
+     * @param bulkheadWaitTimeout    maximum waiting time for the permits of the merchant and the country, in milliseconds
+     */
+    AsyncHttpExecutor(int maxInFlightPerRoute, long acquireTimeout, int maxInFlightPerMerchant, int maxInFlightPerCountry,
+                      int maxWaitingPerBulkhead, long bulkheadWaitTimeout) {
+        this.maxInFlightPerRoute = maxInFlightPerRoute;
+        this.acquireTimeout = acquireTimeout;
+        this.maxInFlightPerMerchant = maxInFlightPerMerchant;
+        this.maxInFlightPerCountry = maxInFlightPerCountry;
+        this.maxWaitingPerBulkhead = maxWaitingPerBulkhead;
+        this.bulkheadWaitTimeout = bulkheadWaitTimeout;
+    }
+
+    private boolean hasBulkheads() {
+        return maxInFlightPerMerchant > 0 || maxInFlightPerCountry > 0;
+    }
+
+    /**
+     * @return the longest time a call can wait for its permits before it starts, in milliseconds
+     */
+    long getMaxWait() {
+        return acquireTimeout + (hasBulkheads() ? bulkheadWaitTimeout : 0);
+    }
+
+    /**
+     * Make a call on the given route.
+     *
+     * @param route the partner URL (scheme + host)
+     * @param call  the call to execute
+     * @return a future completed with the partner response, or with the {@link PluginTechnicalException} raised
+     */
+    CompletableFuture<StringResponse> submit(final String route, final HttpCall call) {
+        return submit(route, null, null, call);
+    }
+
+    /**
+     * Make a call of a merchant on the given route, once it has its permits.
+     *
+     * @param route    the partner URL (scheme + host)
+     * @param merchant the merchant GUID of the call, null if unknown
+     * @param country  the country code of the call, null if unknown
+     * @param call     the call to execute
+     * @return a future completed with the partner response, or with the {@link PluginTechnicalException} raised
+     */
+    CompletableFuture<StringResponse> submit(final String route, final String merchant, final String country, final HttpCall call) {
+        final Bulkhead merchantBulkhead = getBulkhead(merchants, merchant, maxInFlightPerMerchant);
+        final Bulkhead countryBulkhead = getBulkhead(countries, country, maxInFlightPerCountry);
+        final Bulkhead slots = getRoute(route);
+        final long bulkheadDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(bulkheadWaitTimeout);
+        // the permits taken, one stage after the other
+        final Deque<Bulkhead> acquired = new ArrayDeque<>(3);
+        final CompletableFuture<StringResponse> future = new CompletableFuture<>();
+
+        acquire(merchantBulkhead, bulkheadDeadline, acquired)
+                .thenCompose(ignored -> acquire(countryBulkhead, bulkheadDeadline, acquired))
+                .thenCompose(ignored -> acquire(slots, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(acquireTimeout), acquired))
+                .thenComposeAsync(ignored -> call.execute(), withLogContext())
+                .whenComplete((response, error) -> {
+                    acquired.forEach(Bulkhead::release);
+                    if (error == null) {
+                        future.complete(response);
+                    } else {
+                        future.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error);
+                    }
+                });
+        return future;
+    }
+
+    /**
+     * Take a permit of a bulkhead, waiting until the given deadline.
+     *
+     * @param bulkhead the bulkhead, null if the call is not limited
+     * @param acquired the permits of the call, the bulkhead is added once its permit is taken
+     * @return a future completed once the permit is taken, or with a {@link HttpCallException} if none could be
+     */
+    private CompletableFuture<Void> acquire(Bulkhead bulkhead, long deadline, Deque<Bulkhead> acquired) {
+        if (bulkhead == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        return bulkhead.acquire(Math.max(0, remaining)).thenApply(permit -> {
+            if (!permit) {
+                throw new CompletionException(saturated(bulkhead));
+            }
+            acquired.push(bulkhead);
+            return null;
+        });
+    }
+
+    private HttpCallException saturated(Bulkhead bulkhead) {
+        if (routes.get(bulkhead.getName()) == bulkhead) {
+            LOGGER.warn("Too many requests in flight [URL: {}]", bulkhead.getName());
+            return new HttpCallException("Too many requests in flight for " + bulkhead.getName(), "AsyncHttpExecutor.submit.Saturated");
+        }
+        LOGGER.warn("Too many requests in flight [BULKHEAD: {}]", bulkhead.getName());
+        OneyMetrics.INSTANCE.bulkheadRejected(bulkhead.getName());
+        return new HttpCallException("Too many requests in flight for " + bulkhead.getName(), "AsyncHttpExecutor.submit.BulkheadSaturated");
+    }
+
+    private Bulkhead getRoute(String route) {
+        return routes.computeIfAbsent(String.valueOf(route), r -> new Bulkhead(r, maxInFlightPerRoute, MAX_QUEUED_CALLS));
+    }
+
+    private Bulkhead getBulkhead(ConcurrentMap<String, Bulkhead> bulkheads, String key, int maxInFlight) {
+        if (key == null || maxInFlight <= 0) {
+            return null;
+        }
+        final String name = (bulkheads == merchants ? "merchant " : "country ") + key;
+        return bulkheads.computeIfAbsent(key, k -> new Bulkhead(name, maxInFlight, maxWaitingPerBulkhead));
+    }
+
+    /**
+     * @return the number of calls of the given merchant currently in flight
+     */
+    int merchantInFlight(String merchant) {
+        Bulkhead bulkhead = merchants.get(merchant);
+        return bulkhead == null ? 0 : bulkhead.inFlight();
+    }
+
+    /**
+     * @return the number of calls of the given country currently in flight
+     */
+    int countryInFlight(String country) {
+        Bulkhead bulkhead = countries.get(country);
+        return bulkhead == null ? 0 : bulkhead.inFlight();
+    }
+
+    /**
+     * @return the number of calls currently in flight on the given route
+     */
+    int inFlight(String route) {
+        Bulkhead slots = routes.get(route);
+        return slots == null ? 0 : slots.inFlight();
+    }
+
+    /**
+     * @return an executor running its tasks at once, on the thread which submits them, with the log context of the
+     * current thread
+     */
+    static Executor withLogContext() {
+        final Map<String, String> logContext = ThreadContext.getImmutableContext();
+        final List<String> logStack = ThreadContext.getImmutableStack().asList();
+        return task -> {
+            final Map<String, String> previousContext = ThreadContext.getImmutableContext();
+            final List<String> previousStack = ThreadContext.getImmutableStack().asList();
+            ThreadContext.clearAll();
+            ThreadContext.putAll(logContext);
+            ThreadContext.setStack(logStack);
+            try {
+                task.run();
+            } finally {
+                ThreadContext.clearAll();
+                ThreadContext.putAll(previousContext);
+                ThreadContext.setStack(previousStack);
+            }
+        };
+    }
+
+    /**
+     * Wait for the response of an asynchronous call.
+     *
+     * @param future  the asynchronous call
+     * @param timeout maximum waiting time, in milliseconds
+     * @return the partner response
+     * @throws PluginTechnicalException the exception raised by the call, or a {@link HttpCallException} if it is not
+     *                                  over in time
+     */
+    static StringResponse await(CompletableFuture<StringResponse> future, long timeout) throws PluginTechnicalException {
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HttpCallException(e, "AsyncHttpExecutor.await.InterruptedException");
+        } catch (TimeoutException e) {
+            throw new HttpCallException("No response after " + timeout + "ms", "AsyncHttpExecutor.await.Timeout");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof PluginTechnicalException) {
+                throw (PluginTechnicalException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new HttpCallException(e, "AsyncHttpExecutor.await.ExecutionException");
+        }
+    }
+
+    /**
+     * @return a future already completed with the given exception
+     */
+    static <T> CompletableFuture<T> failed(Throwable t) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(t);
+        return future;
+    }
+}
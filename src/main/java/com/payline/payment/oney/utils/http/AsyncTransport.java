@@ -0,0 +1,326 @@
+package com.payline.payment.oney.utils.http;
+
+import com.payline.payment.oney.utils.metrics.OneyMetrics;
+import com.payline.pmapi.logger.LogManager;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.async.MinimalHttpAsyncClient;
+import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.routing.SystemDefaultRoutePlanner;
+import org.apache.hc.client5.http.nio.AsyncConnectionEndpoint;
+import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.config.Http1Config;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.http.nio.AsyncClientEndpoint;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http.protocol.BasicHttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.logging.log4j.Logger;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Non-blocking HTTP/1.1 transport of the partner calls: a request holds no thread while it waits for a connection or
+ * for the response, the I/O is made by the threads of the client.
+ * <p>
+ * Its pool has the size of the HttpClient 4 pool of {@link AbstractHttpClient}, and the same settings (time to live,
+ * validation after inactivity, keep alive, eviction of the idle connections, system proxy). The waits for a connection
+ * are measured in {@link OneyMetrics} and reported to the sizing of the pool if any.
+ * <p>
+ * The requests are those of HttpClient 4 built by {@link AbstractHttpClient}: they are copied into HttpClient 5
+ * requests, see {@link Http2Transport#copy(HttpRequestBase)}.
+ */
+final class AsyncTransport {
+
+    private static final Logger LOGGER = LogManager.getLogger(AsyncTransport.class);
+
+    private final MeteredConnectionManager connectionManager;
+    private final CloseableHttpAsyncClient client;
+    /**
+     * Opens the connections in advance, see {@link #openConnections(URI, int)}: the client does not lease a connection
+     * without a request.
+     */
+    private final MinimalHttpAsyncClient connector;
+    private final int connectionRequestTimeout;
+    private final int connectTimeout;
+
+    /**
+     * @param connectTimeout           connection timeout, in milliseconds
+     * @param connectionRequestTimeout maximum waiting time for a connection of the pool, in milliseconds
+     * @param responseTimeout          timeout of the response once the request is sent, in milliseconds
+     * @param maxPerRoute              maximum number of connections per route
+     * @param maxTotal                 maximum number of connections
+     * @param timeToLive               maximum life of a connection, in milliseconds, unlimited if negative
+     * @param validateAfterInactivity  idle time after which a connection is checked before its lease, in milliseconds,
+     *                                 null for the default
+     * @param keepAliveDuration        how long an idle connection is kept, in milliseconds, 0 for what the partner says
+     * @param evictIdleConnection      idle time after which a connection is closed, in milliseconds, 0 to keep it
+     * @param sslContext               the TLS settings
+     * @param sizer                    the sizing of the pool, null if its size is fixed
+     */
+    AsyncTransport(int connectTimeout, int connectionRequestTimeout, int responseTimeout, int maxPerRoute, int maxTotal,
+                   long timeToLive, Integer validateAfterInactivity, long keepAliveDuration, long evictIdleConnection,
+                   SSLContext sslContext, AdaptivePoolSizer sizer) {
+        this.connectTimeout = connectTimeout;
+        this.connectionRequestTimeout = connectionRequestTimeout;
+
+        this.connectionManager = new MeteredConnectionManager(sslContext, sizer);
+        final ConnectionConfig.Builder connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                .setTimeToLive(TimeValue.ofMilliseconds(timeToLive));
+        if (validateAfterInactivity != null) {
+            connectionConfig.setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivity));
+        }
+        connectionManager.setDefaultConnectionConfig(connectionConfig.build());
+        connectionManager.setDefaultTlsConfig(TlsConfig.custom().setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_1).build());
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setMaxTotal(maxTotal);
+
+        // the retries are made by the RetryPolicy only
+        final HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+                .useSystemProperties()
+                .setConnectionManager(connectionManager)
+                // closed with the connector
+                .setConnectionManagerShared(true)
+                .disableAutomaticRetries()
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeout))
+                        .setResponseTimeout(Timeout.ofMilliseconds(responseTimeout))
+                        .build())
+                .setDefaultCredentialsProvider(new BasicCredentialsProvider());
+        if (keepAliveDuration > 0) {
+            builder.setKeepAliveStrategy((response, context) -> TimeValue.ofMilliseconds(keepAliveDuration));
+        }
+        if (evictIdleConnection > 0) {
+            builder.evictIdleConnections(TimeValue.ofMilliseconds(evictIdleConnection));
+        }
+        this.client = builder.build();
+        this.connector = HttpAsyncClients.createMinimal(H2Config.DEFAULT, Http1Config.DEFAULT,
+                IOReactorConfig.custom().setIoThreadCount(1).build(), connectionManager);
+        this.client.start();
+        this.connector.start();
+    }
+
+    /**
+     * Send the request and read the whole response.
+     *
+     * @return a future completed with the response, or with the {@link IOException} raised: the errors of HttpClient 5
+     * which matter to the retry policy are translated into those of HttpClient 4
+     */
+    CompletableFuture<StringResponse> execute(HttpRequestBase request) {
+        final CompletableFuture<StringResponse> future = new CompletableFuture<>();
+        final SimpleHttpRequest copy;
+        try {
+            copy = Http2Transport.copy(request);
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        client.execute(copy, new FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                future.complete(Http2Transport.toStringResponse(response));
+            }
+
+            @Override
+            public void failed(Exception e) {
+                future.completeExceptionally(Http2Transport.translate(e));
+            }
+
+            @Override
+            public void cancelled() {
+                future.completeExceptionally(new InterruptedIOException("Request to " + request.getURI() + " cancelled"));
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Open connections to the given URL and leave them in the pool, so that the next calls skip the TCP and TLS
+     * handshakes. The connections are leased together: releasing each one before opening the next would open only one.
+     * Nothing is opened when the route goes through a proxy (the tunnel would have to be established as well).
+     * Blocks until the connections are open.
+     *
+     * @param uri   the partner URL (scheme + host)
+     * @param count the number of connections to open, bounded by the pool size per route
+     * @return the number of connections opened
+     */
+    int openConnections(URI uri, int count) {
+        final HttpHost target;
+        final HttpRoute route;
+        try {
+            target = HttpHost.create(uri);
+            route = new SystemDefaultRoutePlanner(ProxySelector.getDefault()).determineRoute(target, new BasicHttpContext());
+        } catch (HttpException | RuntimeException e) {
+            LOGGER.warn("Unable to open connections to {}", uri, e);
+            return 0;
+        }
+        if (route.getProxyHost() != null) {
+            LOGGER.info("No connection opened in advance through the proxy {}", route.getProxyHost());
+            return 0;
+        }
+
+        final int idle = connectionManager.getStats(route).getAvailable();
+        final List<AsyncClientEndpoint> endpoints = new ArrayList<>();
+        try {
+            final int max = Math.min(count, connectionManager.getMaxPerRoute(route));
+            while (endpoints.size() < max) {
+                final Future<AsyncClientEndpoint> lease = connector.lease(target, null);
+                try {
+                    endpoints.add(lease.get((long) connectionRequestTimeout + connectTimeout, TimeUnit.MILLISECONDS));
+                } catch (TimeoutException e) {
+                    lease.cancel(true);
+                    throw e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // the partner or the pool is not available: the calls will open their connections themselves
+            LOGGER.warn("Unable to open a connection to {}", uri, e);
+        } finally {
+            endpoints.forEach(AsyncClientEndpoint::releaseAndReuse);
+        }
+        // the idle connections are leased first
+        return Math.max(0, endpoints.size() - idle);
+    }
+
+    int getDefaultMaxPerRoute() {
+        return connectionManager.getDefaultMaxPerRoute();
+    }
+
+    void setDefaultMaxPerRoute(int max) {
+        connectionManager.setDefaultMaxPerRoute(max);
+    }
+
+    PoolStats getTotalStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    Set<HttpRoute> getRoutes() {
+        return connectionManager.getRoutes();
+    }
+
+    PoolStats getStats(HttpRoute route) {
+        return connectionManager.getStats(route);
+    }
+
+    void close() {
+        client.close(CloseMode.GRACEFUL);
+        // closes the pool as well
+        connector.close(CloseMode.GRACEFUL);
+    }
+
+    /**
+     * Connection pool which measures the time spent waiting for a free connection, and reports its leases to its
+     * sizing if any.
+     */
+    private static final class MeteredConnectionManager extends PoolingAsyncClientConnectionManager {
+
+        private final AdaptivePoolSizer sizer;
+        /**
+         * The route of each leased connection, given back to the sizing on release.
+         */
+        private final ConcurrentMap<AsyncConnectionEndpoint, HttpRoute> leasedRoutes = new ConcurrentHashMap<>();
+
+        private MeteredConnectionManager(SSLContext sslContext, AdaptivePoolSizer sizer) {
+            super(RegistryBuilder.<TlsStrategy>create()
+                            .register(URIScheme.HTTPS.id, new DefaultClientTlsStrategy(sslContext))
+                            .build(),
+                    PoolConcurrencyPolicy.STRICT, PoolReusePolicy.LIFO, TimeValue.NEG_ONE_MILLISECOND);
+            this.sizer = sizer;
+        }
+
+        @Override
+        public Future<AsyncConnectionEndpoint> lease(String id, HttpRoute route, Object state, Timeout requestTimeout,
+                                                     FutureCallback<AsyncConnectionEndpoint> callback) {
+            final HttpRoute pooledRoute = normalize(route);
+            final long start = System.nanoTime();
+            return super.lease(id, pooledRoute, state, requestTimeout, new FutureCallback<AsyncConnectionEndpoint>() {
+                @Override
+                public void completed(AsyncConnectionEndpoint endpoint) {
+                    final long waitMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                    OneyMetrics.INSTANCE.leaseWaited(waitMicros);
+                    if (sizer != null) {
+                        leasedRoutes.put(endpoint, pooledRoute);
+                        sizer.leased(pooledRoute, waitMicros);
+                    }
+                    if (callback != null) {
+                        callback.completed(endpoint);
+                    }
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    OneyMetrics.INSTANCE.leaseWaited(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    if (callback != null) {
+                        callback.failed(e);
+                    }
+                }
+
+                @Override
+                public void cancelled() {
+                    if (callback != null) {
+                        callback.cancelled();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void release(AsyncConnectionEndpoint endpoint, Object state, TimeValue keepAlive) {
+            final HttpRoute route = sizer == null ? null : leasedRoutes.remove(endpoint);
+            if (route != null) {
+                sizer.released(route);
+            }
+            super.release(endpoint, state, keepAlive);
+        }
+
+        /**
+         * The connector leases the direct routes without their TLS flag: they are leased as the client does, so that
+         * the connections opened in advance are reused by the calls.
+         */
+        private static HttpRoute normalize(HttpRoute route) {
+            final HttpHost target = route.getTargetHost();
+            if (route.getProxyHost() == null && !route.isSecure() && URIScheme.HTTPS.same(target.getSchemeName())) {
+                return new HttpRoute(target, route.getLocalAddress(), true);
+            }
+            return route;
+        }
+    }
+}
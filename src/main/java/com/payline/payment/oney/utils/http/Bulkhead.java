@@ -0,0 +1,145 @@
+package com.payline.payment.oney.utils.http;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the number of concurrent partner calls of one merchant, of one country, or of one route, so that the burst
+ * of a merchant or of a country cannot take all the connections of the route from the others.
+ * The permits are counted without lock. When none is left, at most maxWaitingCalls callers wait for one, in arrival
+ * order, without holding a thread; the next callers are rejected at once.
+ */
+final class Bulkhead {
+
+    private static final CompletableFuture<Boolean> ACQUIRED = CompletableFuture.completedFuture(true);
+    private static final CompletableFuture<Boolean> REJECTED = CompletableFuture.completedFuture(false);
+
+    private final String name;
+    private final int maxConcurrentCalls;
+    private final int maxWaitingCalls;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    /**
+     * Changed under the lock of the queue, which hands the released permits over.
+     */
+    private final Queue<CompletableFuture<Boolean>> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /**
+     * @param name               the merchant, the country or the route
+     * @param maxConcurrentCalls maximum number of calls in flight
+     * @param maxWaitingCalls    maximum number of callers waiting for a permit
+     */
+    Bulkhead(String name, int maxConcurrentCalls, int maxWaitingCalls) {
+        this.name = name;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitingCalls = maxWaitingCalls;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Take a permit, once one is free.
+     *
+     * @param timeout maximum waiting time, in milliseconds
+     * @return a future completed with true once the permit is taken, or with false if the waiting queue is full or the
+     * timeout is over. The future completed by a release runs its dependent actions on the releasing thread.
+     */
+    CompletableFuture<Boolean> acquire(long timeout) {
+        // the waiting callers go first
+        if (waiters.isEmpty() && tryAcquire()) {
+            return ACQUIRED;
+        }
+        final CompletableFuture<Boolean> permit = new CompletableFuture<>();
+        synchronized (waiters) {
+            if (waiting.get() >= maxWaitingCalls) {
+                return REJECTED;
+            }
+            waiters.add(permit);
+            waiting.incrementAndGet();
+        }
+        // the permit may have been released before this caller was queued
+        handOver();
+        if (!permit.isDone()) {
+            final ScheduledFuture<?> expiry = AsyncHttpExecutor.SCHEDULER.schedule(() -> {
+                if (dequeue(permit)) {
+                    permit.complete(false);
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+            permit.whenComplete((acquired, e) -> expiry.cancel(false));
+        }
+        return permit;
+    }
+
+    /**
+     * Give back the permit taken by a successful {@link #acquire(long)}.
+     */
+    void release() {
+        inFlight.decrementAndGet();
+        handOver();
+    }
+
+    /**
+     * @return the number of calls in flight
+     */
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return the number of callers waiting for a permit
+     */
+    int waiting() {
+        return waiting.get();
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= maxConcurrentCalls) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Give the free permits to the first waiting callers.
+     */
+    private void handOver() {
+        while (true) {
+            final CompletableFuture<Boolean> next;
+            synchronized (waiters) {
+                next = waiters.peek();
+                if (next == null || !tryAcquire()) {
+                    return;
+                }
+                waiters.poll();
+                waiting.decrementAndGet();
+            }
+            // completed out of the lock, as the caller goes on in this thread
+            if (next.complete(true)) {
+                return;
+            }
+            // cancelled by the caller
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private boolean dequeue(CompletableFuture<Boolean> permit) {
+        synchronized (waiters) {
+            if (waiters.remove(permit)) {
+                waiting.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
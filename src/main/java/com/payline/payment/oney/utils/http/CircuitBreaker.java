@@ -0,0 +1,205 @@
+package com.payline.payment.oney.utils.http;
+
+import com.payline.payment.oney.utils.metrics.OneyMetrics;
+import com.payline.pmapi.logger.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Stops calling a partner endpoint which keeps failing, or answering too slowly, for a while.
+ * <ul>
+ * <li>CLOSED: the calls go through, and the outcome of the last ones is kept in a sliding window.
+ * When the share of failed or slow calls in the window reaches its threshold, the circuit opens.</li>
+ * <li>OPEN: the calls are rejected at once, without waiting for the timeouts.</li>
+ * <li>HALF_OPEN: after the open duration, a few probe calls go through. The circuit closes if they succeed,
+ * or opens again otherwise.</li>
+ * </ul>
+ * A failure is an I/O error or a HTTP 5xx answer: the other answers prove that the endpoint is up.
+ */
+final class CircuitBreaker {
+
+    private static final Logger LOGGER = LogManager.getLogger(CircuitBreaker.class);
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    /**
+     * Thresholds shared by the circuits of a HTTP client.
+     */
+    static final class Settings {
+        static final int DEFAULT_WINDOW_SIZE = 20;
+        static final int DEFAULT_MINIMUM_CALLS = 10;
+        static final int DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+        static final long DEFAULT_SLOW_CALL_DURATION = 5000;
+        static final int DEFAULT_SLOW_CALL_RATE_THRESHOLD = 80;
+        static final long DEFAULT_OPEN_DURATION = 30000;
+        static final int DEFAULT_HALF_OPEN_CALLS = 3;
+
+        private final int windowSize;
+        private final int minimumCalls;
+        private final int failureRateThreshold;
+        private final long slowCallDuration;
+        private final int slowCallRateThreshold;
+        private final long openDuration;
+        private final int halfOpenCalls;
+
+        /**
+         * @param windowSize            number of calls kept in the sliding window, 0 to disable the circuits
+         * @param minimumCalls          number of calls needed before the failure rate is checked
+         * @param failureRateThreshold  percentage of failed calls which opens the circuit, 0 to ignore the failures
+         * @param slowCallDuration      duration above which a call is slow, in milliseconds
+         * @param slowCallRateThreshold percentage of slow calls which opens the circuit, 0 to ignore the slow calls
+         * @param openDuration          time during which the calls are rejected, in milliseconds
+         * @param halfOpenCalls         number of probe calls let through once the open duration is over
+         */
+        Settings(int windowSize, int minimumCalls, int failureRateThreshold, long slowCallDuration,
+                 int slowCallRateThreshold, long openDuration, int halfOpenCalls) {
+            this.windowSize = windowSize;
+            this.minimumCalls = Math.max(1, Math.min(minimumCalls, windowSize));
+            this.failureRateThreshold = failureRateThreshold;
+            this.slowCallDuration = slowCallDuration;
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            this.openDuration = openDuration;
+            this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        }
+
+        boolean isEnabled() {
+            return windowSize > 0;
+        }
+
+        /**
+         * @return true if the given failed and slow calls, among the given number of calls, must open the circuit
+         */
+        boolean isExceeded(int failures, int slowCalls, int calls) {
+            return (failureRateThreshold > 0 && failures * 100 >= failureRateThreshold * calls)
+                    || (slowCallRateThreshold > 0 && slowCalls * 100 >= slowCallRateThreshold * calls);
+        }
+    }
+
+    private final String name;
+    private final Settings settings;
+
+    // sliding window of the outcomes, in CLOSED state
+    private final byte[] window;
+    private int position;
+    private int size;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+
+    // probe calls, in HALF_OPEN state
+    private int probes;
+    private int probeResults;
+    private int probeFailures;
+    private int probeSlowCalls;
+
+    CircuitBreaker(String name, Settings settings) {
+        this.name = name;
+        this.settings = settings;
+        this.window = new byte[settings.windowSize];
+    }
+
+    String getName() {
+        return name;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @param now the current time, in milliseconds
+     * @return true if the call may be made, false if it must be rejected
+     */
+    synchronized boolean tryAcquire(long now) {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (now - openedAt < settings.openDuration) {
+                return false;
+            }
+            probes = 0;
+            probeResults = 0;
+            probeFailures = 0;
+            probeSlowCalls = 0;
+            transition(State.HALF_OPEN);
+        }
+        if (probes < settings.halfOpenCalls) {
+            probes++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Record the outcome of a call allowed by {@link #tryAcquire(long)}.
+     *
+     * @param duration the duration of the call, in milliseconds
+     * @param failed   true if the call failed
+     * @param now      the current time, in milliseconds
+     */
+    synchronized void onResult(long duration, boolean failed, long now) {
+        boolean slow = duration >= settings.slowCallDuration;
+        if (state == State.HALF_OPEN) {
+            probeResults++;
+            probeFailures += failed ? 1 : 0;
+            probeSlowCalls += slow ? 1 : 0;
+            if (probeResults >= settings.halfOpenCalls) {
+                if (settings.isExceeded(probeFailures, probeSlowCalls, probeResults)) {
+                    open(now);
+                } else {
+                    close();
+                }
+            }
+        } else if (state == State.CLOSED) {
+            record((byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0)));
+            if (size >= settings.minimumCalls && settings.isExceeded(failures, slowCalls, size)) {
+                open(now);
+            }
+        }
+        // OPEN: late outcome of a call started before the circuit opened, ignored
+    }
+
+    private void record(byte outcome) {
+        if (size == window.length) {
+            byte oldest = window[position];
+            failures -= oldest & FAILED;
+            slowCalls -= (oldest & SLOW) >> 1;
+        } else {
+            size++;
+        }
+        window[position] = outcome;
+        failures += outcome & FAILED;
+        slowCalls += (outcome & SLOW) >> 1;
+        position = (position + 1) % window.length;
+    }
+
+    private void open(long now) {
+        openedAt = now;
+        transition(State.OPEN);
+    }
+
+    private void close() {
+        position = 0;
+        size = 0;
+        failures = 0;
+        slowCalls = 0;
+        transition(State.CLOSED);
+    }
+
+    private void transition(State newState) {
+        if (newState == State.OPEN) {
+            LOGGER.warn("Circuit {} opened for {}ms", name, settings.openDuration);
+        } else {
+            LOGGER.info("Circuit {} {}", name, newState);
+        }
+        state = newState;
+        OneyMetrics.INSTANCE.circuitStateChanged(name, newState.name());
+    }
+}
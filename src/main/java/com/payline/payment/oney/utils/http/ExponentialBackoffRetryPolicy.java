@@ -0,0 +1,108 @@
+package com.payline.payment.oney.utils.http;
+
+import org.apache.http.HttpRequest;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Default {@link RetryPolicy}.
+ * <ul>
+ * <li>idempotent requests (GET...) are retried on any I/O error,</li>
+ * <li>other requests (POST) are retried only if the connection could not be established,
+ * as the partner may already have processed them otherwise,</li>
+ * <li>the delay grows exponentially with the number of attempts, with a random jitter ("full jitter"),</li>
+ * <li>no attempt is started once the total deadline would be exceeded.</li>
+ * </ul>
+ */
+public class ExponentialBackoffRetryPolicy implements RetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_INITIAL_BACKOFF = 100;
+    public static final long DEFAULT_MAX_BACKOFF = 2000;
+    public static final long DEFAULT_DEADLINE = 15000;
+
+    private static final Set<String> IDEMPOTENT_METHODS = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList("GET", "HEAD", "OPTIONS", "PUT", "DELETE", "TRACE")));
+
+    private final int maxAttempts;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final long deadline;
+
+    /**
+     * @param maxAttempts    maximum number of attempts, first one included
+     * @param initialBackoff upper bound of the delay before the second attempt, in milliseconds
+     * @param maxBackoff     upper bound of any delay, in milliseconds
+     * @param deadline       total time allowed for all the attempts, in milliseconds
+     */
+    public ExponentialBackoffRetryPolicy(int maxAttempts, long initialBackoff, long maxBackoff, long deadline) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.deadline = deadline;
+    }
+
+    public ExponentialBackoffRetryPolicy() {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF, DEFAULT_DEADLINE);
+    }
+
+    @Override
+    public long retryDelay(HttpRequest request, IOException exception, int attempt, long elapsed) {
+        if (attempt >= maxAttempts) {
+            return -1;
+        }
+        if (!isIdempotent(request) && !isConnectFailure(exception)) {
+            return -1;
+        }
+        long delay = ThreadLocalRandom.current().nextLong(backoffCeiling(attempt) + 1);
+        if (elapsed + delay >= deadline) {
+            return -1;
+        }
+        return delay;
+    }
+
+    /**
+     * @return the upper bound of the delay after the given attempt
+     */
+    long backoffCeiling(int attempt) {
+        long ceiling = initialBackoff << Math.min(attempt - 1, 30);
+        return ceiling < 0 ? maxBackoff : Math.min(ceiling, maxBackoff);
+    }
+
+    public static boolean isIdempotent(HttpRequest request) {
+        return IDEMPOTENT_METHODS.contains(request.getRequestLine().getMethod());
+    }
+
+    /**
+     * @return true if the error was raised before the request has been sent. A {@link ConnectionPoolTimeoutException}
+     * is not one: the pool is saturated, another attempt would only add to the load.
+     */
+    public static boolean isConnectFailure(IOException exception) {
+        if (exception instanceof ConnectionPoolTimeoutException) {
+            return false;
+        }
+        return exception instanceof ConnectException
+                || exception instanceof ConnectTimeoutException
+                || exception instanceof NoRouteToHostException
+                || exception instanceof UnknownHostException;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    @Override
+    public long getDeadline() {
+        return deadline;
+    }
+}
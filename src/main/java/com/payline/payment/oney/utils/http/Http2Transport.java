@@ -0,0 +1,334 @@
+package com.payline.payment.oney.utils.http;
+
+import com.payline.pmapi.logger.LogManager;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ConnectionClosedException;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http2.impl.nio.ProtocolNegotiationException;
+import org.apache.hc.core5.http2.ssl.ApplicationProtocol;
+import org.apache.hc.core5.http2.ssl.H2ClientTlsStrategy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.net.NamedEndpoint;
+import org.apache.hc.core5.reactor.ssl.TlsDetails;
+import org.apache.hc.core5.util.Timeout;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.logging.log4j.Logger;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Method;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * HTTP/2 transport of the partner calls: the requests to a host are multiplexed as streams over a single connection,
+ * instead of taking a pooled HTTP/1.1 connection each.
+ * <p>
+ * Over TLS, a connection is only kept if HTTP/2 is negotiated with ALPN: a host which does not speak HTTP/2 is then
+ * known before anything is sent to it, and the request is sent over HTTP/1.1 instead. A host which does not take part
+ * in ALPN, or an unencrypted one, closes the connection on the HTTP/2 preface instead: the request may then have been
+ * written, so it is only sent again over HTTP/1.1 if it is idempotent. In both cases the host is called over HTTP/1.1
+ * for {@link #FALLBACK_DURATION} ms before HTTP/2 is tried again.
+ * <p>
+ * The HTTP/2 client does not go through proxies: the hosts which the system proxy settings reach through one are
+ * always called over HTTP/1.1.
+ * <p>
+ * The requests are those of HttpClient 4 built by {@link AbstractHttpClient}: they are copied into HttpClient 5
+ * requests, with their body in memory.
+ */
+final class Http2Transport {
+
+    private static final Logger LOGGER = LogManager.getLogger(Http2Transport.class);
+
+    /**
+     * How long a host which does not speak HTTP/2 is called over HTTP/1.1.
+     */
+    static final long FALLBACK_DURATION = TimeUnit.MINUTES.toMillis(10);
+
+    // headers specific to a HTTP/1.1 connection, forbidden in HTTP/2
+    private static final Set<String> CONNECTION_HEADERS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "connection", "keep-alive", "proxy-connection", "transfer-encoding", "upgrade", "host", "content-length")));
+
+    // SSLEngine#getApplicationProtocol appeared in Java 9, and in Java 8 update 252: without it, no ALPN
+    private static final Method GET_APPLICATION_PROTOCOL = applicationProtocolGetter();
+
+    /**
+     * The HTTP/1.1 transport used for the hosts which do not speak HTTP/2.
+     */
+    @FunctionalInterface
+    interface Fallback {
+        /**
+         * @return a future completed with the response, or with the {@link IOException} raised
+         */
+        CompletableFuture<StringResponse> execute(HttpRequestBase request);
+    }
+
+    private final CloseableHttpAsyncClient client;
+    private final Fallback fallback;
+    private final long maxWait;
+
+    private final Set<String> http2Hosts = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, Long> http1Hosts = new ConcurrentHashMap<>();
+
+    /**
+     * @param connectTimeout  connection timeout, in milliseconds
+     * @param responseTimeout timeout of the response once the request is sent, in milliseconds
+     * @param sslContext      the TLS settings
+     * @param fallback        the transport of the hosts which do not speak HTTP/2
+     */
+    Http2Transport(int connectTimeout, int responseTimeout, SSLContext sslContext, Fallback fallback) {
+        this.client = HttpAsyncClients.customHttp2()
+                .setTlsStrategy(new H2ClientTlsStrategy(sslContext, Http2Transport::requireHttp2))
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setResponseTimeout(Timeout.ofMilliseconds(responseTimeout))
+                        .build())
+                .build();
+        this.client.start();
+        this.fallback = fallback;
+        // the timeouts are enforced by the clients: this only guards against a response which never completes, after
+        // an attempt over HTTP/2 and another one over HTTP/1.1
+        this.maxWait = 2L * (2L * connectTimeout + responseTimeout);
+    }
+
+    /**
+     * Send the request and wait for the whole response.
+     *
+     * @throws IOException the errors of HttpClient 5 which matter to the retry policy are translated into those of
+     *                     HttpClient 4
+     */
+    StringResponse execute(HttpRequestBase request) throws IOException {
+        final CompletableFuture<StringResponse> future = executeAsync(request);
+        try {
+            return future.get(maxWait, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + host(request.getURI()));
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new SocketTimeoutException("No response from " + host(request.getURI()) + " after " + maxWait + "ms");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    /**
+     * Send the request and read the whole response, without waiting for it.
+     *
+     * @return a future completed with the response, or with the {@link IOException} raised: the errors of HttpClient 5
+     * which matter to the retry policy are translated into those of HttpClient 4
+     */
+    CompletableFuture<StringResponse> executeAsync(HttpRequestBase request) {
+        if (isProxied(request.getURI())) {
+            // the HTTP/2 client does not go through proxies
+            return fallback.execute(request);
+        }
+        final String host = host(request.getURI());
+        final Long http1Until = http1Hosts.get(host);
+        if (http1Until != null) {
+            if (System.currentTimeMillis() < http1Until) {
+                return fallback.execute(request);
+            }
+            http1Hosts.remove(host, http1Until);
+        }
+
+        final CompletableFuture<StringResponse> future = new CompletableFuture<>();
+        final SimpleHttpRequest copy;
+        try {
+            copy = copy(request);
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        client.execute(copy, new FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                http2Hosts.add(host);
+                future.complete(toStringResponse(response));
+            }
+
+            @Override
+            public void failed(Exception cause) {
+                if (isHttp2Refused(cause) && !http2Hosts.contains(host)) {
+                    LOGGER.info("HTTP/2 not supported by {}, HTTP/1.1 used for {}ms", host, FALLBACK_DURATION);
+                    http1Hosts.put(host, System.currentTimeMillis() + FALLBACK_DURATION);
+                    if (isNeverSent(cause) || ExponentialBackoffRetryPolicy.isIdempotent(request)) {
+                        fallback.execute(request).whenComplete((response, e) -> {
+                            if (e == null) {
+                                future.complete(response);
+                            } else {
+                                future.completeExceptionally(e);
+                            }
+                        });
+                        return;
+                    }
+                }
+                future.completeExceptionally(translate(cause));
+            }
+
+            @Override
+            public void cancelled() {
+                future.completeExceptionally(new InterruptedIOException("Request to " + host + " cancelled"));
+            }
+        });
+        return future;
+    }
+
+    void close() {
+        client.close(CloseMode.GRACEFUL);
+    }
+
+    /**
+     * @return true if the host is known to speak HTTP/2
+     */
+    boolean isHttp2(String url) {
+        return http2Hosts.contains(host(URI.create(url)));
+    }
+
+    /**
+     * @return true if the system proxy settings send the requests to the given URI through a proxy
+     */
+    static boolean isProxied(URI uri) {
+        final ProxySelector proxySelector = ProxySelector.getDefault();
+        if (proxySelector == null) {
+            return false;
+        }
+        for (Proxy proxy : proxySelector.select(uri)) {
+            if (proxy.type() != Proxy.Type.DIRECT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String host(URI uri) {
+        return uri.getScheme() + "://" + uri.getRawAuthority();
+    }
+
+    private static boolean isHttp2Refused(Throwable cause) {
+        return cause instanceof ConnectionClosedException || isNeverSent(cause);
+    }
+
+    /**
+     * @return true if the protocol was refused before the request could be written
+     */
+    private static boolean isNeverSent(Throwable cause) {
+        return cause instanceof Http2NotNegotiatedException || cause instanceof ProtocolNegotiationException;
+    }
+
+    private static Method applicationProtocolGetter() {
+        try {
+            return SSLEngine.class.getMethod("getApplicationProtocol");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Fails the TLS handshake unless HTTP/2 was negotiated with ALPN, so that nothing is sent to a host which has not
+     * accepted it.
+     */
+    private static TlsDetails requireHttp2(NamedEndpoint endpoint, SSLEngine sslEngine) throws SSLException {
+        final String protocol = applicationProtocol(sslEngine);
+        if (!ApplicationProtocol.HTTP_2.id.equals(protocol)) {
+            throw new Http2NotNegotiatedException(endpoint.getHostName(), protocol);
+        }
+        return new TlsDetails(sslEngine.getSession(), protocol);
+    }
+
+    private static String applicationProtocol(SSLEngine sslEngine) throws SSLException {
+        if (GET_APPLICATION_PROTOCOL == null) {
+            return null;
+        }
+        try {
+            return (String) GET_APPLICATION_PROTOCOL.invoke(sslEngine);
+        } catch (ReflectiveOperationException e) {
+            throw new SSLException("ALPN protocol unavailable", e);
+        }
+    }
+
+    private static final class Http2NotNegotiatedException extends SSLException {
+        private static final long serialVersionUID = 1L;
+
+        Http2NotNegotiatedException(String host, String protocol) {
+            super("ALPN: " + (protocol == null || protocol.isEmpty() ? "no protocol" : protocol) + " chosen by " + host);
+        }
+    }
+
+    static IOException translate(Throwable cause) {
+        if (cause instanceof org.apache.hc.client5.http.ConnectTimeoutException) {
+            // a failure before the request is sent: retried by ExponentialBackoffRetryPolicy, whatever the method
+            ConnectTimeoutException timeout = new ConnectTimeoutException(cause.getMessage());
+            timeout.initCause(cause);
+            return timeout;
+        }
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        return new IOException(cause);
+    }
+
+    static SimpleHttpRequest copy(HttpRequestBase request) throws IOException {
+        final SimpleHttpRequest copy = SimpleHttpRequest.create(request.getMethod(), request.getURI());
+        for (Header header : request.getAllHeaders()) {
+            if (!CONNECTION_HEADERS.contains(header.getName().toLowerCase(Locale.ROOT))) {
+                copy.addHeader(header.getName(), header.getValue());
+            }
+        }
+        if (request instanceof HttpEntityEnclosingRequest) {
+            final HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            if (entity != null) {
+                final ByteArrayOutputStream body = new ByteArrayOutputStream(
+                        entity.getContentLength() > 0 ? (int) entity.getContentLength() : 1024);
+                entity.writeTo(body);
+                copy.setBody(body.toByteArray(), entity.getContentType() == null
+                        ? null : ContentType.parse(entity.getContentType().getValue()));
+            }
+        }
+        return copy;
+    }
+
+    static StringResponse toStringResponse(SimpleHttpResponse response) {
+        final StringResponse strResponse = new StringResponse();
+        strResponse.setCode(response.getCode());
+        // HTTP/2 has no reason phrase: the standard one is given, as with HTTP/1.1
+        strResponse.setMessage(response.getReasonPhrase() != null
+                ? response.getReasonPhrase() : EnglishReasonPhraseCatalog.INSTANCE.getReason(response.getCode(), null));
+        if (response.getBody() != null) {
+            strResponse.setContent(response.getBodyText());
+        }
+        return strResponse;
+    }
+}
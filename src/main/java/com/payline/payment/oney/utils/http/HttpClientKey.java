@@ -0,0 +1,90 @@
+package com.payline.payment.oney.utils.http;
+
+import com.payline.pmapi.bean.configuration.PartnerConfiguration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.payline.payment.oney.utils.OneyConstants.PARTNER_API_URL;
+import static com.payline.payment.oney.utils.http.AbstractHttpClient.*;
+
+/**
+ * Identifies the partner configuration values which shape a HTTP client (timeouts, pool, retries, circuits, bulkheads, warm-up, HTTP version, target URL).
+ * Two partner configurations sharing these values can share the same client.
+ */
+final class HttpClientKey {
+
+    /**
+     * Partner configuration keys read when building a client.
+     */
+    static final List<String> CLIENT_CONFIGURATION_KEYS = Collections.unmodifiableList(Arrays.asList(
+            PARTNER_API_URL,
+            KEY_CONNECT_TIMEOUT,
+            CONNECTION_REQUEST_TIMEOUT,
+            READ_SOCKET_TIMEOUT,
+            KEEP_ALIVE_DURATION,
+            POOL_VALIDATE_CONN_AFTER_INACTIVITY,
+            POOL_MAX_SIZE_PER_ROUTE,
+            EVICT_IDLE_CONNECTION_TIMEOUT,
+            CONNECTION_TIME_TO_LIVE,
+            MAX_IN_FLIGHT_PER_ROUTE,
+            RETRY_MAX_ATTEMPTS,
+            RETRY_INITIAL_BACKOFF,
+            RETRY_MAX_BACKOFF,
+            RETRY_DEADLINE,
+            CIRCUIT_WINDOW_SIZE,
+            CIRCUIT_MINIMUM_CALLS,
+            CIRCUIT_FAILURE_RATE_THRESHOLD,
+            CIRCUIT_SLOW_CALL_DURATION,
+            CIRCUIT_SLOW_CALL_RATE_THRESHOLD,
+            CIRCUIT_OPEN_DURATION,
+            CIRCUIT_HALF_OPEN_CALLS,
+            BULKHEAD_MAX_IN_FLIGHT_PER_MERCHANT,
+            BULKHEAD_MAX_IN_FLIGHT_PER_COUNTRY,
+            BULKHEAD_MAX_WAITING,
+            BULKHEAD_MAX_WAIT_DURATION,
+            WARMUP_CONNECTIONS_PER_ROUTE,
+            HTTP_VERSION,
+            POOL_ADAPTIVE_MIN_PER_ROUTE,
+            POOL_ADAPTIVE_MAX_PER_ROUTE,
+            POOL_ADAPTIVE_INTERVAL,
+            POOL_ADAPTIVE_LEASE_WAIT_THRESHOLD
+    ));
+
+    private final List<String> values;
+
+    private HttpClientKey(List<String> values) {
+        this.values = values;
+    }
+
+    static HttpClientKey from(final PartnerConfiguration partnerConfiguration) {
+        List<String> values = new ArrayList<>(CLIENT_CONFIGURATION_KEYS.size());
+        for (String key : CLIENT_CONFIGURATION_KEYS) {
+            values.add(partnerConfiguration.getProperty(key));
+        }
+        return new HttpClientKey(values);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return values.equals(((HttpClientKey) o).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return values.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "HttpClientKey" + values;
+    }
+}
@@ -0,0 +1,242 @@
+package com.payline.payment.oney.utils.http;
+
+import com.payline.payment.oney.utils.properties.service.ConfigPropertiesEnum;
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.Objects;
+
+import static com.payline.payment.oney.utils.OneyConstants.*;
+
+/**
+ * What a partner call needs from the contract and partner configurations: the API URL, the values of the headers,
+ * the GUIDs and the encryption key.
+ * A context is built once for each set of values, then shared by all the requests of the contract: its parameter map
+ * and its headers are never modified.
+ */
+public final class OneyCallContext {
+
+    static final int MAX_SIZE = 1_000;
+
+    /**
+     * The contexts, least recently used first: beyond {@link #MAX_SIZE}, the eldest one is dropped.
+     * Guarded by itself.
+     */
+    private static final Map<Key, OneyCallContext> CONTEXTS = new LinkedHashMap<Key, OneyCallContext>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, OneyCallContext> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    private final Key key;
+    private final String url;
+    private final String countryCode;
+    private final String pspGuid;
+    private final String merchantGuid;
+    private final String encryptKey;
+    private final Map<String, String> parameters;
+    private final Header[] headers;
+
+    private OneyCallContext(Key key) {
+        this.key = key;
+        this.url = key.url;
+        this.countryCode = key.countryCode;
+        this.pspGuid = key.pspGuid;
+        this.merchantGuid = key.merchantGuid;
+        this.encryptKey = key.encryptKey;
+
+        Map<String, String> map = new HashMap<>();
+        map.put(PARTNER_AUTHORIZATION_KEY, key.authorization);
+        map.put(PARTNER_API_URL, key.url);
+        map.put(HEADER_COUNTRY_CODE, key.countryCode);
+        map.put(SECRET_KEY, key.secretValue);
+        this.parameters = new Parameters(this, map);
+
+        this.headers = new Header[]{
+                new BasicHeader(CONTENT_TYPE, CONTENT_TYPE_VALUE),
+                new BasicHeader(AUTHORIZATION, key.authorization),
+                new BasicHeader(COUNTRY_CODE_HEADER, key.countryCode),
+                new BasicHeader(SECRET_KEY, key.secretValue)
+        };
+    }
+
+    /**
+     * @param authorization the API key
+     * @param url           the API URL
+     * @param countryCode   the country code, in any case
+     * @return the context of the given values
+     */
+    public static OneyCallContext of(String authorization, String url, String countryCode) {
+        return of(authorization, url, countryCode, null, null, null);
+    }
+
+    /**
+     * @param pspGuid      the PSP GUID
+     * @param merchantGuid the merchant GUID
+     * @param encryptKey   the key of the encrypted messages
+     * @see #of(String, String, String)
+     */
+    public static OneyCallContext of(String authorization, String url, String countryCode, String pspGuid, String merchantGuid, String encryptKey) {
+        String secretValue = Boolean.valueOf(ConfigPropertiesEnum.INSTANCE.get(CHIFFREMENT_IS_ACTIVE)) ? SECRET_VALUE_ON : SECRET_VALUE_OFF;
+        return get(new Key(authorization, url, countryCode == null ? null : countryCode.toUpperCase(), secretValue,
+                pspGuid, merchantGuid, encryptKey));
+    }
+
+    /**
+     * @param parameters call parameters. When they are the ones of a context, as returned by {@link #getParameters()},
+     *                   that context is returned without any lookup
+     * @return the context of the given parameters
+     */
+    static OneyCallContext of(Map<String, String> parameters) {
+        if (parameters instanceof Parameters) {
+            return ((Parameters) parameters).context;
+        }
+        return get(new Key(parameters.get(PARTNER_AUTHORIZATION_KEY), parameters.get(PARTNER_API_URL),
+                parameters.get(HEADER_COUNTRY_CODE), parameters.get(SECRET_KEY), null, null, null));
+    }
+
+    private static OneyCallContext get(Key key) {
+        synchronized (CONTEXTS) {
+            return CONTEXTS.computeIfAbsent(key, OneyCallContext::new);
+        }
+    }
+
+    /**
+     * @return the values the context is built from: the contexts of equal keys make the same calls
+     */
+    Key getKey() {
+        return key;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getCountryCode() {
+        return countryCode;
+    }
+
+    public String getPspGuid() {
+        return pspGuid;
+    }
+
+    public String getMerchantGuid() {
+        return merchantGuid;
+    }
+
+    public String getEncryptKey() {
+        return encryptKey;
+    }
+
+    /**
+     * @return the call parameters (API key, API URL, country code and secret mode), not modifiable
+     */
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * @return the headers of the calls, shared: not to be modified
+     */
+    Header[] getHeaders() {
+        return headers;
+    }
+
+    static int size() {
+        synchronized (CONTEXTS) {
+            return CONTEXTS.size();
+        }
+    }
+
+    /**
+     * The call parameters of a context, not modifiable, which lead back to it.
+     */
+    private static final class Parameters extends AbstractMap<String, String> {
+        private final OneyCallContext context;
+        private final Map<String, String> map;
+
+        private Parameters(OneyCallContext context, Map<String, String> map) {
+            this.context = context;
+            this.map = Collections.unmodifiableMap(map);
+        }
+
+        @Override
+        public String get(Object key) {
+            return map.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return map.entrySet();
+        }
+    }
+
+    static final class Key {
+        private final String authorization;
+        private final String url;
+        private final String countryCode;
+        private final String secretValue;
+        private final String pspGuid;
+        private final String merchantGuid;
+        private final String encryptKey;
+        private final int hash;
+
+        private Key(String authorization, String url, String countryCode, String secretValue,
+                    String pspGuid, String merchantGuid, String encryptKey) {
+            this.authorization = authorization;
+            this.url = url;
+            this.countryCode = countryCode;
+            this.secretValue = secretValue;
+            this.pspGuid = pspGuid;
+            this.merchantGuid = merchantGuid;
+            this.encryptKey = encryptKey;
+            int h = Objects.hashCode(authorization);
+            h = 31 * h + Objects.hashCode(url);
+            h = 31 * h + Objects.hashCode(countryCode);
+            h = 31 * h + Objects.hashCode(secretValue);
+            h = 31 * h + Objects.hashCode(pspGuid);
+            h = 31 * h + Objects.hashCode(merchantGuid);
+            this.hash = 31 * h + Objects.hashCode(encryptKey);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(authorization, key.authorization)
+                    && Objects.equals(url, key.url)
+                    && Objects.equals(countryCode, key.countryCode)
+                    && Objects.equals(secretValue, key.secretValue)
+                    && Objects.equals(pspGuid, key.pspGuid)
+                    && Objects.equals(merchantGuid, key.merchantGuid)
+                    && Objects.equals(encryptKey, key.encryptKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -4,20 +4,28 @@ package com.payline.payment.oney.utils.http;
 import com.payline.payment.oney.bean.request.*;
 import com.payline.payment.oney.exception.HttpCallException;
 import com.payline.payment.oney.exception.PluginTechnicalException;
+import com.payline.payment.oney.utils.metrics.OneyMetrics;
 import com.payline.payment.oney.utils.properties.service.ConfigPropertiesEnum;
 import com.payline.pmapi.bean.configuration.PartnerConfiguration;
 import com.payline.pmapi.logger.LogManager;
-import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.message.BasicHeader;
 import org.apache.logging.log4j.Logger;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 import static com.payline.payment.oney.utils.OneyConstants.*;
 
@@ -34,12 +42,72 @@ public class OneyHttpClient extends AbstractHttpClient {
     public static final String MERCHANT_GUID_TAG = "/merchant_guid/";
     public static final String REFERENCE_TAG = "/reference/";
 
+    /**
+     * Call parameter overriding the operation name deduced from the path in {@link OneyMetrics}.
+     */
+    static final String METRICS_OPERATION = "oney.metrics.operation";
+
+    private static final String ACTION_CONFIRM = "/action/confirm";
+    private static final String ACTION_CANCEL = "/action/cancel";
+
+    // paths of an order, compiled once: the GUIDs and the reference are encoded when the path is built
+    private static final UriTemplate ORDER_PATH = UriTemplate.compile(PSP_GUID_TAG + "{" + PSP_GUID + "}"
+            + MERCHANT_GUID_TAG + "{" + MERCHANT_GUID + "}" + REFERENCE_TAG + "{" + REFERENCE + "}");
+    private static final UriTemplate CONFIRM_ORDER_PATH = UriTemplate.compile(PSP_GUID_TAG + "{" + PSP_GUID + "}"
+            + MERCHANT_GUID_TAG + "{" + MERCHANT_GUID + "}" + REFERENCE_TAG + "{" + REFERENCE + "}" + ACTION_CONFIRM);
+    private static final UriTemplate CANCEL_ORDER_PATH = UriTemplate.compile(PSP_GUID_TAG + "{" + PSP_GUID + "}"
+            + MERCHANT_GUID_TAG + "{" + MERCHANT_GUID + "}" + REFERENCE_TAG + "{" + REFERENCE + "}" + ACTION_CANCEL);
+
+    // paths of the calls, without and with the sandbox prefix
+    private static final String[] PAYMENT_PATHS = {PAYMENT_REQUEST_URL, SANDBOX_PATH_PREFIX + PAYMENT_REQUEST_URL};
+    private static final String[] CONFIRM_PATHS = {CONFIRM_REQUEST_URL, SANDBOX_PATH_PREFIX + CONFIRM_REQUEST_URL};
+    private static final String[] CANCEL_PATHS = {CANCEL_REQUEST_URL, SANDBOX_PATH_PREFIX + CANCEL_REQUEST_URL};
+    private static final String[] STATUS_PATHS = {STATUS_REQUEST_URL, SANDBOX_PATH_PREFIX + STATUS_REQUEST_URL};
+
     private static final Logger LOGGER = LogManager.getLogger(OneyHttpClient.class);
 
+    /**
+     * A client which has not been requested for this long is closed and removed from the registry.
+     */
+    static final long CLIENT_IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(30);
+
+    /**
+     * Minimal delay between two scans of the registry for idle clients.
+     */
+    static final long CLIENT_EVICTION_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * One client per distinct HTTP configuration (timeouts, pool, partner URL).
+     */
+    private static final Map<HttpClientKey, OneyHttpClient> INSTANCES = new ConcurrentHashMap<>();
+
+    private static final AtomicLong lastEviction = new AtomicLong(System.currentTimeMillis());
+
+    private final AtomicLong lastAccess = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * Calls started on this client and not over yet: a client removed from the registry is closed once they are.
+     */
+    private final AtomicInteger callsInFlight = new AtomicInteger();
+    private volatile boolean retired;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private final AsyncHttpExecutor asyncExecutor;
+
+    /**
+     * The longest time a call can take: waiting for its permits, then its attempts, in milliseconds.
+     */
+    private final long callTimeout;
 
-    private static final AtomicBoolean isInit = new AtomicBoolean(false);
+    /**
+     * Status calls in flight, shared by the callers asking for the same purchase at the same time.
+     */
+    private final Map<List<Object>, CompletableFuture<StringResponse>> pendingStatusCalls = new ConcurrentHashMap<>();
 
-    private static OneyHttpClient instance;
+    /**
+     * Calls allowed to wait for a permit of the bulkhead of a merchant or a country, when it is enabled.
+     */
+    static final int DEFAULT_MAX_WAITING_PER_BULKHEAD = 10;
 
 
     /**
@@ -47,18 +115,146 @@ public class OneyHttpClient extends AbstractHttpClient {
      */
     private OneyHttpClient(final PartnerConfiguration partnerConfiguration) {
         super(partnerConfiguration);
+        final long acquireTimeout = Long.parseLong(partnerConfiguration.getProperty(CONNECTION_REQUEST_TIMEOUT));
+        this.asyncExecutor = new AsyncHttpExecutor(maxInFlightPerRoute(partnerConfiguration), acquireTimeout,
+                (int) getLongProperty(partnerConfiguration, BULKHEAD_MAX_IN_FLIGHT_PER_MERCHANT, 0),
+                (int) getLongProperty(partnerConfiguration, BULKHEAD_MAX_IN_FLIGHT_PER_COUNTRY, 0),
+                (int) getLongProperty(partnerConfiguration, BULKHEAD_MAX_WAITING, DEFAULT_MAX_WAITING_PER_BULKHEAD),
+                getLongProperty(partnerConfiguration, BULKHEAD_MAX_WAIT_DURATION, acquireTimeout));
+        this.callTimeout = asyncExecutor.getMaxWait() + getCallTimeout();
     }
 
     /**
-     * @return the singleton instance
+     * The number of concurrent calls per route is bounded by {@link #MAX_IN_FLIGHT_PER_ROUTE}, or by the largest pool
+     * size when it is not set.
+     */
+    static int maxInFlightPerRoute(final PartnerConfiguration partnerConfiguration) {
+        for (String key : new String[]{MAX_IN_FLIGHT_PER_ROUTE, POOL_ADAPTIVE_MAX_PER_ROUTE, POOL_MAX_SIZE_PER_ROUTE}) {
+            String value = partnerConfiguration.getProperty(key);
+            if (value != null && value.length() > 0) {
+                return Integer.parseInt(value);
+            }
+        }
+        return AsyncHttpExecutor.DEFAULT_MAX_IN_FLIGHT_PER_ROUTE;
+    }
+
+    /**
+     * Returns the client matching the HTTP settings of the given partner configuration.
+     * A new client is built the first time a set of values is met, so that a change in the configuration
+     * is taken into account without restarting. Clients which are no longer requested are eventually closed.
+     * A new client is warmed up in the background when {@link #WARMUP_CONNECTIONS_PER_ROUTE} is set.
+     *
+     * @return the client built for this configuration
      */
     public static OneyHttpClient getInstance(final PartnerConfiguration partnerConfiguration) {
-        //On initialise le service avec les configurations du partenaire si c'est le premier appel.
-        if (!isInit.getAndSet(true)) {
-            LOGGER.info("Initialisation du service HTTP Client");
-            instance = new OneyHttpClient(partnerConfiguration);
+        final long now = System.currentTimeMillis();
+        evictIdleClients(now);
+
+        return INSTANCES.compute(HttpClientKey.from(partnerConfiguration), (key, existing) -> {
+            if (existing != null) {
+                // refreshed under the lock of the entry, so that the eviction cannot remove the client meanwhile
+                existing.lastAccess.set(now);
+                return existing;
+            }
+            LOGGER.info("Initialisation du service HTTP Client {}", key);
+            OneyHttpClient created = new OneyHttpClient(partnerConfiguration);
+            WarmUp.start(created, partnerConfiguration);
+            return created;
+        });
+    }
+
+    /**
+     * Remove the clients which have not been used since {@link #CLIENT_IDLE_TIMEOUT}. They are closed once their
+     * calls in flight are over.
+     * The registry is scanned at most once per {@link #CLIENT_EVICTION_INTERVAL}.
+     *
+     * @param now the current time, in milliseconds
+     */
+    static void evictIdleClients(long now) {
+        long last = lastEviction.get();
+        if (now - last < CLIENT_EVICTION_INTERVAL || !lastEviction.compareAndSet(last, now)) {
+            return;
+        }
+        final List<OneyHttpClient> evicted = new ArrayList<>();
+        for (HttpClientKey key : INSTANCES.keySet()) {
+            // decided under the lock of the entry, as getInstance refreshes the last access
+            INSTANCES.computeIfPresent(key, (k, client) -> {
+                if (now - client.lastAccess.get() < CLIENT_IDLE_TIMEOUT || client.callsInFlight.get() > 0) {
+                    return client;
+                }
+                LOGGER.info("Fermeture du service HTTP Client inutilisé {}", k);
+                evicted.add(client);
+                return null;
+            });
+        }
+        evicted.forEach(OneyHttpClient::retire);
+    }
+
+    /**
+     * Close the client once its calls in flight are over. The callers still holding it must not start new calls.
+     */
+    void retire() {
+        retired = true;
+        closeIfDrained();
+    }
+
+    private void closeIfDrained() {
+        if (retired && callsInFlight.get() == 0 && closed.compareAndSet(false, true)) {
+            close();
+        }
+    }
+
+    private void callStarted() throws HttpCallException {
+        callsInFlight.incrementAndGet();
+        lastAccess.set(System.currentTimeMillis());
+        if (closed.get()) {
+            callEnded();
+            throw new HttpCallException("HTTP client closed", "OneyHttpClient.callStarted.Closed");
+        }
+    }
+
+    private void callEnded() {
+        if (callsInFlight.decrementAndGet() == 0) {
+            closeIfDrained();
+        }
+    }
+
+    /**
+     * Count an asynchronous call in flight until its future is completed.
+     */
+    private CompletableFuture<StringResponse> tracked(Supplier<CompletableFuture<StringResponse>> call) {
+        try {
+            callStarted();
+        } catch (HttpCallException e) {
+            return AsyncHttpExecutor.failed(e);
         }
-        return instance;
+        final CompletableFuture<StringResponse> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            callEnded();
+            throw e;
+        }
+        future.whenComplete((response, error) -> callEnded());
+        return future;
+    }
+
+    /**
+     * @return the number of calls started on this client and not over yet
+     */
+    int callsInFlight() {
+        return callsInFlight.get();
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * @return the number of clients currently registered
+     */
+    static int registeredClients() {
+        return INSTANCES.size();
     }
 
 
@@ -73,166 +269,318 @@ public class OneyHttpClient extends AbstractHttpClient {
     public StringResponse doPost(String path, String requestContent, Map<String, String> params)
             throws HttpCallException {
 
-        String url = params.get(PARTNER_API_URL);
-        StringEntity entity = new StringEntity(requestContent, StandardCharsets.UTF_8);
-        Header[] headers = createHeaders(params);
+        return doPost(path, new StringEntity(requestContent, StandardCharsets.UTF_8), params);
+    }
+
+    /**
+     * Send a POST request, with a JSON content type.
+     *
+     * @param path   URL path
+     * @param entity The request body
+     * @return The response returned from the HTTP call
+     * @throws HttpCallException COMMUNICATION_ERROR
+     */
+    public StringResponse doPost(String path, HttpEntity entity, Map<String, String> params)
+            throws HttpCallException {
+
+        OneyCallContext context = OneyCallContext.of(params);
 
-        return super.doPost(url, path, headers, entity);
+        return super.doPost(context.getUrl(), path, context.getHeaders(), entity, operation(path, params), context.getCountryCode());
     }
 
     /**
      * Send a GET request, with a XML content type.
      *
-     * @param path URL path
+     * @param path          URL path of the order, already percent-encoded
+     * @param urlParameters the {@link #LANGUAGE_CODE} of the answer
      * @return The response returned from the HTTP call
      * @throws HttpCallException COMMUNICATION_ERROR
      */
     public StringResponse doGet(String path, Map<String, String> params, Map<String, String> urlParameters)
             throws HttpCallException {
 
-        String url = params.get(PARTNER_API_URL);
+        OneyCallContext context = OneyCallContext.of(params);
 
-        //build Request
-        String finalPath = this.buildGetOrderPath(path, params);
+        //build Request, with the language as url parameter
+        String finalPath = UriTemplate.withQuery(path, LANGUAGE_CODE, urlParameters.get(LANGUAGE_CODE));
 
-        // add url parameters
-        if( urlParameters.size() > 0 && urlParameters.get(LANGUAGE_CODE) != null ){
-            finalPath += "?" + LANGUAGE_CODE + "=" + urlParameters.get(LANGUAGE_CODE);
-        }
+        return super.doGet(context.getUrl(), finalPath, context.getHeaders(), OneyMetrics.STATUS, context.getCountryCode());
+    }
 
-        Header[] headers = createHeaders(params);
+    /**
+     * Asynchronous version of {@link #doPost(String, String, Map)}.
+     *
+     * @return a future completed with the response, or with a {@link HttpCallException} (COMMUNICATION_ERROR)
+     */
+    public CompletableFuture<StringResponse> doPostAsync(String path, String requestContent, Map<String, String> params) {
+        return doPostAsync(path, new StringEntity(requestContent, StandardCharsets.UTF_8), params);
+    }
 
+    /**
+     * Asynchronous version of {@link #doPost(String, HttpEntity, Map)}.
+     *
+     * @return a future completed with the response, or with a {@link HttpCallException} (COMMUNICATION_ERROR)
+     */
+    public CompletableFuture<StringResponse> doPostAsync(String path, HttpEntity entity, Map<String, String> params) {
+        OneyCallContext context = OneyCallContext.of(params);
 
-        return super.doGet(url, finalPath, headers);
+        return super.doPostAsync(context.getUrl(), path, context.getHeaders(), entity, operation(path, params), context.getCountryCode());
     }
 
-    public String buildGetOrderPath(String path, Map<String, String> param) {
+    /**
+     * Asynchronous version of {@link #doGet(String, Map, Map)}.
+     *
+     * @return a future completed with the response, or with a {@link HttpCallException} (COMMUNICATION_ERROR)
+     */
+    public CompletableFuture<StringResponse> doGetAsync(String path, Map<String, String> params, Map<String, String> urlParameters) {
+        OneyCallContext context = OneyCallContext.of(params);
 
-        return path + PSP_GUID_TAG + param.get(PSP_GUID)
-                + MERCHANT_GUID_TAG + param.get(MERCHANT_GUID)
-                + REFERENCE_TAG + param.get(REFERENCE);
+        String finalPath = UriTemplate.withQuery(path, LANGUAGE_CODE, urlParameters.get(LANGUAGE_CODE));
 
+        return super.doGetAsync(context.getUrl(), finalPath, context.getHeaders(), OneyMetrics.STATUS, context.getCountryCode());
     }
 
-    public String buildConfirmOrderPath(String path, Map<String, String> params) {
-
-        return buildGetOrderPath(path, params) + "/action/confirm";
+    /**
+     * Paths of an order, as the calls build them.
+     *
+     * @param path  the beginning of the path, used as is
+     * @param param the {@link #PSP_GUID}, {@link #MERCHANT_GUID} and {@link #REFERENCE} of the order, not encoded
+     * @return the path, with the values percent-encoded: it must not be encoded again
+     */
+    String buildGetOrderPath(String path, Map<String, String> param) {
+        return ORDER_PATH.expand(path, param);
     }
 
-    public String buildRefundOrderPath(String path, Map<String, String> params) {
-
-        return buildGetOrderPath(path, params) + "/action/cancel";
+    /**
+     * @see #buildGetOrderPath(String, Map)
+     */
+    String buildConfirmOrderPath(String path, Map<String, String> params) {
+        return CONFIRM_ORDER_PATH.expand(path, params);
     }
 
     /**
-     * Create header for POST/GET methdod
-     *
-     * @return Header[]  header data
+     * @see #buildGetOrderPath(String, Map)
      */
-    private Header[] createHeaders(Map<String, String> params) {
+    String buildRefundOrderPath(String path, Map<String, String> params) {
+        return CANCEL_ORDER_PATH.expand(path, params);
+    }
 
-        String countryCode = params.get(HEADER_COUNTRY_CODE);
-        String authorizationKey = params.get(PARTNER_AUTHORIZATION_KEY);
-        String secretValue = params.get(SECRET_KEY);
-        Header[] headers = new Header[4];
-        headers[0] = new BasicHeader(CONTENT_TYPE, CONTENT_TYPE_VALUE);
-        headers[1] = new BasicHeader(AUTHORIZATION, authorizationKey);
-        headers[2] = new BasicHeader(COUNTRY_CODE_HEADER, countryCode);
-        headers[3] = new BasicHeader(SECRET_KEY, secretValue);
+    /**
+     * @return the name of the operation in the metrics
+     */
+    static String operation(String path, Map<String, String> params) {
+        String operation = params.get(METRICS_OPERATION);
+        if (operation != null) {
+            return operation;
+        }
+        if (path.endsWith(ACTION_CONFIRM)) {
+            return OneyMetrics.CONFIRM;
+        }
+        if (path.endsWith(ACTION_CANCEL)) {
+            return OneyMetrics.CANCEL;
+        }
+        return OneyMetrics.PAYMENT;
+    }
 
-        return headers;
+    /**
+     * @return the context of the request, found back from its parameters if it has been built from its values
+     */
+    private static OneyCallContext context(OneyRequest request) {
+        OneyCallContext context = request.getCallContext();
+        return context != null ? context : OneyCallContext.of(request.getCallParameters());
     }
 
     public StringResponse initiatePayment(OneyPaymentRequest request, boolean isSandbox)
             throws PluginTechnicalException {
+        return await(initiatePaymentAsync(request, isSandbox));
+    }
 
-        Map<String, String> parameters = new HashMap<>(request.getCallParameters());
-        String jsonBody;
-        if (Boolean.valueOf(ConfigPropertiesEnum.INSTANCE.get(CHIFFREMENT_IS_ACTIVE))) {
-            OneyEncryptedRequest requestEncrypted = OneyEncryptedRequest.fromOneyPaymentRequest(request);
-            jsonBody = requestEncrypted.toString();
-        } else {
-            jsonBody = request.toString();
+    /**
+     * Asynchronous version of {@link #initiatePayment(OneyPaymentRequest, boolean)}.
+     *
+     * @return a future completed with the partner response, or with the {@link PluginTechnicalException} raised
+     */
+    public CompletableFuture<StringResponse> initiatePaymentAsync(OneyPaymentRequest request, boolean isSandbox) {
+        final AsyncHttpExecutor.HttpCall call;
+        try {
+            call = paymentCall(request, isSandbox);
+        } catch (PluginTechnicalException e) {
+            return AsyncHttpExecutor.failed(e);
         }
+        return submit(context(request), request.getMerchantGuid(), call);
+    }
 
-        // do the request
-        return doPost(finalPath(PAYMENT_REQUEST_URL, isSandbox), jsonBody, parameters);
-
+    private AsyncHttpExecutor.HttpCall paymentCall(OneyPaymentRequest request, boolean isSandbox)
+            throws PluginTechnicalException {
+        final Map<String, String> parameters = context(request).getParameters();
+        // the request is serialized, and encrypted if needed, straight into the bytes of the body
+        final HttpEntity body = new OneyPaymentRequestEntity(request, Boolean.valueOf(ConfigPropertiesEnum.INSTANCE.get(CHIFFREMENT_IS_ACTIVE)));
+        final String path = path(PAYMENT_PATHS, isSandbox);
+        return () -> doPostAsync(path, body, parameters);
     }
 
+    /**
+     * The check call counts in the limits of the merchant given as {@link #MERCHANT_GUID} in the parameters.
+     */
     public StringResponse initiateCheckPayment(String jsonBody, Map<String, String> parameters, boolean isSandbox)
-            throws HttpCallException {
+            throws PluginTechnicalException {
+        final Map<String, String> checkParameters = new HashMap<>(parameters);
+        checkParameters.put(METRICS_OPERATION, OneyMetrics.CHECK);
+
         // do the request
-        return doPost(finalPath(PAYMENT_REQUEST_URL, isSandbox), jsonBody, parameters);
+        return await(submit(OneyCallContext.of(parameters), parameters.get(MERCHANT_GUID),
+                () -> doPostAsync(path(PAYMENT_PATHS, isSandbox), jsonBody, checkParameters)));
     }
 
     public StringResponse initiateConfirmationPayment(OneyConfirmRequest request, boolean isSandbox)
             throws PluginTechnicalException {
-        Map<String, String> parameters = new HashMap<>(request.getCallParameters());
-        parameters.put(PSP_GUID, request.getPspGuid());
-        parameters.put(MERCHANT_GUID, request.getMerchantGuid());
+        return await(initiateConfirmationPaymentAsync(request, isSandbox));
+    }
+
+    /**
+     * Asynchronous version of {@link #initiateConfirmationPayment(OneyConfirmRequest, boolean)}.
+     *
+     * @return a future completed with the partner response, or with the {@link PluginTechnicalException} raised
+     */
+    public CompletableFuture<StringResponse> initiateConfirmationPaymentAsync(OneyConfirmRequest request, boolean isSandbox) {
+        final AsyncHttpExecutor.HttpCall call;
         try {
-            parameters.put(REFERENCE, URLEncoder.encode(request.getPurchaseReference(), StandardCharsets.UTF_8.name()));
-        }
-        catch (UnsupportedEncodingException e) {
-            throw new PluginTechnicalException(e, "Plugin error: while encoding purchaseReference");
+            call = confirmationCall(request, isSandbox);
+        } catch (PluginTechnicalException e) {
+            return AsyncHttpExecutor.failed(e);
         }
-        String path = buildConfirmOrderPath(CONFIRM_REQUEST_URL, parameters);
-        String jsonBody = null;
+        return submit(context(request), request.getMerchantGuid(), call);
+    }
+
+    private AsyncHttpExecutor.HttpCall confirmationCall(OneyConfirmRequest request, boolean isSandbox)
+            throws PluginTechnicalException {
+        final Map<String, String> parameters = context(request).getParameters();
+        final String path = CONFIRM_ORDER_PATH.expand(path(CONFIRM_PATHS, isSandbox),
+                request.getPspGuid(), request.getMerchantGuid(), request.getPurchaseReference());
+        final String jsonBody;
         if (Boolean.valueOf(ConfigPropertiesEnum.INSTANCE.get(CHIFFREMENT_IS_ACTIVE))) {
             OneyEncryptedRequest requestEncrypted = OneyEncryptedRequest.fromOneyConfirmRequest(request);
             jsonBody = requestEncrypted.toString();
         } else {
             jsonBody = request.toString();
         }
-
-        // do the request
-        return doPost(finalPath(path, isSandbox), jsonBody, parameters);
+        return () -> doPostAsync(path, jsonBody, parameters);
     }
 
     public StringResponse initiateRefundPayment(OneyRefundRequest request, boolean isSandbox)
             throws PluginTechnicalException {
-        Map<String, String> parameters = new HashMap<>(request.getCallParameters());
-        parameters.put(PSP_GUID, request.getPspGuid());
-        parameters.put(MERCHANT_GUID, request.getMerchantGuid());
+        return await(initiateRefundPaymentAsync(request, isSandbox));
+    }
+
+    /**
+     * Asynchronous version of {@link #initiateRefundPayment(OneyRefundRequest, boolean)}.
+     *
+     * @return a future completed with the partner response, or with the {@link PluginTechnicalException} raised
+     */
+    public CompletableFuture<StringResponse> initiateRefundPaymentAsync(OneyRefundRequest request, boolean isSandbox) {
+        final AsyncHttpExecutor.HttpCall call;
         try {
-            parameters.put(REFERENCE, URLEncoder.encode(request.getPurchaseReference(), StandardCharsets.UTF_8.name()));
-        }
-        catch (UnsupportedEncodingException e) {
-            throw new PluginTechnicalException(e, "Plugin error: while encoding purchaseReference");
+            call = refundCall(request, isSandbox);
+        } catch (PluginTechnicalException e) {
+            return AsyncHttpExecutor.failed(e);
         }
-        String path = buildRefundOrderPath(CANCEL_REQUEST_URL, parameters);
-        String jsonBody;
+        return submit(context(request), request.getMerchantGuid(), call);
+    }
+
+    private AsyncHttpExecutor.HttpCall refundCall(OneyRefundRequest request, boolean isSandbox)
+            throws PluginTechnicalException {
+        final Map<String, String> parameters = context(request).getParameters();
+        final String path = CANCEL_ORDER_PATH.expand(path(CANCEL_PATHS, isSandbox),
+                request.getPspGuid(), request.getMerchantGuid(), request.getPurchaseReference());
+        final String jsonBody;
         if (Boolean.valueOf(ConfigPropertiesEnum.INSTANCE.get(CHIFFREMENT_IS_ACTIVE))) {
             OneyEncryptedRequest requestEncrypted = OneyEncryptedRequest.fromOneyRefundRequest(request);
             jsonBody = requestEncrypted.toString();
         } else {
             jsonBody = request.toString();
         }
-        // do the request
-        return doPost(finalPath(path, isSandbox), jsonBody, parameters);
+        return () -> doPostAsync(path, jsonBody, parameters);
     }
 
+    /**
+     * While a status call is in flight, the identical requests do not make another call: they wait for its response.
+     */
     public StringResponse initiateGetTransactionStatus(OneyTransactionStatusRequest request, boolean isSandbox)
             throws PluginTechnicalException {
-        Map<String, String> parameters = new HashMap<>(request.getCallParameters());
-        parameters.put(PSP_GUID, request.getPspGuid());
-        parameters.put(MERCHANT_GUID, request.getMerchantGuid());
-        try {
-            parameters.put(REFERENCE, URLEncoder.encode(request.getPurchaseReference(), StandardCharsets.UTF_8.name()));
-        }
-        catch (UnsupportedEncodingException e) {
-            throw new PluginTechnicalException(e, "Plugin error: while encoding purchaseReference");
+        return await(initiateGetTransactionStatusAsync(request, isSandbox));
+    }
+
+    /**
+     * Asynchronous version of {@link #initiateGetTransactionStatus(OneyTransactionStatusRequest, boolean)}.
+     * While a status call is in flight, the identical requests do not make another call: they get its response.
+     *
+     * @return a future completed with the partner response, or with the {@link PluginTechnicalException} raised
+     */
+    public CompletableFuture<StringResponse> initiateGetTransactionStatusAsync(OneyTransactionStatusRequest request, boolean isSandbox) {
+        final OneyCallContext context = context(request);
+        final List<Object> key = statusCallKey(context, request, isSandbox);
+        final CompletableFuture<StringResponse> shared = new CompletableFuture<>();
+        final CompletableFuture<StringResponse> pending = pendingStatusCalls.putIfAbsent(key, shared);
+        if (pending != null) {
+            OneyMetrics.INSTANCE.coalesced(OneyMetrics.STATUS, context.getCountryCode());
+            // a copy, so that a caller cannot complete the future of the others
+            return pending.thenApply(response -> response);
         }
 
-        Map<String, String> urlParameters = new HashMap<>();
-        urlParameters.put(LANGUAGE_CODE, request.getLanguageCode());
+        submit(context, request.getMerchantGuid(), statusCall(context, request, isSandbox)).whenComplete((response, error) -> {
+            // the next requests will make a new call
+            pendingStatusCalls.remove(key, shared);
+            if (error != null) {
+                shared.completeExceptionally(error);
+            } else {
+                shared.complete(response);
+            }
+        });
+        return shared.thenApply(response -> response);
+    }
 
-        // do the request
-        return doGet(finalPath(STATUS_REQUEST_URL, isSandbox), parameters, urlParameters);
+    /**
+     * @return what makes two status calls identical: the whole context (API key, URL, country...) and the request
+     */
+    private static List<Object> statusCallKey(OneyCallContext context, OneyTransactionStatusRequest request, boolean isSandbox) {
+        return Arrays.asList(context.getKey(), isSandbox, request.getPspGuid(), request.getMerchantGuid(),
+                request.getPurchaseReference(), request.getLanguageCode());
+    }
+
+    private AsyncHttpExecutor.HttpCall statusCall(OneyCallContext context, OneyTransactionStatusRequest request, boolean isSandbox) {
+        final Map<String, String> parameters = context.getParameters();
+        final String path = ORDER_PATH.expand(path(STATUS_PATHS, isSandbox),
+                request.getPspGuid(), request.getMerchantGuid(), request.getPurchaseReference());
+        final Map<String, String> urlParameters = Collections.singletonMap(LANGUAGE_CODE, request.getLanguageCode());
+
+        return () -> doGetAsync(path, parameters, urlParameters);
+    }
+
+    /**
+     * Make a call within the limits of its route, merchant and country, without waiting for it.
+     */
+    private CompletableFuture<StringResponse> submit(OneyCallContext context, String merchantGuid, AsyncHttpExecutor.HttpCall call) {
+        return tracked(() -> asyncExecutor.submit(context.getUrl(), merchantGuid, context.getCountryCode(), call));
+    }
+
+    /**
+     * Wait for the response of an asynchronous call of this client, for at most the time the call can take.
+     *
+     * @throws PluginTechnicalException the exception raised by the call, or a {@link HttpCallException} if it is not
+     *                                  over in time
+     */
+    public StringResponse await(CompletableFuture<StringResponse> future) throws PluginTechnicalException {
+        return AsyncHttpExecutor.await(future, callTimeout);
+    }
+
+    /**
+     * @return the number of calls currently in flight on the given partner URL
+     */
+    int inFlight(String url) {
+        return asyncExecutor.inFlight(url);
     }
 
-    String finalPath( String path, boolean isSandbox ){
-        return isSandbox ? SANDBOX_PATH_PREFIX + path : path;
+    static String path(String[] paths, boolean isSandbox) {
+        return paths[isSandbox ? 1 : 0];
     }
 }
@@ -0,0 +1,162 @@
+package com.payline.payment.oney.utils.http;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
+import com.payline.payment.oney.bean.common.OneyGson;
+import com.payline.payment.oney.bean.request.OneyPaymentRequest;
+import com.payline.payment.oney.exception.DecryptException;
+import com.payline.payment.oney.exception.InvalidDataException;
+import com.payline.payment.oney.exception.PluginTechnicalException;
+import com.payline.payment.oney.utils.OneyConstants;
+import com.payline.payment.oney.utils.chiffrement.OneyCrypto;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.util.Args;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import static com.payline.payment.oney.utils.OneyConstants.CONTENT_TYPE_VALUE;
+
+/**
+ * Body of a payment request, serialized once into a byte buffer, without the intermediate Strings of the JSON and
+ * of its encryption. When the encryption is active, the JSON is encrypted on the fly and sent in the same envelope as
+ * {@link com.payline.payment.oney.bean.request.OneyEncryptedRequest}.
+ * The body is sent with its Content-Length, never chunked. The buffer is kept: the entity is repeatable,
+ * so it can be sent again on retry.
+ */
+final class OneyPaymentRequestEntity extends AbstractHttpEntity {
+
+    private final OneyPaymentRequest request;
+
+    /**
+     * null when the request is sent in clear
+     */
+    private final OneyCrypto crypto;
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+
+    /**
+     * @param request   the payment request
+     * @param encrypted true to send the request encrypted, with its encryption key
+     * @throws InvalidDataException     if the request must be encrypted and has no key
+     * @throws PluginTechnicalException if the request cannot be serialized or encrypted
+     */
+    OneyPaymentRequestEntity(OneyPaymentRequest request, boolean encrypted) throws PluginTechnicalException {
+        this.request = request;
+        if (encrypted) {
+            String key = request.getEncryptKey();
+            if (key == null || key.isEmpty()) {
+                throw new InvalidDataException("La clé de chiffrement ne peut pas être nulle", OneyConstants.PARTNER_CHIFFREMENT_KEY);
+            }
+            this.crypto = new OneyCrypto(key);
+        } else {
+            this.crypto = null;
+        }
+        setContentType(CONTENT_TYPE_VALUE);
+        try {
+            render(body);
+        } catch (IOException e) {
+            throw new PluginTechnicalException(e, "OneyPaymentRequestEntity.IOException");
+        }
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return body.size();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    @Override
+    public InputStream getContent() {
+        return new ByteArrayInputStream(body.toByteArray());
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        Args.notNull(out, "Output stream");
+        body.writeTo(out);
+        out.flush();
+    }
+
+    private void render(OutputStream out) throws IOException, DecryptException {
+        if (crypto == null) {
+            writeRequest(out);
+        } else {
+            final Gson gson = OneyGson.get();
+            Writer envelope = new OutputStreamWriter(new UnclosableOutputStream(out), StandardCharsets.UTF_8);
+            envelope.write('{');
+            writeField(envelope, gson, "merchant_guid", request.getMerchantGuid());
+            writeField(envelope, gson, "psp_guid", request.getPspGuid());
+            envelope.write("\"encrypted_message\":\"");
+            envelope.flush();
+
+            // the base64 alphabet needs no escaping in a JSON string
+            final OutputStream encrypted = crypto.encryptToBase64(new UnclosableOutputStream(out));
+            writeRequest(encrypted);
+            encrypted.close();
+
+            envelope.write("\"}");
+            envelope.flush();
+        }
+    }
+
+    private void writeRequest(OutputStream out) throws IOException {
+        final Gson gson = OneyGson.get();
+        JsonWriter jsonWriter = gson.newJsonWriter(new OutputStreamWriter(new UnclosableOutputStream(out), StandardCharsets.UTF_8));
+        try {
+            gson.toJson(request, OneyPaymentRequest.class, jsonWriter);
+        } catch (JsonIOException e) {
+            throw new IOException(e);
+        }
+        jsonWriter.flush();
+    }
+
+    /**
+     * Write a string field followed by a comma. Null fields are skipped, as Gson does.
+     */
+    private static void writeField(Writer out, Gson gson, String name, String value) throws IOException {
+        if (value != null) {
+            out.write(gson.toJson(name));
+            out.write(':');
+            out.write(gson.toJson(value));
+            out.write(',');
+        }
+    }
+
+    /**
+     * The buffer is not closed by the writers stacked on it.
+     */
+    private static final class UnclosableOutputStream extends FilterOutputStream {
+
+        UnclosableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.payline.payment.oney.utils.http;
+
+import org.apache.http.HttpRequest;
+
+import java.io.IOException;
+
+/**
+ * Decides whether a failed partner call must be attempted again, and when.
+ */
+@FunctionalInterface
+public interface RetryPolicy {
+
+    /**
+     * @param request   the request which failed
+     * @param exception the error raised by the last attempt
+     * @param attempt   the number of attempts already made, starting at 1
+     * @param elapsed   the time spent since the first attempt, in milliseconds
+     * @return the delay to wait before the next attempt, in milliseconds, or a negative value to give up
+     */
+    long retryDelay(HttpRequest request, IOException exception, int attempt, long elapsed);
+
+    /**
+     * @return the time after which no attempt is started any more, in milliseconds, negative if unknown
+     */
+    default long getDeadline() {
+        return -1;
+    }
+}
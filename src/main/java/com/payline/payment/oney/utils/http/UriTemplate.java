@@ -0,0 +1,171 @@
+package com.payline.payment.oney.utils.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A path with variables, e.g. "/psp_guid/{psp_guid}/reference/{reference}", split once into its literal parts and
+ * variable names. The expansion writes the whole path in a single buffer and percent-encodes the values
+ * (RFC 3986: everything but the unreserved characters is encoded). The usual values, GUIDs and references made of
+ * letters, digits and dashes, are appended as they are.
+ */
+final class UriTemplate {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final String[] literals;
+    private final String[] variables;
+    private final int literalsLength;
+
+    private UriTemplate(String[] literals, String[] variables) {
+        this.literals = literals;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalsLength = length;
+    }
+
+    /**
+     * @param template a path where the variables are written between braces
+     * @throws IllegalArgumentException if a brace is not closed
+     */
+    static UriTemplate compile(String template) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        int start = 0;
+        int open;
+        while ((open = template.indexOf('{', start)) >= 0) {
+            int close = template.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Invalid URI template " + template);
+            }
+            literals.add(template.substring(start, open));
+            variables.add(template.substring(open + 1, close));
+            start = close + 1;
+        }
+        literals.add(template.substring(start));
+        return new UriTemplate(literals.toArray(new String[0]), variables.toArray(new String[0]));
+    }
+
+    /**
+     * @param prefix the beginning of the path, already encoded
+     * @param values the values of the variables, not encoded
+     * @return the prefix followed by the expanded template
+     */
+    String expand(String prefix, Map<String, String> values) {
+        return expand(prefix, values, null, null);
+    }
+
+    /**
+     * @param queryName  the name of a query parameter
+     * @param queryValue its value, not encoded. When null, the path has no query string
+     * @see #expand(String, Map)
+     */
+    String expand(String prefix, Map<String, String> values, String queryName, String queryValue) {
+        String[] ordered = new String[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            ordered[i] = values.get(variables[i]);
+        }
+        return expand(prefix, ordered, queryName, queryValue);
+    }
+
+    /**
+     * @param prefix the beginning of the path, already encoded
+     * @param values the values of the variables, in the order of the template, not encoded
+     * @return the prefix followed by the expanded template
+     * @throws IllegalArgumentException if the number of values is not the number of variables
+     */
+    String expand(String prefix, String... values) {
+        return expand(prefix, values, null, null);
+    }
+
+    /**
+     * @param queryName  the name of a query parameter
+     * @param queryValue its value, not encoded. When null, the path has no query string
+     * @see #expand(String, String...)
+     */
+    String expand(String prefix, String[] values, String queryName, String queryValue) {
+        if (values.length != variables.length) {
+            throw new IllegalArgumentException(variables.length + " values expected, got " + values.length);
+        }
+        int length = prefix.length() + literalsLength + 16;
+        for (String value : values) {
+            length += value == null ? 4 : value.length();
+        }
+        StringBuilder sb = new StringBuilder(length).append(prefix);
+        for (int i = 0; i < variables.length; i++) {
+            sb.append(literals[i]);
+            appendEncoded(sb, String.valueOf(values[i]));
+        }
+        sb.append(literals[variables.length]);
+        appendQuery(sb, queryName, queryValue);
+        return sb.toString();
+    }
+
+    /**
+     * @param path       a path, already encoded
+     * @param queryName  the name of a query parameter
+     * @param queryValue its value, not encoded. When null, the path is returned as it is
+     * @return the path followed by the query string
+     */
+    static String withQuery(String path, String queryName, String queryValue) {
+        if (queryValue == null) {
+            return path;
+        }
+        StringBuilder sb = new StringBuilder(path.length() + queryName.length() + queryValue.length() + 8).append(path);
+        appendQuery(sb, queryName, queryValue);
+        return sb.toString();
+    }
+
+    private static void appendQuery(StringBuilder sb, String queryName, String queryValue) {
+        if (queryValue != null) {
+            sb.append('?').append(queryName).append('=');
+            appendEncoded(sb, queryValue);
+        }
+    }
+
+    /**
+     * @return the value encoded as a path segment
+     */
+    static String encode(String value) {
+        if (isUnreserved(value)) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 16);
+        appendEncoded(sb, value);
+        return sb.toString();
+    }
+
+    static void appendEncoded(StringBuilder sb, String value) {
+        if (isUnreserved(value)) {
+            sb.append(value);
+            return;
+        }
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if (isUnreserved(c)) {
+                sb.append(c);
+            } else {
+                sb.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+        }
+    }
+
+    private static boolean isUnreserved(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!isUnreserved(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+}
@@ -0,0 +1,110 @@
+package com.payline.payment.oney.utils.http;
+
+import com.payline.payment.oney.bean.common.OneyGson;
+import com.payline.payment.oney.bean.response.PaymentErrorResponse;
+import com.payline.payment.oney.bean.response.TransactionStatusResponse;
+import com.payline.payment.oney.exception.PluginTechnicalException;
+import com.payline.payment.oney.utils.PluginUtils;
+import com.payline.payment.oney.utils.chiffrement.OneyCrypto;
+import com.payline.payment.oney.utils.i18n.I18nService;
+import com.payline.payment.oney.utils.mapping.CodeMapping;
+import com.payline.payment.oney.utils.metrics.OneyMetrics;
+import com.payline.payment.oney.utils.properties.service.ConfigPropertiesEnum;
+import com.payline.payment.oney.utils.properties.service.LogoPropertiesEnum;
+import com.payline.pmapi.bean.configuration.PartnerConfiguration;
+import com.payline.pmapi.logger.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.payline.payment.oney.utils.OneyConstants.CHIFFREMENT_IS_ACTIVE;
+import static com.payline.payment.oney.utils.OneyConstants.PARTNER_API_URL;
+import static com.payline.payment.oney.utils.http.AbstractHttpClient.WARMUP_CONNECTIONS_PER_ROUTE;
+import static com.payline.payment.oney.utils.http.AbstractHttpClient.getLongProperty;
+import static com.payline.payment.oney.utils.properties.constants.LogoConstants.LOGO_FILE_NAME;
+
+/**
+ * Warm-up of a new HTTP client, enabled by {@link AbstractHttpClient#WARMUP_CONNECTIONS_PER_ROUTE}: the one-time
+ * setups of the first payment (class loading, Gson adapters, AES provider, resource bundles, properties files) are
+ * done on synthetic data, and connections to the partner URL are opened in advance.
+ * It runs on a background thread, so that the call which builds the client is not delayed.
+ */
+final class WarmUp {
+
+    private static final Logger LOGGER = LogManager.getLogger(WarmUp.class);
+
+    private static final String STATUS = "{\"purchase\":{\"status_code\":\"FUNDED\",\"status_label\":\"warm-up\"},"
+            + "\"language_code\":\"fr\"}";
+    private static final String ERROR = "{\"Payments_Error_Response\":{\"error_list \":[{\"field\":\"purchase\","
+            + "\"error_code\":\"ERR_01\",\"error_label\":\"warm-up\"}]}}";
+    // 256 bits, all zero: only used to load the cipher
+    private static final String KEY = "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA=";
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "oney-warmup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // the codecs are shared by all the clients: they are primed once
+    private static final AtomicBoolean codecsPrimed = new AtomicBoolean();
+
+    private WarmUp() {
+        // ras.
+    }
+
+    /**
+     * Start the warm-up of a client, if it is enabled in the partner configuration.
+     *
+     * @return a future completed with the number of connections opened, 0 if the warm-up is disabled
+     */
+    static CompletableFuture<Integer> start(final AbstractHttpClient client, final PartnerConfiguration partnerConfiguration) {
+        final int connections = (int) getLongProperty(partnerConfiguration, WARMUP_CONNECTIONS_PER_ROUTE, 0);
+        if (connections <= 0) {
+            return CompletableFuture.completedFuture(0);
+        }
+        final String url = partnerConfiguration.getProperty(PARTNER_API_URL);
+        return CompletableFuture.supplyAsync(() -> run(client, url, connections), EXECUTOR);
+    }
+
+    static int run(final AbstractHttpClient client, final String url, final int connections) {
+        final long start = System.nanoTime();
+        if (codecsPrimed.compareAndSet(false, true)) {
+            primeCodecs();
+        }
+        final int opened = url == null || url.isEmpty() ? 0 : client.openConnections(url, connections);
+        final long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+
+        LOGGER.info("Warm-up done [T: {}ms] [CONNECTIONS: {}] [URL: {}]", elapsedMicros / 1000, opened, url);
+        OneyMetrics.INSTANCE.warmedUp(elapsedMicros, opened);
+        return opened;
+    }
+
+    /**
+     * Go through the codecs of a payment with synthetic data. A failure is logged only: the payments will go through
+     * the same code anyway.
+     */
+    static void primeCodecs() {
+        try {
+            ConfigPropertiesEnum.INSTANCE.get(CHIFFREMENT_IS_ACTIVE);
+            LogoPropertiesEnum.INSTANCE.get(LOGO_FILE_NAME);
+            I18nService.getInstance().getMessage("paymentMethod.name", Locale.FRANCE);
+            CodeMapping.INSTANCE.getVersion();
+            PluginUtils.isISO3166("FR");
+
+            TransactionStatusResponse status = OneyGson.get().fromJson(STATUS, TransactionStatusResponse.class);
+            OneyGson.get().toJson(status);
+            PaymentErrorResponse.paymentErrorResponseFromJson(ERROR);
+
+            OneyCrypto crypto = new OneyCrypto(KEY);
+            crypto.decrypt(crypto.encrypt(STATUS));
+        } catch (PluginTechnicalException | RuntimeException e) {
+            LOGGER.warn("Warm-up of the codecs failed", e);
+        }
+    }
+}
@@ -3,9 +3,16 @@ package com.payline.payment.oney.utils.i18n;
 import com.payline.pmapi.logger.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static com.payline.payment.oney.utils.OneyConstants.I18N_SERVICE_DEFAULT_LOCALE;
 import static com.payline.payment.oney.utils.OneyConstants.RESOURCE_BUNDLE_BASE_NAME;
@@ -14,11 +21,29 @@ public class I18nService {
 
     private static final Logger LOGGER = LogManager.getLogger(I18nService.class);
 
+    /**
+     * Languages of the messages_*.properties files, loaded when the service is built.
+     */
+    private static final String[] BUNDLED_LANGUAGES = {"en", "es", "fr", "it", "pt", "sp"};
+
+    /**
+     * Messages of each requested locale, with the fallback chain of the resource bundles already resolved.
+     */
+    private final ConcurrentMap<Locale, MessageTable> tables = new ConcurrentHashMap<>();
+
+    /**
+     * Missing keys already logged, to log each of them once.
+     */
+    private final Set<String> missingKeys = ConcurrentHashMap.newKeySet();
+
     /**
      * Private constructor
      */
     private I18nService() {
         Locale.setDefault(new Locale(I18N_SERVICE_DEFAULT_LOCALE));
+        for (String language : BUNDLED_LANGUAGES) {
+            getTable(new Locale(language));
+        }
     }
 
     /**
@@ -39,14 +64,56 @@ public class I18nService {
     }
 
     public String getMessage(final String key, final Locale locale) {
-        ResourceBundle messages = ResourceBundle.getBundle(RESOURCE_BUNDLE_BASE_NAME, locale);
-        try {
-            return messages.getString(key);
-        } catch (MissingResourceException e) {
+        String message = getTable(locale).messages.get(key);
+        return message == null ? missingMessage(key, locale) : message;
+    }
+
+    /**
+     * Get a message and insert the given values into it, as {@link MessageFormat} does.
+     */
+    public String getMessage(final String key, final Locale locale, final Object... arguments) {
+        MessageTable table = getTable(locale);
+        String message = table.messages.get(key);
+        if (message == null) {
+            return missingMessage(key, locale);
+        }
+        // a MessageFormat cannot be shared between threads, but a copy is much cheaper than a new parsing
+        MessageFormat template = table.templates.computeIfAbsent(key, k -> new MessageFormat(message, table.locale));
+        return ((MessageFormat) template.clone()).format(arguments);
+    }
+
+    private MessageTable getTable(Locale locale) {
+        return tables.computeIfAbsent(locale, MessageTable::new);
+    }
+
+    private String missingMessage(String key, Locale locale) {
+        if (missingKeys.add(locale + "." + key)) {
             LOGGER.error("Trying to get a message with a key that does not exist: {} (language: {})", key, locale.getLanguage());
-            return "???" + locale + "." + key + "???";
         }
+        return "???" + locale + "." + key + "???";
     }
 
-    // If ever needed, implement getMessage( String, Locale, String... ) to insert values into the translation messages
-}
\ No newline at end of file
+    /**
+     * Messages of a locale, read once from its resource bundle.
+     */
+    private static final class MessageTable {
+        private final Locale locale;
+        private final Map<String, String> messages;
+        private final ConcurrentMap<String, MessageFormat> templates = new ConcurrentHashMap<>();
+
+        private MessageTable(Locale locale) {
+            this.locale = locale;
+            Map<String, String> map = new HashMap<>();
+            try {
+                ResourceBundle bundle = ResourceBundle.getBundle(RESOURCE_BUNDLE_BASE_NAME, locale);
+                // keySet includes the keys of the parent bundles
+                for (String key : bundle.keySet()) {
+                    map.put(key, bundle.getString(key));
+                }
+            } catch (MissingResourceException e) {
+                LOGGER.error("Unable to load the messages (language: {})", locale.getLanguage(), e);
+            }
+            this.messages = Collections.unmodifiableMap(map);
+        }
+    }
+}
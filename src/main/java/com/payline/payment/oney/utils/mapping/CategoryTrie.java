@@ -0,0 +1,91 @@
+package com.payline.payment.oney.utils.mapping;
+
+import java.util.Arrays;
+
+/**
+ * Oney category codes of the Payline product categories, stored in a digit trie.
+ * A Payline category code is made of a top level code (1 or 2 digits) followed by levels of 4 digits,
+ * e.g. 1 / 0001 / 0002. A code which is not in the trie takes the Oney code of its closest parent level.
+ * The nodes are kept in int arrays: a lookup walks the code without allocating anything.
+ */
+final class CategoryTrie {
+
+    private static final int NO_VALUE = -1;
+
+    // children[node * 10 + digit]: index of the child node, 0 if none (the root has no parent)
+    private int[] children = new int[10 * 16];
+    private int[] values = new int[16];
+    private int size = 1;
+
+    CategoryTrie() {
+        Arrays.fill(values, NO_VALUE);
+    }
+
+    /**
+     * @param paylineCode the Payline category code, made of digits
+     * @param oneyCode    the Oney category code
+     */
+    void put(String paylineCode, int oneyCode) {
+        if (paylineCode.isEmpty()) {
+            throw new IllegalArgumentException("Empty category code");
+        }
+        int node = 0;
+        for (int i = 0; i < paylineCode.length(); i++) {
+            int digit = digit(paylineCode.charAt(i));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid category code " + paylineCode);
+            }
+            int child = children[node * 10 + digit];
+            if (child == 0) {
+                child = newNode();
+                children[node * 10 + digit] = child;
+            }
+            node = child;
+        }
+        values[node] = oneyCode;
+    }
+
+    /**
+     * @param paylineCode  the Payline category code
+     * @param defaultValue the code to return if neither the category nor any of its parents is known
+     * @return the Oney code of the category, or of its closest parent
+     */
+    int get(String paylineCode, int defaultValue) {
+        if (paylineCode == null || paylineCode.isEmpty()) {
+            return defaultValue;
+        }
+        final int length = paylineCode.length();
+        // length of the top level code: the levels below it are 4 digits long
+        final int topLevel = (length - 1) % 4 + 1;
+        int found = defaultValue;
+        int node = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = digit(paylineCode.charAt(i));
+            if (digit < 0) {
+                return defaultValue;
+            }
+            node = children[node * 10 + digit];
+            if (node == 0) {
+                break;
+            }
+            int depth = i + 1;
+            if (depth >= topLevel && (depth - topLevel) % 4 == 0 && values[node] != NO_VALUE) {
+                found = values[node];
+            }
+        }
+        return found;
+    }
+
+    private int newNode() {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            Arrays.fill(values, size, values.length, NO_VALUE);
+            children = Arrays.copyOf(children, size * 2 * 10);
+        }
+        return size++;
+    }
+
+    private static int digit(char c) {
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+}
@@ -0,0 +1,274 @@
+package com.payline.payment.oney.utils.mapping;
+
+import com.payline.pmapi.logger.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Mapping between the Payline codes and the Oney codes, read from mapping.properties and compiled into lookup tables.
+ * <p>
+ * The file of the plugin can be replaced by the one given in the system property {@link #FILE_PROPERTY}.
+ * This file is read again when it changes (checked at most every {@link #CHECK_INTERVAL} ms): the new tables replace
+ * the old ones as a whole, and a file which cannot be read or compiled is ignored.
+ */
+public enum CodeMapping {
+    INSTANCE;
+
+    private final Logger logger = LogManager.getLogger(CodeMapping.class);
+
+    /**
+     * System property: path of a mapping file replacing the one of the plugin.
+     */
+    public static final String FILE_PROPERTY = "oney.mapping.file";
+
+    static final String RESOURCE = "mapping.properties";
+
+    static final long CHECK_INTERVAL = 10_000L;
+
+    private final Path file;
+    private volatile Tables tables;
+    private volatile long nextCheck;
+    private long lastModified;
+
+    CodeMapping() {
+        String fileName = System.getProperty(FILE_PROPERTY);
+        file = fileName == null || fileName.isEmpty() ? null : Paths.get(fileName);
+        if (file == null || !reload()) {
+            tables = Tables.compile(readResource());
+            logger.info("Code mapping version {} loaded from {}", tables.version, RESOURCE);
+        }
+    }
+
+    /**
+     * @return the Oney category_code of a Payline product category
+     */
+    public int getCategoryCode(String paylineCategory) {
+        return tables().getCategoryCode(paylineCategory);
+    }
+
+    /**
+     * @return the Oney honorific_code of a Payline civility, null if the civility is null
+     */
+    public Integer getHonorificCode(String civility) {
+        return tables().getHonorificCode(civility);
+    }
+
+    /**
+     * @return the Oney delivery_mode_code of a Payline delivery mode, null if the mode is null
+     */
+    public Integer getDeliveryModeCode(String deliveryMode) {
+        return tables().getDeliveryModeCode(deliveryMode);
+    }
+
+    /**
+     * @return the Oney delivery_option of a Payline delivery time, null if the time is null
+     */
+    public Integer getDeliveryOption(String deliveryTime) {
+        return tables().getDeliveryOption(deliveryTime);
+    }
+
+    /**
+     * @return the Oney address_type of an Oney delivery_mode_code
+     */
+    public int getAddressType(int deliveryModeCode) {
+        return tables().getAddressType(deliveryModeCode);
+    }
+
+    /**
+     * @return the version of the loaded tables
+     */
+    public String getVersion() {
+        return tables().version;
+    }
+
+    /**
+     * Read the mapping file given in {@link #FILE_PROPERTY} again.
+     *
+     * @return true if the file has been loaded, false if the previous tables are kept
+     */
+    public synchronized boolean reload() {
+        if (file == null) {
+            return false;
+        }
+        try {
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            Properties properties = new Properties();
+            try (InputStream input = Files.newInputStream(file)) {
+                properties.load(input);
+            }
+            tables = Tables.compile(properties);
+            lastModified = modified;
+            logger.info("Code mapping version {} loaded from {}", tables.version, file);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Unable to load the code mapping {}, the previous one is kept", file, e);
+            return false;
+        }
+    }
+
+    private Tables tables() {
+        if (file != null) {
+            long now = System.currentTimeMillis();
+            if (now >= nextCheck) {
+                checkFile(now);
+            }
+        }
+        return tables;
+    }
+
+    private synchronized void checkFile(long now) {
+        if (now < nextCheck) {
+            return;
+        }
+        nextCheck = now + CHECK_INTERVAL;
+        try {
+            if (Files.getLastModifiedTime(file).toMillis() != lastModified) {
+                reload();
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to check the code mapping {}", file, e);
+        }
+    }
+
+    private Properties readResource() {
+        Properties properties = new Properties();
+        try (InputStream input = CodeMapping.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (input == null) {
+                throw new IllegalStateException("Unable to find the file " + RESOURCE);
+            }
+            properties.load(input);
+            return properties;
+        } catch (IOException e) {
+            logger.error("Unable to load the file {}", RESOURCE, e);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The compiled tables of a mapping file. Never modified once built.
+     */
+    static final class Tables {
+        static final String VERSION = "mapping.version";
+        static final String CATEGORY = "category.";
+        static final String HONORIFIC = "honorific.";
+        static final String DELIVERY_MODE = "delivery.mode.";
+        static final String DELIVERY_OPTION = "delivery.option.";
+        static final String ADDRESS_TYPE = "address.type.";
+        static final String DEFAULT = "default";
+
+        private static final String[] SMALL_CODES = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9"};
+
+        private final String version;
+        private final CategoryTrie categories = new CategoryTrie();
+        private int defaultCategory;
+        private final Table honorifics = new Table();
+        private final Table deliveryModes = new Table();
+        private final Table deliveryOptions = new Table();
+        private final Table addressTypes = new Table();
+
+        private Tables(String version) {
+            this.version = version;
+        }
+
+        /**
+         * @throws IllegalArgumentException if a code is not a number, or a default code is missing
+         */
+        static Tables compile(Properties properties) {
+            Tables tables = new Tables(properties.getProperty(VERSION, "unknown"));
+            Integer category = null;
+            for (String key : properties.stringPropertyNames()) {
+                if (key.startsWith(CATEGORY)) {
+                    String code = key.substring(CATEGORY.length());
+                    if (DEFAULT.equals(code)) {
+                        category = parse(properties, key);
+                    } else {
+                        tables.categories.put(code, parse(properties, key));
+                    }
+                } else if (key.startsWith(HONORIFIC)) {
+                    tables.honorifics.put(key.substring(HONORIFIC.length()).toLowerCase(), parse(properties, key));
+                } else if (key.startsWith(DELIVERY_MODE)) {
+                    tables.deliveryModes.put(key.substring(DELIVERY_MODE.length()), parse(properties, key));
+                } else if (key.startsWith(DELIVERY_OPTION)) {
+                    tables.deliveryOptions.put(key.substring(DELIVERY_OPTION.length()).toLowerCase(), parse(properties, key));
+                } else if (key.startsWith(ADDRESS_TYPE)) {
+                    tables.addressTypes.put(key.substring(ADDRESS_TYPE.length()), parse(properties, key));
+                }
+            }
+            if (category == null) {
+                throw new IllegalArgumentException("Missing code mapping " + CATEGORY + DEFAULT);
+            }
+            tables.defaultCategory = category;
+            tables.honorifics.checkDefault(HONORIFIC);
+            tables.deliveryModes.checkDefault(DELIVERY_MODE);
+            tables.deliveryOptions.checkDefault(DELIVERY_OPTION);
+            tables.addressTypes.checkDefault(ADDRESS_TYPE);
+            return tables;
+        }
+
+        int getCategoryCode(String paylineCategory) {
+            return categories.get(paylineCategory, defaultCategory);
+        }
+
+        Integer getHonorificCode(String civility) {
+            return civility == null ? null : honorifics.lookup(civility.toLowerCase());
+        }
+
+        Integer getDeliveryModeCode(String deliveryMode) {
+            return deliveryMode == null ? null : deliveryModes.lookup(deliveryMode);
+        }
+
+        Integer getDeliveryOption(String deliveryTime) {
+            return deliveryTime == null ? null : deliveryOptions.lookup(deliveryTime.toLowerCase());
+        }
+
+        int getAddressType(int deliveryModeCode) {
+            // the delivery mode codes are small numbers: no need to build a string for the usual ones
+            return deliveryModeCode >= 0 && deliveryModeCode < SMALL_CODES.length
+                    ? addressTypes.lookup(SMALL_CODES[deliveryModeCode])
+                    : addressTypes.lookup(Integer.toString(deliveryModeCode));
+        }
+
+        private static int parse(Properties properties, String key) {
+            try {
+                return Integer.parseInt(properties.getProperty(key).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid code mapping " + key + "=" + properties.getProperty(key), e);
+            }
+        }
+    }
+
+    /**
+     * A small table of codes, with its default code.
+     */
+    private static final class Table {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private Integer defaultCode;
+
+        private void put(String code, int value) {
+            if (Tables.DEFAULT.equals(code)) {
+                defaultCode = value;
+            } else {
+                codes.put(code, value);
+            }
+        }
+
+        private void checkDefault(String prefix) {
+            if (defaultCode == null) {
+                throw new IllegalArgumentException("Missing code mapping " + prefix + Tables.DEFAULT);
+            }
+        }
+
+        private Integer lookup(String code) {
+            Integer value = codes.get(code);
+            return value == null ? defaultCode : value;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.payline.payment.oney.utils.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies, with the same log-linear buckets as HdrHistogram: values below 128 are counted
+ * exactly, higher values in buckets whose width is 1/64 of their lower bound. The percentiles are thus given with a
+ * relative error under 2%, in a fixed memory footprint, whatever the number of recorded values.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS >> 1;
+
+    private final long highestTrackableValue;
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * @param highestTrackableValue higher values are recorded as this one
+     */
+    public LatencyHistogram(long highestTrackableValue) {
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new AtomicLongArray(bucketIndex(highestTrackableValue) + 1);
+    }
+
+    public void record(long value) {
+        long bounded = Math.max(0, Math.min(value, highestTrackableValue));
+        counts.incrementAndGet(bucketIndex(bounded));
+        totalCount.incrementAndGet();
+        maxValue.accumulateAndGet(bounded, Math::max);
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the highest value of the bucket holding the given percentile, 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = totalCount.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // value >>> shift is between HALF_SUB_BUCKETS and SUB_BUCKETS - 1
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) ((value >>> shift) - HALF_SUB_BUCKETS);
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
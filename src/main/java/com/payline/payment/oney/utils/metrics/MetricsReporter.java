@@ -0,0 +1,86 @@
+package com.payline.payment.oney.utils.metrics;
+
+/**
+ * Receives the partner call events, to forward them to a monitoring system.
+ * The methods are called synchronously by the HTTP threads: they must be quick and must not fail.
+ *
+ * @see OneyMetrics#addReporter(MetricsReporter)
+ */
+public interface MetricsReporter {
+
+    /**
+     * A partner call is over, retries included.
+     *
+     * @param operation     payment, check, confirm, cancel or status
+     * @param countryCode   the Oney country code of the contract, null if unknown
+     * @param httpStatus    the HTTP status of the response, 0 if no response has been received
+     * @param latencyMicros the duration of the call, in microseconds
+     */
+    void onCall(String operation, String countryCode, int httpStatus, long latencyMicros);
+
+    /**
+     * A failed attempt is going to be retried.
+     */
+    default void onRetry(String operation, String countryCode) {
+        // ras.
+    }
+
+    /**
+     * A connection has been leased from the pool.
+     *
+     * @param waitMicros the time spent waiting for a free connection, in microseconds
+     */
+    default void onLeaseWait(long waitMicros) {
+        // ras.
+    }
+
+    /**
+     * The circuit of a partner endpoint changed state.
+     *
+     * @param circuit the operation and the partner URL
+     * @param state   CLOSED, OPEN or HALF_OPEN
+     */
+    default void onCircuitStateChange(String circuit, String state) {
+        // ras.
+    }
+
+    /**
+     * A call has been rejected without being made, as its circuit is open.
+     */
+    default void onRejected(String circuit) {
+        // ras.
+    }
+
+    /**
+     * A call has been rejected without being made, as its merchant or its country has too many calls in flight.
+     *
+     * @param bulkhead "merchant " followed by the merchant GUID, or "country " followed by the country code
+     */
+    default void onBulkheadRejected(String bulkhead) {
+        // ras.
+    }
+
+    /**
+     * A call has not been made, as it shares the response of an identical call in flight.
+     */
+    default void onCoalesced(String operation, String countryCode) {
+        // ras.
+    }
+
+    /**
+     * The warm-up of a HTTP client is over.
+     *
+     * @param durationMicros the time spent priming the codecs and opening the connections
+     * @param connections    the number of connections opened in advance
+     */
+    default void onWarmUp(long durationMicros, int connections) {
+        // ras.
+    }
+
+    /**
+     * The maximum number of connections per route of an adaptive pool has changed.
+     */
+    default void onPoolResize(String pool, int from, int to) {
+        // ras.
+    }
+}
@@ -0,0 +1,269 @@
+package com.payline.payment.oney.utils.metrics;
+
+import com.payline.pmapi.logger.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Latencies and counters of the partner calls, shared by all the HTTP clients of the plugin.
+ * They are exposed through JMX, and forwarded to the registered {@link MetricsReporter}s.
+ */
+public enum OneyMetrics implements OneyMetricsMXBean {
+    INSTANCE;
+
+    public static final String OBJECT_NAME = "com.payline.payment.oney:type=OneyMetrics";
+
+    // Operations
+    public static final String PAYMENT = "payment";
+    public static final String CHECK = "check";
+    public static final String CONFIRM = "confirm";
+    public static final String CANCEL = "cancel";
+    public static final String STATUS = "status";
+
+    /**
+     * 10 minutes. A constant, as it is read while the instance is built.
+     */
+    private static final long HIGHEST_TRACKABLE_LATENCY = 600_000_000L;
+    private static final String UNKNOWN_COUNTRY = "-";
+
+    private static final Logger LOGGER = LogManager.getLogger(OneyMetrics.class);
+
+    static {
+        INSTANCE.register();
+    }
+
+    private final ConcurrentMap<String, LatencyHistogram> calls = new ConcurrentHashMap<>();
+    private final AtomicLong retries = new AtomicLong();
+    private final LatencyHistogram leaseWaits = new LatencyHistogram(HIGHEST_TRACKABLE_LATENCY);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConcurrentMap<String, String> circuits = new ConcurrentHashMap<>();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong bulkheadRejected = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private volatile long lastWarmUpDuration = -1;
+    private volatile int warmedUpConnections;
+    private final ConcurrentMap<String, Supplier<String[]>> pools = new ConcurrentHashMap<>();
+    private final AtomicLong poolResizes = new AtomicLong();
+    private final List<MetricsReporter> reporters = new CopyOnWriteArrayList<>();
+
+    private void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException | RuntimeException e) {
+            LOGGER.warn("Unable to register the JMX metrics {}", OBJECT_NAME, e);
+        }
+    }
+
+    public void addReporter(MetricsReporter reporter) {
+        reporters.add(reporter);
+    }
+
+    public void removeReporter(MetricsReporter reporter) {
+        reporters.remove(reporter);
+    }
+
+    public void callStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * @see MetricsReporter#onCall(String, String, int, long)
+     */
+    public void callEnded(String operation, String countryCode, int httpStatus, long latencyMicros) {
+        inFlight.decrementAndGet();
+        calls.computeIfAbsent(key(operation, countryCode, httpStatus), k -> new LatencyHistogram(HIGHEST_TRACKABLE_LATENCY))
+                .record(latencyMicros);
+        notifyReporters(reporter -> reporter.onCall(operation, countryCode, httpStatus, latencyMicros));
+    }
+
+    public void retried(String operation, String countryCode) {
+        retries.incrementAndGet();
+        notifyReporters(reporter -> reporter.onRetry(operation, countryCode));
+    }
+
+    public void leaseWaited(long waitMicros) {
+        leaseWaits.record(waitMicros);
+        notifyReporters(reporter -> reporter.onLeaseWait(waitMicros));
+    }
+
+    public void circuitStateChanged(String circuit, String state) {
+        circuits.put(circuit, state);
+        notifyReporters(reporter -> reporter.onCircuitStateChange(circuit, state));
+    }
+
+    public void rejected(String circuit) {
+        rejected.incrementAndGet();
+        notifyReporters(reporter -> reporter.onRejected(circuit));
+    }
+
+    public void bulkheadRejected(String bulkhead) {
+        bulkheadRejected.incrementAndGet();
+        notifyReporters(reporter -> reporter.onBulkheadRejected(bulkhead));
+    }
+
+    public void coalesced(String operation, String countryCode) {
+        coalesced.incrementAndGet();
+        notifyReporters(reporter -> reporter.onCoalesced(operation, countryCode));
+    }
+
+    public void warmedUp(long durationMicros, int connections) {
+        lastWarmUpDuration = durationMicros;
+        warmedUpConnections = connections;
+        notifyReporters(reporter -> reporter.onWarmUp(durationMicros, connections));
+    }
+
+    /**
+     * @param name   the name of the pool
+     * @param states the state of the pool, read on each call to {@link #getPools()}
+     */
+    public void registerPool(String name, Supplier<String[]> states) {
+        pools.put(name, states);
+    }
+
+    public void unregisterPool(String name) {
+        pools.remove(name);
+    }
+
+    public void poolResized(String pool, int from, int to) {
+        poolResizes.incrementAndGet();
+        notifyReporters(reporter -> reporter.onPoolResize(pool, from, to));
+    }
+
+    /**
+     * A failing reporter must not fail the partner call.
+     */
+    private void notifyReporters(Consumer<MetricsReporter> event) {
+        for (MetricsReporter reporter : reporters) {
+            try {
+                event.accept(reporter);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Metrics reporter failure", e);
+            }
+        }
+    }
+
+    /**
+     * @return the latencies of the given call, null if it has never been made
+     */
+    public LatencyHistogram getLatencies(String operation, String countryCode, int httpStatus) {
+        return calls.get(key(operation, countryCode, httpStatus));
+    }
+
+    private static String key(String operation, String countryCode, int httpStatus) {
+        return operation + "/" + (countryCode == null ? UNKNOWN_COUNTRY : countryCode) + "/" + httpStatus;
+    }
+
+    @Override
+    public String[] getCalls() {
+        return calls.keySet().stream().sorted().toArray(String[]::new);
+    }
+
+    @Override
+    public String[] getSummary() {
+        return calls.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> e.getKey()
+                        + " count=" + e.getValue().getCount()
+                        + " p50=" + e.getValue().getValueAtPercentile(50)
+                        + " p99=" + e.getValue().getValueAtPercentile(99)
+                        + " p999=" + e.getValue().getValueAtPercentile(99.9)
+                        + " max=" + e.getValue().getMax())
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public long getCallCount(String call) {
+        LatencyHistogram histogram = calls.get(call);
+        return histogram == null ? 0 : histogram.getCount();
+    }
+
+    @Override
+    public long getLatencyPercentile(String call, double percentile) {
+        LatencyHistogram histogram = calls.get(call);
+        return histogram == null ? 0 : histogram.getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    @Override
+    public long getLeaseWaitCount() {
+        return leaseWaits.getCount();
+    }
+
+    @Override
+    public long getLeaseWaitPercentile(double percentile) {
+        return leaseWaits.getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public String[] getCircuits() {
+        return circuits.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> e.getKey() + " " + e.getValue())
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    @Override
+    public long getBulkheadRejectedCount() {
+        return bulkheadRejected.get();
+    }
+
+    @Override
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    @Override
+    public long getLastWarmUpDuration() {
+        return lastWarmUpDuration;
+    }
+
+    @Override
+    public int getWarmedUpConnections() {
+        return warmedUpConnections;
+    }
+
+    @Override
+    public String[] getPools() {
+        return pools.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .flatMap(e -> Arrays.stream(e.getValue().get()))
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public long getPoolResizeCount() {
+        return poolResizes.get();
+    }
+}
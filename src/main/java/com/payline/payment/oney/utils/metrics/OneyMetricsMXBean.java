@@ -0,0 +1,66 @@
+package com.payline.payment.oney.utils.metrics;
+
+/**
+ * JMX view of {@link OneyMetrics}, registered as {@value OneyMetrics#OBJECT_NAME}.
+ * The calls are identified by "operation/country/HTTP status", e.g. "payment/BE/200".
+ * The latencies are given in microseconds.
+ */
+public interface OneyMetricsMXBean {
+
+    String[] getCalls();
+
+    /**
+     * @return one line per call, with its count and its p50, p99 and p999 latencies
+     */
+    String[] getSummary();
+
+    long getCallCount(String call);
+
+    long getLatencyPercentile(String call, double percentile);
+
+    long getRetryCount();
+
+    long getLeaseWaitCount();
+
+    long getLeaseWaitPercentile(double percentile);
+
+    int getInFlight();
+
+    /**
+     * @return one line per circuit breaker, with its current state
+     */
+    String[] getCircuits();
+
+    long getRejectedCount();
+
+    /**
+     * @return the number of calls rejected as their merchant or their country had too many calls in flight
+     */
+    long getBulkheadRejectedCount();
+
+    /**
+     * @return the number of calls which have shared the response of an identical call in flight
+     */
+    long getCoalescedCount();
+
+    /**
+     * @return the duration of the last warm-up of a HTTP client, in microseconds, -1 if none has been made
+     */
+    long getLastWarmUpDuration();
+
+    /**
+     * @return the number of connections opened by the last warm-up
+     */
+    int getWarmedUpConnections();
+
+    /**
+     * @return for each connection pool, one line with its totals then one per route: the connections leased and
+     * available, the calls waiting for a connection, and the maximum number of connections
+     */
+    String[] getPools();
+
+    /**
+     * @return the number of times the size of an adaptive pool has changed
+     */
+    long getPoolResizeCount();
+}
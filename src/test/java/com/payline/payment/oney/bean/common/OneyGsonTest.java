@@ -0,0 +1,326 @@
+package com.payline.payment.oney.bean.common;
+
+import com.google.gson.Gson;
+import com.payline.payment.oney.bean.common.customer.ContactDetails;
+import com.payline.payment.oney.bean.common.customer.Customer;
+import com.payline.payment.oney.bean.common.customer.CustomerIdentity;
+import com.payline.payment.oney.bean.common.customer.PurchaseHistory;
+import com.payline.payment.oney.bean.common.enums.MeanOfTransport;
+import com.payline.payment.oney.bean.common.enums.StayType;
+import com.payline.payment.oney.bean.common.payment.PaymentData;
+import com.payline.payment.oney.bean.common.purchase.Delivery;
+import com.payline.payment.oney.bean.common.purchase.Item;
+import com.payline.payment.oney.bean.common.purchase.Journey;
+import com.payline.payment.oney.bean.common.purchase.Purchase;
+import com.payline.payment.oney.bean.common.purchase.Stay;
+import com.payline.payment.oney.bean.common.purchase.Travel;
+import com.payline.payment.oney.bean.request.OneyPaymentRequest;
+import com.payline.payment.oney.bean.response.OneyNotificationResponse;
+import com.payline.payment.oney.bean.response.TransactionStatusResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.payline.payment.oney.bean.common.PurchaseStatus.StatusCode.FUNDED;
+import static com.payline.payment.oney.bean.common.PurchaseStatus.StatusCode.PENDING;
+
+public class OneyGsonTest {
+
+    private final Gson reflective = new Gson();
+
+    private OneyPaymentRequest createPaymentRequest() throws Exception {
+        Item item = Item.Builder.aItemBuilder()
+                .withMainItem(1)
+                .withCategoryCode(0)
+                .withLabel("label <&> 'é'")
+                .withPrice(110.5f)
+                .withQuantity(2)
+                .withItemExternalCode("externalCode")
+                .build();
+        Purchase purchase = Purchase.Builder.aPurchaseBuilder()
+                .withCurrencyCode("EUR")
+                .withPurchaseAmount(221f)
+                .withDelivery(Delivery.Builder.aDeliveryBuilder().build())
+                .withExternalReference("externalRef")
+                .withExternalReferenceType("CMDE")
+                .withListItem(Arrays.asList(item, item))
+                .withNumberOfItems(2)
+                .build();
+        Customer customer = Customer.Builder.aCustomBuilder()
+                .withLanguageCode("FR")
+                .withCustomerExternalCode("extCode")
+                .build();
+        return OneyPaymentRequest.Builder.aOneyPaymentRequest()
+                .withLanguageCode("FR")
+                .withMerchantRequestId("merchantRequestId")
+                .withPspGuid("pspGuid")
+                .withMerchantGuid("merchantGuid")
+                .withNavigation(NavigationData.Builder.aNavigationDataBuilder().withSuccesUrl("https://success").build())
+                .withPaymentdata(PaymentData.Builder.aPaymentData().withAmount(221f).withCurrency("EUR").build())
+                .withCustomer(customer)
+                .withPurchase(purchase)
+                .withMerchantContext(null)
+                .withPspContext("pspContext")
+                .build();
+    }
+
+    private OneyPaymentRequest createFullPaymentRequest() throws Exception {
+        OneyAddress address = OneyAddress.Builder.aOneyAddressBuilder()
+                .withLine1("1 rue de la Paix")
+                .withLine2("Bâtiment \"A\"")
+                .withPostalCode("75002")
+                .withMunicipality("Paris")
+                .withCountryCode("FRA")
+                .withCountryLabel("France")
+                .withArrondissmentCode(2)
+                .build();
+        Stay stay = new Stay.StayBuilder()
+                .withNumberOfTravelers(2)
+                .withPlaceOfResidence("Nice")
+                .withNumberOfRooms(1)
+                .withArrivalDate(new Date(1_600_000_000_000L))
+                .withDepartureDate(new Date(1_600_500_000_000L))
+                .withVehicleRentalFlag(true)
+                .withStayInsuranceFlag(false)
+                .withStayType(StayType.HOTEL)
+                .build();
+        Journey journey = new Journey.JourneyBuilder()
+                .withNumberOfTravelers(2)
+                .withJourneyNumber("AF1234")
+                .withJourneyDate(new Date(1_600_000_000_000L))
+                .withDepartureCity("Paris")
+                .withArrivalCity("Nice")
+                .withTicketCategory("ECO")
+                .withExchangeabilityFlag(true)
+                .withTravelInsuranceFlag(true)
+                .withMeanOfTransport(MeanOfTransport.PLANE)
+                .build();
+        Travel travel = new Travel.TravelBuilder()
+                .withMainTravelerFirstname("Camille")
+                .withMainTravelerSurname("Dupont")
+                .withMainTravelerBirthdate(new Date(0))
+                .withJourney(Collections.singletonList(journey))
+                .withStay(Collections.singletonList(stay))
+                .build();
+        Item item = Item.Builder.aItemBuilder()
+                .withMainItem(1)
+                .withCategoryCode(5)
+                .withLabel("Séjour à Nice")
+                .withPrice(850.25f)
+                .withQuantity(1)
+                .withItemExternalCode("externalCode")
+                .withMarketplaceFlag(1)
+                .withMarketplaceName("marketplace")
+                .withTravel(travel)
+                .build();
+        Purchase purchase = Purchase.Builder.aPurchaseBuilder()
+                .withCurrencyCode("EUR")
+                .withPurchaseAmount(850.25f)
+                .withDelivery(Delivery.Builder.aDeliveryBuilder()
+                        .withDeliveryDate("2020-09-13")
+                        .withDeliveryModeCode(1)
+                        .withDeliveryOption(1)
+                        .withPriorityDeliveryCode(2)
+                        .withAddressType(5)
+                        .withDeliveryAddress(address)
+                        .build())
+                .withExternalReference("externalRef")
+                .withExternalReferenceType("CMDE")
+                .withListItem(Collections.singletonList(item))
+                .withNumberOfItems(1)
+                .build();
+        Customer customer = Customer.Builder.aCustomBuilder()
+                .withTrustFlag(1)
+                .withLanguageCode("FR")
+                .withCustomerExternalCode("extCode")
+                .withCustomerIdentity(CustomerIdentity.Builder.aCustomerIdentity()
+                        .withTaxpayerCode("taxpayer")
+                        .withPersonType(2)
+                        .withHonorificCode(1)
+                        .withBirthName("Martin")
+                        .withLastName("Dupont")
+                        .withFirstName("Camille")
+                        .withGivenNames("Camille Marie")
+                        .withBirthDate("1980-01-01")
+                        .withBirthMunicipalityCode("75056")
+                        .withBirthArrondissementCode(2)
+                        .withBirthCountryCode("99100")
+                        .withCitizenCountryCode("99100")
+                        .withCompanyName("company")
+                        .build())
+                .withContactDetails(ContactDetails.Builder.aContactDetailsBuilder()
+                        .withLandLineNumber("0102030405")
+                        .withMobilePhoneNumber("0607080910")
+                        .withFaxNumber("0102030406")
+                        .withEmailAdress("camille.dupont@example.com")
+                        .build())
+                .withCustomerAddress(address)
+                .withPurchaseHistory(PurchaseHistory.Builder.aPurchaseHistoryBuilder()
+                        .withTotalNumberOfPurchase(3)
+                        .withTotalAmount(1500.5f)
+                        .withFirstPurchaseDate("2018-01-01")
+                        .withLastPurchaseDate("2020-01-01")
+                        .build())
+                .build();
+        return OneyPaymentRequest.Builder.aOneyPaymentRequest()
+                .withLanguageCode("FR")
+                .withSkinId(1)
+                .withOrigin("WEB")
+                .withMerchantLanguageCode("fr")
+                .withMerchantRequestId("merchantRequestId")
+                .withPspGuid("pspGuid")
+                .withMerchantGuid("merchantGuid")
+                .withNavigation(NavigationData.Builder.aNavigationDataBuilder().withSuccesUrl("https://success").build())
+                .withPaymentdata(PaymentData.Builder.aPaymentData().withAmount(850.25f).withCurrency("EUR").build())
+                .withCustomer(customer)
+                .withPurchase(purchase)
+                .withPurchaseHistory(PurchaseHistory.Builder.aPurchaseHistoryBuilder().withTotalNumberOfPurchase(3).build())
+                .withMerchantContext("merchantContext")
+                .withPspContext("pspContext")
+                .build();
+    }
+
+    /**
+     * Set every serialized field of a bean, and of the beans it holds, to a value other than its default.
+     */
+    private static Object populate(Type type, int depth) throws Exception {
+        Class<?> raw = type instanceof ParameterizedType ? (Class<?>) ((ParameterizedType) type).getRawType() : (Class<?>) type;
+        if (raw == String.class) {
+            return "value" + depth;
+        } else if (raw == Integer.class || raw == int.class) {
+            return 1 + depth;
+        } else if (raw == Float.class || raw == float.class) {
+            return 1.5f + depth;
+        } else if (raw == Long.class || raw == long.class) {
+            return 100L + depth;
+        } else if (raw == Boolean.class || raw == boolean.class) {
+            return true;
+        } else if (raw == Date.class) {
+            return new Date(1_600_000_000_000L);
+        } else if (raw.isEnum()) {
+            return raw.getEnumConstants()[raw.getEnumConstants().length - 1];
+        } else if (List.class.isAssignableFrom(raw)) {
+            List<Object> list = new ArrayList<>();
+            list.add(populate(((ParameterizedType) type).getActualTypeArguments()[0], depth));
+            return list;
+        } else if (Map.class.isAssignableFrom(raw)) {
+            Map<Object, Object> map = new HashMap<>();
+            map.put("key", populate(((ParameterizedType) type).getActualTypeArguments()[1], depth));
+            return map;
+        }
+        // a bean: built as Gson does, without any constructor
+        Object bean = new Gson().fromJson("{}", raw);
+        for (Class<?> c = raw; c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                    continue;
+                }
+                if (depth < 5) {
+                    field.setAccessible(true);
+                    field.set(bean, populate(field.getGenericType(), depth + 1));
+                }
+            }
+        }
+        return bean;
+    }
+
+    @Test
+    public void fullPaymentRequest_sameJsonAsReflection() throws Exception {
+        OneyPaymentRequest request = createFullPaymentRequest();
+
+        String json = OneyGson.get().toJson(request);
+        Assertions.assertEquals(reflective.toJson(request), json);
+        Assertions.assertTrue(json.contains("\"identity\""), json);
+        Assertions.assertTrue(json.contains("\"contact_details\""), json);
+        Assertions.assertTrue(json.contains("\"customer_address\""), json);
+        Assertions.assertTrue(json.contains("\"travel\""), json);
+        Assertions.assertTrue(json.contains("\"stay\""), json);
+
+        OneyPaymentRequest read = OneyGson.get().fromJson(json, OneyPaymentRequest.class);
+        Assertions.assertEquals(json, OneyGson.get().toJson(read));
+    }
+
+    /**
+     * Fails when a field of an adapted bean is missing from its adapter, in either direction.
+     */
+    @Test
+    public void adapters_coverEveryField() throws Exception {
+        List<Class<?>> adapted = Arrays.asList(OneyPaymentRequest.class, Purchase.class, Item.class, Customer.class,
+                TransactionStatusResponse.class, OneyNotificationResponse.class, PurchaseStatus.class);
+        for (Class<?> beanClass : adapted) {
+            Object bean = populate(beanClass, 0);
+            String json = reflective.toJson(bean);
+
+            Assertions.assertEquals(json, OneyGson.get().toJson(bean), beanClass.getSimpleName() + " written");
+            Assertions.assertEquals(json, reflective.toJson(OneyGson.get().fromJson(json, beanClass)), beanClass.getSimpleName() + " read");
+        }
+    }
+
+    @Test
+    public void paymentRequest_sameJsonAsReflection() throws Exception {
+        OneyPaymentRequest request = createPaymentRequest();
+
+        Assertions.assertEquals(reflective.toJson(request), OneyGson.get().toJson(request));
+        Assertions.assertEquals(reflective.toJson(request), request.toString());
+    }
+
+    @Test
+    public void paymentRequest_readBack() throws Exception {
+        OneyPaymentRequest request = createPaymentRequest();
+
+        OneyPaymentRequest read = OneyGson.get().fromJson(request.toString(), OneyPaymentRequest.class);
+
+        Assertions.assertEquals(request.toString(), read.toString());
+        Assertions.assertEquals(2, read.getPurchase().getListItem().size());
+        Assertions.assertEquals(Float.valueOf(110.5f), read.getPurchase().getListItem().get(0).getPrice());
+    }
+
+    @Test
+    public void transactionStatusResponse() {
+        String json = "{\"unknown\":{\"a\":[1,2]},\"language_code\":\"fr\",\"purchase\":{\"status_code\":\"FUNDED\"," +
+                "\"status_label\":\"Funded\",\"reason_code\":null,\"other\":true},\"encrypted_message\":null}";
+
+        TransactionStatusResponse response = OneyGson.get().fromJson(json, TransactionStatusResponse.class);
+
+        Assertions.assertEquals("fr", response.getLanguageCode());
+        Assertions.assertEquals(FUNDED, response.getStatusPurchase().getStatusCode());
+        Assertions.assertEquals("Funded", response.getStatusPurchase().getStatusLabel());
+        Assertions.assertNull(response.getStatusPurchase().getReasonCode());
+        Assertions.assertEquals(reflective.toJson(reflective.fromJson(json, TransactionStatusResponse.class)), response.toString());
+    }
+
+    @Test
+    public void purchaseStatus_unknownStatusCode() {
+        PurchaseStatus status = OneyGson.get().fromJson("{\"status_code\":\"NOT_A_STATUS\"}", PurchaseStatus.class);
+
+        Assertions.assertNull(status.getStatusCode());
+        Assertions.assertNull(OneyGson.get().fromJson("null", PurchaseStatus.class));
+    }
+
+    @Test
+    public void notificationResponse() {
+        String json = "{\"language_code\":\"fr\",\"merchant_guid\":\"guid\",\"oney_request_id\":\"1\"," +
+                "\"purchase\":{\"status_code\":\"PENDING\",\"external_reference\":\"ref\"}," +
+                "\"customer\":{\"customer_external_code\":\"extCode\",\"trust_flag\":1}," +
+                "\"psp_context\":\"psp\",\"merchant_context\":\"merchant\"}";
+
+        OneyNotificationResponse response = OneyGson.get().fromJson(json, OneyNotificationResponse.class);
+
+        Assertions.assertEquals("guid", response.getMerchantGuid());
+        Assertions.assertEquals(PENDING, response.getPurchase().getStatusCode());
+        Assertions.assertEquals("extCode", response.getCustomer().getCustomerExternalCode());
+        Assertions.assertEquals(Integer.valueOf(1), response.getCustomer().getTrustFlag());
+        Assertions.assertEquals(reflective.toJson(reflective.fromJson(json, OneyNotificationResponse.class)), response.toString());
+    }
+}
@@ -0,0 +1,104 @@
+package com.payline.payment.oney.bean.response;
+
+import com.payline.payment.oney.exception.DecryptException;
+import com.payline.payment.oney.exception.InvalidDataException;
+import com.payline.payment.oney.exception.MalformedJsonException;
+import com.payline.payment.oney.utils.OneyConfigBean;
+import com.payline.payment.oney.utils.chiffrement.OneyCrypto;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static com.payline.payment.oney.bean.common.PurchaseStatus.StatusCode.FAVORABLE;
+import static com.payline.payment.oney.bean.response.OneyNotificationResponse.createTransactionStatusResponseFromStream;
+
+public class OneyNotificationResponseTest extends OneyConfigBean {
+
+    private static final String KEY = "66s581CG5W+RLEqZHAGQx+vskjy660Kt8x8rhtRpXtY=";
+
+    private static final String NOTIFICATION = "{\"language_code\":\"FR\",\"merchant_guid\":\"anId\",\"oney_request_id\":\"123456789\"," +
+            "\"purchase\":{\"external_reference_type\":\"CMDE\",\"external_reference\":\"987654321\"," +
+            "\"status_code\":\"FAVORABLE\",\"status_label\":\"a status label\",\"reason_code\":\"aReason\"}," +
+            "\"customer\":{\"customer_external_code\":\"aCode\"}," +
+            "\"merchant_context\":\"CN!1000!EUR\",\"psp_context\":\"G1906171638279792\"}";
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void fromStream() throws Exception {
+        mockCorrectlyConfigPropertiesEnum(false);
+
+        OneyNotificationResponse response = createTransactionStatusResponseFromStream(stream(NOTIFICATION), null, 64 * 1024);
+
+        Assertions.assertEquals("anId", response.getMerchantGuid());
+        Assertions.assertEquals("G1906171638279792", response.getPspContext());
+        Assertions.assertEquals("CN!1000!EUR", response.getMerchantContext());
+        Assertions.assertEquals("987654321", response.getPurchase().getExternalReference());
+        Assertions.assertEquals(FAVORABLE, response.getPurchase().getStatusCode());
+        Assertions.assertEquals("aCode", response.getCustomer().getCustomerExternalCode());
+    }
+
+    @Test
+    public void fromStream_stopsOnceComplete() throws Exception {
+        mockCorrectlyConfigPropertiesEnum(false);
+        String content = NOTIFICATION.substring(0, NOTIFICATION.length() - 1) + ",\"extra\": this is never read";
+
+        OneyNotificationResponse response = createTransactionStatusResponseFromStream(stream(content), null, 64 * 1024);
+
+        Assertions.assertEquals("G1906171638279792", response.getPspContext());
+    }
+
+    @Test
+    public void fromStream_encrypted() throws Exception {
+        mockCorrectlyConfigPropertiesEnum(true);
+        String content = "{\"merchant_guid\":\"anId\",\"encrypted_message\":\"" + OneyCrypto.encryptMessage(NOTIFICATION, KEY) + "\"}";
+
+        OneyNotificationResponse response = createTransactionStatusResponseFromStream(stream(content), KEY, 64 * 1024);
+
+        Assertions.assertEquals("987654321", response.getPurchase().getExternalReference());
+        Assertions.assertEquals(FAVORABLE, response.getPurchase().getStatusCode());
+    }
+
+    @Test
+    public void fromStream_wrongKey() throws Exception {
+        mockCorrectlyConfigPropertiesEnum(true);
+        String content = "{\"merchant_guid\":\"anId\",\"encrypted_message\":\"" + OneyCrypto.encryptMessage("{}", KEY) + "\"}";
+
+        Assertions.assertThrows(DecryptException.class,
+                () -> createTransactionStatusResponseFromStream(stream(content), "Dfx3ydbpdfsLy7ymJk5ZUSwyZVbnrzH+kEPNbSfeQ4o=", 64 * 1024));
+    }
+
+    @Test
+    public void fromStream_tooLarge() {
+        mockCorrectlyConfigPropertiesEnum(false);
+
+        Assertions.assertThrows(InvalidDataException.class,
+                () -> createTransactionStatusResponseFromStream(stream(NOTIFICATION), null, 100));
+        Assertions.assertDoesNotThrow(
+                () -> createTransactionStatusResponseFromStream(stream(NOTIFICATION), null, NOTIFICATION.length()));
+    }
+
+    @Test
+    public void fromStream_malformed() {
+        mockCorrectlyConfigPropertiesEnum(false);
+
+        Assertions.assertThrows(MalformedJsonException.class, () -> createTransactionStatusResponseFromStream(stream("foo"), null, 1024));
+        Assertions.assertThrows(MalformedJsonException.class, () -> createTransactionStatusResponseFromStream(stream(""), null, 1024));
+        Assertions.assertThrows(MalformedJsonException.class, () -> createTransactionStatusResponseFromStream(stream("{\"foo\":1}"), null, 1024));
+    }
+
+    @Test
+    public void fromStream_missingCustomer() {
+        mockCorrectlyConfigPropertiesEnum(false);
+        String content = "{\"purchase\":{\"status_code\":\"FUNDED\"},\"psp_context\":\"G1906171638279792\"}";
+
+        InvalidDataException e = Assertions.assertThrows(InvalidDataException.class,
+                () -> createTransactionStatusResponseFromStream(stream(content), null, 1024));
+        Assertions.assertEquals("customer", e.getErrorCodeOrLabel());
+    }
+}
@@ -0,0 +1,199 @@
+package com.payline.payment.oney.integration;
+
+import com.payline.payment.oney.service.impl.PaymentServiceImpl;
+import com.payline.payment.oney.service.impl.PaymentWithRedirectionServiceImpl;
+import com.payline.payment.oney.utils.TestCountry;
+import com.payline.payment.oney.utils.TestUtils;
+import com.payline.payment.oney.utils.http.AbstractHttpClient;
+import com.payline.payment.oney.utils.http.OneyStubServer;
+import com.payline.payment.oney.utils.properties.service.ConfigPropertiesEnum;
+import com.payline.pmapi.bean.configuration.PartnerConfiguration;
+import com.payline.pmapi.bean.payment.ContractConfiguration;
+import com.payline.pmapi.bean.payment.ContractProperty;
+import com.payline.pmapi.bean.payment.request.PaymentRequest;
+import com.payline.pmapi.bean.payment.request.TransactionStatusRequest;
+import com.payline.pmapi.bean.payment.response.PaymentResponse;
+import com.payline.pmapi.bean.payment.response.impl.PaymentResponseFailure;
+import com.payline.pmapi.logger.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.payline.payment.oney.bean.common.PurchaseStatus.StatusCode.FAVORABLE;
+import static com.payline.payment.oney.bean.common.PurchaseStatus.StatusCode.FUNDED;
+import static com.payline.payment.oney.utils.OneyConstants.*;
+
+/**
+ * Load test of the plugin services against {@link OneyStubServer}, without the Oney sandbox.
+ * The load is set by system properties: load.threads (concurrent callers), load.duration (seconds),
+ * load.latency (median response time of the stub, in ms) and load.errors (share of 500 and reset answers).
+ * Each expired session finds its purchase FAVORABLE, so the plugin confirms it.
+ * Throughput and latency percentiles are logged for each scenario.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class LoadTestIT {
+
+    private static final Logger LOGGER = LogManager.getLogger(LoadTestIT.class);
+
+    private static final String KEY = "66s581CG5W+RLEqZHAGQx+vskjy660Kt8x8rhtRpXtY=";
+
+    private final int threads = Integer.getInteger("load.threads", 16);
+    private final int duration = Integer.getInteger("load.duration", 30);
+    private final long latency = Long.getLong("load.latency", 50L);
+    private final double errors = Double.parseDouble(System.getProperty("load.errors", "0"));
+
+    private final PaymentServiceImpl paymentService = new PaymentServiceImpl();
+    private final PaymentWithRedirectionServiceImpl redirectionService = new PaymentWithRedirectionServiceImpl();
+
+    private OneyStubServer server;
+    private PartnerConfiguration partnerConfiguration;
+    private ContractConfiguration contractConfiguration;
+
+    @BeforeAll
+    public void start() throws Exception {
+        OneyStubServer.Builder builder = OneyStubServer.Builder.aOneyStubServer()
+                .withLatency(OneyStubServer.Latency.logNormal(latency, 0.5))
+                .withFault(OneyStubServer.Fault.SERVER_ERROR, errors / 2)
+                .withFault(OneyStubServer.Fault.RESET, errors / 2)
+                .withStatusTransitions(FAVORABLE, FUNDED)
+                .withBacklog(threads * 2);
+        if (Boolean.valueOf(ConfigPropertiesEnum.INSTANCE.get(CHIFFREMENT_IS_ACTIVE))) {
+            builder.withEncryptKey(KEY);
+        }
+        server = builder.start();
+
+        Map<String, String> partnerConfigurationMap = new HashMap<>();
+        partnerConfigurationMap.put(PARTNER_API_URL, server.getUrl());
+        partnerConfigurationMap.put(PSP_GUID_KEY + ".be", "6ba2a5e2-df17-4ad7-8406-6a9fc488a60a");
+        partnerConfigurationMap.put(PARTNER_AUTHORIZATION_KEY + ".be", "7fd3f1c53b9a47f7b85c801a32971895");
+        partnerConfigurationMap.put(SECRET_KEY, TestUtils.getSecretKey());
+        partnerConfigurationMap.put(NB_ECHEANCES_CONTRAT, "1x,2x");
+        partnerConfigurationMap.put(AbstractHttpClient.KEY_CONNECT_TIMEOUT, "2000");
+        partnerConfigurationMap.put(AbstractHttpClient.CONNECTION_REQUEST_TIMEOUT, "5000");
+        partnerConfigurationMap.put(AbstractHttpClient.READ_SOCKET_TIMEOUT, "10000");
+        partnerConfigurationMap.put(AbstractHttpClient.POOL_MAX_SIZE_PER_ROUTE, String.valueOf(threads));
+        partnerConfigurationMap.put(AbstractHttpClient.MAX_IN_FLIGHT_PER_ROUTE, String.valueOf(threads));
+        partnerConfiguration = new PartnerConfiguration(partnerConfigurationMap, new HashMap<>());
+
+        contractConfiguration = TestUtils.createContractConfiguration();
+        contractConfiguration.getContractProperties().put(PARTNER_CHIFFREMENT_KEY, new ContractProperty(KEY));
+    }
+
+    @AfterAll
+    public void stop() {
+        LOGGER.info("Stub server: {} requests", server.getRequests());
+        server.close();
+    }
+
+    @Test
+    public void payment() throws Exception {
+        load("payment", () -> {
+            PaymentRequest request = TestUtils.createCompletePaymentRequestBuilder(TestCountry.BE, contractConfiguration,
+                    TestUtils.createDefaultPaymentFormContext(), partnerConfiguration).build();
+            return paymentService.paymentRequest(request);
+        });
+    }
+
+    @Test
+    public void sessionExpired() throws Exception {
+        load("sessionExpired", () -> {
+            String transactionId = TestUtils.createTransactionId();
+            TransactionStatusRequest request = TransactionStatusRequest.TransactionStatusRequestBuilder
+                    .aNotificationRequest()
+                    .withTransactionId(transactionId)
+                    .withAmount(TestUtils.createAmount(TestUtils.CONFIRM_AMOUNT, Currency.getInstance("EUR")))
+                    .withContractConfiguration(contractConfiguration)
+                    .withEnvironment(TestUtils.TEST_ENVIRONMENT)
+                    .withOrder(TestUtils.createCompleteOrder(transactionId))
+                    .withBuyer(TestUtils.createDefaultBuyer())
+                    .withPartnerConfiguration(partnerConfiguration)
+                    .withCaptureNow(true)
+                    .build();
+            return redirectionService.handleSessionExpired(request);
+        });
+    }
+
+    /**
+     * Call the service from all the threads during the test duration, then log the results
+     */
+    private void load(String scenario, Callable<PaymentResponse> call) throws Exception {
+        final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(duration);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Result>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(pool.submit(() -> {
+                Result result = new Result();
+                while (System.nanoTime() < end) {
+                    long start = System.nanoTime();
+                    PaymentResponse response = call.call();
+                    result.add(System.nanoTime() - start, response instanceof PaymentResponseFailure);
+                }
+                return result;
+            }));
+        }
+
+        Result total = new Result();
+        for (Future<Result> future : futures) {
+            total.addAll(future.get());
+        }
+        pool.shutdown();
+
+        long[] latencies = total.sorted();
+        LOGGER.info("{}: {} calls, {} failures, {} calls/s, latency (ms) p50={} p90={} p99={} max={}",
+                scenario, latencies.length, total.failures, String.format("%.1f", latencies.length / (double) duration),
+                millis(latencies, 50), millis(latencies, 90), millis(latencies, 99), millis(latencies, 100));
+        Assertions.assertTrue(latencies.length > 0);
+    }
+
+    private static String millis(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return String.format("%.1f", sorted[Math.max(index, 0)] / 1e6);
+    }
+
+    /**
+     * Latencies (ns) and failures of the calls made by one thread
+     */
+    private static final class Result {
+        private long[] latencies = new long[1024];
+        private int size;
+        private long failures;
+
+        void add(long latency, boolean failed) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latency;
+            if (failed) {
+                failures++;
+            }
+        }
+
+        void addAll(Result other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.latencies[i], false);
+            }
+            failures += other.failures;
+        }
+
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
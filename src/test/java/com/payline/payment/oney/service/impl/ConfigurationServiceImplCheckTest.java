@@ -58,6 +58,9 @@ public class ConfigurationServiceImplCheckTest {
 
     @BeforeEach
     public void setUp() throws Exception {
+        // every test checks the same settings with another answer from Oney
+        ContractCheckCache.INSTANCE.clear();
+
         // Mock full contract properties
         contractProperties = new HashMap<>();
         contractProperties.put(MERCHANT_GUID_KEY, new ContractProperty("merchant_guid_test"));
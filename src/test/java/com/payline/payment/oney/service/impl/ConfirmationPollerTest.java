@@ -0,0 +1,69 @@
+package com.payline.payment.oney.service.impl;
+
+import com.payline.payment.oney.bean.common.PurchaseStatus;
+import com.payline.payment.oney.exception.HttpCallException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.payline.payment.oney.bean.common.PurchaseStatus.StatusCode.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConfirmationPollerTest {
+
+    private static final long[] INTERVALS = {0, 0, 0, 0};
+
+    @Test
+    void poll_stopsWhenFunded() throws Exception {
+        AtomicInteger checks = new AtomicInteger();
+        PurchaseStatus.StatusCode[] statuses = {FAVORABLE, FAVORABLE, FUNDED, FUNDED};
+
+        CompletableFuture<PurchaseStatus.StatusCode> result = ConfirmationPoller.INSTANCE.poll(
+                () -> CompletableFuture.completedFuture(statuses[checks.getAndIncrement()]), INTERVALS, TimeUnit.MILLISECONDS);
+
+        assertEquals(FUNDED, result.get(5, TimeUnit.SECONDS));
+        assertEquals(3, checks.get());
+    }
+
+    @Test
+    void poll_returnsLastStatus() throws Exception {
+        AtomicInteger checks = new AtomicInteger();
+
+        CompletableFuture<PurchaseStatus.StatusCode> result = ConfirmationPoller.INSTANCE.poll(() -> {
+            checks.incrementAndGet();
+            return CompletableFuture.completedFuture(FAVORABLE);
+        }, INTERVALS, TimeUnit.MILLISECONDS);
+
+        assertEquals(FAVORABLE, result.get(5, TimeUnit.SECONDS));
+        assertEquals(INTERVALS.length, checks.get());
+    }
+
+    @Test
+    void poll_exception() {
+        CompletableFuture<PurchaseStatus.StatusCode> result = ConfirmationPoller.INSTANCE.poll(() -> {
+            CompletableFuture<PurchaseStatus.StatusCode> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new CompletionException(new HttpCallException("foo", "bar")));
+            return failed;
+        }, INTERVALS, TimeUnit.MILLISECONDS);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof HttpCallException);
+    }
+
+    @Test
+    void poll_doesNotBlockTheCaller() throws Exception {
+        CompletableFuture<PurchaseStatus.StatusCode> check = new CompletableFuture<>();
+        int pending = ConfirmationPoller.INSTANCE.getPendingCount();
+
+        CompletableFuture<PurchaseStatus.StatusCode> result = ConfirmationPoller.INSTANCE.poll(() -> check, new long[]{0}, TimeUnit.MILLISECONDS);
+
+        assertFalse(result.isDone());
+        assertEquals(pending + 1, ConfirmationPoller.INSTANCE.getPendingCount());
+        check.complete(TO_BE_FUNDED);
+        assertEquals(TO_BE_FUNDED, result.get(5, TimeUnit.SECONDS));
+    }
+}
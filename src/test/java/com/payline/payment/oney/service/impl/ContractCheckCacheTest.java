@@ -0,0 +1,119 @@
+package com.payline.payment.oney.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.payline.payment.oney.utils.OneyConstants.MERCHANT_GUID_KEY;
+import static com.payline.payment.oney.utils.OneyConstants.PARTNER_API_URL;
+
+public class ContractCheckCacheTest {
+
+    private static final String KEY = ContractCheckCache.key("psp", "merchant", "3z002", "FR", "https://oney", "apikey", null, "true");
+
+    private final ContractCheckCache cache = ContractCheckCache.INSTANCE;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @AfterEach
+    public void clear() {
+        cache.clear();
+    }
+
+    @Test
+    public void key() {
+        Assertions.assertEquals(KEY, ContractCheckCache.key("psp", "merchant", "3z002", "FR", "https://oney", "apikey", null, "true"));
+        Assertions.assertNotEquals(KEY, ContractCheckCache.key("psp", "merchant", "3z002", "FR", "https://oney", "apikey", "", "true"));
+        Assertions.assertNotEquals(KEY, ContractCheckCache.key("psp", "merchant", "3z002", "FR", "https://oney", "apikey", null, "false"));
+        Assertions.assertNotEquals(ContractCheckCache.key("ab", "c"), ContractCheckCache.key("a", "bc"));
+        // no secret in the key
+        Assertions.assertFalse(KEY.contains("apikey"));
+    }
+
+    @Test
+    public void successAndFailureTtl() {
+        Assertions.assertTrue(cache.get(KEY, 5000, 1000, check(Collections.emptyMap(), true), 0).isEmpty());
+        Assertions.assertTrue(cache.get(KEY, 5000, 1000, check(Collections.singletonMap(MERCHANT_GUID_KEY, "KO"), true), 4999).isEmpty());
+        Assertions.assertEquals(1, calls.get());
+
+        // expired: the failure is kept for a shorter time
+        Assertions.assertEquals(1, cache.get(KEY, 5000, 1000, check(Collections.singletonMap(MERCHANT_GUID_KEY, "KO"), true), 5000).size());
+        Assertions.assertEquals(1, cache.get(KEY, 5000, 1000, check(Collections.emptyMap(), true), 5999).size());
+        Assertions.assertTrue(cache.get(KEY, 5000, 1000, check(Collections.emptyMap(), true), 6000).isEmpty());
+        Assertions.assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void notCacheable() {
+        cache.get(KEY, 5000, 5000, check(Collections.singletonMap(PARTNER_API_URL, "timeout"), false), 0);
+        Assertions.assertTrue(cache.get(KEY, 5000, 5000, check(Collections.emptyMap(), true), 1).isEmpty());
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void disabled() {
+        cache.get(KEY, 0, 0, check(Collections.emptyMap(), true), 0);
+        cache.get(KEY, 0, 0, check(Collections.emptyMap(), true), 1);
+        Assertions.assertEquals(2, calls.get());
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void resultNotShared() {
+        cache.get(KEY, 5000, 5000, check(Collections.singletonMap(MERCHANT_GUID_KEY, "KO"), true), 0).clear();
+        Assertions.assertEquals(1, cache.get(KEY, 5000, 5000, check(Collections.emptyMap(), true), 1).size());
+    }
+
+    @Test
+    public void concurrentChecksCoalesced() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<Map<String, String>> first = executor.submit(() -> cache.get(KEY, 5000, 5000, () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return new ContractCheckCache.Result(Collections.singletonMap(MERCHANT_GUID_KEY, "KO"), false);
+            }));
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<Map<String, String>> second = executor.submit(() -> cache.get(KEY, 5000, 5000, check(Collections.emptyMap(), true)));
+            Future<Map<String, String>> third = executor.submit(() -> cache.get(KEY, 5000, 5000, check(Collections.emptyMap(), true)));
+            Thread.sleep(200);
+            release.countDown();
+
+            Assertions.assertEquals(1, first.get(5, TimeUnit.SECONDS).size());
+            Assertions.assertEquals(1, second.get(5, TimeUnit.SECONDS).size());
+            Assertions.assertEquals(1, third.get(5, TimeUnit.SECONDS).size());
+            Assertions.assertEquals(1, calls.get());
+            // the shared outcome was not cacheable
+            Assertions.assertEquals(0, cache.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Supplier<ContractCheckCache.Result> check(Map<String, String> errors, boolean cacheable) {
+        return () -> {
+            calls.incrementAndGet();
+            return new ContractCheckCache.Result(errors, cacheable);
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.payline.payment.oney.service.impl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
+
+public class LogoCacheTest {
+
+    @Test
+    public void getLogo() throws Exception {
+        LogoCache.Logo logo = LogoCache.INSTANCE.getLogo();
+
+        Assertions.assertSame(logo, LogoCache.INSTANCE.getLogo());
+        Assertions.assertEquals("image/png", logo.getContentType());
+        Assertions.assertNotNull(ImageIO.read(new ByteArrayInputStream(logo.getFile())));
+    }
+}
@@ -10,6 +10,7 @@ import com.payline.pmapi.bean.common.FailureCause;
 import com.payline.pmapi.bean.common.FailureTransactionStatus;
 import com.payline.pmapi.bean.common.OnHoldTransactionStatus;
 import com.payline.pmapi.bean.common.SuccessTransactionStatus;
+import com.payline.pmapi.bean.configuration.PartnerConfiguration;
 import com.payline.pmapi.bean.notification.request.NotificationRequest;
 import com.payline.pmapi.bean.notification.response.NotificationResponse;
 import com.payline.pmapi.bean.notification.response.impl.PaymentResponseByNotificationResponse;
@@ -28,6 +29,8 @@ import org.mockito.*;
 
 import java.io.ByteArrayInputStream;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 import static com.payline.payment.oney.utils.TestUtils.createStringResponse;
@@ -61,7 +64,8 @@ public class NotificationServiceTest extends OneyConfigBean {
 
         MockitoAnnotations.initMocks(this);
         doReturn(client).when(service).getNewHttpClientInstance(any(NotificationRequest.class));
-        lenient().doNothing().when(service).sleep(anyLong());
+        lenient().doReturn(new long[]{0, 0, 0, 0}).when(service).getRetryIntervals();
+        lenient().doReturn(5000L).when(service).getConfirmationWaitTimeout(any(NotificationRequest.class));
     }
 
     private static Stream<Arguments> parse_nonExistingTransaction_set() {
@@ -87,7 +91,7 @@ public class NotificationServiceTest extends OneyConfigBean {
         doReturn(responseMockedConfirm).when(client).initiateConfirmationPayment(any(), anyBoolean());
 
         StringResponse responseMocked = createStringResponse(200, "OK", "{\"purchase\":{\"status_code\":\"FUNDED\",\"status_label\":\"a label\"}}");
-        doReturn(responseMocked).when(client).initiateGetTransactionStatus(any(), anyBoolean());
+        doReturn(CompletableFuture.completedFuture(responseMocked)).when(client).initiateGetTransactionStatusAsync(any(), anyBoolean());
 
 
         NotificationResponse response = service.parse(request);
@@ -121,7 +125,7 @@ public class NotificationServiceTest extends OneyConfigBean {
         doReturn(responseMockedConfirm).when(client).initiateConfirmationPayment(any(), anyBoolean());
 
         StringResponse responseMocked = createStringResponse(200, "OK", "{\"purchase\":{\"status_code\":\"FUNDED\",\"status_label\":\"Transaction is completed\"}}");
-        doReturn(responseMocked).when(client).initiateGetTransactionStatus( any(), anyBoolean() );
+        doReturn(CompletableFuture.completedFuture(responseMocked)).when(client).initiateGetTransactionStatusAsync(any(), anyBoolean());
 
         NotificationResponse response = service.parse(request);
         assertTrue( response instanceof TransactionStateChangedResponse );
@@ -138,7 +142,7 @@ public class NotificationServiceTest extends OneyConfigBean {
 
         StringResponse responseMockedConfirm = createStringResponse(200, "OK", "this is not a good content");
         doReturn(responseMockedConfirm).when(client).initiateConfirmationPayment(any(), anyBoolean());
-        doReturn(responseMockedConfirm).when(client).initiateGetTransactionStatus(any(), anyBoolean());
+        doReturn(CompletableFuture.completedFuture(responseMockedConfirm)).when(client).initiateGetTransactionStatusAsync(any(), anyBoolean());
 
         NotificationResponse response = service.parse(request);
         assertTrue( response instanceof PaymentResponseByNotificationResponse );
@@ -321,20 +325,76 @@ public class NotificationServiceTest extends OneyConfigBean {
         StringResponse favorableResponse = createStringResponse(200, "OK", "{\"purchase\":{\"status_code\":\"FAVORABLE\",\"status_label\":\"a label\"}}");
         StringResponse fundedResponse = createStringResponse(200, "OK", String.format("{\"purchase\":{\"status_code\":\"%s\",\"status_label\":\"a label\"}}", finalStatusCode.name()));
 
-        doReturn(favorableResponse, favorableResponse, fundedResponse)
-                .when(client).initiateGetTransactionStatus(any(), anyBoolean());
+        doReturn(CompletableFuture.completedFuture(favorableResponse), CompletableFuture.completedFuture(favorableResponse), CompletableFuture.completedFuture(fundedResponse))
+                .when(client).initiateGetTransactionStatusAsync(any(), anyBoolean());
 
         NotificationResponse response = service.parse(request);
 
-        verify(service).sleep(3);
-        verify(service).sleep(6);
-        verify(service).sleep(12);
-        verify(service, times(0)).sleep(24);
+        verify(client, times(3)).initiateGetTransactionStatusAsync(any(), anyBoolean());
         assertTrue( response instanceof PaymentResponseByNotificationResponse );
         PaymentResponseByNotificationResponse paymentResponseByNotificationResponse = (PaymentResponseByNotificationResponse) response;
         assertEquals(PaymentResponseSuccess.class, paymentResponseByNotificationResponse.getPaymentResponse().getClass());
     }
 
+    @Test
+    void returnOnHoldResponseWhenFinalStatusIsNotKnownYet() throws Exception {
+        final NotificationRequest request = requestBuilder
+                .withContent(new ByteArrayInputStream(mockContent("FAVORABLE").getBytes()))
+                .build();
+        StringResponse responseMockedConfirm = createStringResponse(200, "OK", "{\"purchase\":{\"status_code\":\"ANY\",\"status_label\":\"a label\"}}");
+        doReturn(responseMockedConfirm).when(client).initiateConfirmationPayment(any(), anyBoolean());
+        // the status check never answers
+        doReturn(new CompletableFuture<StringResponse>()).when(client).initiateGetTransactionStatusAsync(any(), anyBoolean());
+        doReturn(0L).when(service).getConfirmationWaitTimeout(any(NotificationRequest.class));
+
+        final NotificationResponse response = service.parse(request);
+
+        assertTrue(response instanceof PaymentResponseByNotificationResponse);
+        assertTrue(((PaymentResponseByNotificationResponse) response).getPaymentResponse() instanceof PaymentResponseOnHold);
+    }
+
+    @Test
+    void waitForTheFirstCheckByDefault() throws Exception {
+        final NotificationRequest request = requestBuilder
+                .withContent(new ByteArrayInputStream(mockContent("FAVORABLE").getBytes()))
+                .build();
+        StringResponse responseMockedConfirm = createStringResponse(200, "OK", "{\"purchase\":{\"status_code\":\"ANY\",\"status_label\":\"a label\"}}");
+        doReturn(responseMockedConfirm).when(client).initiateConfirmationPayment(any(), anyBoolean());
+        // the status check answers later
+        StringResponse responseMockedFunded = createStringResponse(200, "OK", "{\"purchase\":{\"status_code\":\"FUNDED\",\"status_label\":\"a label\"}}");
+        doAnswer(invocation -> CompletableFuture.supplyAsync(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return responseMockedFunded;
+        })).when(client).initiateGetTransactionStatusAsync(any(), anyBoolean());
+        doCallRealMethod().when(service).getConfirmationWaitTimeout(any(NotificationRequest.class));
+
+        final NotificationResponse response = service.parse(request);
+
+        assertTrue(response instanceof PaymentResponseByNotificationResponse);
+        assertEquals(PaymentResponseSuccess.class, ((PaymentResponseByNotificationResponse) response).getPaymentResponse().getClass());
+    }
+
+    @Test
+    void confirmationWaitTimeoutBounded() {
+        doCallRealMethod().when(service).getConfirmationWaitTimeout(any(NotificationRequest.class));
+        final NotificationRequest request = requestBuilder
+                .withContent(new ByteArrayInputStream(mockContent("FAVORABLE").getBytes()))
+                .build();
+        assertEquals(NotificationServiceImpl.DEFAULT_CONFIRMATION_WAIT_TIMEOUT, service.getConfirmationWaitTimeout(request));
+
+        final Map<String, String> partnerConfiguration = new HashMap<>();
+        partnerConfiguration.put(NotificationServiceImpl.CONFIRMATION_WAIT_TIMEOUT, "-1");
+        final NotificationRequest negative = requestBuilder
+                .withContent(new ByteArrayInputStream(mockContent("FAVORABLE").getBytes()))
+                .withPartnerConfiguration(new PartnerConfiguration(partnerConfiguration, new HashMap<>()))
+                .build();
+        assertEquals(0, service.getConfirmationWaitTimeout(negative));
+    }
+
     @Test
     void returnOnHoldResponseWhenStatusIsFavorableThenPending() throws PluginTechnicalException {
         final NotificationRequest request = requestBuilder
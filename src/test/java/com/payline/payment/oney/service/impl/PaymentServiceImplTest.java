@@ -13,6 +13,7 @@ import com.payline.pmapi.bean.payment.request.PaymentRequest;
 import com.payline.pmapi.bean.payment.response.PaymentResponse;
 import com.payline.pmapi.bean.payment.response.impl.PaymentResponseFailure;
 import com.payline.pmapi.bean.payment.response.impl.PaymentResponseRedirect;
+import org.apache.http.HttpEntity;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,6 +25,7 @@ import org.mockito.Spy;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static com.payline.payment.oney.utils.TestUtils.createCompletePaymentRequestBuilder;
 import static com.payline.payment.oney.utils.TestUtils.createStringResponse;
@@ -58,7 +60,7 @@ public class PaymentServiceImplTest extends OneyConfigBean {
     public void paymentRequestOKEncrypted() throws HttpCallException {
 
         StringResponse responseEncryptedMocked = createStringResponse(200, "", "{\"encrypted_message\": \"FhzjXBU2Ek+/dmCMVB4wWn6ytL2+dh5mIx+gxDtcp4rTSzO/LA1Q72aClEvNoeXVdc3wg8L8PpMvAhRkWkLc1DyuX14icAZP8C7uA5COgRIzklUPJq/d9tiDWXxszS9o4ALbCfpGYqSgUN38fBnJhC9Y7RBqY4eq+H0iTRtvfYSLmKumsYvQFJY/21j+Xou/ZLppruwA6/MNC0nDGXw2o2PJeMGm+e5i4lUlqowvecmZ+GWQM91pOrb95B/pqriDYwZnnRQrewuhAyvIkR8LVQ==\"}");
-        doReturn(responseEncryptedMocked).when(httpClient).doPost(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
+        doReturn(CompletableFuture.completedFuture(responseEncryptedMocked)).when(httpClient).doPostAsync(Mockito.anyString(), Mockito.any(HttpEntity.class), Mockito.anyMap());
         mockCorrectlyConfigPropertiesEnum(true);
         PaymentResponseRedirect response = (PaymentResponseRedirect) service.paymentRequest(createCompletePaymentRequestBuilder().build());
         Assertions.assertNotNull(response.getRedirectionRequest().getUrl());
@@ -70,7 +72,7 @@ public class PaymentServiceImplTest extends OneyConfigBean {
     public void paymentRequestOKNotEncrypted() throws HttpCallException {
 
         StringResponse responseEncryptedMocked = createStringResponse(200, "", "{\"returned_url\": \"https://pplogin.oney.be/Subscription/PaymentPage_Entry.aspx?Token=PlzTT7EsMCuFilPzV6XS2HUmLiJ7R25hibsGy4BBJ7YXWprwJoNO4hRmttwx5x8%2fOttm5IcgMOUlZ6OUCV8mxIQyjjGSM0a88BqhGfoo6oc%3d\"}");
-        doReturn(responseEncryptedMocked).when(httpClient).doPost(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
+        doReturn(CompletableFuture.completedFuture(responseEncryptedMocked)).when(httpClient).doPostAsync(Mockito.anyString(), Mockito.any(HttpEntity.class), Mockito.anyMap());
         mockCorrectlyConfigPropertiesEnum(false);
         PaymentResponseRedirect response = (PaymentResponseRedirect) service.paymentRequest(createCompletePaymentRequestBuilder().build());
         Assertions.assertNotNull(response.getRedirectionRequest().getUrl());
@@ -82,7 +84,7 @@ public class PaymentServiceImplTest extends OneyConfigBean {
     public void paymentRequestKOEncrypted() throws HttpCallException {
         StringResponse responseMocked = createStringResponse(400, "Bad request", "{\"Payments_Error_Response\":{\"error_list \":[{\"field\":\"purchase.delivery.delivery_address.country_code\",\"error_code\":\"ERR_02\",\"error_label\":\"Size of the field should be equal to [3] characters\"},{\"field\":\"purchase.item_list.category_code\",\"error_code\":\"ERR_04\",\"error_label\":\"Value of the field is invalid [{Integer}]\"},{\"field\":\"purchase.item_list.category_code\",\"error_code\":\"ERR_04\",\"error_label\":\"Value of the field is invalid [{Integer}]\"},{\"field\":\"customer.customer_address.country_code\",\"error_code\":\"ERR_02\",\"error_label\":\"Size of the field should be equal to [3] characters\"},{\"field\":\"payment.payment_type\",\"error_code\":\"ERR_03\",\"error_label\":\"Format of the field is invalid [{Integer}]\"}]}}");
 
-        doReturn(responseMocked).when(httpClient).doPost(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
+        doReturn(CompletableFuture.completedFuture(responseMocked)).when(httpClient).doPostAsync(Mockito.anyString(), Mockito.any(HttpEntity.class), Mockito.anyMap());
         mockCorrectlyConfigPropertiesEnum(true);
         PaymentResponseFailure response = (PaymentResponseFailure) service.paymentRequest(createCompletePaymentRequestBuilder().build());
         Assertions.assertNotNull(response);
@@ -95,7 +97,7 @@ public class PaymentServiceImplTest extends OneyConfigBean {
     public void paymentRequestKONotEncrypted() throws HttpCallException {
         StringResponse responseMocked = createStringResponse(400, "Bad request", "{\"Payments_Error_Response\":{\"error_list \":[{\"field\":\"purchase.delivery.delivery_address.country_code\",\"error_code\":\"ERR_02\",\"error_label\":\"Size of the field should be equal to [3] characters\"},{\"field\":\"purchase.item_list.category_code\",\"error_code\":\"ERR_04\",\"error_label\":\"Value of the field is invalid [{Integer}]\"},{\"field\":\"purchase.item_list.category_code\",\"error_code\":\"ERR_04\",\"error_label\":\"Value of the field is invalid [{Integer}]\"},{\"field\":\"customer.customer_address.country_code\",\"error_code\":\"ERR_02\",\"error_label\":\"Size of the field should be equal to [3] characters\"},{\"field\":\"payment.payment_type\",\"error_code\":\"ERR_03\",\"error_label\":\"Format of the field is invalid [{Integer}]\"}]}}");
 
-        doReturn(responseMocked).when(httpClient).doPost(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
+        doReturn(CompletableFuture.completedFuture(responseMocked)).when(httpClient).doPostAsync(Mockito.anyString(), Mockito.any(HttpEntity.class), Mockito.anyMap());
         mockCorrectlyConfigPropertiesEnum(false);
         PaymentResponseFailure response = (PaymentResponseFailure) service.paymentRequest(createCompletePaymentRequestBuilder().build());
         Assertions.assertNotNull(response);
@@ -121,7 +123,7 @@ public class PaymentServiceImplTest extends OneyConfigBean {
                 "  }\n" +
                 "}");
 
-        doReturn(responseMocked).when(httpClient).doPost(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
+        doReturn(CompletableFuture.completedFuture(responseMocked)).when(httpClient).doPostAsync(Mockito.anyString(), Mockito.any(HttpEntity.class), Mockito.anyMap());
         PaymentResponseFailure response = (PaymentResponseFailure) service.paymentRequest(createCompletePaymentRequestBuilder().build());
         Assertions.assertNotNull(response);
         Assertions.assertEquals("400 - ERR_04 - customer.identity.person_type", response.getErrorCode());
@@ -140,7 +142,7 @@ public class PaymentServiceImplTest extends OneyConfigBean {
                 "  }\n" +
                 "}");
 
-        doReturn(responseMocked2).when(httpClient).doPost(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
+        doReturn(CompletableFuture.completedFuture(responseMocked2)).when(httpClient).doPostAsync(Mockito.anyString(), Mockito.any(HttpEntity.class), Mockito.anyMap());
         response = (PaymentResponseFailure) service.paymentRequest(createCompletePaymentRequestBuilder().build());
         Assertions.assertNotNull(response);
         Assertions.assertEquals("400 - ERR_04 - customer.identity.person_type", response.getErrorCode());
@@ -152,7 +154,7 @@ public class PaymentServiceImplTest extends OneyConfigBean {
     public void paymentRequestKO404() throws HttpCallException {
         StringResponse responseMocked = createStringResponse(404, "Bad request", "{Payments_Error_Response:{error_list:[{field:purchase.delivery.delivery_address.country_code,error_code:ERR_02,error_label:\"Size of the field should be equal to [3] characters\"},{field:purchase.item_list.category_code,error_code:ERR_04,error_label:\"Value of the field is invalid [{Integer}]\"},{field:purchase.item_list.category_code,error_code:ERR_04,error_label:\"Value of the field is invalid [{Integer}]\"},{field:customer.customer_address.country_code,error_code:ERR_02,error_label:\"Size of the field should be equal to [3] characters\"},{field:payment.payment_type,error_code:ERR_03,error_label:\"Format of the field is invalid [{Integer}]\"}]}}");
 
-        doReturn(responseMocked).when(httpClient).doPost(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
+        doReturn(CompletableFuture.completedFuture(responseMocked)).when(httpClient).doPostAsync(Mockito.anyString(), Mockito.any(HttpEntity.class), Mockito.anyMap());
         PaymentResponseFailure response = (PaymentResponseFailure) service.paymentRequest(createCompletePaymentRequestBuilder().build());
         Assertions.assertNotNull(response);
         Assertions.assertEquals("404 - ERR_02 - purchase.delivery.delivery_address.", response.getErrorCode());
@@ -28,6 +28,7 @@ import org.mockito.Spy;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static com.payline.payment.oney.bean.common.PurchaseStatus.StatusCode.FUNDED;
 import static com.payline.payment.oney.utils.TestUtils.createDefaultRefundRequest;
@@ -63,10 +64,10 @@ public class RefundServiceImplTest extends OneyConfigBean {
     @Test
     public void refundRequestTestOK() throws Exception {
         StringResponse responseMocked1 = createStringResponse(200, "OK", responseOk);
-        Mockito.doReturn(responseMocked1).when(httpClient).doGet(Mockito.anyString(), Mockito.anyMap(), Mockito.anyMap());
+        Mockito.doReturn(CompletableFuture.completedFuture(responseMocked1)).when(httpClient).doGetAsync(Mockito.anyString(), Mockito.anyMap(), Mockito.anyMap());
 
         StringResponse responseMocked = createStringResponse(200, "OK", responseOk);
-        Mockito.doReturn(responseMocked).when(httpClient).doPost(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
+        Mockito.doReturn(CompletableFuture.completedFuture(responseMocked)).when(httpClient).doPostAsync(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
 
         RefundResponse response = service.refundRequest(createDefaultRefundRequest());
 
@@ -80,10 +81,10 @@ public class RefundServiceImplTest extends OneyConfigBean {
     @Test
     public void refundRequestTestKO() throws Exception {
         StringResponse responseMocked1 = createStringResponse(200, "OK", responseOkCiphered);
-        Mockito.doReturn(responseMocked1).when(httpClient).doGet(Mockito.anyString(), Mockito.anyMap(), Mockito.anyMap());
+        Mockito.doReturn(CompletableFuture.completedFuture(responseMocked1)).when(httpClient).doGetAsync(Mockito.anyString(), Mockito.anyMap(), Mockito.anyMap());
 
         StringResponse responseMocked = createStringResponse(200, "OK", responseKOCiphered);
-        Mockito.doReturn(responseMocked).when(httpClient).doPost(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
+        Mockito.doReturn(CompletableFuture.completedFuture(responseMocked)).when(httpClient).doPostAsync(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
 
         RefundRequest refundReq = createDefaultRefundRequest();
         RefundResponse response = service.refundRequest(refundReq);
@@ -97,7 +98,7 @@ public class RefundServiceImplTest extends OneyConfigBean {
     @Test
     public void handleStatusRequestEncrypted() throws Exception {
         StringResponse responseMocked1 = createStringResponse(200, "OK", responseOkCiphered);
-        Mockito.doReturn(responseMocked1).when(httpClient).doGet(Mockito.anyString(), Mockito.anyMap(), Mockito.anyMap());
+        Mockito.doReturn(CompletableFuture.completedFuture(responseMocked1)).when(httpClient).doGetAsync(Mockito.anyString(), Mockito.anyMap(), Mockito.anyMap());
         RefundRequest refundReq = createDefaultRefundRequest();
         mockCorrectlyConfigPropertiesEnum(true);
         PurchaseStatus.StatusCode status = service.handleStatusRequest(refundReq);
@@ -108,7 +109,7 @@ public class RefundServiceImplTest extends OneyConfigBean {
     @Test
     public void handleStatusRequestNotEncrypted() throws Exception {
         StringResponse responseMocked1 = createStringResponse(200, "OK", responseOk);
-        Mockito.doReturn(responseMocked1).when(httpClient).doGet(Mockito.anyString(), Mockito.anyMap(), Mockito.anyMap());
+        Mockito.doReturn(CompletableFuture.completedFuture(responseMocked1)).when(httpClient).doGetAsync(Mockito.anyString(), Mockito.anyMap(), Mockito.anyMap());
         RefundRequest refundReq = createDefaultRefundRequest();
         mockCorrectlyConfigPropertiesEnum(false);
         PurchaseStatus.StatusCode status = service.handleStatusRequest(refundReq);
@@ -18,6 +18,7 @@ import org.mockito.Spy;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static com.payline.payment.oney.bean.common.PurchaseStatus.StatusCode.CANCELLED;
 import static com.payline.payment.oney.utils.TestUtils.createDefaultResetRequest;
@@ -55,10 +56,10 @@ public class ResetServiceImplTest {
     @Test
     void resetRequestTestOK() throws Exception {
         StringResponse responseMocked1 = createStringResponse(200, "OK", responseOK);
-        Mockito.doReturn(responseMocked1).when(httpClient).doGet(Mockito.anyString(), Mockito.anyMap(), Mockito.anyMap());
+        Mockito.doReturn(CompletableFuture.completedFuture(responseMocked1)).when(httpClient).doGetAsync(Mockito.anyString(), Mockito.anyMap(), Mockito.anyMap());
 
         StringResponse responseMocked = createStringResponse(200, "OK", responseOK);
-        Mockito.doReturn(responseMocked).when(httpClient).doPost(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
+        Mockito.doReturn(CompletableFuture.completedFuture(responseMocked)).when(httpClient).doPostAsync(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
 
         ResetResponse response = service.resetRequest(createDefaultResetRequest());
 
@@ -71,10 +72,10 @@ public class ResetServiceImplTest {
     @Test
     void resetRequestTestKO() throws Exception {
         StringResponse responseMocked1 = createStringResponse(200, "OK", responseOkCiphered);
-        Mockito.doReturn(responseMocked1).when(httpClient).doGet(Mockito.anyString(), Mockito.anyMap(), Mockito.anyMap());
+        Mockito.doReturn(CompletableFuture.completedFuture(responseMocked1)).when(httpClient).doGetAsync(Mockito.anyString(), Mockito.anyMap(), Mockito.anyMap());
 
         StringResponse responseMocked = createStringResponse(200, "OK", responseKOCiphered);
-        Mockito.doReturn(responseMocked).when(httpClient).doPost(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
+        Mockito.doReturn(CompletableFuture.completedFuture(responseMocked)).when(httpClient).doPostAsync(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
 
         ResetRequest resetReq = createDefaultResetRequest();
         ResetResponse response = service.resetRequest(resetReq);
@@ -0,0 +1,79 @@
+package com.payline.payment.oney.service.impl;
+
+import com.payline.payment.oney.bean.request.OneyTransactionStatusRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static com.payline.payment.oney.bean.common.PurchaseStatus.StatusCode.FAVORABLE;
+import static com.payline.payment.oney.bean.common.PurchaseStatus.StatusCode.FUNDED;
+
+public class TransactionStatusCacheTest {
+
+    private static final String PSP_GUID = "6ba2a5e2-df17-4ad7-8406-6a9fc488a60a";
+    private static final String MERCHANT_GUID = "9813e3ff-c365-43f2-8dca-94b850befbf9";
+
+    private final TransactionStatusCache cache = TransactionStatusCache.INSTANCE;
+
+    @AfterEach
+    public void clear() {
+        cache.clear();
+    }
+
+    @Test
+    public void maxAge() {
+        cache.put(PSP_GUID, MERCHANT_GUID, "CMDE|ref1", FAVORABLE, 1000);
+
+        Assertions.assertEquals(FAVORABLE, cache.get(PSP_GUID, MERCHANT_GUID, "CMDE|ref1", 5000, 6000));
+        Assertions.assertNull(cache.get(PSP_GUID, MERCHANT_GUID, "CMDE|ref1", 5000, 6001));
+        // another caller accepts an older status
+        Assertions.assertEquals(FAVORABLE, cache.get(PSP_GUID, MERCHANT_GUID, "CMDE|ref1", 10000, 6001));
+        // disabled
+        Assertions.assertNull(cache.get(PSP_GUID, MERCHANT_GUID, "CMDE|ref1", 0, 1000));
+    }
+
+    @Test
+    public void timeToLive() {
+        cache.put(PSP_GUID, MERCHANT_GUID, "CMDE|ref1", FAVORABLE, 0);
+
+        Assertions.assertNull(cache.get(PSP_GUID, MERCHANT_GUID, "CMDE|ref1", Long.MAX_VALUE, TransactionStatusCache.TIME_TO_LIVE));
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void keyedByGuidsAndReference() {
+        cache.put(PSP_GUID, MERCHANT_GUID, "CMDE|ref1", FAVORABLE, 0);
+
+        Assertions.assertNull(cache.get(PSP_GUID, MERCHANT_GUID, "CMDE|ref2", 5000, 0));
+        Assertions.assertNull(cache.get(PSP_GUID, "another merchant", "CMDE|ref1", 5000, 0));
+        Assertions.assertNull(cache.get("another psp", MERCHANT_GUID, "CMDE|ref1", 5000, 0));
+    }
+
+    @Test
+    public void request() {
+        OneyTransactionStatusRequest request = OneyTransactionStatusRequest.Builder.aOneyGetStatusRequest()
+                .withPspGuid(PSP_GUID)
+                .withMerchantGuid(MERCHANT_GUID)
+                .withPurchaseReference("CMDE|ref1")
+                .build();
+
+        cache.put(request, FAVORABLE);
+        cache.put(request, FUNDED);
+        Assertions.assertEquals(FUNDED, cache.get(request, 5000));
+
+        cache.invalidate(request);
+        Assertions.assertNull(cache.get(request, 5000));
+    }
+
+    @Test
+    public void sizeEviction() {
+        for (int i = 0; i <= TransactionStatusCache.MAX_SIZE; i++) {
+            cache.put(PSP_GUID, MERCHANT_GUID, "CMDE|" + i, FAVORABLE, i);
+        }
+
+        Assertions.assertTrue(cache.size() <= TransactionStatusCache.MAX_SIZE * 9 / 10);
+        // the newest statuses are kept
+        Assertions.assertEquals(FAVORABLE, cache.get(PSP_GUID, MERCHANT_GUID, "CMDE|" + TransactionStatusCache.MAX_SIZE, 5000, TransactionStatusCache.MAX_SIZE));
+        Assertions.assertNull(cache.get(PSP_GUID, MERCHANT_GUID, "CMDE|0", Long.MAX_VALUE, TransactionStatusCache.MAX_SIZE));
+    }
+}
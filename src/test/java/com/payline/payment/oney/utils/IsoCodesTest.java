@@ -0,0 +1,68 @@
+package com.payline.payment.oney.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+public class IsoCodesTest {
+
+    @Test
+    public void sameAsLocale() {
+        for (String country : Locale.getISOCountries()) {
+            Assertions.assertTrue(IsoCodes.isCountry(country));
+            Assertions.assertEquals(new Locale("", country).getISO3Country(), IsoCodes.getAlpha3(country));
+            Assertions.assertEquals(new Locale("", country).getDisplayCountry(), IsoCodes.getName(country));
+        }
+        for (String language : Locale.getISOLanguages()) {
+            Assertions.assertTrue(IsoCodes.isLanguage(language));
+        }
+    }
+
+    @Test
+    public void notIso() {
+        for (String code : Arrays.asList(null, "", "F", "FRA", "fr", "F1", "ZZ", "@A", "[A")) {
+            Assertions.assertFalse(IsoCodes.isCountry(code), code);
+        }
+        for (String code : Arrays.asList(null, "", "f", "fra", "FR", "zz", "`a", "{a")) {
+            Assertions.assertFalse(IsoCodes.isLanguage(code), code);
+        }
+        Assertions.assertNull(IsoCodes.getAlpha3("ZZ"));
+        Assertions.assertNull(IsoCodes.getName("1A"));
+    }
+
+    @Test
+    public void anyCase() {
+        Assertions.assertEquals("FRA", IsoCodes.getAlpha3("fr"));
+        Assertions.assertEquals("BEL", IsoCodes.getAlpha3("Be"));
+        Assertions.assertEquals(IsoCodes.getName("FR"), IsoCodes.getName("fr"));
+    }
+
+    @Test
+    public void displayLocaleChange() {
+        Locale previous = Locale.getDefault(Locale.Category.DISPLAY);
+        try {
+            Locale.setDefault(Locale.Category.DISPLAY, Locale.ENGLISH);
+            Assertions.assertEquals("Germany", IsoCodes.getName("DE"));
+            Locale.setDefault(Locale.Category.DISPLAY, Locale.FRENCH);
+            Assertions.assertEquals("Allemagne", IsoCodes.getName("DE"));
+        } finally {
+            Locale.setDefault(Locale.Category.DISPLAY, previous);
+        }
+    }
+
+    @Test
+    public void language() {
+        String expected = "";
+        for (Locale locale : Locale.getAvailableLocales()) {
+            if (locale.getCountry().equalsIgnoreCase("BE")) {
+                expected = locale.getLanguage();
+                break;
+            }
+        }
+        Assertions.assertEquals(expected, IsoCodes.getLanguage("BE"));
+        Assertions.assertEquals("", IsoCodes.getLanguage("ZZ"));
+        Assertions.assertEquals("", IsoCodes.getLanguage(null));
+    }
+}
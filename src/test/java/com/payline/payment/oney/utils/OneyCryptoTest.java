@@ -5,6 +5,19 @@ import com.payline.payment.oney.utils.chiffrement.OneyCrypto;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 public class OneyCryptoTest {
 
     private OneyCrypto crypto;
@@ -62,5 +75,78 @@ public class OneyCryptoTest {
 
     }
 
+    @Test
+    public void encryptDecryptBytes() throws DecryptException {
+        crypto = new OneyCrypto("66s581CG5W+RLEqZHAGQx+vskjy660Kt8x8rhtRpXtY=");
+
+        byte[] message = "mon message a chiffrer".getBytes(StandardCharsets.UTF_8);
+        byte[] messageEncrypted = crypto.encrypt(message);
+
+        Assertions.assertEquals("w7wNbi0SYzTRnHmVN3tUUiSveqAUZVyttsUtRbXw8Mk=", Base64.getEncoder().encodeToString(messageEncrypted));
+        Assertions.assertArrayEquals(message, crypto.decrypt(messageEncrypted));
+    }
+
+    @Test
+    public void encryptToBase64() throws DecryptException {
+        crypto = new OneyCrypto("66s581CG5W+RLEqZHAGQx+vskjy660Kt8x8rhtRpXtY=");
+
+        ByteBuffer encrypted = crypto.encryptToBase64(ByteBuffer.wrap("mon message a chiffrer".getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertEquals("w7wNbi0SYzTRnHmVN3tUUiSveqAUZVyttsUtRbXw8Mk=", StandardCharsets.US_ASCII.decode(encrypted).toString());
+    }
+
+    @Test
+    public void streamsInterleavedWithOtherMessages() throws Exception {
+        crypto = new OneyCrypto("66s581CG5W+RLEqZHAGQx+vskjy660Kt8x8rhtRpXtY=");
+        OneyCrypto otherKey = new OneyCrypto("Mb5TasfK3I0ZTeALGxLfgrqL3kYG0+Xy/sfDSEeW9n0=");
+
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        try (OutputStream out = crypto.encryptToBase64(encrypted)) {
+            out.write("mon message ".getBytes(StandardCharsets.UTF_8));
+            // the same thread encrypts and decrypts other messages while the stream is open
+            otherKey.decrypt(otherKey.encrypt("another message"));
+            out.write("a chiffrer".getBytes(StandardCharsets.UTF_8));
+        }
+        Assertions.assertEquals("w7wNbi0SYzTRnHmVN3tUUiSveqAUZVyttsUtRbXw8Mk=", encrypted.toString("US-ASCII"));
+
+        ByteArrayOutputStream decrypted = new ByteArrayOutputStream();
+        try (InputStream in = crypto.decryptFromBase64(new ByteArrayInputStream(encrypted.toByteArray()))) {
+            decrypted.write(in.read());
+            otherKey.encrypt("another message");
+            byte[] buffer = new byte[64];
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                decrypted.write(buffer, 0, n);
+            }
+        }
+        Assertions.assertEquals("mon message a chiffrer", decrypted.toString("UTF-8"));
+    }
+
+    @Test
+    public void decryptWrongMessage() {
+        crypto = new OneyCrypto("66s581CG5W+RLEqZHAGQx+vskjy660Kt8x8rhtRpXtY=");
+
+        Assertions.assertThrows(DecryptException.class, () -> crypto.decrypt("not an encrypted message"));
+    }
+
+    @Test
+    public void concurrentUse() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                final String key = i % 2 == 0 ? "66s581CG5W+RLEqZHAGQx+vskjy660Kt8x8rhtRpXtY=" : "Mb5TasfK3I0ZTeALGxLfgrqL3kYG0+Xy/sfDSEeW9n0=";
+                final String message = "message " + i;
+                results.add(executor.submit(() -> {
+                    OneyCrypto oneyCrypto = new OneyCrypto(key);
+                    return oneyCrypto.decrypt(oneyCrypto.encrypt(message));
+                }));
+            }
+            for (int i = 0; i < 100; i++) {
+                Assertions.assertEquals("message " + i, results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 
 }
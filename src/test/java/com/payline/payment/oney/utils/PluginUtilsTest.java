@@ -397,6 +397,29 @@ public class PluginUtilsTest {
 
     }
 
+    @Test
+    public void getCallContext_sameConfigurations() throws Exception {
+        Map<String, String> partnerConfigurationMap = new HashMap<>();
+        partnerConfigurationMap.put(PARTNER_AUTHORIZATION_KEY + ".be", "PARTNER_AUTHORIZATION_KEY");
+        partnerConfigurationMap.put(PARTNER_API_URL, "PARTNER_API_URL");
+        Whitebox.setInternalState(partnerConfiguration, "partnerConfigurationMap", partnerConfigurationMap);
+        Whitebox.setInternalState(partnerConfiguration, "sensitivePartnerConfigurationMap", new HashMap<>());
+        Map<String, ContractProperty> contractConfigurationMap = new HashMap<>();
+        contractConfigurationMap.put(COUNTRY_CODE_KEY, new ContractProperty("BE"));
+        Whitebox.setInternalState(contractConfiguration, "contractProperties", contractConfigurationMap);
+
+        // the configurations are only read once
+        Assertions.assertSame(getCallContext(paymentRequest), getCallContext(paymentRequest));
+        Assertions.assertEquals("BE", getCallContext(paymentRequest).getCountryCode());
+
+        // other contract properties, another context
+        Map<String, ContractProperty> otherContractMap = new HashMap<>();
+        otherContractMap.put(COUNTRY_CODE_KEY, new ContractProperty("FR"));
+        partnerConfigurationMap.put(PARTNER_AUTHORIZATION_KEY + ".fr", "PARTNER_AUTHORIZATION_KEY");
+        Whitebox.setInternalState(contractConfiguration, "contractProperties", otherContractMap);
+        Assertions.assertEquals("FR", getCallContext(paymentRequest).getCountryCode());
+    }
+
     @Test
     public void testGenerateMerchantRequestId() throws Exception {
 
@@ -0,0 +1,186 @@
+package com.payline.payment.oney.utils.http;
+
+import com.payline.payment.oney.utils.metrics.OneyMetrics;
+import com.payline.pmapi.bean.configuration.PartnerConfiguration;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.payline.payment.oney.utils.OneyConstants.PARTNER_API_URL;
+
+public class AdaptivePoolSizerTest {
+
+    private static final HttpRoute ROUTE = new HttpRoute(new HttpHost("oney.example", 443, "https"));
+    private static final HttpRoute OTHER_ROUTE = new HttpRoute(new HttpHost("oney-other.example", 443, "https"));
+
+    /**
+     * An interval of calls lasting latencyMicros, after waiting waitMicros for their connection.
+     */
+    private static void interval(AdaptivePoolSizer sizer, int calls, long waitMicros, long latencyMicros) {
+        for (int i = 0; i < calls; i++) {
+            sizer.leased(ROUTE, waitMicros);
+            sizer.called(waitMicros + latencyMicros);
+        }
+        for (int i = 0; i < calls; i++) {
+            sizer.released(ROUTE);
+        }
+    }
+
+    @Test
+    public void growsWhenStarved() {
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(2, 20, 5);
+
+        interval(sizer, 10, 20_000, 100_000);
+        Assertions.assertEquals(10, sizer.resize(8, 0));
+
+        // calls pending for a connection, even without any wait measured yet
+        Assertions.assertEquals(12, sizer.resize(10, 3));
+    }
+
+    @Test
+    public void holdsWhenPartnerSlowsDown() {
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(2, 20, 5);
+        interval(sizer, 10, 0, 100_000);
+        Assertions.assertEquals(8, sizer.resize(8, 0));
+
+        // the partner answers twice as slowly: more connections would make it worse
+        interval(sizer, 10, 20_000, 200_000);
+        Assertions.assertEquals(8, sizer.resize(8, 2));
+    }
+
+    @Test
+    public void shrinksWhenIdle() {
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(2, 20, 5);
+        sizer.leased(ROUTE, 0);
+        sizer.leased(ROUTE, 0);
+        sizer.released(ROUTE);
+        sizer.released(ROUTE);
+
+        Assertions.assertEquals(7, sizer.resize(8, 0));
+        // half the pool used at the peak: kept
+        sizer.leased(ROUTE, 0);
+        sizer.leased(ROUTE, 0);
+        sizer.leased(ROUTE, 0);
+        Assertions.assertEquals(6, sizer.resize(6, 0));
+        // the connections still leased count in the next interval
+        Assertions.assertEquals(6, sizer.resize(6, 0));
+    }
+
+    @Test
+    public void peakPerRoute() {
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(2, 20, 5);
+        // 4 connections leased in all, but 2 at most on a route: a quarter of the size per route
+        sizer.leased(ROUTE, 0);
+        sizer.leased(ROUTE, 0);
+        sizer.leased(OTHER_ROUTE, 0);
+        sizer.leased(OTHER_ROUTE, 0);
+        sizer.released(ROUTE);
+        sizer.released(ROUTE);
+        sizer.released(OTHER_ROUTE);
+        sizer.released(OTHER_ROUTE);
+        Assertions.assertEquals(7, sizer.resize(8, 0));
+
+        // the busiest route uses half the size: kept
+        sizer.leased(ROUTE, 0);
+        sizer.leased(OTHER_ROUTE, 0);
+        sizer.leased(OTHER_ROUTE, 0);
+        sizer.leased(OTHER_ROUTE, 0);
+        Assertions.assertEquals(6, sizer.resize(6, 0));
+    }
+
+    @Test
+    public void bounded() {
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(2, 4, 5);
+
+        Assertions.assertEquals(2, sizer.resize(2, 0));
+        Assertions.assertEquals(4, sizer.resize(4, 10));
+        Assertions.assertEquals(2, sizer.bound(1));
+        Assertions.assertEquals(4, sizer.bound(40));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new AdaptivePoolSizer(0, 4, 5));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new AdaptivePoolSizer(5, 4, 5));
+    }
+
+    @Test
+    public void configuration() {
+        Map<String, String> properties = new HashMap<>();
+        Assertions.assertNull(AbstractHttpClient.getPoolSizer(new PartnerConfiguration(properties, new HashMap<>())));
+
+        properties.put(AbstractHttpClient.POOL_ADAPTIVE_MAX_PER_ROUTE, "1");
+        AdaptivePoolSizer sizer = AbstractHttpClient.getPoolSizer(new PartnerConfiguration(properties, new HashMap<>()));
+        Assertions.assertEquals(1, sizer.bound(5));
+        Assertions.assertEquals(1, sizer.bound(0));
+    }
+
+    @Test
+    public void poolStates() throws Exception {
+        try (OneyStubServer server = OneyStubServer.Builder.aOneyStubServer().start()) {
+            Map<String, String> properties = new HashMap<>();
+            properties.put(PARTNER_API_URL, server.getUrl());
+            properties.put(AbstractHttpClient.KEY_CONNECT_TIMEOUT, "1000");
+            properties.put(AbstractHttpClient.CONNECTION_REQUEST_TIMEOUT, "1000");
+            properties.put(AbstractHttpClient.READ_SOCKET_TIMEOUT, "2000");
+            properties.put(AbstractHttpClient.POOL_MAX_SIZE_PER_ROUTE, "3");
+            properties.put(AbstractHttpClient.POOL_ADAPTIVE_MIN_PER_ROUTE, "4");
+            properties.put(AbstractHttpClient.POOL_ADAPTIVE_MAX_PER_ROUTE, "6");
+            properties.put(AbstractHttpClient.POOL_ADAPTIVE_INTERVAL, "3600000");
+            // the first lease of a cold JVM is slow
+            properties.put(AbstractHttpClient.POOL_ADAPTIVE_LEASE_WAIT_THRESHOLD, "1000");
+            String pool;
+            AbstractHttpClient client = new AbstractHttpClient(new PartnerConfiguration(properties, new HashMap<>())) {
+            };
+            try {
+                Assertions.assertEquals(2, client.openConnections(server.getUrl(), 2));
+
+                String[] states = client.getPoolStates();
+                pool = states[0].split(" ")[0];
+                // the configured size is brought within the bounds
+                Assertions.assertTrue(states[0].endsWith("leased=0 available=0 pending=0 max=20 maxPerRoute=4"), states[0]);
+                // the connections are opened in the pool of the asynchronous calls
+                Assertions.assertEquals(3, states.length);
+                Assertions.assertTrue(states[1].startsWith(pool + "-async "), states[1]);
+                Assertions.assertTrue(states[1].endsWith("leased=0 available=2 pending=0 max=20 maxPerRoute=4"), states[1]);
+                Assertions.assertTrue(states[2].endsWith("leased=0 available=2 pending=0 max=4"), states[2]);
+                Assertions.assertTrue(Arrays.asList(OneyMetrics.INSTANCE.getPools()).containsAll(Arrays.asList(states)));
+
+                // nothing leased during the interval
+                long resizes = OneyMetrics.INSTANCE.getPoolResizeCount();
+                client.resizePool();
+                Assertions.assertTrue(client.getPoolStates()[0].endsWith("maxPerRoute=4"), client.getPoolStates()[0]);
+                Assertions.assertTrue(client.getPoolStates()[1].endsWith("maxPerRoute=4"), client.getPoolStates()[1]);
+                Assertions.assertEquals(resizes, OneyMetrics.INSTANCE.getPoolResizeCount());
+            } finally {
+                client.close();
+            }
+            Assertions.assertTrue(Arrays.stream(OneyMetrics.INSTANCE.getPools()).noneMatch(state -> state.startsWith(pool + " ")));
+        }
+    }
+
+    @Test
+    public void overriddenBuilder() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(AbstractHttpClient.KEY_CONNECT_TIMEOUT, "1000");
+        properties.put(AbstractHttpClient.CONNECTION_REQUEST_TIMEOUT, "1000");
+        properties.put(AbstractHttpClient.READ_SOCKET_TIMEOUT, "2000");
+        properties.put(AbstractHttpClient.POOL_ADAPTIVE_MAX_PER_ROUTE, "6");
+        AbstractHttpClient client = new AbstractHttpClient(new PartnerConfiguration(properties, new HashMap<>())) {
+            @Override
+            protected HttpClientBuilder getHttpClientBuilder(PartnerConfiguration partnerConfiguration, RequestConfig requestConfig) {
+                return HttpClientBuilder.create();
+            }
+        };
+        try {
+            // the pool is built whatever the builder
+            Assertions.assertTrue(client.getPoolStates()[0].endsWith("maxPerRoute=5"), client.getPoolStates()[0]);
+            client.resizePool();
+        } finally {
+            client.close();
+        }
+    }
+}
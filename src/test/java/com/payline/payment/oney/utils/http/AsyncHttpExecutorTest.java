@@ -0,0 +1,171 @@
+package com.payline.payment.oney.utils.http;
+
+import com.payline.payment.oney.exception.HttpCallException;
+import com.payline.payment.oney.exception.PluginTechnicalException;
+import org.apache.logging.log4j.ThreadContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.payline.payment.oney.utils.TestUtils.createStringResponse;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncHttpExecutorTest {
+
+    private static final String ROUTE = "https://oney-staging.azure-api.net";
+
+    @Test
+    public void submit_OK() throws Exception {
+        AsyncHttpExecutor executor = new AsyncHttpExecutor(2, 1000);
+        StringResponse response = createStringResponse(200, "OK", "content");
+
+        CompletableFuture<StringResponse> future = executor.submit(ROUTE, () -> CompletableFuture.completedFuture(response));
+
+        assertSame(response, AsyncHttpExecutor.await(future, 5000));
+        assertEquals(0, executor.inFlight(ROUTE));
+    }
+
+    @Test
+    public void submit_exception() {
+        AsyncHttpExecutor executor = new AsyncHttpExecutor(2, 1000);
+
+        CompletableFuture<StringResponse> future = executor.submit(ROUTE,
+                () -> AsyncHttpExecutor.failed(new HttpCallException("foo", "bar")));
+
+        assertThrows(HttpCallException.class, () -> AsyncHttpExecutor.await(future, 5000));
+    }
+
+    @Test
+    public void submit_saturatedRoute() throws Exception {
+        AsyncHttpExecutor executor = new AsyncHttpExecutor(1, 50);
+        CompletableFuture<StringResponse> pending = new CompletableFuture<>();
+
+        CompletableFuture<StringResponse> first = executor.submit(ROUTE, () -> pending);
+        assertEquals(1, executor.inFlight(ROUTE));
+
+        // another route is not affected
+        CompletableFuture<StringResponse> otherRoute = executor.submit("https://other.route", () -> CompletableFuture.completedFuture(createStringResponse(200, "OK", "content")));
+        assertEquals(200, AsyncHttpExecutor.await(otherRoute, 5000).getCode());
+
+        CompletableFuture<StringResponse> second = executor.submit(ROUTE, () -> CompletableFuture.completedFuture(createStringResponse(200, "OK", "content")));
+        PluginTechnicalException e = assertThrows(PluginTechnicalException.class, () -> AsyncHttpExecutor.await(second, 5000));
+        assertTrue(e instanceof HttpCallException);
+
+        pending.complete(createStringResponse(200, "OK", "content"));
+        assertEquals(200, AsyncHttpExecutor.await(first, 5000).getCode());
+    }
+
+    @Test
+    public void submit_saturatedMerchant() throws Exception {
+        AsyncHttpExecutor executor = new AsyncHttpExecutor(10, 1000, 1, 0, 1, 200);
+        CompletableFuture<StringResponse> pending = new CompletableFuture<>();
+
+        CompletableFuture<StringResponse> first = executor.submit(ROUTE, "merchant1", "BE", () -> pending);
+        assertEquals(1, executor.merchantInFlight("merchant1"));
+
+        // the other merchants of the country still get the route
+        CompletableFuture<StringResponse> otherMerchant = executor.submit(ROUTE, "merchant2", "BE", () -> CompletableFuture.completedFuture(createStringResponse(200, "OK", "content")));
+        assertEquals(200, AsyncHttpExecutor.await(otherMerchant, 5000).getCode());
+
+        // whatever the country
+        CompletableFuture<StringResponse> second = executor.submit(ROUTE, "merchant1", "FR", () -> CompletableFuture.completedFuture(createStringResponse(200, "OK", "content")));
+        HttpCallException e = assertThrows(HttpCallException.class, () -> AsyncHttpExecutor.await(second, 5000));
+        assertTrue(e.getMessage().contains("merchant merchant1"));
+
+        pending.complete(createStringResponse(200, "OK", "content"));
+        assertEquals(200, AsyncHttpExecutor.await(first, 5000).getCode());
+        // the permit is released once the future is completed
+        CompletableFuture<StringResponse> third = executor.submit(ROUTE, "merchant1", "BE", () -> CompletableFuture.completedFuture(createStringResponse(200, "OK", "content")));
+        assertEquals(200, AsyncHttpExecutor.await(third, 5000).getCode());
+    }
+
+    @Test
+    public void submit_saturatedCountry() throws Exception {
+        AsyncHttpExecutor executor = new AsyncHttpExecutor(10, 1000, 0, 1, 1, 200);
+        CompletableFuture<StringResponse> pending = new CompletableFuture<>();
+
+        CompletableFuture<StringResponse> first = executor.submit(ROUTE, "merchant1", "BE", () -> pending);
+        assertEquals(1, executor.countryInFlight("BE"));
+        assertEquals(0, executor.merchantInFlight("merchant1"));
+
+        // the other countries still get the route
+        CompletableFuture<StringResponse> otherCountry = executor.submit(ROUTE, "merchant1", "FR", () -> CompletableFuture.completedFuture(createStringResponse(200, "OK", "content")));
+        assertEquals(200, AsyncHttpExecutor.await(otherCountry, 5000).getCode());
+
+        // whatever the merchant
+        CompletableFuture<StringResponse> second = executor.submit(ROUTE, "merchant2", "BE", () -> CompletableFuture.completedFuture(createStringResponse(200, "OK", "content")));
+        HttpCallException e = assertThrows(HttpCallException.class, () -> AsyncHttpExecutor.await(second, 5000));
+        assertTrue(e.getMessage().contains("country BE"));
+
+        pending.complete(createStringResponse(200, "OK", "content"));
+        assertEquals(200, AsyncHttpExecutor.await(first, 5000).getCode());
+        assertEquals(0, executor.countryInFlight("BE"));
+    }
+
+    @Test
+    public void submit_logContext() throws Exception {
+        AsyncHttpExecutor executor = new AsyncHttpExecutor(1, 1000);
+        AtomicReference<String> transaction = new AtomicReference<>();
+        ThreadContext.put("transactionId", "123456");
+        try {
+            CompletableFuture<StringResponse> future = executor.submit(ROUTE, () -> {
+                transaction.set(ThreadContext.get("transactionId"));
+                return CompletableFuture.completedFuture(createStringResponse(200, "OK", "content"));
+            });
+            AsyncHttpExecutor.await(future, 5000);
+        } finally {
+            ThreadContext.clearAll();
+        }
+
+        assertEquals("123456", transaction.get());
+    }
+
+    @Test
+    public void submit_queueFull() throws Exception {
+        AsyncHttpExecutor executor = new AsyncHttpExecutor(1, 5000);
+        CompletableFuture<StringResponse> pending = new CompletableFuture<>();
+        AsyncHttpExecutor.HttpCall blocked = () -> pending;
+
+        // the slot of the route is taken, then the queue is full
+        List<CompletableFuture<StringResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 1 + AsyncHttpExecutor.MAX_QUEUED_CALLS; i++) {
+            futures.add(executor.submit(ROUTE, blocked));
+        }
+
+        CompletableFuture<StringResponse> rejected = executor.submit(ROUTE, blocked);
+        assertTrue(rejected.isCompletedExceptionally());
+        HttpCallException e = assertThrows(HttpCallException.class, () -> AsyncHttpExecutor.await(rejected, 5000));
+        assertTrue(e.getMessage().contains("Too many requests"));
+
+        // the waiting calls start one after the other
+        pending.complete(createStringResponse(200, "OK", "content"));
+        for (CompletableFuture<StringResponse> future : futures) {
+            assertEquals(200, AsyncHttpExecutor.await(future, 5000).getCode());
+        }
+        assertEquals(0, executor.inFlight(ROUTE));
+    }
+
+    @Test
+    public void submit_waitTimeout() {
+        AsyncHttpExecutor executor = new AsyncHttpExecutor(1, 50);
+        CompletableFuture<StringResponse> pending = new CompletableFuture<>();
+        executor.submit(ROUTE, () -> pending);
+
+        // waits for the slot without holding a thread, then gives up
+        CompletableFuture<StringResponse> second = executor.submit(ROUTE, () -> pending);
+        assertFalse(second.isDone());
+        assertThrows(HttpCallException.class, () -> AsyncHttpExecutor.await(second, 5000));
+        assertEquals(1, executor.inFlight(ROUTE));
+    }
+
+    @Test
+    public void await_timeout() {
+        CompletableFuture<StringResponse> future = new CompletableFuture<>();
+
+        HttpCallException e = assertThrows(HttpCallException.class, () -> AsyncHttpExecutor.await(future, 50));
+        assertTrue(e.getMessage().contains("50ms"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.payline.payment.oney.utils.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkheadTest {
+
+    @Test
+    public void acquireAndRelease() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("merchant/BE", 2, 0);
+
+        assertTrue(bulkhead.acquire(0).get());
+        assertTrue(bulkhead.acquire(0).get());
+        assertFalse(bulkhead.acquire(0).get());
+        assertEquals(2, bulkhead.inFlight());
+
+        bulkhead.release();
+        assertTrue(bulkhead.acquire(0).get());
+    }
+
+    @Test
+    public void waitingQueueFull() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("merchant/BE", 1, 1);
+        assertTrue(bulkhead.acquire(0).get());
+
+        CompletableFuture<Boolean> waiter = bulkhead.acquire(5000);
+        assertFalse(waiter.isDone());
+        assertEquals(1, bulkhead.waiting());
+
+        // the queue is full: rejected without waiting
+        CompletableFuture<Boolean> rejected = bulkhead.acquire(5000);
+        assertTrue(rejected.isDone());
+        assertFalse(rejected.get());
+
+        // the permit goes to the waiting caller
+        bulkhead.release();
+        assertTrue(waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(1, bulkhead.inFlight());
+        assertEquals(0, bulkhead.waiting());
+    }
+
+    @Test
+    public void waitTimeout() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("merchant/BE", 1, 1);
+        assertTrue(bulkhead.acquire(0).get());
+
+        long start = System.currentTimeMillis();
+        assertFalse(bulkhead.acquire(50).get(5, TimeUnit.SECONDS));
+
+        assertTrue(System.currentTimeMillis() - start >= 50);
+        assertEquals(0, bulkhead.waiting());
+        // the permit released later is not given to the expired caller
+        bulkhead.release();
+        assertEquals(0, bulkhead.inFlight());
+    }
+
+    @Test
+    public void cancelledWaiter() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("merchant/BE", 1, 2);
+        assertTrue(bulkhead.acquire(0).get());
+        CompletableFuture<Boolean> cancelled = bulkhead.acquire(5000);
+        CompletableFuture<Boolean> next = bulkhead.acquire(5000);
+
+        cancelled.cancel(false);
+        bulkhead.release();
+
+        assertTrue(next.get(5, TimeUnit.SECONDS));
+        assertEquals(1, bulkhead.inFlight());
+    }
+}
@@ -0,0 +1,140 @@
+package com.payline.payment.oney.utils.http;
+
+import com.payline.payment.oney.bean.request.OneyTransactionStatusRequest;
+import com.payline.payment.oney.exception.HttpCallException;
+import com.payline.payment.oney.utils.PluginUtils;
+import com.payline.pmapi.bean.configuration.PartnerConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.payline.payment.oney.utils.OneyConstants.PARTNER_API_URL;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    private static CircuitBreaker circuit() {
+        return new CircuitBreaker("test", new CircuitBreaker.Settings(4, 4, 50, 1000, 100, 10000, 2));
+    }
+
+    @Test
+    public void staysClosedBelowMinimumCalls() {
+        CircuitBreaker circuit = circuit();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(circuit.tryAcquire(0));
+            circuit.onResult(10, true, 0);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.getState());
+    }
+
+    @Test
+    public void opensOnFailureRate() {
+        CircuitBreaker circuit = circuit();
+        circuit.onResult(10, false, 0);
+        circuit.onResult(10, false, 0);
+        circuit.onResult(10, true, 0);
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.getState());
+
+        circuit.onResult(10, true, 0);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuit.getState());
+        assertFalse(circuit.tryAcquire(9999));
+    }
+
+    @Test
+    public void slidingWindowForgetsOldCalls() {
+        CircuitBreaker circuit = circuit();
+        circuit.onResult(10, true, 0);
+        for (int i = 0; i < 4; i++) {
+            circuit.onResult(10, false, 0);
+        }
+        circuit.onResult(10, true, 0);
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.getState());
+    }
+
+    @Test
+    public void opensOnSlowCalls() {
+        CircuitBreaker circuit = circuit();
+        for (int i = 0; i < 4; i++) {
+            circuit.onResult(1000, false, 0);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuit.getState());
+    }
+
+    @Test
+    public void halfOpenProbesClose() {
+        CircuitBreaker circuit = circuit();
+        for (int i = 0; i < 4; i++) {
+            circuit.onResult(10, true, 0);
+        }
+
+        assertTrue(circuit.tryAcquire(10000));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuit.getState());
+        assertTrue(circuit.tryAcquire(10000));
+        assertFalse(circuit.tryAcquire(10000));
+        circuit.onResult(10, false, 10000);
+        circuit.onResult(10, false, 10000);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.getState());
+        assertTrue(circuit.tryAcquire(10000));
+    }
+
+    @Test
+    public void halfOpenProbesReopen() {
+        CircuitBreaker circuit = circuit();
+        for (int i = 0; i < 4; i++) {
+            circuit.onResult(10, true, 0);
+        }
+
+        circuit.tryAcquire(10000);
+        circuit.tryAcquire(10000);
+        circuit.onResult(10, true, 10000);
+        circuit.onResult(10, false, 10000);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuit.getState());
+        assertFalse(circuit.tryAcquire(19999));
+        assertTrue(circuit.tryAcquire(20000));
+    }
+
+    @Test
+    public void disabled() {
+        Map<String, String> partnerConfiguration = new HashMap<>();
+        partnerConfiguration.put(OneyHttpClient.CIRCUIT_WINDOW_SIZE, "0");
+
+        assertFalse(AbstractHttpClient.getCircuitSettings(new PartnerConfiguration(partnerConfiguration, new HashMap<>())).isEnabled());
+    }
+
+    @Test
+    public void failsFast() throws Exception {
+        try (OneyStubServer server = OneyStubServer.Builder.aOneyStubServer()
+                .withFault(OneyStubServer.Fault.SERVER_ERROR, 1)
+                .start()) {
+            Map<String, String> partnerConfiguration = new HashMap<>();
+            partnerConfiguration.put(OneyHttpClient.KEY_CONNECT_TIMEOUT, "1000");
+            partnerConfiguration.put(OneyHttpClient.CONNECTION_REQUEST_TIMEOUT, "1000");
+            partnerConfiguration.put(OneyHttpClient.READ_SOCKET_TIMEOUT, "2000");
+            partnerConfiguration.put(OneyHttpClient.RETRY_MAX_ATTEMPTS, "1");
+            partnerConfiguration.put(OneyHttpClient.CIRCUIT_WINDOW_SIZE, "3");
+            partnerConfiguration.put(OneyHttpClient.CIRCUIT_MINIMUM_CALLS, "3");
+            OneyHttpClient client = OneyHttpClient.getInstance(new PartnerConfiguration(partnerConfiguration, new HashMap<>()));
+
+            Map<String, String> params = new HashMap<>();
+            params.put(PARTNER_API_URL, server.getUrl());
+            OneyTransactionStatusRequest request = OneyTransactionStatusRequest.Builder.aOneyGetStatusRequest()
+                    .withLanguageCode("FR")
+                    .withMerchantGuid("9813e3ff-c365-43f2-8dca-94b850befbf9")
+                    .withPspGuid("6ba2a5e2-df17-4ad7-8406-6a9fc488a60a")
+                    .withPurchaseReference(PluginUtils.fullPurchaseReference("ref1"))
+                    .withCallParameters(params)
+                    .build();
+
+            for (int i = 0; i < 3; i++) {
+                assertEquals(500, client.initiateGetTransactionStatus(request, false).getCode());
+            }
+            HttpCallException e = assertThrows(HttpCallException.class, () -> client.initiateGetTransactionStatus(request, false));
+            assertTrue(e.getMessage().startsWith("Circuit open"));
+            assertEquals(3, server.getRequests());
+        }
+    }
+}
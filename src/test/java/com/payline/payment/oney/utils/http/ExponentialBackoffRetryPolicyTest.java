@@ -0,0 +1,63 @@
+package com.payline.payment.oney.utils.http;
+
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExponentialBackoffRetryPolicyTest {
+
+    private static final String URL = "https://oney-staging.azure-api.net/payments/v1/purchase";
+
+    private final ExponentialBackoffRetryPolicy policy = new ExponentialBackoffRetryPolicy(3, 100, 250, 1000);
+
+    @Test
+    public void get_retriedOnAnyIOException() {
+        assertTrue(policy.retryDelay(new HttpGet(URL), new SocketTimeoutException(), 1, 0) >= 0);
+        assertTrue(policy.retryDelay(new HttpGet(URL), new IOException(), 2, 0) >= 0);
+    }
+
+    @Test
+    public void post_retriedOnConnectFailureOnly() {
+        assertTrue(policy.retryDelay(new HttpPost(URL), new ConnectException(), 1, 0) >= 0);
+        assertTrue(policy.retryDelay(new HttpPost(URL), new ConnectTimeoutException(), 1, 0) >= 0);
+        assertTrue(policy.retryDelay(new HttpPost(URL), new SocketTimeoutException(), 1, 0) < 0);
+        assertTrue(policy.retryDelay(new HttpPost(URL), new IOException(), 1, 0) < 0);
+    }
+
+    @Test
+    public void post_notRetriedOnPoolTimeout() {
+        assertFalse(ExponentialBackoffRetryPolicy.isConnectFailure(new ConnectionPoolTimeoutException()));
+        assertTrue(policy.retryDelay(new HttpPost(URL), new ConnectionPoolTimeoutException(), 1, 0) < 0);
+    }
+
+    @Test
+    public void maxAttempts() {
+        assertTrue(policy.retryDelay(new HttpGet(URL), new IOException(), 3, 0) < 0);
+    }
+
+    @Test
+    public void deadline() {
+        assertTrue(policy.retryDelay(new HttpGet(URL), new IOException(), 1, 1000) < 0);
+    }
+
+    @Test
+    public void backoff() {
+        assertEquals(100, policy.backoffCeiling(1));
+        assertEquals(200, policy.backoffCeiling(2));
+        assertEquals(250, policy.backoffCeiling(3));
+        assertEquals(250, policy.backoffCeiling(100));
+
+        for (int i = 0; i < 100; i++) {
+            long delay = policy.retryDelay(new HttpGet(URL), new IOException(), 2, 0);
+            assertTrue(delay >= 0 && delay <= 200);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.payline.payment.oney.utils.http;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Http2TransportTest {
+
+    private TlsStubServer server;
+    private Http2Transport transport;
+
+    @AfterEach
+    public void stop() {
+        if (transport != null) {
+            transport.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void multiplexed() throws Exception {
+        server = TlsStubServer.start(true, 200);
+        transport = new Http2Transport(1000, 2000, TlsStubServer.sslContext(), request -> {
+            throw new AssertionError("no fallback expected");
+        });
+
+        // the connection is opened first: concurrent first calls may each open one
+        Assertions.assertEquals(200, transport.execute(new HttpGet(server.getUrl() + "/order")).getCode());
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            List<Future<StringResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                String path = "/order/" + i;
+                responses.add(executor.submit(() -> transport.execute(new HttpGet(server.getUrl() + path))));
+            }
+            for (int i = 0; i < 10; i++) {
+                StringResponse response = responses.get(i).get();
+                Assertions.assertEquals(200, response.getCode());
+                Assertions.assertEquals("OK", response.getMessage());
+                Assertions.assertEquals("GET /order/" + i, response.getContent());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(1, server.getConnections());
+        Assertions.assertEquals(11, server.getProtocols().size());
+        server.getProtocols().forEach(protocol -> Assertions.assertEquals("HTTP/2.0", protocol));
+        Assertions.assertTrue(transport.isHttp2(server.getUrl()));
+    }
+
+    @Test
+    public void fallbackToHttp1() throws Exception {
+        server = TlsStubServer.start(false, 0);
+        AtomicInteger fallbacks = new AtomicInteger();
+        AsyncTransport http1 = new AsyncTransport(1000, 1000, 2000, 5, 10, -1, null, 0, 0, TlsStubServer.sslContext(), null);
+        try {
+            transport = new Http2Transport(1000, 2000, TlsStubServer.sslContext(), request -> {
+                fallbacks.incrementAndGet();
+                return http1.execute(request);
+            });
+
+            for (int i = 0; i < 2; i++) {
+                HttpPost post = new HttpPost(server.getUrl() + "/orders");
+                post.setEntity(new StringEntity("{\"i\":" + i + "}", ContentType.APPLICATION_JSON));
+
+                StringResponse response = transport.execute(post);
+
+                Assertions.assertEquals(200, response.getCode());
+                Assertions.assertEquals("POST /orders {\"i\":" + i + "}", response.getContent());
+            }
+        } finally {
+            http1.close();
+        }
+
+        // the second call goes straight to HTTP/1.1
+        Assertions.assertEquals(2, fallbacks.get());
+        Assertions.assertEquals(2, server.getProtocols().size());
+        server.getProtocols().forEach(protocol -> Assertions.assertEquals("HTTP/1.1", protocol));
+        Assertions.assertFalse(transport.isHttp2(server.getUrl()));
+    }
+
+    @Test
+    public void proxiedHostCalledOverHttp1() throws Exception {
+        server = TlsStubServer.start(true, 0);
+        AtomicInteger fallbacks = new AtomicInteger();
+        ProxySelector systemProxies = ProxySelector.getDefault();
+        ProxySelector.setDefault(new ProxySelector() {
+            @Override
+            public List<Proxy> select(URI uri) {
+                return Collections.singletonList(new Proxy(Proxy.Type.HTTP, new InetSocketAddress("proxy.test", 3128)));
+            }
+
+            @Override
+            public void connectFailed(URI uri, SocketAddress sa, IOException ioe) {
+                // ras
+            }
+        });
+        try {
+            transport = new Http2Transport(1000, 2000, TlsStubServer.sslContext(), request -> {
+                fallbacks.incrementAndGet();
+                StringResponse strResponse = new StringResponse();
+                strResponse.setCode(200);
+                return CompletableFuture.completedFuture(strResponse);
+            });
+
+            Assertions.assertEquals(200, transport.execute(new HttpGet(server.getUrl() + "/order")).getCode());
+        } finally {
+            ProxySelector.setDefault(systemProxies);
+        }
+
+        // the HTTP/2 client does not go through the proxy: the host is not called directly
+        Assertions.assertEquals(1, fallbacks.get());
+        Assertions.assertEquals(0, server.getConnections());
+    }
+
+    @Test
+    public void postNotSentAgainAfterPreface() throws Exception {
+        AtomicInteger fallbacks = new AtomicInteger();
+        try (OneyStubServer http1 = OneyStubServer.Builder.aOneyStubServer().start()) {
+            // without TLS there is no ALPN: the HTTP/1.1 host only finds out on the HTTP/2 preface
+            transport = new Http2Transport(1000, 2000, TlsStubServer.sslContext(), request -> {
+                fallbacks.incrementAndGet();
+                StringResponse strResponse = new StringResponse();
+                strResponse.setCode(200);
+                return CompletableFuture.completedFuture(strResponse);
+            });
+
+            HttpPost post = new HttpPost(http1.getUrl() + "/orders");
+            post.setEntity(new StringEntity("{}", ContentType.APPLICATION_JSON));
+            // the request may have been written before the connection was closed
+            Assertions.assertThrows(IOException.class, () -> transport.execute(post));
+            Assertions.assertEquals(0, fallbacks.get());
+
+            // the host is now known to speak HTTP/1.1 only
+            Assertions.assertEquals(200, transport.execute(post).getCode());
+            Assertions.assertEquals(1, fallbacks.get());
+        }
+    }
+
+    @Test
+    public void getSentAgainAfterPreface() throws Exception {
+        AtomicInteger fallbacks = new AtomicInteger();
+        try (OneyStubServer http1 = OneyStubServer.Builder.aOneyStubServer().start()) {
+            transport = new Http2Transport(1000, 2000, TlsStubServer.sslContext(), request -> {
+                fallbacks.incrementAndGet();
+                StringResponse strResponse = new StringResponse();
+                strResponse.setCode(200);
+                return CompletableFuture.completedFuture(strResponse);
+            });
+
+            Assertions.assertEquals(200, transport.execute(new HttpGet(http1.getUrl() + "/orders")).getCode());
+            Assertions.assertEquals(1, fallbacks.get());
+        }
+    }
+
+    @Test
+    public void copy() throws Exception {
+        HttpPost post = new HttpPost("https://oney.example/staging/payments/v1/purchase");
+        post.setHeader("Authorization", "key");
+        post.setHeader("Connection", "keep-alive");
+        post.setEntity(new StringEntity("{\"a\":1}", ContentType.APPLICATION_JSON));
+
+        SimpleHttpRequest copy = Http2Transport.copy(post);
+
+        Assertions.assertEquals("POST", copy.getMethod());
+        Assertions.assertEquals("/staging/payments/v1/purchase", copy.getPath());
+        Assertions.assertEquals("key", copy.getFirstHeader("Authorization").getValue());
+        Assertions.assertNull(copy.getFirstHeader("Connection"));
+        Assertions.assertEquals("{\"a\":1}", copy.getBodyText());
+        Assertions.assertEquals("application/json", copy.getBody().getContentType().getMimeType());
+    }
+
+    @Test
+    public void toStringResponse() {
+        SimpleHttpResponse response = SimpleHttpResponse.create(404, "{\"error\":1}",
+                org.apache.hc.core5.http.ContentType.APPLICATION_JSON);
+
+        StringResponse strResponse = Http2Transport.toStringResponse(response);
+
+        Assertions.assertEquals(404, strResponse.getCode());
+        Assertions.assertEquals("Not Found", strResponse.getMessage());
+        Assertions.assertEquals("{\"error\":1}", strResponse.getContent());
+    }
+}
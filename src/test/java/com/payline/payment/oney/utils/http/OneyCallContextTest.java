@@ -0,0 +1,72 @@
+package com.payline.payment.oney.utils.http;
+
+import org.apache.http.Header;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.payline.payment.oney.utils.OneyConstants.*;
+
+public class OneyCallContextTest {
+
+    @Test
+    public void sharedByContract() {
+        OneyCallContext context = OneyCallContext.of("key", "https://oney-staging.azure-api.net", "fr");
+
+        Assertions.assertSame(context, OneyCallContext.of("key", "https://oney-staging.azure-api.net", "FR"));
+        Assertions.assertNotSame(context, OneyCallContext.of("key", "https://oney-staging.azure-api.net", "BE"));
+        Assertions.assertNotSame(context, OneyCallContext.of("another key", "https://oney-staging.azure-api.net", "FR"));
+        // the HTTP client finds the context back from the parameters
+        Assertions.assertSame(context, OneyCallContext.of(context.getParameters()));
+        Assertions.assertSame(context, OneyCallContext.of(new HashMap<>(context.getParameters())));
+    }
+
+    @Test
+    public void parametersAndHeaders() {
+        OneyCallContext context = OneyCallContext.of("key", "https://oney-staging.azure-api.net", "fr");
+        Map<String, String> parameters = context.getParameters();
+
+        Assertions.assertEquals(4, parameters.size());
+        Assertions.assertEquals("key", parameters.get(PARTNER_AUTHORIZATION_KEY));
+        Assertions.assertEquals("https://oney-staging.azure-api.net", parameters.get(PARTNER_API_URL));
+        Assertions.assertEquals("FR", parameters.get(HEADER_COUNTRY_CODE));
+        Assertions.assertNotNull(parameters.get(SECRET_KEY));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> parameters.put(PSP_GUID_KEY, "psp"));
+
+        Header[] headers = context.getHeaders();
+        Assertions.assertEquals(4, headers.length);
+        Assertions.assertEquals(CONTENT_TYPE_VALUE, headers[0].getValue());
+        Assertions.assertEquals("key", headers[1].getValue());
+        Assertions.assertEquals("FR", headers[2].getValue());
+        Assertions.assertEquals(parameters.get(SECRET_KEY), headers[3].getValue());
+    }
+
+    @Test
+    public void guidsAndKey() {
+        OneyCallContext context = OneyCallContext.of("key", "https://oney-staging.azure-api.net", "fr", "psp", "merchant", "secret");
+
+        Assertions.assertSame(context, OneyCallContext.of("key", "https://oney-staging.azure-api.net", "FR", "psp", "merchant", "secret"));
+        Assertions.assertNotSame(context, OneyCallContext.of("key", "https://oney-staging.azure-api.net", "FR", "psp", "merchant2", "secret"));
+        Assertions.assertNotSame(context, OneyCallContext.of("key", "https://oney-staging.azure-api.net", "FR"));
+        Assertions.assertEquals("psp", context.getPspGuid());
+        Assertions.assertEquals("merchant", context.getMerchantGuid());
+        Assertions.assertEquals("secret", context.getEncryptKey());
+        // the parameters lead back to their context, GUIDs included
+        Assertions.assertSame(context, OneyCallContext.of(context.getParameters()));
+        Assertions.assertEquals(4, context.getParameters().size());
+    }
+
+    @Test
+    public void bounded() {
+        OneyCallContext used = OneyCallContext.of("used", "https://oney-staging.azure-api.net", "FR");
+        for (int i = 0; i < OneyCallContext.MAX_SIZE + 10; i++) {
+            OneyCallContext.of("key" + i, "https://oney-staging.azure-api.net", "FR");
+            // the context in use is never the least recently used one
+            OneyCallContext.of("used", "https://oney-staging.azure-api.net", "FR");
+        }
+        Assertions.assertEquals(OneyCallContext.MAX_SIZE, OneyCallContext.size());
+        Assertions.assertSame(used, OneyCallContext.of("used", "https://oney-staging.azure-api.net", "FR"));
+    }
+}
@@ -3,6 +3,8 @@ package com.payline.payment.oney.utils.http;
 import com.payline.payment.oney.bean.common.PurchaseCancel;
 import com.payline.payment.oney.bean.request.OneyRefundRequest;
 import com.payline.payment.oney.bean.request.OneyTransactionStatusRequest;
+import com.payline.payment.oney.exception.HttpCallException;
+import com.payline.payment.oney.exception.PluginTechnicalException;
 import com.payline.payment.oney.utils.OneyConstants;
 import com.payline.payment.oney.utils.PluginUtils;
 import com.payline.pmapi.bean.configuration.PartnerConfiguration;
@@ -22,16 +24,30 @@ import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.reflect.Whitebox;
 
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 import java.io.IOException;
-import java.net.URLEncoder;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
 
 import static com.payline.payment.oney.utils.OneyConstants.PARTNER_API_URL;
 import static com.payline.payment.oney.utils.TestUtils.createStringResponse;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @PrepareForTest(AbstractHttpClient.class)
@@ -71,7 +87,7 @@ public class OneyHttpClientTest {
         params = new HashMap<>();
         params.put("psp_guid", "6ba2a5e2-df17-4ad7-8406-6a9fc488a60a");
         params.put("merchant_guid", "9813e3ff-c365-43f2-8dca-94b850befbf9");
-        params.put("reference", URLEncoder.encode(PluginUtils.fullPurchaseReference("455454545415451198a")));
+        params.put("reference", PluginUtils.fullPurchaseReference("455454545415451198a"));
         params.put(PARTNER_API_URL, "https://oney-staging.azure-api.net");
 
         urlParams = new HashMap<>();
@@ -117,6 +133,43 @@ public class OneyHttpClientTest {
 
     }
 
+    @Test
+    public void doPost_retryOnConnectFailure() throws Exception {
+        CloseableHttpResponse httpResponse = Mockito.mock(CloseableHttpResponse.class);
+        Mockito.when(httpResponse.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "FINE!"));
+        Mockito.doThrow(new ConnectException()).doReturn(httpResponse).when(closableClient).execute(Mockito.any());
+        Mockito.doNothing().when(testedClient).sleep(Mockito.anyLong());
+        long secondAttempts = testedClient.getAttemptCount(2);
+
+        StringResponse response = testedClient.doPost("/staging/payments/v1/purchase/facilypay_url", HttpDataUtils.CREATE_REQ_BODY, params);
+
+        assertEquals(200, response.getCode());
+        Mockito.verify(closableClient, Mockito.times(2)).execute(Mockito.any());
+        assertEquals(secondAttempts + 1, testedClient.getAttemptCount(2));
+    }
+
+    @Test
+    public void doPost_noRetryOnReadTimeout() throws Exception {
+        Mockito.doThrow(new SocketTimeoutException("Read timed out")).when(closableClient).execute(Mockito.any());
+        Mockito.doNothing().when(testedClient).sleep(Mockito.anyLong());
+        long exhausted = testedClient.getExhaustedCount();
+
+        assertThrows(HttpCallException.class, () -> testedClient.doPost("/staging/payments/v1/purchase/facilypay_url", HttpDataUtils.CREATE_REQ_BODY, params));
+
+        Mockito.verify(closableClient, Mockito.times(1)).execute(Mockito.any());
+        assertEquals(exhausted + 1, testedClient.getExhaustedCount());
+    }
+
+    @Test
+    public void doGet_retryOnReadTimeout() throws Exception {
+        Mockito.doThrow(new SocketTimeoutException("Read timed out")).when(closableClient).execute(Mockito.any());
+        Mockito.doNothing().when(testedClient).sleep(Mockito.anyLong());
+
+        assertThrows(HttpCallException.class, () -> testedClient.doGet("/staging/payments/v1/purchase/", params, urlParams));
+
+        Mockito.verify(closableClient, Mockito.times(ExponentialBackoffRetryPolicy.DEFAULT_MAX_ATTEMPTS)).execute(Mockito.any());
+    }
+
     @Test
     public void buildGetOrderPath() {
 
@@ -144,13 +197,39 @@ public class OneyHttpClientTest {
         assertEquals(pathAttempted, path);
     }
 
+    @Test
+    public void resolve() throws Exception {
+        assertEquals("https://host/staging/payments/v1/purchase/reference/CMDE%7C1?language_code=fr",
+                testedClient.resolve("https://host", "/staging/payments/v1/purchase/reference/CMDE%7C1?language_code=fr").toString());
+        // the path of the URL is kept, as in a concatenation
+        assertEquals("https://host/api/payments/v1/purchase", testedClient.resolve("https://host/api", "/payments/v1/purchase").toString());
+        assertEquals("https://host/api/payments/v1/purchase", testedClient.resolve("https://host/api/", "/payments/v1/purchase").toString());
+        assertThrows(URISyntaxException.class, () -> testedClient.resolve("https://host name", "/payments/v1/purchase"));
+    }
+
+    @Test
+    public void sharedSslContext() throws Exception {
+        // the HTTPS calls of HttpClient 4 and 5 share the default TLS settings
+        assertSame(SSLContext.getDefault(), AbstractHttpClient.getSharedSslContext());
+
+        SSLSocketFactory defaultFactory = HttpsURLConnection.getDefaultSSLSocketFactory();
+        SSLContext otherContext = SSLContext.getInstance("TLS");
+        otherContext.init(null, null, null);
+        HttpsURLConnection.setDefaultSSLSocketFactory(otherContext.getSocketFactory());
+        try {
+            assertNull(AbstractHttpClient.getSharedSslContext());
+        } finally {
+            HttpsURLConnection.setDefaultSSLSocketFactory(defaultFactory);
+        }
+    }
+
     @Test
     public void initiateGetTransactionStatusTest() throws Exception {
 
         StringResponse responseMockedOK = createStringResponse(200, "ZZOK", "{\"content\":\"{\\\"encrypted_message\\\":\\\"+l2i0o7hGRh+wJO02++ul41+5xLG5BBT+jV4I19n1BxNgTTBkgClTslC3pM/0UXrEOJt3Nv3LTMrGFG1pzsOP6gxM5c+lw57K0YUbQqoGgI\\u003d\\\"}\",\"code\":200,\"message\":\"OK\"}");
-        PowerMockito.suppress(PowerMockito.methods(AbstractHttpClient.class, "doGet"));
+        PowerMockito.suppress(PowerMockito.methods(AbstractHttpClient.class, "doGetAsync"));
 
-        Mockito.doReturn(responseMockedOK).when(testedClient).doGet(Mockito.anyString(), Mockito.anyMap(), Mockito.anyMap());
+        Mockito.doReturn(CompletableFuture.completedFuture(responseMockedOK)).when(testedClient).doGetAsync(Mockito.anyString(), Mockito.anyMap(), Mockito.anyMap());
 
 
         OneyTransactionStatusRequest request = OneyTransactionStatusRequest.Builder.aOneyGetStatusRequest()
@@ -166,6 +245,10 @@ public class OneyHttpClientTest {
         StringResponse transactStatus = testedClient.initiateGetTransactionStatus(request, true);
 
         assertEquals(200,transactStatus.getCode());
+        // the path is built from the values of the request, the parameters are passed as they are
+        Mockito.verify(testedClient).doGetAsync(Mockito.eq("/staging/payments/v1/purchase/psp_guid/6ba2a5e2-df17-4ad7-8406-6a9fc488a60a"
+                        + "/merchant_guid/9813e3ff-c365-43f2-8dca-94b850befbf9/reference/" + UriTemplate.encode(PluginUtils.fullPurchaseReference("455454545415451198114"))),
+                Mockito.anyMap(), Mockito.eq(Collections.singletonMap(OneyHttpClient.LANGUAGE_CODE, "FR")));
     }
 
 
@@ -173,9 +256,9 @@ public class OneyHttpClientTest {
     public void initiateRefundRequestTest() throws Exception {
 
         StringResponse responseMockedOK = createStringResponse(200, "OK", "{\"content\":\"{\\\"encrypted_message\\\":\\\"+l2i0o7hGRh+wJO02++ul+pupX40ZlQGwcgL91laJl8Vmw5MnvB6zm+cpQviUjey0a4YEoiRButKTLyhHS8SBlDyClrx8GM0AWSp0+DsthbblWPrSSH9+6Oj0h25FWyQ\"}\",\"code\":200,\"message\":\"OK\"}");
-        PowerMockito.suppress(PowerMockito.methods(AbstractHttpClient.class, "doPost"));
+        PowerMockito.suppress(PowerMockito.methods(AbstractHttpClient.class, "doPostAsync"));
 
-        Mockito.doReturn(responseMockedOK).when(testedClient).doPost(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
+        Mockito.doReturn(CompletableFuture.completedFuture(responseMockedOK)).when(testedClient).doPostAsync(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
 
 
         String merchantReqId = Calendar.getInstance().getTimeInMillis() + "007";
@@ -202,15 +285,84 @@ public class OneyHttpClientTest {
     }
 
     @Test
-    public void finalPath_sandbox(){
-        String finalPath = testedClient.finalPath( "/path", true );
-        assertTrue( finalPath.startsWith( OneyConstants.SANDBOX_PATH_PREFIX ) );
+    public void path_sandbox(){
+        String path = OneyHttpClient.path( new String[]{"/path", OneyConstants.SANDBOX_PATH_PREFIX + "/path"}, true );
+        assertTrue( path.startsWith( OneyConstants.SANDBOX_PATH_PREFIX ) );
+    }
+
+    @Test
+    public void path_prod(){
+        String path = OneyHttpClient.path( new String[]{"/path", OneyConstants.SANDBOX_PATH_PREFIX + "/path"}, false );
+        assertEquals( "/path", path );
+    }
+
+    @Test
+    public void getInstance_sameConfiguration(){
+        OneyHttpClient client1 = OneyHttpClient.getInstance(new PartnerConfiguration(new HashMap<>(partnerConfigurationMap), new HashMap<>()));
+        OneyHttpClient client2 = OneyHttpClient.getInstance(new PartnerConfiguration(new HashMap<>(partnerConfigurationMap), new HashMap<>()));
+        assertSame(client1, client2);
+    }
+
+    @Test
+    public void getInstance_differentConfiguration(){
+        HashMap<String, String> otherTimeout = new HashMap<>(partnerConfigurationMap);
+        otherTimeout.put(OneyHttpClient.READ_SOCKET_TIMEOUT, "5000");
+        HashMap<String, String> otherUrl = new HashMap<>(partnerConfigurationMap);
+        otherUrl.put(PARTNER_API_URL, "https://oney-production.azure-api.net");
+
+        OneyHttpClient client = OneyHttpClient.getInstance(new PartnerConfiguration(partnerConfigurationMap, new HashMap<>()));
+        OneyHttpClient clientOtherTimeout = OneyHttpClient.getInstance(new PartnerConfiguration(otherTimeout, new HashMap<>()));
+        OneyHttpClient clientOtherUrl = OneyHttpClient.getInstance(new PartnerConfiguration(otherUrl, new HashMap<>()));
+
+        assertNotSame(client, clientOtherTimeout);
+        assertNotSame(client, clientOtherUrl);
+        assertNotSame(clientOtherTimeout, clientOtherUrl);
+    }
+
+    @Test
+    public void evictIdleClients(){
+        HashMap<String, String> idleConfiguration = new HashMap<>(partnerConfigurationMap);
+        idleConfiguration.put(PARTNER_API_URL, "https://idle.oney.test");
+        OneyHttpClient idleClient = OneyHttpClient.getInstance(new PartnerConfiguration(idleConfiguration, new HashMap<>()));
+        int registered = OneyHttpClient.registeredClients();
+
+        OneyHttpClient.evictIdleClients(System.currentTimeMillis() + OneyHttpClient.CLIENT_IDLE_TIMEOUT + OneyHttpClient.CLIENT_EVICTION_INTERVAL);
+
+        assertTrue(OneyHttpClient.registeredClients() < registered);
+        assertNotSame(idleClient, OneyHttpClient.getInstance(new PartnerConfiguration(idleConfiguration, new HashMap<>())));
     }
 
     @Test
-    public void finalPath_prod(){
-        String finalPath = testedClient.finalPath( "/path", false );
-        assertEquals( "/path", finalPath );
+    public void retire_closedOnceCallsAreOver() throws Exception {
+        HashMap<String, String> retiredConfiguration = new HashMap<>(partnerConfigurationMap);
+        retiredConfiguration.put(PARTNER_API_URL, "https://retired.oney.test");
+        OneyHttpClient retiredClient = OneyHttpClient.getInstance(new PartnerConfiguration(retiredConfiguration, new HashMap<>()));
+        OneyHttpClient spiedClient = Mockito.spy(retiredClient);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<StringResponse> response = new CompletableFuture<>();
+        Mockito.doAnswer(invocation -> {
+            started.countDown();
+            return response;
+        }).when(spiedClient).doPostAsync(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
+
+        CompletableFuture<StringResponse> call = CompletableFuture.supplyAsync(() -> {
+            try {
+                return spiedClient.initiateCheckPayment("{}", params, false);
+            } catch (PluginTechnicalException e) {
+                throw new CompletionException(e);
+            }
+        });
+        started.await();
+        assertEquals(1, spiedClient.callsInFlight());
+
+        spiedClient.retire();
+        assertFalse(spiedClient.isClosed());
+
+        response.complete(createStringResponse(200, "FINE!", null));
+        assertEquals(200, call.get().getCode());
+        assertTrue(spiedClient.isClosed());
+        assertThrows(HttpCallException.class, () -> spiedClient.initiateCheckPayment("{}", params, false));
     }
 
 
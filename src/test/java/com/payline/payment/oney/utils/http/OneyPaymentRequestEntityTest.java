@@ -0,0 +1,98 @@
+package com.payline.payment.oney.utils.http;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.payline.payment.oney.bean.common.NavigationData;
+import com.payline.payment.oney.bean.common.customer.Customer;
+import com.payline.payment.oney.bean.common.payment.PaymentData;
+import com.payline.payment.oney.bean.common.purchase.Delivery;
+import com.payline.payment.oney.bean.common.purchase.Purchase;
+import com.payline.payment.oney.bean.request.OneyEncryptedRequest;
+import com.payline.payment.oney.bean.request.OneyPaymentRequest;
+import com.payline.payment.oney.exception.InvalidDataException;
+import com.payline.payment.oney.utils.chiffrement.OneyCrypto;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+public class OneyPaymentRequestEntityTest {
+
+    private static final String KEY = "66s581CG5W+RLEqZHAGQx+vskjy660Kt8x8rhtRpXtY=";
+
+    private OneyPaymentRequest createRequest(String encryptKey) throws Exception {
+        return OneyPaymentRequest.Builder.aOneyPaymentRequest()
+                .withLanguageCode("FR")
+                .withMerchantRequestId("merchantRequestId")
+                .withPspGuid("pspGuid")
+                .withMerchantGuid("merchantGuid")
+                .withNavigation(NavigationData.Builder.aNavigationDataBuilder().withSuccesUrl("https://success?a=b").build())
+                .withPaymentdata(PaymentData.Builder.aPaymentData().withAmount(150f).withCurrency("EUR").build())
+                .withCustomer(Customer.Builder.aCustomBuilder().withLanguageCode("FR").withCustomerExternalCode("é<&>").build())
+                .withPurchase(Purchase.Builder.aPurchaseBuilder()
+                        .withCurrencyCode("EUR")
+                        .withPurchaseAmount(150f)
+                        .withDelivery(Delivery.Builder.aDeliveryBuilder().build())
+                        .withExternalReference("externalRef")
+                        .withListItem(new ArrayList<>())
+                        .build())
+                .withEncryptKey(encryptKey)
+                .build();
+    }
+
+    private String write(OneyPaymentRequestEntity entity) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void writeTo_clear() throws Exception {
+        OneyPaymentRequest request = createRequest(null);
+        OneyPaymentRequestEntity entity = new OneyPaymentRequestEntity(request, false);
+
+        Assertions.assertEquals(request.toString(), write(entity));
+        Assertions.assertEquals(request.toString(), EntityUtils.toString(entity));
+        Assertions.assertEquals("application/json; charset=UTF-8", entity.getContentType().getValue());
+    }
+
+    @Test
+    public void contentLength() throws Exception {
+        OneyPaymentRequestEntity entity = new OneyPaymentRequestEntity(createRequest(KEY), true);
+
+        // sent with a Content-Length, never chunked
+        Assertions.assertFalse(entity.isChunked());
+        Assertions.assertEquals(write(entity).getBytes(StandardCharsets.UTF_8).length, entity.getContentLength());
+    }
+
+    @Test
+    public void writeTo_encrypted() throws Exception {
+        OneyPaymentRequest request = createRequest(KEY);
+        OneyPaymentRequestEntity entity = new OneyPaymentRequestEntity(request, true);
+
+        String body = write(entity);
+
+        JsonObject expected = new JsonParser().parse(OneyEncryptedRequest.fromOneyPaymentRequest(request).toString()).getAsJsonObject();
+        JsonObject actual = new JsonParser().parse(body).getAsJsonObject();
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertEquals(request.toString(), new OneyCrypto(KEY).decrypt(actual.get("encrypted_message").getAsString()));
+    }
+
+    @Test
+    public void writeTo_repeatable() throws Exception {
+        OneyPaymentRequestEntity entity = new OneyPaymentRequestEntity(createRequest(KEY), true);
+
+        Assertions.assertTrue(entity.isRepeatable());
+        Assertions.assertEquals(write(entity), write(entity));
+    }
+
+    @Test
+    public void missingKey() throws Exception {
+        OneyPaymentRequest request = createRequest(null);
+
+        Assertions.assertThrows(InvalidDataException.class, () -> new OneyPaymentRequestEntity(request, true));
+    }
+}
@@ -0,0 +1,327 @@
+package com.payline.payment.oney.utils.http;
+
+import com.payline.payment.oney.bean.common.PurchaseStatus;
+import com.payline.payment.oney.exception.DecryptException;
+import com.payline.payment.oney.utils.chiffrement.OneyCrypto;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.payline.payment.oney.bean.common.PurchaseStatus.StatusCode.CANCELLED;
+import static com.payline.payment.oney.bean.common.PurchaseStatus.StatusCode.FUNDED;
+import static com.payline.payment.oney.utils.OneyConstants.PAYMENT_REQUEST_URL;
+import static com.payline.payment.oney.utils.OneyConstants.STATUS_REQUEST_URL;
+
+/**
+ * In-process stand-in of the Oney API, to load the plugin without the sandbox.
+ * It answers the payment, status, confirmation and cancellation paths built by {@link OneyHttpClient}, on the
+ * loopback interface, with an optional latency and injected errors.
+ * The status of each purchase reference follows a script: each status request moves it to the next step,
+ * a confirmation funds it and a cancellation cancels it.
+ */
+public class OneyStubServer implements AutoCloseable {
+
+    /**
+     * Error returned instead of the normal answer
+     */
+    public enum Fault {
+        UNAUTHORIZED(401),
+        CONFLICT(409),
+        SERVER_ERROR(500),
+        /**
+         * the connection is closed without any answer
+         */
+        RESET(0);
+
+        private final int httpCode;
+
+        Fault(int httpCode) {
+            this.httpCode = httpCode;
+        }
+    }
+
+    /**
+     * Response time distribution, in milliseconds
+     */
+    @FunctionalInterface
+    public interface Latency {
+
+        long nextMillis(Random random);
+
+        static Latency none() {
+            return random -> 0;
+        }
+
+        static Latency fixed(long millis) {
+            return random -> millis;
+        }
+
+        static Latency uniform(long minMillis, long maxMillis) {
+            return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+        }
+
+        /**
+         * Long tail distribution, closest to the response times of a real API
+         *
+         * @param medianMillis the median response time
+         * @param sigma        the spread: about 0.5 gives a p99 3 times the median
+         */
+        static Latency logNormal(long medianMillis, double sigma) {
+            return random -> Math.round(medianMillis * Math.exp(sigma * random.nextGaussian()));
+        }
+    }
+
+    private static final String ACTION_CONFIRM = "/action/confirm";
+    private static final String ACTION_CANCEL = "/action/cancel";
+    private static final String REFERENCE_TAG = OneyHttpClient.REFERENCE_TAG;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final OneyCrypto crypto;
+    private final Latency latency;
+    private final Map<Fault, Double> faults;
+    private final List<PurchaseStatus.StatusCode> transitions;
+
+    private final Map<String, AtomicInteger> steps = new ConcurrentHashMap<>();
+    private final Map<String, PurchaseStatus.StatusCode> finalStatus = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final Map<Fault, AtomicLong> injected = new EnumMap<>(Fault.class);
+
+    private OneyStubServer(Builder builder) throws IOException {
+        this.crypto = builder.encryptKey == null ? null : new OneyCrypto(builder.encryptKey);
+        this.latency = builder.latency;
+        this.faults = new EnumMap<>(builder.faults);
+        this.transitions = new ArrayList<>(builder.transitions);
+        for (Fault fault : Fault.values()) {
+            injected.put(fault, new AtomicLong());
+        }
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), builder.backlog);
+        this.executor = Executors.newCachedThreadPool();
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    /**
+     * @return the value of the partner API URL which targets this server
+     */
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * @return the number of requests received
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return the number of times the given error has been returned
+     */
+    public long getInjected(Fault fault) {
+        return injected.get(fault).get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            drain(exchange.getRequestBody());
+            pause(latency.nextMillis(ThreadLocalRandom.current()));
+
+            Fault fault = nextFault();
+            if (fault == Fault.RESET) {
+                return;
+            }
+            if (fault != null) {
+                reply(exchange, fault.httpCode, errorBody(fault), false);
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if ("POST".equals(method) && path.endsWith(PAYMENT_REQUEST_URL)) {
+                reply(exchange, 200, "{\"returned_url\":\"" + getUrl() + "/facilypay\"}", true);
+            } else if (path.contains(STATUS_REQUEST_URL) && path.contains(REFERENCE_TAG)) {
+                String reference = reference(path);
+                PurchaseStatus.StatusCode status;
+                if ("POST".equals(method) && path.endsWith(ACTION_CONFIRM)) {
+                    status = FUNDED;
+                    finalStatus.put(reference, status);
+                } else if ("POST".equals(method) && path.endsWith(ACTION_CANCEL)) {
+                    status = CANCELLED;
+                    finalStatus.put(reference, status);
+                } else if ("GET".equals(method)) {
+                    status = nextStatus(reference);
+                } else {
+                    reply(exchange, 405, "", false);
+                    return;
+                }
+                reply(exchange, 200, "{\"language_code\":\"fr\",\"purchase\":{\"status_code\":\"" + status
+                        + "\",\"status_label\":\"" + status + "\"}}", true);
+            } else {
+                reply(exchange, 404, "", false);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Fault nextFault() {
+        double draw = ThreadLocalRandom.current().nextDouble();
+        for (Map.Entry<Fault, Double> fault : faults.entrySet()) {
+            draw -= fault.getValue();
+            if (draw < 0) {
+                injected.get(fault.getKey()).incrementAndGet();
+                return fault.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The gateway answers 401 with its own format, the API with a list of errors
+     */
+    private static String errorBody(Fault fault) {
+        if (fault == Fault.UNAUTHORIZED) {
+            return "{\"statusCode\":401,\"message\":\"Access denied due to invalid subscription key.\"}";
+        }
+        return "{\"Payments_Error_Response\":{\"error_list\":[{\"field\":\"purchase\",\"error_code\":\"ERR_"
+                + fault.httpCode + "\",\"error_label\":\"injected " + fault + "\"}]}}";
+    }
+
+    private PurchaseStatus.StatusCode nextStatus(String reference) {
+        PurchaseStatus.StatusCode status = finalStatus.get(reference);
+        if (status != null) {
+            return status;
+        }
+        int step = steps.computeIfAbsent(reference, r -> new AtomicInteger()).getAndIncrement();
+        return transitions.get(Math.min(step, transitions.size() - 1));
+    }
+
+    private static String reference(String path) throws UnsupportedEncodingException {
+        String reference = path.substring(path.indexOf(REFERENCE_TAG) + REFERENCE_TAG.length());
+        int end = reference.indexOf('/');
+        return URLDecoder.decode(end < 0 ? reference : reference.substring(0, end), StandardCharsets.UTF_8.name());
+    }
+
+    private void reply(HttpExchange exchange, int code, String json, boolean encryptable) throws IOException {
+        String body = json;
+        if (encryptable && crypto != null) {
+            try {
+                body = "{\"encrypted_message\":\"" + crypto.encrypt(json) + "\"}";
+            } catch (DecryptException e) {
+                throw new IOException(e);
+            }
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(code, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[8192];
+        while (in.read(buffer) >= 0) {
+            // ras.
+        }
+    }
+
+    private static void pause(long millis) {
+        if (millis > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public static final class Builder {
+        private String encryptKey;
+        private Latency latency = Latency.none();
+        private final Map<Fault, Double> faults = new EnumMap<>(Fault.class);
+        private List<PurchaseStatus.StatusCode> transitions = Arrays.asList(PurchaseStatus.StatusCode.FAVORABLE);
+        private int backlog = 128;
+
+        private Builder() {
+        }
+
+        public static Builder aOneyStubServer() {
+            return new Builder();
+        }
+
+        /**
+         * Encrypt the answers with the given key, as Oney does when the encryption is active
+         */
+        public Builder withEncryptKey(String encryptKey) {
+            this.encryptKey = encryptKey;
+            return this;
+        }
+
+        public Builder withLatency(Latency latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * @param probability share of the requests answered with this error, between 0 and 1
+         */
+        public Builder withFault(Fault fault, double probability) {
+            this.faults.put(fault, probability);
+            return this;
+        }
+
+        /**
+         * Status returned by the successive status requests of a purchase. The last one is kept.
+         */
+        public Builder withStatusTransitions(PurchaseStatus.StatusCode... transitions) {
+            this.transitions = Arrays.asList(transitions);
+            return this;
+        }
+
+        public Builder withBacklog(int backlog) {
+            this.backlog = backlog;
+            return this;
+        }
+
+        /**
+         * Start the server on a free port of the loopback interface
+         */
+        public OneyStubServer start() throws IOException {
+            return new OneyStubServer(this);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.payline.payment.oney.utils.http;
+
+import com.payline.payment.oney.bean.request.OneyTransactionStatusRequest;
+import com.payline.payment.oney.exception.HttpCallException;
+import com.payline.payment.oney.utils.PluginUtils;
+import com.payline.payment.oney.utils.chiffrement.OneyCrypto;
+import com.payline.payment.oney.utils.metrics.OneyMetrics;
+import com.payline.pmapi.bean.configuration.PartnerConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static com.payline.payment.oney.bean.common.PurchaseStatus.StatusCode.FAVORABLE;
+import static com.payline.payment.oney.bean.common.PurchaseStatus.StatusCode.FUNDED;
+import static com.payline.payment.oney.bean.common.PurchaseStatus.StatusCode.PENDING;
+import static com.payline.payment.oney.utils.OneyConstants.PARTNER_API_URL;
+import static com.payline.payment.oney.utils.OneyConstants.PARTNER_AUTHORIZATION_KEY;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OneyStubServerTest {
+
+    private static final String KEY = "66s581CG5W+RLEqZHAGQx+vskjy660Kt8x8rhtRpXtY=";
+
+    private OneyStubServer server;
+
+    @AfterEach
+    public void stop() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private OneyHttpClient client() {
+        Map<String, String> partnerConfiguration = new HashMap<>();
+        partnerConfiguration.put(OneyHttpClient.KEY_CONNECT_TIMEOUT, "1000");
+        partnerConfiguration.put(OneyHttpClient.CONNECTION_REQUEST_TIMEOUT, "1000");
+        partnerConfiguration.put(OneyHttpClient.READ_SOCKET_TIMEOUT, "2000");
+        partnerConfiguration.put(OneyHttpClient.RETRY_MAX_ATTEMPTS, "1");
+        return OneyHttpClient.getInstance(new PartnerConfiguration(partnerConfiguration, new HashMap<>()));
+    }
+
+    private OneyTransactionStatusRequest statusRequest(String reference) {
+        return statusRequest(reference, null);
+    }
+
+    private OneyTransactionStatusRequest statusRequest(String reference, String authorization) {
+        Map<String, String> params = new HashMap<>();
+        params.put(PARTNER_API_URL, server.getUrl());
+        params.put(PARTNER_AUTHORIZATION_KEY, authorization);
+        return OneyTransactionStatusRequest.Builder.aOneyGetStatusRequest()
+                .withLanguageCode("FR")
+                .withMerchantGuid("9813e3ff-c365-43f2-8dca-94b850befbf9")
+                .withPspGuid("6ba2a5e2-df17-4ad7-8406-6a9fc488a60a")
+                .withPurchaseReference(PluginUtils.fullPurchaseReference(reference))
+                .withEncryptKey(KEY)
+                .withCallParameters(params)
+                .build();
+    }
+
+    @Test
+    public void statusTransitions() throws Exception {
+        server = OneyStubServer.Builder.aOneyStubServer()
+                .withStatusTransitions(PENDING, FAVORABLE, FUNDED)
+                .start();
+        OneyHttpClient client = client();
+
+        assertTrue(client.initiateGetTransactionStatus(statusRequest("ref1"), false).getContent().contains("PENDING"));
+        assertTrue(client.initiateGetTransactionStatus(statusRequest("ref1"), false).getContent().contains("FAVORABLE"));
+        assertTrue(client.initiateGetTransactionStatus(statusRequest("ref2"), true).getContent().contains("PENDING"));
+        assertTrue(client.initiateGetTransactionStatus(statusRequest("ref1"), false).getContent().contains("FUNDED"));
+        assertTrue(client.initiateGetTransactionStatus(statusRequest("ref1"), false).getContent().contains("FUNDED"));
+        assertEquals(5, server.getRequests());
+    }
+
+    @Test
+    public void encrypted() throws Exception {
+        server = OneyStubServer.Builder.aOneyStubServer()
+                .withEncryptKey(KEY)
+                .start();
+
+        StringResponse response = client().initiateGetTransactionStatus(statusRequest("ref1"), false);
+
+        String encrypted = response.getContent().replaceAll(".*\"encrypted_message\":\"([^\"]*)\".*", "$1");
+        assertTrue(new OneyCrypto(KEY).decrypt(encrypted).contains("FAVORABLE"));
+    }
+
+    @Test
+    public void injectedError() throws Exception {
+        server = OneyStubServer.Builder.aOneyStubServer()
+                .withFault(OneyStubServer.Fault.CONFLICT, 1)
+                .start();
+
+        StringResponse response = client().initiateGetTransactionStatus(statusRequest("ref1"), false);
+
+        assertEquals(409, response.getCode());
+        assertEquals(1, server.getInjected(OneyStubServer.Fault.CONFLICT));
+    }
+
+    @Test
+    public void injectedReset() throws Exception {
+        server = OneyStubServer.Builder.aOneyStubServer()
+                .withFault(OneyStubServer.Fault.RESET, 1)
+                .start();
+
+        assertThrows(HttpCallException.class, () -> client().initiateGetTransactionStatus(statusRequest("ref1"), false));
+        // the RetryPolicy allows a single attempt: HttpClient must not retry on its own
+        assertEquals(1, server.getRequests());
+    }
+
+    @Test
+    public void injectedReset_retried() throws Exception {
+        server = OneyStubServer.Builder.aOneyStubServer()
+                .withFault(OneyStubServer.Fault.RESET, 1)
+                .start();
+        Map<String, String> partnerConfiguration = new HashMap<>();
+        partnerConfiguration.put(OneyHttpClient.KEY_CONNECT_TIMEOUT, "1000");
+        partnerConfiguration.put(OneyHttpClient.CONNECTION_REQUEST_TIMEOUT, "1000");
+        partnerConfiguration.put(OneyHttpClient.READ_SOCKET_TIMEOUT, "2000");
+        partnerConfiguration.put(OneyHttpClient.RETRY_MAX_ATTEMPTS, "3");
+        partnerConfiguration.put(OneyHttpClient.RETRY_INITIAL_BACKOFF, "50");
+        OneyHttpClient client = OneyHttpClient.getInstance(new PartnerConfiguration(partnerConfiguration, new HashMap<>()));
+
+        // the GET is sent again once the delay is over, without a thread waiting for it
+        CompletableFuture<StringResponse> future = client.initiateGetTransactionStatusAsync(statusRequest("ref1"), false);
+        assertThrows(HttpCallException.class, () -> AsyncHttpExecutor.await(future, 5000));
+        assertEquals(3, server.getRequests());
+    }
+
+    @Test
+    public void latency() throws Exception {
+        server = OneyStubServer.Builder.aOneyStubServer()
+                .withLatency(OneyStubServer.Latency.fixed(200))
+                .start();
+
+        long start = System.currentTimeMillis();
+        client().initiateGetTransactionStatus(statusRequest("ref1"), false);
+
+        assertTrue(System.currentTimeMillis() - start >= 200);
+    }
+
+    @Test
+    public void concurrentStatusRequestsCoalesced() throws Exception {
+        server = OneyStubServer.Builder.aOneyStubServer()
+                .withLatency(OneyStubServer.Latency.fixed(300))
+                .withStatusTransitions(PENDING, FAVORABLE)
+                .start();
+        OneyHttpClient client = client();
+        long coalesced = OneyMetrics.INSTANCE.getCoalescedCount();
+
+        List<CompletableFuture<StringResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(client.initiateGetTransactionStatusAsync(statusRequest("ref1"), false));
+        }
+        // another purchase is not coalesced
+        CompletableFuture<StringResponse> other = client.initiateGetTransactionStatusAsync(statusRequest("ref2"), false);
+
+        for (CompletableFuture<StringResponse> future : futures) {
+            assertTrue(AsyncHttpExecutor.await(future, 5000).getContent().contains("PENDING"));
+        }
+        assertTrue(AsyncHttpExecutor.await(other, 5000).getContent().contains("PENDING"));
+        assertEquals(2, server.getRequests());
+        assertEquals(3, OneyMetrics.INSTANCE.getCoalescedCount() - coalesced);
+
+        // once answered, the next request makes a new call
+        assertTrue(client.initiateGetTransactionStatus(statusRequest("ref1"), false).getContent().contains("FAVORABLE"));
+        assertEquals(3, server.getRequests());
+    }
+
+    @Test
+    public void statusRequestsOfOtherContractsNotCoalesced() throws Exception {
+        server = OneyStubServer.Builder.aOneyStubServer()
+                .withLatency(OneyStubServer.Latency.fixed(300))
+                .start();
+        OneyHttpClient client = client();
+
+        // same purchase, but another API key: each contract gets its own answer
+        CompletableFuture<StringResponse> first = client.initiateGetTransactionStatusAsync(statusRequest("ref1", "key1"), false);
+        CompletableFuture<StringResponse> second = client.initiateGetTransactionStatusAsync(statusRequest("ref1", "key2"), false);
+
+        assertEquals(200, AsyncHttpExecutor.await(first, 5000).getCode());
+        assertEquals(200, AsyncHttpExecutor.await(second, 5000).getCode());
+        assertEquals(2, server.getRequests());
+    }
+}
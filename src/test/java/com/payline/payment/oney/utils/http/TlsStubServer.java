@@ -0,0 +1,180 @@
+package com.payline.payment.oney.utils.http;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.ssl.BasicServerTlsStrategy;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.nio.support.BasicResponseProducer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.http2.ssl.H2ServerTlsStrategy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.reactor.IOSessionListener;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.KeyStore;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local HTTPS stand-in for the partner, speaking HTTP/2 (negotiated with ALPN) or HTTP/1.1 only.
+ * It answers each request with its method and body, after the given delay, and records the protocol of the requests
+ * and the number of connections opened.
+ * The certificate, for localhost and 127.0.0.1, is in stub-tls.p12: see {@link #sslContext()} for the client side.
+ */
+public class TlsStubServer implements AutoCloseable {
+
+    private static final String KEYSTORE = "stub-tls.p12";
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    private final HttpAsyncServer server;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final List<String> protocols = new CopyOnWriteArrayList<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final int port;
+
+    private TlsStubServer(boolean http2, long delayMillis) throws Exception {
+        this.server = H2ServerBootstrap.bootstrap()
+                .setVersionPolicy(http2 ? HttpVersionPolicy.NEGOTIATE : HttpVersionPolicy.FORCE_HTTP_1)
+                // an HTTP/1.1 server does not take part in the ALPN negotiation, as most of them
+                .setTlsStrategy(http2 ? new H2ServerTlsStrategy(sslContext()) : new BasicServerTlsStrategy(sslContext()))
+                .setIOSessionListener(new ConnectionCounter())
+                .register("*", new EchoHandler(delayMillis))
+                .create();
+        server.start();
+        ListenerEndpoint endpoint = server.listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), URIScheme.HTTPS).get();
+        this.port = ((InetSocketAddress) endpoint.getAddress()).getPort();
+    }
+
+    /**
+     * @param http2 true to accept HTTP/2, false to speak HTTP/1.1 only
+     */
+    public static TlsStubServer start(boolean http2, long delayMillis) throws Exception {
+        return new TlsStubServer(http2, delayMillis);
+    }
+
+    /**
+     * @return a context trusting the certificate of the server
+     */
+    public static SSLContext sslContext() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = TlsStubServer.class.getClassLoader().getResourceAsStream(KEYSTORE)) {
+            keyStore.load(in, PASSWORD);
+        }
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keyStore, PASSWORD);
+        TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagers.init(keyStore);
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keyManagers.getKeyManagers(), trustManagers.getTrustManagers(), null);
+        return context;
+    }
+
+    public String getUrl() {
+        return "https://127.0.0.1:" + port;
+    }
+
+    /**
+     * @return the protocol of each request received, e.g. HTTP/2.0
+     */
+    public List<String> getProtocols() {
+        return protocols;
+    }
+
+    /**
+     * @return the number of connections opened by the clients
+     */
+    public int getConnections() {
+        return connections.get();
+    }
+
+    @Override
+    public void close() {
+        server.close(CloseMode.IMMEDIATE);
+        scheduler.shutdownNow();
+    }
+
+    private final class EchoHandler implements AsyncServerRequestHandler<Message<HttpRequest, String>> {
+        private final long delayMillis;
+
+        private EchoHandler(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public AsyncRequestConsumer<Message<HttpRequest, String>> prepare(HttpRequest request, EntityDetails entityDetails, HttpContext context) {
+            return new BasicRequestConsumer<>(entityDetails == null ? null : new StringAsyncEntityConsumer());
+        }
+
+        @Override
+        public void handle(Message<HttpRequest, String> message, ResponseTrigger responseTrigger, HttpContext context) {
+            protocols.add(String.valueOf(context.getProtocolVersion()));
+            String body = message.getHead().getMethod() + " " + message.getHead().getPath()
+                    + (message.getBody() == null ? "" : " " + message.getBody());
+            // the answer is delayed without holding the I/O thread, so that the requests can overlap
+            scheduler.schedule(() -> {
+                try {
+                    responseTrigger.submitResponse(new BasicResponseProducer(200, body, ContentType.APPLICATION_JSON), context);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private final class ConnectionCounter implements IOSessionListener {
+        @Override
+        public void connected(IOSession session) {
+            connections.incrementAndGet();
+        }
+
+        @Override
+        public void startTls(IOSession session) {
+            // ras.
+        }
+
+        @Override
+        public void inputReady(IOSession session) {
+            // ras.
+        }
+
+        @Override
+        public void outputReady(IOSession session) {
+            // ras.
+        }
+
+        @Override
+        public void timeout(IOSession session) {
+            // ras.
+        }
+
+        @Override
+        public void exception(IOSession session, Exception ex) {
+            // ras.
+        }
+
+        @Override
+        public void disconnected(IOSession session) {
+            // ras.
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.payline.payment.oney.utils.http;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+public class UriTemplateTest {
+
+    private static final UriTemplate ORDER = UriTemplate.compile("/psp_guid/{psp_guid}/reference/{reference}/action/confirm");
+
+    @Test
+    public void expand() {
+        Map<String, String> values = new HashMap<>();
+        values.put("psp_guid", "6ba2a5e2-df17-4ad7-8406-6a9fc488a60a");
+        values.put("reference", "CMDE|ref 1/é");
+
+        Assertions.assertEquals("/staging/payments/psp_guid/6ba2a5e2-df17-4ad7-8406-6a9fc488a60a/reference/CMDE%7Cref%201%2F%C3%A9/action/confirm",
+                ORDER.expand("/staging/payments", values));
+        Assertions.assertEquals("/psp_guid/6ba2a5e2-df17-4ad7-8406-6a9fc488a60a/reference/CMDE%7Cref%201%2F%C3%A9/action/confirm?language_code=fr",
+                ORDER.expand("", values, "language_code", "fr"));
+        // the encoded path is a valid URI, decoded back to the same values
+        URI uri = URI.create("https://oney" + ORDER.expand("", values));
+        Assertions.assertTrue(uri.getPath().contains("/reference/CMDE|ref 1/é/"));
+    }
+
+    @Test
+    public void expand_values() {
+        Assertions.assertEquals("/staging/payments/psp_guid/psp/reference/CMDE%7Cref/action/confirm",
+                ORDER.expand("/staging/payments", "psp", "CMDE|ref"));
+        Assertions.assertEquals("/psp_guid/psp/reference/null/action/confirm?language_code=fr",
+                ORDER.expand("", new String[]{"psp", null}, "language_code", "fr"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ORDER.expand("", "psp"));
+    }
+
+    @Test
+    public void withQuery() {
+        Assertions.assertEquals("/purchase?language_code=f%20r", UriTemplate.withQuery("/purchase", "language_code", "f r"));
+        Assertions.assertEquals("/purchase", UriTemplate.withQuery("/purchase", "language_code", null));
+    }
+
+    @Test
+    public void encode() {
+        String guid = "6ba2a5e2-df17-4ad7-8406-6a9fc488a60a";
+        // nothing to encode: the same string
+        Assertions.assertSame(guid, UriTemplate.encode(guid));
+        Assertions.assertEquals("a.b_c~d", UriTemplate.encode("a.b_c~d"));
+        Assertions.assertEquals("%2B%26%3D%3F%23%25", UriTemplate.encode("+&=?#%"));
+        Assertions.assertEquals("%E2%82%AC", UriTemplate.encode("€"));
+    }
+
+    @Test
+    public void compile_invalid() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> UriTemplate.compile("/psp_guid/{psp_guid"));
+    }
+}
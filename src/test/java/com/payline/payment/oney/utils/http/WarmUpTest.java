@@ -0,0 +1,91 @@
+package com.payline.payment.oney.utils.http;
+
+import com.payline.payment.oney.utils.metrics.OneyMetrics;
+import com.payline.pmapi.bean.configuration.PartnerConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.payline.payment.oney.utils.OneyConstants.PARTNER_API_URL;
+
+public class WarmUpTest {
+
+    private OneyStubServer server;
+
+    @AfterEach
+    public void stop() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private PartnerConfiguration partnerConfiguration(String warmUpConnections, String maxPerRoute) {
+        Map<String, String> partnerConfiguration = new HashMap<>();
+        partnerConfiguration.put(PARTNER_API_URL, server.getUrl());
+        partnerConfiguration.put(AbstractHttpClient.KEY_CONNECT_TIMEOUT, "1000");
+        partnerConfiguration.put(AbstractHttpClient.CONNECTION_REQUEST_TIMEOUT, "1000");
+        partnerConfiguration.put(AbstractHttpClient.READ_SOCKET_TIMEOUT, "2000");
+        partnerConfiguration.put(AbstractHttpClient.WARMUP_CONNECTIONS_PER_ROUTE, warmUpConnections);
+        partnerConfiguration.put(AbstractHttpClient.POOL_MAX_SIZE_PER_ROUTE, maxPerRoute);
+        return new PartnerConfiguration(partnerConfiguration, new HashMap<>());
+    }
+
+    @Test
+    public void connectionsOpenedInAdvance() throws Exception {
+        server = OneyStubServer.Builder.aOneyStubServer().start();
+        OneyHttpClient client = OneyHttpClient.getInstance(partnerConfiguration("3", "5"));
+
+        int opened = WarmUp.start(client, partnerConfiguration("3", "5")).get(5, TimeUnit.SECONDS);
+
+        // the background warm-up of getInstance may have opened them first
+        Assertions.assertTrue(opened == 0 || opened == 3);
+        Assertions.assertEquals(3, client.getIdleConnections());
+        Assertions.assertEquals(0, server.getRequests());
+        Assertions.assertTrue(OneyMetrics.INSTANCE.getLastWarmUpDuration() >= 0);
+    }
+
+    @Test
+    public void boundedByPoolSize() throws Exception {
+        server = OneyStubServer.Builder.aOneyStubServer().start();
+        OneyHttpClient client = OneyHttpClient.getInstance(partnerConfiguration("0", "2"));
+
+        Assertions.assertEquals(2, client.openConnections(server.getUrl(), 4));
+        Assertions.assertEquals(2, client.getIdleConnections());
+        // the idle connections are reused
+        Assertions.assertEquals(0, client.openConnections(server.getUrl(), 2));
+    }
+
+    @Test
+    public void disabledByDefault() throws Exception {
+        server = OneyStubServer.Builder.aOneyStubServer().start();
+        PartnerConfiguration configuration = partnerConfiguration("", "");
+
+        OneyHttpClient client = OneyHttpClient.getInstance(configuration);
+
+        Assertions.assertEquals(0, WarmUp.start(client, configuration).get().intValue());
+        Assertions.assertEquals(0, client.getIdleConnections());
+        // the pool of a client is always its own: connections can still be opened on demand
+        Assertions.assertEquals(2, client.openConnections(server.getUrl(), 2));
+    }
+
+    @Test
+    public void unreachablePartner() throws Exception {
+        server = OneyStubServer.Builder.aOneyStubServer().start();
+        OneyHttpClient client = OneyHttpClient.getInstance(partnerConfiguration("0", "3"));
+        String url = server.getUrl();
+        server.close();
+        server = null;
+
+        Assertions.assertEquals(0, client.openConnections(url, 2));
+        Assertions.assertEquals(0, client.getIdleConnections());
+    }
+
+    @Test
+    public void primeCodecs() {
+        Assertions.assertDoesNotThrow(WarmUp::primeCodecs);
+    }
+}
@@ -0,0 +1,39 @@
+package com.payline.payment.oney.utils.i18n;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+public class I18nServiceTest {
+
+    private final I18nService i18n = I18nService.getInstance();
+
+    @Test
+    public void getMessage() {
+        Assertions.assertEquals("Oney", i18n.getMessage("paymentMethod.name", Locale.FRENCH));
+        Assertions.assertEquals("Pay with Oney {0}", i18n.getMessage("payment.form.config.button.text", Locale.ENGLISH));
+    }
+
+    @Test
+    public void getMessage_fallback() {
+        // no messages_de.properties: the default locale is used
+        Assertions.assertEquals(i18n.getMessage("payment.form.config.button.text", Locale.ENGLISH),
+                i18n.getMessage("payment.form.config.button.text", Locale.GERMAN));
+        // a country variant gets the messages of its language
+        Assertions.assertEquals(i18n.getMessage("payment.form.config.button.text", Locale.ITALIAN),
+                i18n.getMessage("payment.form.config.button.text", Locale.ITALY));
+    }
+
+    @Test
+    public void getMessage_arguments() {
+        Assertions.assertEquals("Pay with Oney 3x", i18n.getMessage("payment.form.config.button.text", Locale.ENGLISH, "3x"));
+        Assertions.assertEquals("Pagar con Oney 4x", i18n.getMessage("payment.form.config.button.text", new Locale("es"), "4x"));
+    }
+
+    @Test
+    public void getMessage_missingKey() {
+        Assertions.assertEquals("???en.foo???", i18n.getMessage("foo", Locale.ENGLISH));
+        Assertions.assertEquals("???en.foo???", i18n.getMessage("foo", Locale.ENGLISH, "bar"));
+    }
+}
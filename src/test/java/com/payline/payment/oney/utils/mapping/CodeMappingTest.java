@@ -0,0 +1,83 @@
+package com.payline.payment.oney.utils.mapping;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+public class CodeMappingTest {
+
+    private final CodeMapping mapping = CodeMapping.INSTANCE;
+
+    @Test
+    public void categories() {
+        Assertions.assertEquals(1, mapping.getCategoryCode("17"));
+        Assertions.assertEquals(1, mapping.getCategoryCode("2400010002"));
+        Assertions.assertEquals(4, mapping.getCategoryCode("1200080001"));
+        Assertions.assertEquals(8, mapping.getCategoryCode("100010003"));
+        Assertions.assertEquals(15, mapping.getCategoryCode("2"));
+        Assertions.assertEquals(5, mapping.getCategoryCode("964"));
+        Assertions.assertEquals(5, mapping.getCategoryCode(null));
+        Assertions.assertEquals(5, mapping.getCategoryCode("abc"));
+    }
+
+    @Test
+    public void categoryParent() {
+        // unknown sub categories take the code of their parent
+        Assertions.assertEquals(1, mapping.getCategoryCode("170003"));
+        Assertions.assertEquals(8, mapping.getCategoryCode("100010004"));
+        Assertions.assertEquals(13, mapping.getCategoryCode("1300010001"));
+        // "10" is a top level category, not the parent of "100010004"
+        Assertions.assertEquals(1, mapping.getCategoryCode("10"));
+        Assertions.assertEquals(5, mapping.getCategoryCode("990001"));
+    }
+
+    @Test
+    public void otherCodes() {
+        Assertions.assertEquals(Integer.valueOf(2), mapping.getHonorificCode("1"));
+        Assertions.assertEquals(Integer.valueOf(1), mapping.getHonorificCode("4"));
+        Assertions.assertEquals(Integer.valueOf(0), mapping.getHonorificCode("Dr"));
+        Assertions.assertNull(mapping.getHonorificCode(null));
+
+        Assertions.assertEquals(Integer.valueOf(5), mapping.getDeliveryModeCode("5"));
+        Assertions.assertEquals(Integer.valueOf(4), mapping.getDeliveryModeCode("9"));
+        Assertions.assertEquals(Integer.valueOf(1), mapping.getDeliveryOption("1"));
+        Assertions.assertEquals(Integer.valueOf(2), mapping.getDeliveryOption("17"));
+
+        Assertions.assertEquals(2, mapping.getAddressType(2));
+        Assertions.assertEquals(5, mapping.getAddressType(4));
+        Assertions.assertEquals(4, mapping.getAddressType(6));
+        Assertions.assertEquals(1, mapping.getAddressType(42));
+
+        Assertions.assertEquals("1", mapping.getVersion());
+    }
+
+    @Test
+    public void compile() {
+        CodeMapping.Tables tables = CodeMapping.Tables.compile(properties("category.3=16"));
+        Assertions.assertEquals(16, tables.getCategoryCode("3"));
+        Assertions.assertEquals(16, tables.getCategoryCode("30001"));
+        Assertions.assertEquals(5, tables.getCategoryCode("17"));
+    }
+
+    @Test
+    public void compile_invalid() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CodeMapping.Tables.compile(properties("category.3=x")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CodeMapping.Tables.compile(properties("category.A3=1")));
+        Properties noDefault = properties("category.3=16");
+        noDefault.remove("honorific.default");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CodeMapping.Tables.compile(noDefault));
+    }
+
+    private static Properties properties(String entry) {
+        Properties properties = new Properties();
+        properties.setProperty("category.default", "5");
+        properties.setProperty("honorific.default", "0");
+        properties.setProperty("delivery.mode.default", "4");
+        properties.setProperty("delivery.option.default", "2");
+        properties.setProperty("address.type.default", "1");
+        String[] keyValue = entry.split("=");
+        properties.setProperty(keyValue[0], keyValue[1]);
+        return properties;
+    }
+}
@@ -0,0 +1,55 @@
+package com.payline.payment.oney.utils.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketIndex_roundTrip() {
+        for (long value : new long[]{0, 1, 127, 128, 129, 255, 256, 1000, 123456, 600_000_000L}) {
+            long highest = LatencyHistogram.highestEquivalentValue(LatencyHistogram.bucketIndex(value));
+            assertTrue(highest >= value, "value " + value);
+            assertTrue(highest - value <= value / 64, "value " + value);
+        }
+        for (int index = 1; index < 2000; index++) {
+            assertEquals(index, LatencyHistogram.bucketIndex(LatencyHistogram.highestEquivalentValue(index)));
+            assertEquals(index, LatencyHistogram.bucketIndex(LatencyHistogram.highestEquivalentValue(index - 1) + 1));
+        }
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram(1_000_000);
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i * 10L);
+        }
+
+        assertEquals(10000, histogram.getCount());
+        assertEquals(100000, histogram.getMax());
+        assertEquals(50000, histogram.getValueAtPercentile(50), 50000 / 64.0);
+        assertEquals(99000, histogram.getValueAtPercentile(99), 99000 / 64.0);
+        assertEquals(99900, histogram.getValueAtPercentile(99.9), 99900 / 64.0);
+        assertEquals(100000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void empty() {
+        LatencyHistogram histogram = new LatencyHistogram(1000);
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void outOfRange() {
+        LatencyHistogram histogram = new LatencyHistogram(1000);
+        histogram.record(-5);
+        histogram.record(1_000_000);
+
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(1000, histogram.getMax());
+        assertEquals(1000, histogram.getValueAtPercentile(100));
+    }
+}
@@ -0,0 +1,101 @@
+package com.payline.payment.oney.utils.metrics;
+
+import com.payline.payment.oney.bean.request.OneyTransactionStatusRequest;
+import com.payline.payment.oney.utils.PluginUtils;
+import com.payline.payment.oney.utils.http.OneyHttpClient;
+import com.payline.payment.oney.utils.http.OneyStubServer;
+import com.payline.pmapi.bean.configuration.PartnerConfiguration;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.payline.payment.oney.utils.OneyConstants.HEADER_COUNTRY_CODE;
+import static com.payline.payment.oney.utils.OneyConstants.PARTNER_API_URL;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OneyMetricsTest {
+
+    @Test
+    public void callEnded() {
+        List<String> reported = new ArrayList<>();
+        MetricsReporter reporter = (operation, countryCode, httpStatus, latencyMicros) ->
+                reported.add(operation + "/" + countryCode + "/" + httpStatus);
+        OneyMetrics.INSTANCE.addReporter(reporter);
+        try {
+            OneyMetrics.INSTANCE.callStarted();
+            OneyMetrics.INSTANCE.callEnded("test", "FR", 200, 1500);
+            OneyMetrics.INSTANCE.callStarted();
+            OneyMetrics.INSTANCE.callEnded("test", null, 0, 3000);
+        } finally {
+            OneyMetrics.INSTANCE.removeReporter(reporter);
+        }
+
+        assertEquals(1, OneyMetrics.INSTANCE.getCallCount("test/FR/200"));
+        assertEquals(1500, OneyMetrics.INSTANCE.getLatencyPercentile("test/FR/200", 99), 1500 / 64.0);
+        assertEquals(1, OneyMetrics.INSTANCE.getLatencies("test", null, 0).getCount());
+        assertEquals(0, OneyMetrics.INSTANCE.getCallCount("test/BE/200"));
+        assertEquals(2, reported.size());
+        assertEquals("test/FR/200", reported.get(0));
+    }
+
+    @Test
+    public void reporterFailure() {
+        MetricsReporter reporter = (operation, countryCode, httpStatus, latencyMicros) -> {
+            throw new IllegalStateException("foo");
+        };
+        OneyMetrics.INSTANCE.addReporter(reporter);
+        try {
+            OneyMetrics.INSTANCE.callStarted();
+            assertDoesNotThrow(() -> OneyMetrics.INSTANCE.callEnded("failing", "FR", 200, 10));
+        } finally {
+            OneyMetrics.INSTANCE.removeReporter(reporter);
+        }
+    }
+
+    @Test
+    public void jmx() throws Exception {
+        ObjectName name = new ObjectName(OneyMetrics.OBJECT_NAME);
+        OneyMetrics.INSTANCE.callStarted();
+        OneyMetrics.INSTANCE.callEnded("jmx", "IT", 500, 10);
+
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        String[] calls = (String[]) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Calls");
+        assertTrue(Arrays.asList(calls).contains("jmx/IT/500"));
+    }
+
+    @Test
+    public void partnerCall() throws Exception {
+        try (OneyStubServer server = OneyStubServer.Builder.aOneyStubServer().start()) {
+            Map<String, String> partnerConfiguration = new HashMap<>();
+            partnerConfiguration.put(OneyHttpClient.KEY_CONNECT_TIMEOUT, "1000");
+            partnerConfiguration.put(OneyHttpClient.CONNECTION_REQUEST_TIMEOUT, "1000");
+            partnerConfiguration.put(OneyHttpClient.READ_SOCKET_TIMEOUT, "2000");
+            partnerConfiguration.put(OneyHttpClient.POOL_MAX_SIZE_PER_ROUTE, "3");
+            OneyHttpClient client = OneyHttpClient.getInstance(new PartnerConfiguration(partnerConfiguration, new HashMap<>()));
+
+            Map<String, String> params = new HashMap<>();
+            params.put(PARTNER_API_URL, server.getUrl());
+            params.put(HEADER_COUNTRY_CODE, "PT");
+            OneyTransactionStatusRequest request = OneyTransactionStatusRequest.Builder.aOneyGetStatusRequest()
+                    .withLanguageCode("PT")
+                    .withMerchantGuid("merchantGuid")
+                    .withPspGuid("pspGuid")
+                    .withPurchaseReference(PluginUtils.fullPurchaseReference("ref"))
+                    .withCallParameters(params)
+                    .build();
+            long leases = OneyMetrics.INSTANCE.getLeaseWaitCount();
+
+            client.initiateGetTransactionStatus(request, false);
+
+            assertEquals(1, OneyMetrics.INSTANCE.getCallCount("status/PT/200"));
+            assertEquals(leases + 1, OneyMetrics.INSTANCE.getLeaseWaitCount());
+            assertEquals(0, OneyMetrics.INSTANCE.getInFlight());
+        }
+    }
+}